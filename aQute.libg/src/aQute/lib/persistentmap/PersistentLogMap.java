@@ -0,0 +1,673 @@
+package aQute.lib.persistentmap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import aQute.lib.io.IO;
+import aQute.lib.json.JSONCodec;
+import aQute.lib.strings.Strings;
+
+/**
+ * A map that is backed on a single append-only file in a directory. It has the
+ * same API as {@link PersistentMap}: all objects are stored as JSON objects
+ * and therefore should be DTOs.
+ * <p>
+ * Every update appends a record with the key and the JSON of the value, a
+ * removal appends a record without a value. An index in memory maps the keys
+ * to the position of their last record. Each record has a checksum, a record
+ * that was not completely written when the process died is dropped when the
+ * file is read again. The file is forced to disk at most every
+ * {@value #SYNC_INTERVAL} ms, on {@link #flush()}, and on {@link #close()}.
+ * When the file holds more superseded records than current ones, it is
+ * rewritten with only the current records.
+ * <p>
+ * Reads are concurrent, updates are serialized. Processes that share the
+ * directory lock it during updates and read the records the other processes
+ * appended before they update or when the file grew since the last read. The
+ * header of the file holds a generation that changes every time the file is
+ * rewritten, so a process reads all records again when another process
+ * rewrote the file.
+ * <p>
+ * When the directory has the {@code data} directory of a {@link PersistentMap}
+ * but no log file, its entries are copied into the log file when the map is
+ * opened. The {@code data} directory is left in place so that older versions
+ * that use a {@link PersistentMap} on the same directory still work, but it
+ * no longer receives the updates of this map.
+ */
+public class PersistentLogMap<V> extends AbstractMap<String, V> implements Closeable, Flushable {
+	final static JSONCodec			codec			= new JSONCodec();
+	final static int				MAGIC			= 0x424E444C;						// BNDL
+	final static int				VERSION			= 2;
+	/*
+	 * magic, version, and generation
+	 */
+	final static int				HEADER_SIZE		= 4 + 4 + 8;
+	/*
+	 * key length, value length, time, and checksum
+	 */
+	final static int				RECORD_SIZE		= 4 + 4 + 8 + 4;
+	final static long				SYNC_INTERVAL	= 100L;
+	final static long				MIN_COMPACT		= 64 * 1024L;
+	private static final char		ESCAPE			= '~';
+
+	final File						dir;
+	final File						log;
+	final Type						type;
+	private final RandomAccessFile	lockFile;
+	private final ReadWriteLock		rw				= new ReentrantReadWriteLock();
+	private final Map<String, Slot>	index			= new HashMap<>();
+	private FileChannel				channel;
+	private long					generation;
+	private long					end;
+	private long					garbage;
+	private long					lastSync;
+	private boolean					dirty;
+	private volatile boolean		closed;
+
+	/*
+	 * The last record of a key
+	 */
+	private final class Slot {
+		final long				position;
+		final int				keyLength;
+		final int				valueLength;
+		final long				time;
+		volatile SoftReference<V>	ref;
+
+		Slot(long position, int keyLength, int valueLength, long time) {
+			this.position = position;
+			this.keyLength = keyLength;
+			this.valueLength = valueLength;
+			this.time = time;
+		}
+
+		long size() {
+			return RECORD_SIZE + keyLength + Math.max(0, valueLength);
+		}
+	}
+
+	public PersistentLogMap(File dir, Type type) throws Exception {
+		this.dir = dir;
+		this.type = type;
+		this.log = new File(dir, "log");
+		IO.mkdirs(dir);
+		if (!dir.isDirectory())
+			throw new IllegalArgumentException("PersistentLogMap cannot create directory " + dir);
+
+		if (!dir.canWrite())
+			throw new IllegalArgumentException("PersistentLogMap cannot write directory " + dir);
+
+		lockFile = new RandomAccessFile(new File(dir, "lock"), "rw");
+		rw.writeLock()
+			.lock();
+		try {
+			FileLock lock = lock();
+			try {
+				if (!log.isFile()) {
+					migrate(new File(dir, "data"));
+				}
+				refresh();
+			} finally {
+				unlock(lock);
+			}
+		} catch (Exception e) {
+			IO.close(channel);
+			IO.close(lockFile);
+			throw e;
+		} finally {
+			rw.writeLock()
+				.unlock();
+		}
+	}
+
+	public PersistentLogMap(File dir, Class<V> type) throws Exception {
+		this(dir, (Type) type);
+	}
+
+	public PersistentLogMap(File dir, Class<V> type, Map<String, V> map) throws Exception {
+		this(dir, (Type) type);
+		putAll(map);
+	}
+
+	public PersistentLogMap(File dir, Type type, Map<String, V> map) throws Exception {
+		this(dir, type);
+		putAll(map);
+	}
+
+	@Override
+	public V get(Object key) {
+		check();
+		rw.readLock()
+			.lock();
+		try {
+			Slot slot = index.get(key);
+			return (slot != null) ? read(slot) : null;
+		} finally {
+			rw.readLock()
+				.unlock();
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		check();
+		rw.readLock()
+			.lock();
+		try {
+			return index.containsKey(key);
+		} finally {
+			rw.readLock()
+				.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		check();
+		rw.readLock()
+			.lock();
+		try {
+			return index.size();
+		} finally {
+			rw.readLock()
+				.unlock();
+		}
+	}
+
+	@Override
+	public V put(String key, V value) {
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		return update(() -> {
+			Slot old = index.get(key);
+			V result = (old != null) ? read(old) : null;
+			byte[] data = codec.enc()
+				.put(value)
+				.toString()
+				.getBytes(UTF_8);
+			append(key, data, System.currentTimeMillis()).ref = new SoftReference<>(value);
+			return result;
+		});
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (!(key instanceof String s)) {
+			return null;
+		}
+		return update(() -> {
+			Slot old = index.get(s);
+			if (old == null) {
+				return null;
+			}
+			V result = read(old);
+			append(s, null, System.currentTimeMillis());
+			return result;
+		});
+	}
+
+	@Override
+	public void clear() {
+		update(() -> {
+			index.clear();
+			rewrite();
+			return null;
+		});
+	}
+
+	/**
+	 * Remove the entries that were last updated before the given time.
+	 *
+	 * @param whenOlder the time in milliseconds since the epoch
+	 */
+	public void clear(long whenOlder) {
+		update(() -> {
+			List<String> old = new ArrayList<>();
+			index.forEach((k, slot) -> {
+				if (slot.time < whenOlder)
+					old.add(k);
+			});
+			for (String k : old) {
+				append(k, null, System.currentTimeMillis());
+			}
+			return null;
+		});
+	}
+
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		return new AbstractSet<Map.Entry<String, V>>() {
+
+			@Override
+			public int size() {
+				return PersistentLogMap.this.size();
+			}
+
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator() {
+				List<String> keys;
+				check();
+				rw.readLock()
+					.lock();
+				try {
+					keys = new ArrayList<>(index.keySet());
+				} finally {
+					rw.readLock()
+						.unlock();
+				}
+				return new Iterator<Map.Entry<String, V>>() {
+					final Iterator<String>	it	= keys.iterator();
+					Map.Entry<String, V>	next;
+					String					last;
+
+					@Override
+					public boolean hasNext() {
+						while (next == null && it.hasNext()) {
+							String key = it.next();
+							V value = get(key);
+							if (value != null) {
+								next = new AbstractMap.SimpleEntry<String, V>(key, value) {
+									private static final long serialVersionUID = 1L;
+
+									@Override
+									public V setValue(V value) {
+										super.setValue(value);
+										return put(getKey(), value);
+									}
+								};
+							}
+						}
+						return next != null;
+					}
+
+					@Override
+					public Map.Entry<String, V> next() {
+						if (!hasNext())
+							throw new NoSuchElementException();
+						Map.Entry<String, V> result = next;
+						next = null;
+						last = result.getKey();
+						return result;
+					}
+
+					@Override
+					public void remove() {
+						if (last == null)
+							throw new IllegalStateException();
+						PersistentLogMap.this.remove(last);
+						last = null;
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Force the appended records to disk.
+	 */
+	@Override
+	public void flush() throws IOException {
+		rw.writeLock()
+			.lock();
+		try {
+			if (dirty && channel != null) {
+				channel.force(false);
+				dirty = false;
+				lastSync = System.nanoTime();
+			}
+		} finally {
+			rw.writeLock()
+				.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		try {
+			flush();
+		} finally {
+			rw.writeLock()
+				.lock();
+			try {
+				closed = true;
+				IO.close(channel);
+				lockFile.close();
+			} finally {
+				rw.writeLock()
+					.unlock();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PersistentLogMap[" + dir + "] " + super.toString();
+	}
+
+	private <R> R update(Callable<R> update) {
+		if (closed)
+			throw new IllegalStateException("PersistentLogMap " + dir + " is already closed");
+		rw.writeLock()
+			.lock();
+		try {
+			FileLock lock = lock();
+			try {
+				refresh();
+				R result = update.call();
+				if (garbage > MIN_COMPACT && garbage > end - HEADER_SIZE - garbage) {
+					rewrite();
+				} else if (dirty && System.nanoTime() - lastSync > TimeUnit.MILLISECONDS.toNanos(SYNC_INTERVAL)) {
+					channel.force(false);
+					dirty = false;
+					lastSync = System.nanoTime();
+				}
+				return result;
+			} finally {
+				unlock(lock);
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			rw.writeLock()
+				.unlock();
+		}
+	}
+
+	/*
+	 * Read the records other processes appended when the file grew
+	 */
+	private void check() {
+		if (closed)
+			throw new IllegalStateException("PersistentLogMap " + dir + " is already closed");
+		rw.readLock()
+			.lock();
+		try {
+			if (channel.size() == end)
+				return;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			rw.readLock()
+				.unlock();
+		}
+		update(() -> null);
+	}
+
+	/*
+	 * Read the records that were appended since the last read, or all records
+	 * when another process rewrote the file. Must hold the write lock and the
+	 * directory lock.
+	 */
+	private void refresh() throws IOException {
+		if (!log.isFile()) {
+			write(log, ThreadLocalRandom.current()
+				.nextLong(), Map.of(), Map.of());
+		}
+		if (channel == null || channel.size() < end || generation(log) != generation) {
+			IO.close(channel);
+			index.clear();
+			garbage = 0L;
+			channel = FileChannel.open(log.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			generation = header(channel);
+			end = HEADER_SIZE;
+		}
+		if (channel.size() == end) {
+			return;
+		}
+		channel.position(end);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		CRC32 crc = new CRC32();
+		DataInputStream checked = new DataInputStream(new CheckedInputStream(in, crc));
+		long limit = channel.size();
+		while (end < limit) {
+			crc.reset();
+			try {
+				int keyLength = checked.readInt();
+				int valueLength = checked.readInt();
+				long time = checked.readLong();
+				if (keyLength < 0 || valueLength < -1
+					|| end + RECORD_SIZE + keyLength + Math.max(0, valueLength) > limit) {
+					break;
+				}
+				byte[] key = new byte[keyLength];
+				checked.readFully(key);
+				checked.skipNBytes(Math.max(0, valueLength));
+				int sum = (int) crc.getValue();
+				if (in.readInt() != sum) {
+					break;
+				}
+				apply(new String(key, UTF_8), new Slot(end, keyLength, valueLength, time));
+			} catch (EOFException e) {
+				break;
+			}
+		}
+		if (end < limit) {
+			// the tail of a record that was not completely written
+			channel.truncate(end);
+		}
+	}
+
+	private void apply(String key, Slot slot) {
+		Slot old;
+		if (slot.valueLength < 0) {
+			old = index.remove(key);
+			garbage += slot.size();
+		} else {
+			old = index.put(key, slot);
+		}
+		if (old != null) {
+			garbage += old.size();
+		}
+		end += slot.size();
+	}
+
+	private Slot append(String key, byte[] value, long time) throws IOException {
+		byte[] k = key.getBytes(UTF_8);
+		int valueLength = (value != null) ? value.length : -1;
+		ByteBuffer bb = record(k, value, time);
+		long position = end;
+		while (bb.hasRemaining()) {
+			position += channel.write(bb, position);
+		}
+		Slot slot = new Slot(end, k.length, valueLength, time);
+		apply(key, slot);
+		dirty = true;
+		return slot;
+	}
+
+	private static ByteBuffer record(byte[] key, byte[] value, long time) {
+		int valueLength = (value != null) ? value.length : -1;
+		ByteBuffer bb = ByteBuffer.allocate(RECORD_SIZE + key.length + Math.max(0, valueLength));
+		bb.putInt(key.length)
+			.putInt(valueLength)
+			.putLong(time)
+			.put(key);
+		if (value != null) {
+			bb.put(value);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bb.array(), 0, bb.position());
+		bb.putInt((int) crc.getValue());
+		return bb.flip();
+	}
+
+	@SuppressWarnings("unchecked")
+	private V read(Slot slot) {
+		SoftReference<V> ref = slot.ref;
+		V value = (ref != null) ? ref.get() : null;
+		if (value != null) {
+			return value;
+		}
+		try {
+			value = (V) codec.dec()
+				.from(data(slot))
+				.get(type);
+			slot.ref = new SoftReference<>(value);
+			return value;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private byte[] data(Slot slot) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(slot.valueLength);
+		long position = slot.position + RECORD_SIZE - 4 + slot.keyLength;
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, position + bb.position()) < 0) {
+				throw new EOFException("PersistentLogMap truncated log file " + log);
+			}
+		}
+		return bb.array();
+	}
+
+	/*
+	 * Replace the file with a file that only has the current records
+	 */
+	private void rewrite() throws Exception {
+		Map<String, byte[]> values = new HashMap<>();
+		Map<String, Long> times = new HashMap<>();
+		for (Map.Entry<String, Slot> e : index.entrySet()) {
+			values.put(e.getKey(), data(e.getValue()));
+			times.put(e.getKey(), e.getValue().time);
+		}
+		File tmp = new File(dir, log.getName() + ".tmp");
+		write(tmp, generation + 1, values, times);
+		IO.rename(tmp, log);
+		channel.close();
+		channel = null;
+		dirty = false;
+		lastSync = System.nanoTime();
+		refresh();
+	}
+
+	/*
+	 * The generation of the file at the path, which is not the file of the
+	 * channel when another process rewrote it
+	 */
+	private long generation(File file) throws IOException {
+		try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return header(in);
+		}
+	}
+
+	/*
+	 * Check the header and return the generation
+	 */
+	private long header(FileChannel in) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && in.read(header, header.position()) > 0) {}
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException("PersistentLogMap invalid log file " + log);
+		}
+		return header.getLong();
+	}
+
+	/*
+	 * Write a new file with the given records and force it to disk
+	 */
+	private static void write(File file, long generation, Map<String, byte[]> values, Map<String, Long> times)
+		throws IOException {
+		try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+				.putInt(MAGIC)
+				.putInt(VERSION)
+				.putLong(generation)
+				.flip();
+			while (header.hasRemaining()) {
+				out.write(header);
+			}
+			for (Map.Entry<String, byte[]> e : values.entrySet()) {
+				ByteBuffer bb = record(e.getKey()
+					.getBytes(UTF_8), e.getValue(), times.get(e.getKey()));
+				while (bb.hasRemaining()) {
+					out.write(bb);
+				}
+			}
+			out.force(true);
+		}
+	}
+
+	/*
+	 * Copy the entries of a PersistentMap directory into a new file
+	 */
+	private void migrate(File data) throws IOException {
+		File[] files = data.listFiles();
+		if (files == null) {
+			return;
+		}
+		Map<String, byte[]> values = new HashMap<>();
+		Map<String, Long> times = new HashMap<>();
+		for (File file : files) {
+			String key = Strings.unescape(file.getName(), ESCAPE)
+				.orElse(null);
+			if (key != null && file.isFile()) {
+				values.put(key, IO.read(file));
+				times.put(key, file.lastModified());
+			}
+		}
+		File tmp = new File(dir, log.getName() + ".tmp");
+		write(tmp, ThreadLocalRandom.current()
+			.nextLong(), values, times);
+		IO.rename(tmp, log);
+	}
+
+	private FileLock lock() throws IOException, InterruptedException {
+		int count = 400;
+		while (true)
+			try {
+				return lockFile.getChannel()
+					.lock();
+			} catch (OverlappingFileLockException e) {
+				if (count-- > 0)
+					TimeUnit.MILLISECONDS.sleep(5);
+				else
+					throw new IOException("PersistentLogMap could not obtain lock " + dir);
+			}
+	}
+
+	private void unlock(FileLock lock) throws IOException {
+		if (lock.isValid())
+			lock.release();
+	}
+}
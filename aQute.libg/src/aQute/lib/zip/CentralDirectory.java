@@ -0,0 +1,322 @@
+package aQute.lib.zip;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A parser for the central directory of a ZIP file. The central directory is
+ * read from a buffer so it can be used on a memory mapped file as well as on
+ * pieces of a remote file.
+ *
+ * @see <a href=
+ *      "https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT">APPNOTE.TXT</a>
+ */
+public class CentralDirectory {
+	private static final int	LOCSIG				= 0x04034b50;
+	private static final int	CENSIG				= 0x02014b50;
+	private static final int	ENDSIG				= 0x06054b50;
+	private static final int	ZIP64_ENDSIG		= 0x06064b50;
+	private static final int	ZIP64_LOCSIG		= 0x07064b50;
+	private static final int	CENHDR				= 46;
+	private static final int	ENDHDR				= 22;
+	private static final int	ZIP64_LOCHDR		= 20;
+	private static final int	ZIP64_ENDHDR		= 56;
+	private static final int	ZIP64_EXTID			= 0x0001;
+	private static final long	ZIP64_MAGICVAL		= 0xFFFFFFFFL;
+
+	/**
+	 * The maximum number of bytes at the end of a ZIP file that must be read
+	 * to find the end of central directory record including a ZIP64 end of
+	 * central directory locator and record.
+	 */
+	public static final int		TAIL_SIZE			= ENDHDR + 0xFFFF + ZIP64_LOCHDR + ZIP64_ENDHDR;
+
+	/**
+	 * The size of the fixed part of a local file header.
+	 */
+	public static final int		LOCAL_HEADER_SIZE	= 30;
+
+	/**
+	 * The position and size of the central directory in a ZIP file.
+	 */
+	public record Location(long offset, long size, long entries) {}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	public record Entry(String name, int method, int flags, long crc, long compressedSize, long size,
+		long localHeaderOffset, long dosTime, byte[] extra) {
+
+		/**
+		 * @return {@code true} if the entry is a directory entry.
+		 */
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		/**
+		 * @return {@code true} if the entry is encrypted.
+		 */
+		public boolean isEncrypted() {
+			return (flags & 1) != 0;
+		}
+
+		/**
+		 * Convert this entry to a {@link ZipEntry}. The modification time is
+		 * taken from the extended timestamp extra field if present, otherwise
+		 * from the MS-DOS time of the entry.
+		 */
+		public ZipEntry toZipEntry() {
+			ZipEntry entry = new ZipEntry(name);
+			entry.setMethod(method);
+			entry.setTime(dosToJavaTime(dosTime));
+			entry.setCrc(crc);
+			entry.setSize(size);
+			entry.setCompressedSize(compressedSize);
+			if (extra != null) {
+				entry.setExtra(extra);
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * Locate the central directory from the tail of a ZIP file.
+	 *
+	 * @param tail The last bytes of the ZIP file, at most {@link #TAIL_SIZE}
+	 *            bytes are needed. The position and limit of the buffer are
+	 *            not modified.
+	 * @param tailOffset The offset of the first byte of the tail in the ZIP
+	 *            file.
+	 * @return The location of the central directory.
+	 * @throws ZipException If no end of central directory record can be found.
+	 */
+	public static Location locate(ByteBuffer tail, long tailOffset) throws ZipException {
+		ByteBuffer bb = tail.slice()
+			.order(ByteOrder.LITTLE_ENDIAN);
+		for (int end = bb.limit() - ENDHDR; end >= 0; end--) {
+			if (bb.getInt(end) != ENDSIG) {
+				continue;
+			}
+			int commentLength = Short.toUnsignedInt(bb.getShort(end + 20));
+			if (end + ENDHDR + commentLength != bb.limit()) {
+				continue; // signature inside the comment
+			}
+			long entries = Short.toUnsignedInt(bb.getShort(end + 10));
+			long size = Integer.toUnsignedLong(bb.getInt(end + 12));
+			long offset = Integer.toUnsignedLong(bb.getInt(end + 16));
+
+			int locator = end - ZIP64_LOCHDR;
+			if (locator >= 0 && bb.getInt(locator) == ZIP64_LOCSIG) {
+				long zip64End = bb.getLong(locator + 8) - tailOffset;
+				if (zip64End < 0 || zip64End + ZIP64_ENDHDR > locator
+					|| bb.getInt((int) zip64End) != ZIP64_ENDSIG) {
+					throw new ZipException("Invalid ZIP64 end of central directory record");
+				}
+				entries = bb.getLong((int) zip64End + 32);
+				size = bb.getLong((int) zip64End + 40);
+				offset = bb.getLong((int) zip64End + 48);
+			}
+			return new Location(offset, size, entries);
+		}
+		throw new ZipException("End of central directory record not found");
+	}
+
+	/**
+	 * Parse the entries of a central directory.
+	 *
+	 * @param cd The central directory as located by
+	 *            {@link #locate(ByteBuffer, long)}. The position and limit of
+	 *            the buffer are not modified.
+	 * @return The entries in the order of the central directory.
+	 * @throws ZipException If the central directory is not valid.
+	 */
+	public static List<Entry> parse(ByteBuffer cd) throws ZipException {
+		ByteBuffer bb = cd.slice()
+			.order(ByteOrder.LITTLE_ENDIAN);
+		List<Entry> entries = new ArrayList<>();
+		int position = 0;
+		while (position + CENHDR <= bb.limit()) {
+			if (bb.getInt(position) != CENSIG) {
+				throw new ZipException("Invalid central directory header at " + position);
+			}
+			int flags = Short.toUnsignedInt(bb.getShort(position + 8));
+			int method = Short.toUnsignedInt(bb.getShort(position + 10));
+			long dosTime = Integer.toUnsignedLong(bb.getInt(position + 12));
+			long crc = Integer.toUnsignedLong(bb.getInt(position + 16));
+			long compressedSize = Integer.toUnsignedLong(bb.getInt(position + 20));
+			long size = Integer.toUnsignedLong(bb.getInt(position + 24));
+			int nameLength = Short.toUnsignedInt(bb.getShort(position + 28));
+			int extraLength = Short.toUnsignedInt(bb.getShort(position + 30));
+			int commentLength = Short.toUnsignedInt(bb.getShort(position + 32));
+			long localHeaderOffset = Integer.toUnsignedLong(bb.getInt(position + 42));
+
+			int next = position + CENHDR + nameLength + extraLength + commentLength;
+			if (next > bb.limit()) {
+				throw new ZipException("Truncated central directory header at " + position);
+			}
+
+			byte[] name = new byte[nameLength];
+			bb.get(position + CENHDR, name);
+			byte[] extra = null;
+			if (extraLength > 0) {
+				extra = new byte[extraLength];
+				bb.get(position + CENHDR + nameLength, extra);
+
+				// Replace the 32 bit values from the ZIP64 extended information
+				ByteBuffer ext = ByteBuffer.wrap(extra)
+					.order(ByteOrder.LITTLE_ENDIAN);
+				while (ext.remaining() >= Short.BYTES * 2) {
+					int id = Short.toUnsignedInt(ext.getShort());
+					int length = Short.toUnsignedInt(ext.getShort());
+					if (length > ext.remaining()) {
+						break; // invalid extra field
+					}
+					if (id == ZIP64_EXTID) {
+						int end = ext.position() + length;
+						if (size == ZIP64_MAGICVAL && ext.position() + Long.BYTES <= end) {
+							size = ext.getLong();
+						}
+						if (compressedSize == ZIP64_MAGICVAL && ext.position() + Long.BYTES <= end) {
+							compressedSize = ext.getLong();
+						}
+						if (localHeaderOffset == ZIP64_MAGICVAL && ext.position() + Long.BYTES <= end) {
+							localHeaderOffset = ext.getLong();
+						}
+						break;
+					}
+					ext.position(ext.position() + length);
+				}
+			}
+
+			entries.add(new Entry(new String(name, UTF_8), method, flags, crc, compressedSize, size,
+				localHeaderOffset, dosTime, extra));
+			position = next;
+		}
+		return entries;
+	}
+
+	/**
+	 * Read the central directory of a ZIP file.
+	 *
+	 * @param channel The ZIP file.
+	 * @return The entries in the order of the central directory.
+	 * @throws IOException If the file cannot be read or is not a ZIP file.
+	 */
+	public static List<Entry> read(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long tailOffset = Math.max(0L, size - TAIL_SIZE);
+		ByteBuffer tail = read(channel, tailOffset, (int) (size - tailOffset));
+		Location location = locate(tail, tailOffset);
+		if (location.offset() + location.size() > size || location.size() > Integer.MAX_VALUE) {
+			throw new ZipException("Invalid central directory location");
+		}
+		return parse(read(channel, location.offset(), (int) location.size()));
+	}
+
+	/**
+	 * Read the data of an entry as it is stored in the ZIP file, that is
+	 * compressed if the entry is compressed.
+	 *
+	 * <p>
+	 * The local file header must match the entry: the name, the compression
+	 * method, and, when they are in the local file header, the CRC and the
+	 * compressed size.
+	 *
+	 * @param channel The ZIP file.
+	 * @param entry The entry.
+	 * @return The data of the entry.
+	 * @throws IOException If the file cannot be read or the local file header
+	 *             does not match the entry.
+	 */
+	public static ByteBuffer data(FileChannel channel, Entry entry) throws IOException {
+		if (entry.compressedSize() > Integer.MAX_VALUE) {
+			throw new ZipException("Entry too large " + entry.name());
+		}
+		long offset = entry.localHeaderOffset();
+		ByteBuffer header = read(channel, offset, LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		int dataOffset = dataOffset(header);
+		byte[] name = entry.name()
+			.getBytes(UTF_8);
+		int flags = Short.toUnsignedInt(header.getShort(6));
+		if (Short.toUnsignedInt(header.getShort(8)) != entry.method()
+			|| Short.toUnsignedInt(header.getShort(26)) != name.length || ((flags & 0x8) == 0
+				&& (Integer.toUnsignedLong(header.getInt(14)) != entry.crc()
+					|| (Integer.toUnsignedLong(header.getInt(18)) != entry.compressedSize()
+						&& header.getInt(18) != -1)))
+			|| !read(channel, offset + LOCAL_HEADER_SIZE, name.length).equals(ByteBuffer.wrap(name))) {
+			throw new ZipException("Local file header does not match entry " + entry.name());
+		}
+		return read(channel, offset + dataOffset, (int) entry.compressedSize());
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(length);
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, position + bb.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		return bb.flip();
+	}
+
+	/**
+	 * Calculate the offset of the entry data relative to the start of the
+	 * local file header.
+	 *
+	 * @param localHeader A buffer starting at the local file header of the
+	 *            entry, at least {@link #LOCAL_HEADER_SIZE} bytes. The
+	 *            position and limit of the buffer are not modified.
+	 * @return The offset of the entry data.
+	 * @throws ZipException If the buffer does not start with a local file
+	 *             header.
+	 */
+	public static int dataOffset(ByteBuffer localHeader) throws ZipException {
+		ByteBuffer bb = localHeader.slice()
+			.order(ByteOrder.LITTLE_ENDIAN);
+		if (bb.getInt(0) != LOCSIG) {
+			throw new ZipException("Invalid local file header");
+		}
+		int nameLength = Short.toUnsignedInt(bb.getShort(26));
+		int extraLength = Short.toUnsignedInt(bb.getShort(28));
+		return LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	/**
+	 * Convert a Java time to an MS-DOS date and time in the default time zone
+	 * like {@link ZipEntry#setTime(long)} does.
+	 *
+	 * @param time The time in milliseconds since the epoch.
+	 * @return The MS-DOS date and time.
+	 */
+	public static long javaToDosTime(long time) {
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		int year = ldt.getYear() - 1980;
+		if (year < 0) {
+			return (1 << 21) | (1 << 16); // 1980-01-01
+		}
+		return (year << 25 | ldt.getMonthValue() << 21 | ldt.getDayOfMonth() << 16 | ldt.getHour() << 11
+			| ldt.getMinute() << 5 | ldt.getSecond() >> 1) & 0xFFFFFFFFL;
+	}
+
+	@SuppressWarnings("deprecation")
+	static long dosToJavaTime(long dtime) {
+		Date date = new Date((int) (((dtime >> 25) & 0x7f) + 80), (int) (((dtime >> 21) & 0x0f) - 1),
+			(int) ((dtime >> 16) & 0x1f), (int) ((dtime >> 11) & 0x1f), (int) ((dtime >> 5) & 0x3f),
+			(int) ((dtime << 1) & 0x3e));
+		return date.getTime();
+	}
+}
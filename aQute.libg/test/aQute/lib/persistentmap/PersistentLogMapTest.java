@@ -0,0 +1,239 @@
+package aQute.lib.persistentmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.persistentmap.PersistentMapTest.X;
+
+public class PersistentLogMapTest {
+
+	@InjectTemporaryDirectory
+	File tmp;
+
+	@Test
+	public void testSimple() throws Exception {
+		File dir = new File(tmp, "simple");
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm.put("abc", "def")).isNull();
+			assertThat(pm.put("abc/../..", "ghi")).isNull();
+			assertThat(pm.put("abc", "xyz")).isEqualTo("def");
+			assertThat(pm.get("abc")).isEqualTo("xyz");
+			assertThat(pm.remove("abc/../..")).isEqualTo("ghi");
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).containsExactly(Map.entry("abc", "xyz"));
+			for (Map.Entry<String, String> e : pm.entrySet()) {
+				e.setValue("XXX");
+			}
+			assertThat(pm.get("abc")).isEqualTo("XXX");
+		}
+		assertThat(new File(dir, "log")).isFile();
+		assertThat(new File(dir, "data")).doesNotExist();
+	}
+
+	@Test
+	public void testStructs() throws Exception {
+		File dir = new File(tmp, "structs");
+		try (PersistentLogMap<X> pm = new PersistentLogMap<>(dir, X.class)) {
+			X x = new X();
+			x.abc = "def";
+			x.def = 5;
+			x.list.add("abc");
+			assertThat(pm.put("abc", x)).isNull();
+		}
+		try (PersistentLogMap<X> pm = new PersistentLogMap<>(dir, X.class)) {
+			X x = pm.get("abc");
+			assertThat(x.abc).isEqualTo("def");
+			assertThat(x.def).isEqualTo(5);
+			assertThat(x.list).containsExactly("abc");
+			pm.remove("abc");
+			assertThat(pm).isEmpty();
+		}
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		File dir = new File(tmp, "compaction");
+		File log = new File(dir, "log");
+		String value = "x".repeat(1000);
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			for (int i = 0; i < 1000; i++) {
+				pm.put("key" + (i % 10), value + i);
+			}
+			assertThat(pm).hasSize(10);
+			assertThat(log.length()).isLessThan(2 * PersistentLogMap.MIN_COMPACT + 20 * 1024L);
+			assertThat(pm.get("key3")).isEqualTo(value + 993);
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).hasSize(10);
+			assertThat(pm.get("key9")).isEqualTo(value + 999);
+			pm.clear();
+			assertThat(pm).isEmpty();
+			assertThat(log.length()).isEqualTo(PersistentLogMap.HEADER_SIZE);
+		}
+	}
+
+	@Test
+	public void testTornRecord() throws Exception {
+		File dir = new File(tmp, "torn");
+		File log = new File(dir, "log");
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			pm.put("a", "1");
+			pm.put("b", "2");
+		}
+		long length = log.length();
+		try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+			raf.seek(length);
+			raf.writeInt(1);
+			raf.writeInt(100);
+			raf.writeLong(0L);
+			raf.write('c');
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).containsOnly(Map.entry("a", "1"), Map.entry("b", "2"));
+			assertThat(log.length()).isEqualTo(length);
+			pm.put("c", "3");
+		}
+
+		// a corrupted record and everything after it is dropped
+		try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+			raf.seek(raf.length() - 5);
+			raf.write('X');
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).containsOnly(Map.entry("a", "1"), Map.entry("b", "2"));
+		}
+	}
+
+	@Test
+	public void testMigration() throws Exception {
+		File dir = new File(tmp, "migration");
+		try (PersistentMap<String> pm = new PersistentMap<>(dir, String.class)) {
+			pm.put("abc", "def");
+			pm.put("abc/../../", "ghi");
+		}
+		assertThat(new File(dir, "data")).isDirectory();
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).containsOnly(Map.entry("abc", "def"), Map.entry("abc/../../", "ghi"));
+			pm.put("xyz", "jkl");
+		}
+		// the old layout is kept for older versions
+		assertThat(new File(dir, "data")).isDirectory();
+		try (PersistentMap<String> pm = new PersistentMap<>(dir, String.class)) {
+			assertThat(pm).containsOnly(Map.entry("abc", "def"), Map.entry("abc/../../", "ghi"));
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).containsOnly(Map.entry("abc", "def"), Map.entry("abc/../../", "ghi"), Map.entry("xyz", "jkl"));
+		}
+	}
+
+	@Test
+	public void testClearOlder() throws Exception {
+		File dir = new File(tmp, "older");
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			pm.put("a", "1");
+			long now = System.currentTimeMillis() + 1;
+			while (System.currentTimeMillis() <= now) {
+				Thread.sleep(1);
+			}
+			pm.put("b", "2");
+			pm.clear(now);
+			assertThat(pm).containsOnly(Map.entry("b", "2"));
+		}
+	}
+
+	@Test
+	public void testShared() throws Exception {
+		File dir = new File(tmp, "shared");
+		try (PersistentLogMap<String> a = new PersistentLogMap<>(dir, String.class);
+			PersistentLogMap<String> b = new PersistentLogMap<>(dir, String.class)) {
+			a.put("a", "1");
+			assertThat(b.get("a")).isEqualTo("1");
+			b.put("b", "2");
+			b.remove("a");
+			assertThat(a).containsOnly(Map.entry("b", "2"));
+
+			b.clear();
+			a.put("c", "3");
+			assertThat(b).containsOnly(Map.entry("c", "3"));
+		}
+	}
+
+	@Test
+	public void testRewriteByOther() throws Exception {
+		File dir = new File(tmp, "rewrite");
+		File log = new File(dir, "log");
+		try (PersistentLogMap<String> a = new PersistentLogMap<>(dir, String.class);
+			PersistentLogMap<String> b = new PersistentLogMap<>(dir, String.class)) {
+			a.put("a", "1");
+			long generation = generation(log);
+
+			// the rewritten file is longer than the file a last read
+			b.clear();
+			for (int i = 0; i < 10; i++) {
+				b.put("b" + i, "2");
+			}
+			assertThat(generation(log)).isNotEqualTo(generation);
+
+			a.put("c", "3");
+			assertThat(a).hasSize(11)
+				.doesNotContainKey("a")
+				.containsEntry("c", "3");
+			assertThat(b).hasSize(11)
+				.containsEntry("c", "3");
+		}
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			assertThat(pm).hasSize(11)
+				.containsEntry("c", "3");
+		}
+	}
+
+	private static long generation(File log) throws Exception {
+		try (RandomAccessFile raf = new RandomAccessFile(log, "r")) {
+			raf.seek(8);
+			return raf.readLong();
+		}
+	}
+
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		File dir = new File(tmp, "concurrent");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (PersistentLogMap<String> pm = new PersistentLogMap<>(dir, String.class)) {
+			for (int i = 0; i < 100; i++) {
+				pm.put("key" + i, "value" + i);
+			}
+			List<Future<?>> futures = new ArrayList<>();
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 2000; i++) {
+					pm.put("key" + (i % 100), "value" + (i % 100));
+				}
+				return null;
+			}));
+			for (int n = 0; n < 3; n++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 2000; i++) {
+						assertThat(pm.get("key" + (i % 100))).isEqualTo("value" + (i % 100));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
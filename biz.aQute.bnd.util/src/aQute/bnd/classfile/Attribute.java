@@ -3,6 +3,8 @@ package aQute.bnd.classfile;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Predicate;
 
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -17,24 +19,54 @@ public interface Attribute {
 	int attribute_length();
 
 	static Attribute[] readAttributes(DataInput in, ConstantPool constant_pool) throws IOException {
+		return readAttributes(in, constant_pool, null);
+	}
+
+	/**
+	 * Read the attributes whose name is accepted by the filter. The other
+	 * attributes are skipped without decoding them.
+	 *
+	 * @param filter The names of the attributes to read, or {@code null} to
+	 *            read all attributes.
+	 */
+	static Attribute[] readAttributes(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
 		int attributes_count = in.readUnsignedShort();
 		Attribute[] attributes = new Attribute[attributes_count];
+		int n = 0;
 		for (int i = 0; i < attributes_count; i++) {
-			attributes[i] = readAttribute(in, constant_pool);
+			Attribute attribute = readAttribute(in, constant_pool, filter);
+			if (attribute != null) {
+				attributes[n++] = attribute;
+			}
 		}
 
-		return attributes;
+		return (n == attributes_count) ? attributes : Arrays.copyOf(attributes, n);
 	}
 
 	static Attribute readAttribute(DataInput in, ConstantPool constant_pool) throws IOException {
+		return readAttribute(in, constant_pool, null);
+	}
+
+	/**
+	 * Read the attribute if its name is accepted by the filter.
+	 *
+	 * @return The attribute or {@code null} if it was skipped.
+	 */
+	static Attribute readAttribute(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
 		int attribute_name_index = in.readUnsignedShort();
 		int attribute_length = in.readInt();
 		String attribute_name = constant_pool.utf8(attribute_name_index);
+		if ((filter != null) && !filter.test(attribute_name)) {
+			in.skipBytes(attribute_length);
+			return null;
+		}
 		in = LimitedDataInput.wrap(in, attribute_length);
 		return switch (attribute_name) {
 			case AnnotationDefaultAttribute.NAME -> AnnotationDefaultAttribute.read(in, constant_pool);
 			case BootstrapMethodsAttribute.NAME -> BootstrapMethodsAttribute.read(in, constant_pool);
-			case CodeAttribute.NAME -> CodeAttribute.read(in, constant_pool);
+			case CodeAttribute.NAME -> CodeAttribute.read(in, constant_pool, filter);
 			case ConstantValueAttribute.NAME -> ConstantValueAttribute.read(in, constant_pool);
 			case DeprecatedAttribute.NAME -> DeprecatedAttribute.read(in, constant_pool);
 			case EnclosingMethodAttribute.NAME -> EnclosingMethodAttribute.read(in, constant_pool);
@@ -65,7 +97,7 @@ public interface Attribute {
 			case SourceFileAttribute.NAME -> SourceFileAttribute.read(in, constant_pool);
 			case StackMapTableAttribute.NAME -> StackMapTableAttribute.read(in, constant_pool);
 			case SyntheticAttribute.NAME -> SyntheticAttribute.read(in, constant_pool);
-			case RecordAttribute.NAME -> RecordAttribute.read(in, constant_pool);
+			case RecordAttribute.NAME -> RecordAttribute.read(in, constant_pool, filter);
 			case PermittedSubclassesAttribute.NAME -> PermittedSubclassesAttribute.read(in, constant_pool);
 			default -> UnrecognizedAttribute.read(in, attribute_name, attribute_length);
 		};
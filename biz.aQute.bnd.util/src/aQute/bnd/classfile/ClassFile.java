@@ -9,6 +9,7 @@ import java.io.OutputStream;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 import aQute.lib.io.ByteBufferDataInput;
 import aQute.lib.io.ByteBufferDataOutput;
@@ -67,6 +68,24 @@ public class ClassFile extends ElementInfo {
 	}
 
 	public static ClassFile parseClassFile(DataInput in) throws IOException {
+		return parseClassFile(in, null);
+	}
+
+	/**
+	 * Parse a class file and only decode the attributes that are accepted by
+	 * the filter. The other attributes are skipped and are not present in the
+	 * returned class file, its fields, methods, and Code attributes.
+	 * <p>
+	 * When the input is a {@link ByteBufferDataInput}, the CONSTANT_Utf8
+	 * entries of the constant pool are decoded on first access from the
+	 * buffer, which must therefore not be modified. The input is then
+	 * consumed up to its limit.
+	 *
+	 * @param in The class file.
+	 * @param filter The names of the attributes to decode, or {@code null} to
+	 *            decode all attributes.
+	 */
+	public static ClassFile parseClassFile(DataInput in, Predicate<String> filter) throws IOException {
 		int magic = in.readInt();
 		if (magic != 0xCAFEBABE) {
 			throw new IOException("Not a valid class file (no CAFEBABE header)");
@@ -75,7 +94,14 @@ public class ClassFile extends ElementInfo {
 		int minor_version = in.readUnsignedShort();
 		int major_version = in.readUnsignedShort();
 
-		ConstantPool constant_pool = ConstantPool.read(in);
+		ConstantPool constant_pool;
+		if (in instanceof ByteBufferDataInput bbin) {
+			ByteBuffer bb = bbin.slice(Integer.MAX_VALUE);
+			constant_pool = ConstantPool.read(bb);
+			in = ByteBufferDataInput.wrap(bb);
+		} else {
+			constant_pool = ConstantPool.read(in);
+		}
 
 		int access_flags = in.readUnsignedShort();
 
@@ -95,16 +121,16 @@ public class ClassFile extends ElementInfo {
 		int fields_count = in.readUnsignedShort();
 		FieldInfo[] fields = new FieldInfo[fields_count];
 		for (int i = 0; i < fields_count; i++) {
-			fields[i] = FieldInfo.read(in, constant_pool);
+			fields[i] = FieldInfo.read(in, constant_pool, filter);
 		}
 
 		int methods_count = in.readUnsignedShort();
 		MethodInfo[] methods = new MethodInfo[methods_count];
 		for (int i = 0; i < methods_count; i++) {
-			methods[i] = MethodInfo.read(in, constant_pool);
+			methods[i] = MethodInfo.read(in, constant_pool, filter);
 		}
 
-		Attribute[] attributes = Attribute.readAttributes(in, constant_pool);
+		Attribute[] attributes = Attribute.readAttributes(in, constant_pool, filter);
 
 		ClassFile class_file = new ClassFile(minor_version, major_version, constant_pool, access_flags, this_class,
 			super_class, interfaces, fields, methods, attributes);
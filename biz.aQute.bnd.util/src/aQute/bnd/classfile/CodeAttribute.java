@@ -5,6 +5,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 import aQute.lib.io.IO;
 
@@ -36,6 +37,11 @@ public class CodeAttribute implements Attribute {
 	}
 
 	public static CodeAttribute read(DataInput in, ConstantPool constant_pool) throws IOException {
+		return read(in, constant_pool, null);
+	}
+
+	public static CodeAttribute read(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
 		int max_stack = in.readUnsignedShort();
 		int max_locals = in.readUnsignedShort();
 		int code_length = in.readInt();
@@ -45,7 +51,7 @@ public class CodeAttribute implements Attribute {
 		for (int i = 0; i < exception_table_length; i++) {
 			exception_table[i] = ExceptionHandler.read(in, constant_pool);
 		}
-		Attribute[] attributes = Attribute.readAttributes(in, constant_pool);
+		Attribute[] attributes = Attribute.readAttributes(in, constant_pool, filter);
 		return new CodeAttribute(max_stack, max_locals, code, exception_table, attributes);
 	}
 
@@ -5,12 +5,15 @@ import static java.util.Objects.requireNonNull;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.osgi.annotation.versioning.ProviderType;
 
+import aQute.lib.io.ByteBufferDataInput;
+
 public class ConstantPool {
 	public static final int	CONSTANT_Utf8				= 1;
 	public static final int	CONSTANT_Integer			= 3;
@@ -31,9 +34,21 @@ public class ConstantPool {
 	public static final int	CONSTANT_Package			= 20;
 
 	final Object[]			pool;
+	/*
+	 * The class file and the offsets of the CONSTANT_Utf8 entries that are
+	 * not decoded yet
+	 */
+	private final ByteBuffer	buffer;
+	private final int[]			offsets;
 
 	public ConstantPool(Object[] pool) {
+		this(pool, null, null);
+	}
+
+	private ConstantPool(Object[] pool, ByteBuffer buffer, int[] offsets) {
 		this.pool = pool;
+		this.buffer = buffer;
+		this.offsets = offsets;
 	}
 
 	public int size() {
@@ -42,10 +57,31 @@ public class ConstantPool {
 
 	@SuppressWarnings("unchecked")
 	public <T> T entry(int index) {
-		return (T) pool[index];
+		Object entry = pool[index];
+		if ((entry == null) && (offsets != null) && (offsets[index] != 0)) {
+			entry = pool[index] = decodeUtf8(offsets[index]);
+		}
+		return (T) entry;
+	}
+
+	/*
+	 * Decoding is idempotent so concurrent callers at most decode an entry
+	 * twice
+	 */
+	private String decodeUtf8(int offset) {
+		ByteBuffer bb = buffer.duplicate();
+		bb.position(offset);
+		try {
+			return readUtf8Info(ByteBufferDataInput.wrap(bb));
+		} catch (IOException e) {
+			throw new IllegalStateException("Invalid CONSTANT_Utf8 entry at offset " + offset, e);
+		}
 	}
 
 	public int tag(int index) {
+		if ((offsets != null) && (offsets[index] != 0)) {
+			return CONSTANT_Utf8;
+		}
 		Object entry = entry(index);
 		if (entry instanceof Info info) {
 			return info.tag();
@@ -90,17 +126,42 @@ public class ConstantPool {
 
 	@Override
 	public String toString() {
+		for (int index = 1, len = size(); index < len; index++) {
+			entry(index);
+		}
 		return Arrays.toString(pool);
 	}
 
 	public static ConstantPool read(DataInput in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * Read a constant pool whose CONSTANT_Utf8 entries are decoded on first
+	 * access. The constant pool keeps a reference to the buffer which must
+	 * therefore not be modified.
+	 *
+	 * @param bb The buffer positioned at the constant pool. On return it is
+	 *            positioned after the constant pool.
+	 */
+	public static ConstantPool read(ByteBuffer bb) throws IOException {
+		return read(ByteBufferDataInput.wrap(bb), bb);
+	}
+
+	private static ConstantPool read(DataInput in, ByteBuffer bb) throws IOException {
 		int constant_pool_count = in.readUnsignedShort();
 		Object[] pool = new Object[constant_pool_count];
+		int[] offsets = (bb != null) ? new int[constant_pool_count] : null;
 		for (int index = 1; index < constant_pool_count; index++) {
 			int tag = in.readUnsignedByte();
 			switch (tag) {
 				case CONSTANT_Utf8 : {
-					pool[index] = readUtf8Info(in);
+					if (bb != null) {
+						offsets[index] = bb.position();
+						in.skipBytes(in.readUnsignedShort());
+					} else {
+						pool[index] = readUtf8Info(in);
+					}
 					break;
 				}
 				case CONSTANT_Integer : {
@@ -181,7 +242,7 @@ public class ConstantPool {
 			}
 		}
 
-		ConstantPool constant_pool = new ConstantPool(pool);
+		ConstantPool constant_pool = new ConstantPool(pool, bb, offsets);
 		return constant_pool;
 	}
 
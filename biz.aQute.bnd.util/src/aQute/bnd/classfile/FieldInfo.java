@@ -3,6 +3,7 @@ package aQute.bnd.classfile;
 import java.io.DataInput;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.util.function.Predicate;
 
 public class FieldInfo extends MemberInfo {
 
@@ -18,4 +19,9 @@ public class FieldInfo extends MemberInfo {
 	public static FieldInfo read(DataInput in, ConstantPool constant_pool) throws IOException {
 		return read(in, constant_pool, FieldInfo::new);
 	}
+
+	public static FieldInfo read(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
+		return read(in, constant_pool, FieldInfo::new, filter);
+	}
 }
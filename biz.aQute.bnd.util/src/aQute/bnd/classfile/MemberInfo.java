@@ -5,6 +5,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 public abstract class MemberInfo extends ElementInfo {
 	public final String	name;
@@ -37,10 +38,15 @@ public abstract class MemberInfo extends ElementInfo {
 
 	static <M extends MemberInfo> M read(DataInput in, ConstantPool constant_pool, Constructor<M> constructor)
 		throws IOException {
+		return read(in, constant_pool, constructor, null);
+	}
+
+	static <M extends MemberInfo> M read(DataInput in, ConstantPool constant_pool, Constructor<M> constructor,
+		Predicate<String> filter) throws IOException {
 		int access_flags = in.readUnsignedShort();
 		int name_index = in.readUnsignedShort();
 		int descriptor_index = in.readUnsignedShort();
-		Attribute[] attributes = Attribute.readAttributes(in, constant_pool);
+		Attribute[] attributes = Attribute.readAttributes(in, constant_pool, filter);
 
 		return constructor.init(access_flags, constant_pool.utf8(name_index), constant_pool.utf8(descriptor_index),
 			attributes);
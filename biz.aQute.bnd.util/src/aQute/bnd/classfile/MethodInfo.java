@@ -3,6 +3,7 @@ package aQute.bnd.classfile;
 import java.io.DataInput;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.util.function.Predicate;
 
 public class MethodInfo extends MemberInfo {
 
@@ -18,4 +19,9 @@ public class MethodInfo extends MemberInfo {
 	public static MethodInfo read(DataInput in, ConstantPool constant_pool) throws IOException {
 		return read(in, constant_pool, MethodInfo::new);
 	}
+
+	public static MethodInfo read(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
+		return read(in, constant_pool, MethodInfo::new, filter);
+	}
 }
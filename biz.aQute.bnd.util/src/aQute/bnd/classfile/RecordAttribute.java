@@ -4,6 +4,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 public class RecordAttribute implements Attribute {
 	public static final String		NAME	= "Record";
@@ -24,10 +25,15 @@ public class RecordAttribute implements Attribute {
 	}
 
 	public static RecordAttribute read(DataInput in, ConstantPool constant_pool) throws IOException {
+		return read(in, constant_pool, null);
+	}
+
+	public static RecordAttribute read(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+		throws IOException {
 		int components_count = in.readUnsignedShort();
 		RecordComponent[] components = new RecordComponent[components_count];
 		for (int i = 0; i < components_count; i++) {
-			components[i] = RecordComponent.read(in, constant_pool);
+			components[i] = RecordComponent.read(in, constant_pool, filter);
 		}
 		return new RecordAttribute(components);
 	}
@@ -76,10 +82,11 @@ public class RecordAttribute implements Attribute {
 				.toString();
 		}
 
-		static RecordComponent read(DataInput in, ConstantPool constant_pool) throws IOException {
+		static RecordComponent read(DataInput in, ConstantPool constant_pool, Predicate<String> filter)
+			throws IOException {
 			int name_index = in.readUnsignedShort();
 			int descriptor_index = in.readUnsignedShort();
-			Attribute[] attributes = Attribute.readAttributes(in, constant_pool);
+			Attribute[] attributes = Attribute.readAttributes(in, constant_pool, filter);
 			return new RecordComponent(constant_pool.utf8(name_index), constant_pool.utf8(descriptor_index),
 				attributes);
 		}
@@ -0,0 +1,100 @@
+package aQute.bnd.classfile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import aQute.lib.io.ByteBufferDataInput;
+import aQute.lib.io.IO;
+
+public class ClassFileTest {
+
+	@ParameterizedTest
+	@ValueSource(classes = {
+		String.class, java.util.HashMap.class, java.util.concurrent.ConcurrentHashMap.class, Thread.State.class,
+		ClassFileTest.class
+	})
+	public void testLazyConstantPool(Class<?> type) throws Exception {
+		byte[] bytes = bytes(type);
+		ClassFile eager = ClassFile.parseClassFile(new DataInputStream(new ByteArrayInputStream(bytes)));
+		ClassFile lazy = ClassFile.parseClassFile(ByteBufferDataInput.wrap(bytes));
+
+		assertThat(lazy.this_class).isEqualTo(eager.this_class);
+		assertThat(lazy.constant_pool.size()).isEqualTo(eager.constant_pool.size());
+		for (int index = 1; index < eager.constant_pool.size(); index++) {
+			assertThat(lazy.constant_pool.tag(index)).isEqualTo(eager.constant_pool.tag(index));
+			Object entry = lazy.constant_pool.entry(index);
+			if (entry instanceof String) {
+				assertThat(entry).isSameAs(eager.constant_pool.entry(index));
+			}
+		}
+		assertThat(lazy.constant_pool).hasToString(eager.constant_pool.toString());
+		assertThat(lazy.write()).isEqualTo(eager.write())
+			.isEqualTo(bytes);
+	}
+
+	@ParameterizedTest
+	@ValueSource(classes = {
+		String.class, java.util.HashMap.class, ClassFileTest.class
+	})
+	public void testAttributeFilter(Class<?> type) throws Exception {
+		byte[] bytes = bytes(type);
+		Set<String> names = Set.of(CodeAttribute.NAME, SignatureAttribute.NAME,
+			RuntimeVisibleAnnotationsAttribute.NAME);
+		ClassFile all = ClassFile.parseClassFile(ByteBufferDataInput.wrap(bytes));
+		ClassFile selected = ClassFile.parseClassFile(ByteBufferDataInput.wrap(bytes), names::contains);
+
+		assertThat(attributes(all)).anyMatch(a -> a.name()
+			.equals(LineNumberTableAttribute.NAME));
+		assertThat(attributes(selected)).extracting(Attribute::name)
+			.allMatch(names::contains);
+		assertThat(attributes(selected)).hasSameSizeAs(attributes(all).stream()
+			.filter(a -> names.contains(a.name()))
+			.toList());
+
+		assertThat(selected.methods).hasSameSizeAs(all.methods);
+		for (int i = 0; i < all.methods.length; i++) {
+			assertThat(selected.methods[i].name).isEqualTo(all.methods[i].name);
+			assertThat(code(selected.methods[i])).isEqualTo(code(all.methods[i]));
+		}
+	}
+
+	private static byte[] bytes(Class<?> type) throws Exception {
+		try (InputStream in = type.getResourceAsStream("/" + type.getName()
+			.replace('.', '/') + ".class")) {
+			return IO.read(Objects.requireNonNull(in, type.getName()));
+		}
+	}
+
+	/*
+	 * The attributes of the class, fields, methods, and Code attributes
+	 */
+	private static List<Attribute> attributes(ClassFile classFile) {
+		return Stream
+			.concat(Stream.of(classFile.attributes),
+				Stream.concat(Stream.of(classFile.fields), Stream.of(classFile.methods))
+					.flatMap(m -> Stream.of(m.attributes)))
+			.flatMap(a -> (a instanceof CodeAttribute code) ? Stream.concat(Stream.of(a), Stream.of(code.attributes))
+				: Stream.of(a))
+			.toList();
+	}
+
+	private static byte[] code(MethodInfo method) {
+		return Arrays.stream(method.attributes)
+			.filter(CodeAttribute.class::isInstance)
+			.map(a -> IO.read(((CodeAttribute) a).code.duplicate()
+				.rewind()))
+			.findFirst()
+			.orElse(null);
+	}
+}
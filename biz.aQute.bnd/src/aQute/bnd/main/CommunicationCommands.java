@@ -129,6 +129,27 @@ public class CommunicationCommands extends Processor {
 		}
 	}
 
+	@Description("Show the statistics of the download cache")
+	interface StatsOptions extends Options {}
+
+	@Description("Show the statistics of the download cache")
+	public void _stats(StatsOptions options) throws Exception {
+		URLCache.StatsDTO stats = cache.stats();
+		if (stats == null) {
+			bnd.out.println("The size of the cache is not limited, see -connection-cache-size");
+			return;
+		}
+		try (Formatter f = new Formatter()) {
+			f.format("Entries       %s%n", stats.entries);
+			f.format("Size          %s%n", stats.size);
+			f.format("Max size      %s%n", stats.maxSize);
+			f.format("Hits          %s%n", stats.hits);
+			f.format("Misses        %s%n", stats.misses);
+			f.format("Bytes saved   %s%n", stats.saved);
+			bnd.out.println(f.toString());
+		}
+	}
+
 	@Description("Show the bnd -connection-settings")
 	interface SettingsOptions extends Options {}
 
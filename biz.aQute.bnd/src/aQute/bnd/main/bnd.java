@@ -74,6 +74,7 @@ import aQute.bnd.build.Project;
 import aQute.bnd.build.ProjectBuilder;
 import aQute.bnd.build.ProjectLauncher;
 import aQute.bnd.build.ProjectLauncher.LiveCoding;
+import aQute.bnd.build.ProjectScheduler;
 import aQute.bnd.build.ProjectTester;
 import aQute.bnd.build.Run;
 import aQute.bnd.build.Workspace;
@@ -978,10 +979,26 @@ public class bnd extends Processor {
 
 		@Description("Force non-incremental")
 		boolean force();
+
+		@Description("Build up to this number of independent projects in parallel")
+		int jobs();
 	}
 
 	@Description("Build a project. This will create the jars defined in the bnd.bnd and sub-builders.")
 	public void _build(final buildoptions opts) throws Exception {
+		if (opts.jobs() > 1) {
+			List<Project> projects = getFilteredProjects(opts);
+			if (projects.isEmpty()) {
+				return;
+			}
+			ProjectScheduler scheduler = new ProjectScheduler(projects.get(0)
+				.getWorkspace(), opts.jobs());
+			scheduler.run(projects, p -> p.build(opts.test()));
+			for (Project p : projects) {
+				getInfo(p, p + ": ");
+			}
+			return;
+		}
 
 		perProject(opts, p -> p.build(opts.test()));
 	}
@@ -0,0 +1,266 @@
+package aQute.bnd.comm.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Promise;
+
+import aQute.bnd.connection.settings.ConnectionSettings;
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.url.State;
+import aQute.bnd.service.url.TaggedData;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.bnd.url.BasicAuthentication;
+import aQute.http.testservers.HttpTestServer.Config;
+import aQute.http.testservers.Httpbin;
+import aQute.lib.io.IO;
+import aQute.lib.strings.Strings;
+
+public class HttpClientHttp2Test {
+	private Httpbin	httpServer;
+	private Httpbin	httpsServer;
+
+	@BeforeEach
+	protected void setUp() throws Exception {
+		Config config = new Config();
+		config.https = false;
+		httpServer = new Httpbin(config);
+		httpServer.start();
+
+		Config configs = new Config();
+		configs.https = true;
+		httpsServer = new Httpbin(configs);
+		httpsServer.start();
+	}
+
+	@AfterEach
+	protected void tearDown() throws Exception {
+		IO.close(httpServer);
+		IO.close(httpsServer);
+	}
+
+	@Test
+	public void testFetch() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			assertThat(hc.isHttp2()).isTrue();
+			String text = hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("get"));
+			assertThat(text).startsWith("{");
+		}
+	}
+
+	@Test
+	public void testFetchConcurrently() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			List<Promise<TaggedData>> promises = new ArrayList<>();
+			for (int n = 0; n < 20; n++) {
+				promises.add(hc.build()
+					.asTag()
+					.async(httpServer.getBaseURI("get-tag/" + n)));
+			}
+			for (int n = 0; n < 20; n++) {
+				TaggedData tag = promises.get(n)
+					.getValue();
+				assertThat(tag.getResponseCode()).isEqualTo(200);
+				assertThat(tag.getTag()).isEqualTo(Integer.toString(n));
+				tag.close();
+			}
+		}
+	}
+
+	@Test
+	public void testEnableAgain() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			hc.http2(true);
+			assertThat(hc.isHttp2()).isTrue();
+			assertThat(hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("get"))).startsWith("{");
+
+			hc.http2(false);
+			assertThat(hc.isHttp2()).isFalse();
+			assertThat(hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("get"))).startsWith("{");
+		}
+	}
+
+	@Test
+	public void testReadTimeout() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			TaggedData tag = hc.build()
+				.retries(0)
+				.asTag()
+				.timeout(500)
+				.go(httpServer.getBaseURI("timeout/2000"));
+			assertThat(tag.getResponseCode()).isEqualTo(200);
+			assertThatExceptionOfType(HttpTimeoutException.class).isThrownBy(() -> IO.collect(tag.getInputStream()));
+		}
+	}
+
+	@Test
+	public void testETag() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			TaggedData data = hc.build()
+				.get(TaggedData.class)
+				.go(httpServer.getBaseURI("etag/1234/0"));
+			assertThat(data.getTag()).isEqualTo("1234");
+			assertThat(data.getResponseCode()).isEqualTo(200);
+			assertThat(IO.collect(data.getInputStream())).isEqualTo("1234");
+
+			data = hc.build()
+				.get(TaggedData.class)
+				.ifNoneMatch("1234")
+				.go(httpServer.getBaseURI("etag/1234/0"));
+			assertThat(data.getTag()).isEqualTo("1234");
+			assertThat(data.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_NOT_MODIFIED);
+			assertThat(data.hasPayload()).isFalse();
+
+			data = hc.build()
+				.get(TaggedData.class)
+				.ifModifiedSince(20000)
+				.go(httpServer.getBaseURI("etag/1234/10000"));
+			assertThat(data.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_NOT_MODIFIED);
+		}
+	}
+
+	@Test
+	public void testCache(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			hc.setCache(tmp);
+			TaggedData tag = hc.build()
+				.useCache()
+				.age(1, TimeUnit.DAYS)
+				.asTag()
+				.go(httpServer.getBaseURI("etag/1234/0"));
+			assertThat(tag.getState()).isEqualTo(State.UPDATED);
+
+			tag = hc.build()
+				.useCache(-1)
+				.asTag()
+				.go(httpServer.getBaseURI("etag/1234/0"));
+			assertThat(tag.getState()).isEqualTo(State.UNMODIFIED);
+
+			File file = hc.build()
+				.useCache()
+				.go(httpServer.getBaseURI("etag/1234/0"));
+			assertThat(IO.collect(file)).isEqualTo("1234");
+		}
+	}
+
+	@Test
+	public void testRedirect() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			TaggedData tag = hc.build()
+				.get(TaggedData.class)
+				.go(httpServer.getBaseURI("redirect/3/200?relative=true"));
+			assertThat(tag.getResponseCode()).isEqualTo(200);
+
+			tag = hc.build()
+				.maxRedirects(3)
+				.get(TaggedData.class)
+				.go(httpServer.getBaseURI("redirect/200/200"));
+			assertThat(tag.getResponseCode() / 100).isEqualTo(3);
+		}
+	}
+
+	@Test
+	public void testNotFound() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			TaggedData tag = hc.build()
+				.asTag()
+				.go(httpServer.getBaseURI("status/404"));
+			assertThat(tag.getState()).isEqualTo(State.NOT_FOUND);
+			assertThat(hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("status/404"))).isNull();
+		}
+	}
+
+	@Test
+	public void testContentEncoding() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			String gzip = hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("gzip"));
+			String deflate = hc.build()
+				.get(String.class)
+				.go(httpServer.getBaseURI("deflate"));
+			assertThat(gzip).contains("UTF-8")
+				.isEqualTo(deflate);
+		}
+	}
+
+	@Test
+	public void testPut() throws Exception {
+		try (HttpClient hc = new HttpClient().http2(true)) {
+			String result = hc.build()
+				.verb("PUT")
+				.upload("hello")
+				.get(String.class)
+				.go(httpServer.getBaseURI("put"));
+			assertThat(result).isEqualTo("hello");
+		}
+	}
+
+	@Test
+	public void testBasicAuthentication() throws Exception {
+		try (Processor p = new Processor(); HttpClient hc = new HttpClient().http2(true)) {
+			TaggedData tag = hc.build()
+				.asTag()
+				.go(httpServer.getBaseURI("basic-auth/user/good"));
+			assertThat(tag.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_UNAUTHORIZED);
+
+			hc.addURLConnectionHandler(new BasicAuthentication("user", "good", p) {
+				@Override
+				public boolean matches(URL url) {
+					return true;
+				}
+			});
+			tag = hc.build()
+				.asTag()
+				.go(httpServer.getBaseURI("basic-auth/user/good"));
+			assertThat(tag.getResponseCode()).isEqualTo(200);
+			assertThat(p.check()).isTrue();
+		}
+	}
+
+	@Test
+	public void testHttpsVerification(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		try (Processor p = new Processor(); HttpClient client = new HttpClient()) {
+			p.setProperty("-connection-http2", "true");
+			p.setProperty("-connection-settings", "server;id=\"" + httpsServer.getBaseURI() + "\";verify=" + true
+				+ ";trust=\"" + Strings.join(httpsServer.getTrustedCertificateFiles(tmp)) + "\"");
+			client.setReporter(p);
+			ConnectionSettings cs = new ConnectionSettings(p, client);
+			cs.readSettings();
+			assertThat(client.isHttp2()).isTrue();
+
+			// The trust settings require the HttpURLConnection
+			TaggedData tag = client.build()
+				.asTag()
+				.go(httpsServer.getBaseURI("get/foo"));
+			assertThat(tag.getResponseCode()).isEqualTo(200);
+
+			tag = client.build()
+				.asTag()
+				.go(httpServer.getBaseURI("get/foo"));
+			assertThat(tag.getResponseCode()).isEqualTo(200);
+		}
+	}
+}
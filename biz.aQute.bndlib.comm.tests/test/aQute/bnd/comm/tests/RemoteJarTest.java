@@ -0,0 +1,180 @@
+package aQute.bnd.comm.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.http.RemoteJar;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.EmbeddedResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.http.testservers.HttpTestServer.Config;
+import aQute.http.testservers.Httpbin;
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
+
+public class RemoteJarTest {
+	private static final Pattern	RANGE_P	= Pattern.compile("bytes=(?<first>\\d*)-(?<last>\\d*)");
+
+	@InjectTemporaryDirectory
+	File							tmp;
+	private RangeServer				server;
+	private byte[]					content;
+	private byte[]					random;
+
+	public static class RangeServer extends Httpbin {
+		final AtomicInteger	requests	= new AtomicInteger();
+		final AtomicLong	served		= new AtomicLong();
+		volatile boolean	ranges		= true;
+		volatile byte[]		content;
+
+		public RangeServer(Config config) throws Exception {
+			super(config);
+		}
+
+		public byte[] _jar(Request rq, Response rsp) throws Exception {
+			requests.incrementAndGet();
+			String range = rq.headers.get("Range");
+			Matcher m = (range != null) ? RANGE_P.matcher(range) : null;
+			if (!ranges || m == null || !m.matches()) {
+				served.addAndGet(content.length);
+				return content;
+			}
+			int first;
+			int last;
+			if (m.group("first")
+				.isEmpty()) {
+				first = Math.max(0, content.length - Integer.parseInt(m.group("last")));
+				last = content.length - 1;
+			} else {
+				first = Integer.parseInt(m.group("first"));
+				last = m.group("last")
+					.isEmpty() ? content.length - 1 : Math.min(content.length - 1, Integer.parseInt(m.group("last")));
+			}
+			rsp.code = HttpURLConnection.HTTP_PARTIAL;
+			rsp.headers.put("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+			served.addAndGet(last - first + 1);
+			return Arrays.copyOfRange(content, first, last + 1);
+		}
+	}
+
+	@BeforeEach
+	protected void setUp() throws Exception {
+		random = new byte[1_000_000];
+		new Random(42).nextBytes(random);
+		File file = new File(tmp, "remote.jar");
+		try (Jar jar = new Jar("remote")) {
+			Manifest manifest = new Manifest();
+			manifest.getMainAttributes()
+				.putValue("Manifest-Version", "1.0");
+			manifest.getMainAttributes()
+				.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.getMainAttributes()
+				.putValue(Constants.BUNDLE_SYMBOLICNAME, "remote");
+			manifest.getMainAttributes()
+				.putValue(Constants.BUNDLE_VERSION, "1.2.3");
+			jar.setManifest(manifest);
+			jar.putResource("a/random.bin", new EmbeddedResource(random, 0L));
+			jar.putResource("a/text.txt", new EmbeddedResource("hello ".repeat(1000), 0L));
+			jar.write(file);
+		}
+		content = IO.read(file);
+
+		server = new RangeServer(new Config());
+		server.content = content;
+		server.start();
+	}
+
+	@AfterEach
+	protected void tearDown() throws Exception {
+		IO.close(server);
+	}
+
+	@Test
+	public void testManifest() throws Exception {
+		try (HttpClient hc = new HttpClient()) {
+			RemoteJar remote = RemoteJar.open(hc, server.getBaseURI("jar"));
+			assertThat(remote).isNotNull();
+			assertThat(remote.length()).isEqualTo(content.length);
+			try (Jar jar = remote.getJar()) {
+				assertThat(jar.getResources()).containsKeys("META-INF/MANIFEST.MF", "a/random.bin", "a/text.txt");
+				assertThat(jar.getBsn()).isEqualTo("remote");
+				assertThat(jar.getVersion()).isEqualTo("1.2.3");
+				assertThat(server.served.get()).isLessThan(content.length / 10);
+
+				assertThat(IO.collect(jar.getResource("a/text.txt")
+					.openInputStream())).isEqualTo("hello ".repeat(1000));
+				assertThat(server.served.get()).isLessThan(content.length / 10);
+
+				assertThat(IO.read(jar.getResource("a/random.bin")
+					.openInputStream())).isEqualTo(random);
+				assertThat(remote.requests()).isEqualTo(server.requests.get());
+			}
+		}
+	}
+
+	@Test
+	public void testResource() throws Exception {
+		try (HttpClient hc = new HttpClient()) {
+			URI uri = server.getBaseURI("jar");
+			RemoteJar remote = RemoteJar.open(hc, uri);
+			AtomicInteger digests = new AtomicInteger();
+			Resource resource;
+			try (Jar jar = remote.getJar()) {
+				resource = ResourceBuilder.parse(jar, uri, remote.length(), () -> {
+					digests.incrementAndGet();
+					return SHA256.digest(hc.build()
+						.get(byte[].class)
+						.go(uri))
+						.asHex();
+				});
+			}
+			assertThat(ResourceUtils.getIdentityCapability(resource)
+				.osgi_identity()).isEqualTo("remote");
+			assertThat(digests).hasValue(0);
+			assertThat(server.served.get()).isLessThan(content.length / 10);
+
+			ResourceUtils.ContentCapability cc = ResourceUtils.getContentCapability(resource);
+			assertThat(cc.size()).isEqualTo(content.length);
+			assertThat(cc.osgi_content()).isEqualTo(SHA256.digest(content)
+				.asHex());
+			assertThat(digests).hasValue(1);
+		}
+	}
+
+	@Test
+	public void testNoRanges() throws Exception {
+		server.ranges = false;
+		try (HttpClient hc = new HttpClient()) {
+			assertThat(RemoteJar.open(hc, server.getBaseURI("jar"))).isNull();
+		}
+	}
+
+	@Test
+	public void testNotFound() throws Exception {
+		try (HttpClient hc = new HttpClient()) {
+			assertThatExceptionOfType(FileNotFoundException.class)
+				.isThrownBy(() -> RemoteJar.open(hc, server.getBaseURI("status/404")));
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package aQute.bnd.osgi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.lib.io.ByteBufferOutputStream;
+
+public class ZipStitcherTest {
+	private static final int	ENTRY_SIZE	= 32 * 1024 * 1024;
+	private static final int	ENTRIES		= 130;
+
+	@Test
+	public void testZip64Offsets() throws Exception {
+		byte[] data = new byte[ENTRY_SIZE];
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		Tail serial = new Tail();
+		try (ZipOutputStream zout = new ZipOutputStream(serial)) {
+			for (int i = 0; i < ENTRIES; i++) {
+				zout.putNextEntry(entry("e" + i, crc));
+				zout.write(data);
+				zout.closeEntry();
+			}
+		}
+
+		Tail stitched = new Tail();
+		ZipStitcher stitcher = new ZipStitcher(stitched, null, 1);
+		for (int i = 0; i < ENTRIES; i++) {
+			String name = "e" + i;
+			stitcher.add(() -> {
+				ByteBufferOutputStream bbos = new ByteBufferOutputStream(ENTRY_SIZE + 1024);
+				try (ZipOutputStream zout = new ZipOutputStream(bbos)) {
+					zout.putNextEntry(entry(name, crc));
+					zout.write(data);
+					zout.closeEntry();
+				}
+				return ZipStitcher.chunk(name, bbos.toByteBuffer());
+			});
+		}
+		stitcher.finish();
+
+		assertThat(serial.count).isGreaterThan(0xFFFFFFFFL);
+		assertThat(stitched.count).isEqualTo(serial.count);
+		assertThat(stitched.tail()).isEqualTo(serial.tail());
+	}
+
+	private static ZipEntry entry(String name, CRC32 crc) {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(ENTRY_SIZE);
+		entry.setCompressedSize(ENTRY_SIZE);
+		entry.setCrc(crc.getValue());
+		entry.setTime(0L);
+		return entry;
+	}
+
+	/*
+	 * Counts the bytes written and keeps the last bytes, which hold the
+	 * central directory.
+	 */
+	static class Tail extends OutputStream {
+		final byte[]	buffer	= new byte[64 * 1024];
+		long			count;
+
+		@Override
+		public void write(int b) throws IOException {
+			buffer[(int) (count++ % buffer.length)] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			int skip = Math.max(0, len - buffer.length);
+			count += skip;
+			for (int i = off + skip; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+
+		byte[] tail() {
+			byte[] tail = new byte[buffer.length];
+			int start = (int) (count % buffer.length);
+			System.arraycopy(buffer, start, tail, 0, buffer.length - start);
+			System.arraycopy(buffer, 0, tail, buffer.length - start, start);
+			return tail;
+		}
+	}
+}
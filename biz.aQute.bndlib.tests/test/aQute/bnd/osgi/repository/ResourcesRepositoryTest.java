@@ -0,0 +1,106 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Version;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+
+public class ResourcesRepositoryTest {
+
+	@Test
+	public void testPinnedPackageRequirement() throws Exception {
+		ResourcesRepository repository = new ResourcesRepository();
+		Resource a = exporter("a", "1.0.0", "foo", "bar");
+		Resource b = exporter("b", "2.0.0", "foo");
+		repository.add(a);
+		repository.add(b);
+
+		Requirement req = CapReqBuilder.createPackageRequirement("foo", "[1.0,3.0)")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(a, b);
+
+		req = CapReqBuilder.createPackageRequirement("foo", "[2.0,3.0)")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(b);
+
+		req = CapReqBuilder.createPackageRequirement("baz", null)
+			.buildSyntheticRequirement();
+		assertThat(repository.findProvider(req)).isEmpty();
+	}
+
+	@Test
+	public void testIndexUpdatedOnAdd() throws Exception {
+		ResourcesRepository repository = new ResourcesRepository();
+		Resource a = exporter("a", "1.0.0", "foo");
+		repository.add(a);
+
+		Requirement req = CapReqBuilder.createPackageRequirement("foo", null)
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(a);
+
+		Resource b = exporter("b", "1.0.0", "foo");
+		Resource c = exporter("c", "1.0.0", "bar");
+		repository.addAll(List.of(c, b));
+		assertThat(resources(repository.findProvider(req))).containsExactly(a, b);
+
+		repository.set(List.of(c));
+		assertThat(repository.findProvider(req)).isEmpty();
+	}
+
+	@Test
+	public void testUnpinnedAndUnkeyedCapabilities() throws Exception {
+		ResourcesRepository repository = new ResourcesRepository();
+		ResourceBuilder rb = new ResourceBuilder();
+		rb.addCapability(new CapReqBuilder("test").addAttribute("test", "x"));
+		Resource x = rb.build();
+		rb = new ResourceBuilder();
+		rb.addCapability(new CapReqBuilder("test").addAttribute("test", List.of("x", "y")));
+		Resource xy = rb.build();
+		rb = new ResourceBuilder();
+		rb.addCapability(new CapReqBuilder("test").addAttribute("test", 1L));
+		Resource one = rb.build();
+		repository.addAll(List.of(x, one, xy));
+
+		Requirement req = new CapReqBuilder("test").filter("(test=x)")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(x, xy);
+
+		req = new CapReqBuilder("test").filter("(test=1)")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(one);
+
+		req = new CapReqBuilder("test").filter("(|(test=y)(test=1))")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(one, xy);
+
+		req = new CapReqBuilder("test").filter("(test=*)")
+			.buildSyntheticRequirement();
+		assertThat(resources(repository.findProvider(req))).containsExactly(x, one, xy);
+	}
+
+	private static Resource exporter(String bsn, String version, String... packages) throws Exception {
+		ResourceBuilder rb = new ResourceBuilder();
+		for (String p : packages) {
+			rb.addCapability(new CapReqBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+				.addAttribute(PackageNamespace.PACKAGE_NAMESPACE, p)
+				.addAttribute(PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE, new Version(version))
+				.addAttribute(PackageNamespace.CAPABILITY_BUNDLE_SYMBOLICNAME_ATTRIBUTE, bsn));
+		}
+		return rb.build();
+	}
+
+	private static List<Resource> resources(List<Capability> capabilities) {
+		return capabilities.stream()
+			.map(Capability::getResource)
+			.toList();
+	}
+}
@@ -0,0 +1,80 @@
+package aQute.bnd.osgi.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Version;
+
+class FilterImplTest {
+
+	static final List<String>				FILTERS	= List.of("(osgi.wiring.package=org.example)",
+		"(&(osgi.wiring.package=org.example)(version>=1.0.0)(!(version>=2.0.0)))",
+		"(&(osgi.wiring.package=org.example)(&(version>=1.2)(!(version>=1.3))))",
+		"(|(osgi.ee=JavaSE)(&(osgi.ee=OSGi/Minimum)(version=1.2)))", "(&(version>=1.0)(version<=1.5)(!(x=*)))",
+		"(count>=10)", "(count<=10)", "(count=10)", "(ratio<=0.5)", "(flag=true)", "(name=org.*ample)",
+		"(name~=ORG.EXAMPLE)", "(|(x=*)(name=foo))", "(!(&(version>=1)(version<=1.1)))", "(version=xyz)",
+		"(&(count>=1.5)(count<=x))");
+
+	static final List<Map<String, Object>>	MAPS	= List.of(Map.of(),
+		Map.of("osgi.wiring.package", "org.example", "version", new Version("1.2.3")),
+		Map.of("osgi.wiring.package", "org.example", "version", new Version("2.0.0")),
+		Map.of("osgi.wiring.package", "org.example", "version", "1.2.3"),
+		Map.of("osgi.ee", "JavaSE", "version", List.of(new Version("1.8"), new Version("11"))),
+		Map.of("osgi.ee", "OSGi/Minimum", "version", List.of(new Version("1.1"), new Version("1.2"))),
+		Map.of("count", 10L, "ratio", 0.25d, "flag", Boolean.TRUE),
+		Map.of("count", 11L, "ratio", 0.75d, "flag", Boolean.FALSE, "x", "y"),
+		Map.of("count", List.of(1L, 2L, 3L)), Map.of("name", "org.example"), Map.of("name", "org. example"),
+		Map.of("version", new Version("1.0.5"), "x", ""));
+
+	@Test
+	void compiledMatchesSame() throws Exception {
+		for (String f : FILTERS) {
+			FilterImpl filter = FilterImpl.createFilter(f);
+			FilterImpl compiled = FilterImpl.createFilter(f)
+				.compile();
+			assertThat(compiled).hasToString(filter.toString())
+				.isEqualTo(filter);
+			for (Map<String, Object> map : MAPS) {
+				assertThat(compiled.matches(map)).as("%s %s", f, map)
+					.isEqualTo(filter.matches(map));
+			}
+		}
+	}
+
+	@Test
+	void compiledGroupsAttributes() throws Exception {
+		FilterImpl compiled = FilterImpl
+			.createFilter("(&(version>=1.0.0)(osgi.wiring.package=org.example)(!(version>=2.0.0)))")
+			.compile();
+		assertThat(compiled).isInstanceOf(FilterImpl.And.class);
+		assertThat(compiled.matches(Map.of("osgi.wiring.package", "org.example", "version", new Version("1.5"))))
+			.isTrue();
+		assertThat(compiled.matches(Map.of("osgi.wiring.package", "org.other", "version", new Version("1.5"))))
+			.isFalse();
+		assertThat(compiled.matches(Map.of("osgi.wiring.package", "org.example", "version", new Version("2"))))
+			.isFalse();
+
+		compiled = FilterImpl.createFilter("(&(version>=1.0.0)(!(version>=2.0.0)))")
+			.compile();
+		assertThat(compiled).isInstanceOf(FilterImpl.Attribute.class);
+	}
+
+	@Test
+	void valueMatcher() throws Exception {
+		FilterImpl.ValueMatcher matcher = FilterImpl.createFilter("(!(version>=2.0.0))")
+			.valueMatcher();
+		assertThat(matcher).isNotNull();
+		assertThat(matcher.attribute()).isEqualTo("version");
+		assertThat(matcher.matchesValue(new Version("1.5"))).isTrue();
+		assertThat(matcher.matchesValue(new Version("2"))).isFalse();
+		assertThat(matcher.matchesValue(null)).isTrue();
+
+		assertThat(FilterImpl.createFilter("(!(&(version>=1)(x=*)))")
+			.valueMatcher()).isNull();
+		assertThat(FilterImpl.createFilter("(|(version>=1)(version<=0))")
+			.valueMatcher()).isNull();
+	}
+}
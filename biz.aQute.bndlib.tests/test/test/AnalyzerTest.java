@@ -31,9 +31,11 @@ import aQute.bnd.osgi.Clazz;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Domain;
 import aQute.bnd.osgi.FileResource;
+import aQute.bnd.osgi.IncrementalAnalysis;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.Packages;
 import aQute.bnd.osgi.Processor;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.io.IO;
 
 class T0 {}
@@ -157,6 +159,121 @@ public class AnalyzerTest {
 		assertEquals(3, jars.size());
 	}
 
+	@Test
+	public void testParallelAnalysis() throws Exception {
+		Manifest serial = buildWithAnalysis(Constants.PARALLELANALYSIS, "false");
+		Manifest parallel = buildWithAnalysis(Constants.PARALLELANALYSIS, "true");
+		for (String header : Arrays.asList(Constants.EXPORT_PACKAGE, Constants.IMPORT_PACKAGE,
+			Constants.PRIVATE_PACKAGE, Constants.BUNDLE_CLASSPATH)) {
+			assertEquals(serial.getMainAttributes()
+				.getValue(header),
+				parallel.getMainAttributes()
+					.getValue(header),
+				header);
+		}
+		assertNotNull(parallel.getMainAttributes()
+			.getValue(Constants.EXPORT_PACKAGE));
+	}
+
+	@Test
+	public void testClassCache(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File cache = new File(tmp, "classes");
+		Manifest uncached = buildWithAnalysis(Constants.CLASSCACHE, "");
+		Manifest cold = buildWithAnalysis(Constants.CLASSCACHE, cache.getAbsolutePath());
+		assertThat(cache.list()).isNotEmpty();
+		Manifest warm = buildWithAnalysis(Constants.CLASSCACHE, cache.getAbsolutePath());
+		for (String header : Arrays.asList(Constants.EXPORT_PACKAGE, Constants.IMPORT_PACKAGE,
+			Constants.PRIVATE_PACKAGE, Constants.REQUIRE_CAPABILITY)) {
+			assertEquals(uncached.getMainAttributes()
+				.getValue(header),
+				cold.getMainAttributes()
+					.getValue(header),
+				header);
+			assertEquals(uncached.getMainAttributes()
+				.getValue(header),
+				warm.getMainAttributes()
+					.getValue(header),
+				header);
+		}
+	}
+
+	@Test
+	public void testIncremental(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File bin = new File(tmp, "bin");
+		try (Jar asm = new Jar(IO.getFile("jar/asm.jar"))) {
+			asm.writeFolder(bin);
+		}
+		IncrementalAnalysis incrementalAnalysis = new IncrementalAnalysis();
+		Manifest full = buildIncremental(bin, null);
+		Manifest cold = buildIncremental(bin, incrementalAnalysis);
+		Manifest warm = buildIncremental(bin, incrementalAnalysis);
+		for (String header : Arrays.asList(Constants.EXPORT_PACKAGE, Constants.IMPORT_PACKAGE,
+			Constants.PRIVATE_PACKAGE, Constants.REQUIRE_CAPABILITY)) {
+			assertEquals(full.getMainAttributes()
+				.getValue(header),
+				cold.getMainAttributes()
+					.getValue(header),
+				header);
+			assertEquals(full.getMainAttributes()
+				.getValue(header),
+				warm.getMainAttributes()
+					.getValue(header),
+				header);
+		}
+
+		// An unchanged class file is not read again
+		File file = new File(bin, "org/objectweb/asm/Type.class");
+		long lastModified = file.lastModified();
+		IO.copy(new byte[(int) file.length()], file);
+		assertThat(file.setLastModified(lastModified)).isTrue();
+		buildIncremental(bin, incrementalAnalysis);
+
+		// A changed class file is parsed again
+		assertThat(file.setLastModified(lastModified + 10_000L)).isTrue();
+		try (Builder b = incrementalBuilder(bin, incrementalAnalysis)) {
+			b.build();
+			assertTrue(b.check("Not a valid class file"));
+		}
+	}
+
+	private Manifest buildIncremental(File bin, IncrementalAnalysis incrementalAnalysis) throws Exception {
+		try (Builder b = incrementalBuilder(bin, incrementalAnalysis)) {
+			b.build();
+			assertTrue(b.check());
+			return b.getJar()
+				.getManifest();
+		}
+	}
+
+	private Builder incrementalBuilder(File bin, IncrementalAnalysis incrementalAnalysis) throws Exception {
+		Builder b = new Builder();
+		b.addClasspath(bin);
+		b.addClasspath(IO.getFile("jar/osgi.jar"));
+		b.setIncrementalAnalysis(incrementalAnalysis);
+		b.setProperty(Constants.INCREMENTAL, "true");
+		b.setProperty(Constants.EXPORT_PACKAGE, "org.objectweb.asm.*");
+		b.setProperty(Constants.PRIVATE_PACKAGE, "org.osgi.framework.*");
+		return b;
+	}
+
+	private Manifest buildWithAnalysis(String instruction, String value) throws Exception {
+		try (Builder b = new Builder()) {
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			b.addClasspath(IO.getFile("jar/asm.jar"));
+			b.setProperty(instruction, value);
+			b.setProperty(Constants.EXPORT_PACKAGE, "org.osgi.framework.*");
+			b.setProperty(Constants.PRIVATE_PACKAGE, "org.objectweb.asm.*");
+			b.setProperty(Constants.INCLUDERESOURCE, "bcel.jar=jar/bcel.jar");
+			b.setProperty(Constants.BUNDLE_CLASSPATH, ".,bcel.jar");
+			b.build();
+			assertTrue(b.check());
+			return b.getJar()
+				.getManifest();
+		}
+	}
+
 	/**
 	 * #525 Test if exceptions are imported
 	 */
@@ -32,6 +32,7 @@ import aQute.bnd.osgi.Clazz.MethodDef;
 import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.Descriptors.PackageRef;
+import aQute.bnd.osgi.Descriptors.TypeRef;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Instruction;
 import aQute.bnd.osgi.Jar;
@@ -240,6 +241,74 @@ public class ClazzTest {
 		}
 	}
 
+	@Test
+	public void testReplayedEvents() throws Exception {
+		File file = IO.getFile("bin_test/test/ClazzTest$RecursiveAnno.class");
+		try (Analyzer analyzer = new Analyzer()) {
+			Clazz clazz = new Clazz(analyzer, file.getPath(), new FileResource(file));
+			List<Annotation> annotations = new ArrayList<>();
+			class Events extends ClassDataCollector {
+				final List<String> events = new ArrayList<>();
+
+				@Override
+				public void classBegin(int access, TypeRef name) {
+					events.add("classBegin " + name);
+				}
+
+				@Override
+				public void method(MethodDef method) {
+					events.add("method " + method.getName());
+				}
+
+				@Override
+				public void annotation(Annotation annotation) {
+					events.add("annotation " + annotation);
+					annotations.add(annotation);
+				}
+
+				@Override
+				public void annotationDefault(MethodDef method, Object value) {
+					events.add("annotationDefault " + method.getName() + "=" + value);
+				}
+
+				@Override
+				public void memberEnd() {
+					events.add("memberEnd");
+				}
+
+				@Override
+				public void classEnd() {
+					events.add("classEnd");
+				}
+			}
+
+			Events first = new Events();
+			clazz.parseClassFileWithCollector(first);
+			assertThat(first.events).containsSubsequence("classBegin test.ClazzTest$RecursiveAnno", "method value",
+				"annotationDefault value=", "memberEnd", "classEnd");
+			assertThat(annotations).hasSize(1);
+			annotations.get(0)
+				.put("value", "changed");
+
+			Events second = new Events();
+			clazz.parseClassFileWithCollector(second);
+			assertThat(second.events).isEqualTo(first.events);
+			assertThat(annotations).hasSize(2);
+			assertThat(annotations.get(1)).isNotSameAs(annotations.get(0));
+			assertThat(annotations.get(1)
+				.<String> get("value")).isEqualTo("recursive");
+
+			Events skipped = new Events() {
+				@Override
+				public boolean classStart(Clazz c) {
+					return false;
+				}
+			};
+			clazz.parseClassFileWithCollector(skipped);
+			assertThat(skipped.events).isEmpty();
+		}
+	}
+
 	@RecursiveAnno
 	public @interface MetaAnnotated {}
 
@@ -35,6 +35,26 @@ public class DescriptorsTest {
 
 	}
 
+	@Test
+	public void testInterning(SoftAssertions softly) {
+		Descriptors a = new Descriptors();
+		Descriptors b = new Descriptors();
+		softly.assertThat(b.getTypeRef("a/b/C"))
+			.isSameAs(a.getTypeRef("a/b/C"));
+		softly.assertThat(b.getTypeRef("[[La/b/C;"))
+			.isSameAs(a.getTypeRef("[[La/b/C;"));
+		softly.assertThat(b.getPackageRef("a.b"))
+			.isSameAs(a.getPackageRef("a/b"))
+			.isSameAs(b.getTypeRef("a/b/C")
+				.getPackageRef());
+		softly.assertThat(b.getClassSignature("Ljava/lang/Object;Ljava/util/List<La/b/C;>;"))
+			.isSameAs(a.getClassSignature("Ljava/lang/Object;Ljava/util/List<La/b/C;>;"));
+		softly.assertThat(b.getMethodSignature("(La/b/C;)V"))
+			.isSameAs(a.getMethodSignature("(La/b/C;)V"));
+		softly.assertThat(b.getFieldSignature("La/b/C;"))
+			.isSameAs(a.getFieldSignature("La/b/C;"));
+	}
+
 	@Test
 	public void testDetermine(SoftAssertions softly) {
 		softly.assertThat(Descriptors.determine("simple")
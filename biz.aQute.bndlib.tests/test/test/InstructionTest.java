@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 
 import aQute.bnd.header.Parameters;
 import aQute.bnd.osgi.Instruction;
+import aQute.bnd.osgi.InstructionMatcher;
 import aQute.bnd.osgi.Instructions;
 import aQute.bnd.osgi.Processor;
 import aQute.libg.glob.AntGlob;
@@ -354,4 +355,46 @@ public class InstructionTest {
 		assertThat(i.matches("com/foo/bar/baz")).isTrue();
 		assertThat(i.matches("com/bar")).isFalse();
 	}
+
+	@Test
+	public void testCompiledMatcher() {
+		Instructions instructions = new Instructions(
+			"com.foo.bar,!com.foo.*,com.f*,=com.lit*,com.x.*,COM.Y:i,!*.impl,com.z.*,*");
+		InstructionMatcher matcher = instructions.compile();
+		for (String value : Arrays.asList("com.foo.bar", "com.foo", "com.foo.baz", "com.foox", "com.fo", "com.lit*",
+			"com.lit", "com.x", "com.x.y", "com.xy", "com.y", "com.z.impl", "com.z.api", "", "com.foo.\nbar", "x")) {
+			Instruction expected = instructions.keySet()
+				.stream()
+				.filter(instruction -> instruction.matches(value))
+				.findFirst()
+				.orElse(null);
+			assertThat(matcher.matcher(value)).as(value)
+				.isSameAs(expected);
+		}
+		assertThat(matcher.matcher("com.foo.bar")
+			.getInput()).isEqualTo("com.foo.bar");
+		assertThat(matcher.matcher("com.foo.baz")
+			.isNegated()).isTrue();
+		assertThat(matcher.matcher("com.z.impl")
+			.getInput()).isEqualTo("!*.impl");
+		assertThat(matcher.indexOf("com.x.y", 0)).isEqualTo(4);
+		assertThat(matcher.indexOf("com.x.y", 5)).isEqualTo(8);
+
+		instructions = new Instructions("com.foo.*");
+		assertThat(instructions.compile()
+			.matcher("org.foo")).isNull();
+	}
+
+	@Test
+	public void testPackagePrefix() {
+		Instruction i = new Instruction("com.foo.*");
+		assertThat(i.matches("com.foo")).isTrue();
+		assertThat(i.matches("com.foo.bar")).isTrue();
+		assertThat(i.matches("com.foo.")).isTrue();
+		assertThat(i.matches("com.foobar")).isFalse();
+		assertThat(i.matches("com.fo")).isFalse();
+		assertThat(i.matches("com.foo.\nbar")).isFalse();
+		assertThat(i.matches("com.foo.bar")).isEqualTo(i.getMatcher("com.foo.bar")
+			.matches());
+	}
 }
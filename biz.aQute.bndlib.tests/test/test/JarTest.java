@@ -14,10 +14,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.Test;
@@ -338,4 +344,195 @@ public class JarTest {
 			assertThat(jar.exists("ok.txt")).isTrue();
 		}
 	}
+
+	@Test
+	public void testMapped(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "mapped.jar");
+		try (Jar jar = new Jar("mapped")) {
+			jar.putResource("stored/a.txt", new EmbeddedResource("stored", 0L));
+			jar.setCompression(Jar.Compression.STORE);
+			jar.write(file);
+		}
+		try (Jar jar = new Jar(new File("jar/osgi.jar")); Jar mapped = Jar.mapped("osgi", new File("jar/osgi.jar"))) {
+			assertThat(mapped.getResources()
+				.keySet()).containsExactlyElementsOf(jar.getResources()
+					.keySet());
+			jar.getResources()
+				.forEach((path, resource) -> {
+					Resource r = mapped.getResource(path);
+					try {
+						assertThat(IO.read(r.openInputStream())).as(path)
+							.isEqualTo(IO.read(resource.openInputStream()));
+						assertThat(r.size()).as(path)
+							.isEqualTo(resource.size());
+						assertThat(r.lastModified()).as(path)
+							.isEqualTo(resource.lastModified());
+					} catch (Exception e) {
+						throw new AssertionError(e);
+					}
+				});
+			assertThat(mapped.getManifest()).isEqualTo(jar.getManifest());
+		}
+		try (Jar mapped = Jar.mapped("mapped", file)) {
+			assertThat(IO.collect(mapped.getResource("stored/a.txt")
+				.openInputStream())).isEqualTo("stored");
+			assertThat(mapped.getResource("stored/a.txt")
+				.buffer()
+				.isReadOnly()).isTrue();
+		}
+	}
+
+	@Test
+	public void testMappedCorrupted(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "corrupted.jar");
+		IO.store("not a zip file", file);
+		assertThat(catchThrowable(() -> Jar.mapped("corrupted", file))).isInstanceOf(ZipException.class);
+	}
+
+	@Test
+	public void testParallelWrite() throws Exception {
+		for (Jar.Compression compression : Jar.Compression.values()) {
+			try (Jar jar = new Jar(new File("jar/osgi.jar")); Jar asm = new Jar(new File("jar/asm.jar"))) {
+				jar.addAll(asm);
+				jar.putResource("empty.txt", new EmbeddedResource(new byte[0], 0L));
+				jar.setReproducible("true");
+				jar.setCompression(compression);
+				byte[] serial = write(jar);
+				byte[] parallel = write(jar.setParallelWrite(true));
+				assertThat(parallel).as(compression.name())
+					.isEqualTo(serial);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelWriteNoManifest() throws Exception {
+		try (Jar jar = new Jar(new File("jar/asm.jar"))) {
+			jar.setDoNotTouchManifest();
+			jar.setReproducible("true");
+			byte[] serial = write(jar);
+			byte[] parallel = write(jar.setParallelWrite(true));
+			assertThat(parallel).isEqualTo(serial);
+			try (Jar copy = new Jar("copy", new ByteArrayInputStream(parallel))) {
+				assertThat(copy.getResources()
+					.keySet()).containsExactlyElementsOf(jar.getResources()
+						.keySet());
+			}
+		}
+	}
+
+	@Test
+	public void testParallelWriteZip64Entries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		try (Jar jar = new Jar("many")) {
+			for (int i = 0; i < 70_000; i++) {
+				jar.putResource("a/" + i + ".txt", new EmbeddedResource(Integer.toString(i), 0L));
+			}
+			jar.setReproducible("true");
+			byte[] serial = write(jar);
+			byte[] parallel = write(jar.setParallelWrite(true));
+			assertThat(parallel).isEqualTo(serial);
+			File file = new File(tmp, "many.jar");
+			IO.copy(parallel, file);
+			try (ZipFile zip = new ZipFile(file)) {
+				assertThat(zip.size()).isEqualTo(70_003);
+			}
+		}
+	}
+
+	@Test
+	public void testCopyDeflated() throws Exception {
+		File source = new File("jar/asm.jar");
+		Map<String, Long> compressedSizes = new HashMap<>();
+		try (ZipFile zip = new ZipFile(source)) {
+			zip.stream()
+				.filter(entry -> entry.getMethod() == ZipEntry.DEFLATED)
+				.forEach(entry -> compressedSizes.put(entry.getName(), entry.getCompressedSize()));
+		}
+		assertThat(compressedSizes).isNotEmpty();
+
+		for (boolean mapped : new boolean[] {
+			false, true
+		}) {
+			try (Jar jar = mapped ? Jar.mapped("asm", source) : new Jar(source)) {
+				jar.putResource("empty.txt", new EmbeddedResource(new byte[0], 0L));
+				byte[] bytes = write(jar.setCopyDeflated(true));
+				try (Jar copy = new Jar("copy", new ByteArrayInputStream(bytes))) {
+					for (Map.Entry<String, Resource> entry : jar.getResources()
+						.entrySet()) {
+						if (entry.getKey()
+							.equals(JarFile.MANIFEST_NAME)) {
+							continue;
+						}
+						assertThat(IO.read(copy.getResource(entry.getKey())
+							.openInputStream())).as(entry.getKey())
+								.isEqualTo(IO.read(entry.getValue()
+									.openInputStream()));
+					}
+				}
+				// The deflated data was copied, not deflated again
+				try (ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+					for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+						Long compressedSize = compressedSizes.get(entry.getName());
+						if (compressedSize != null && !entry.getName()
+							.equals(JarFile.MANIFEST_NAME)) {
+							assertThat(entry.getCompressedSize()).as(entry.getName())
+								.isEqualTo(compressedSize);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCopyDeflatedDefault() throws Exception {
+		try (Jar jar = new Jar(new File("jar/asm.jar"))) {
+			jar.setReproducible("true");
+			assertThat(jar.isCopyDeflated()).isFalse();
+			byte[] bytes = write(jar);
+			assertThat(write(jar.setCopyDeflated(true))).isNotEqualTo(bytes);
+			assertThat(write(jar.setCopyDeflated(false))).isEqualTo(bytes);
+		}
+	}
+
+	@Test
+	public void testCopyDeflatedChangedSource(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File source = new File(tmp, "source.jar");
+		IO.copy(new File("jar/asm.jar"), source);
+		try (Jar jar = new Jar(source)) {
+			Map<String, byte[]> contents = new HashMap<>();
+			for (Map.Entry<String, Resource> entry : jar.getResources()
+				.entrySet()) {
+				contents.put(entry.getKey(), IO.read(entry.getValue()
+					.openInputStream()));
+			}
+			// Replace the file, the open ZipFile still reads the old one
+			File replacement = new File(tmp, "replacement.jar");
+			IO.copy(new File("jar/osgi.jar"), replacement);
+			Files.move(replacement.toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+			byte[] bytes = write(jar.setCopyDeflated(true));
+			try (Jar copy = new Jar("copy", new ByteArrayInputStream(bytes))) {
+				for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+					if (entry.getKey()
+						.equals(JarFile.MANIFEST_NAME)) {
+						continue;
+					}
+					assertThat(IO.read(copy.getResource(entry.getKey())
+						.openInputStream())).as(entry.getKey())
+							.isEqualTo(entry.getValue());
+				}
+			}
+		}
+	}
+
+	private static byte[] write(Jar jar) throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		jar.write(bout);
+		return bout.toByteArray();
+	}
 }
@@ -0,0 +1,63 @@
+package test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.build.Project;
+import aQute.bnd.build.ProjectScheduler;
+import aQute.bnd.build.Workspace;
+import aQute.lib.io.IO;
+
+public class ProjectSchedulerTest {
+
+	@Test
+	public void testDependenciesFirst() throws Exception {
+		try (Workspace ws = new Workspace(IO.getFile("testresources/ws"))) {
+			Project all = ws.getProject("build-all");
+			all.setProperty("-dependson", "p*, !*-*");
+			List<Project> expected = new ArrayList<>(all.getDependson());
+			expected.add(all);
+
+			Set<Project> done = ConcurrentHashMap.newKeySet();
+			List<Project> ran = Collections.synchronizedList(new ArrayList<>());
+			ProjectScheduler scheduler = new ProjectScheduler(ws, 4);
+			List<Project> started = scheduler.run(List.of(all), p -> {
+				assertThat(done).containsAll(p.getDependson());
+				ran.add(p);
+				done.add(p);
+			});
+			assertThat(started).containsExactlyElementsOf(expected);
+			assertThat(ran).containsExactlyInAnyOrderElementsOf(expected);
+			assertThat(all.check()).isTrue();
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		try (Workspace ws = new Workspace(IO.getFile("testresources/ws"))) {
+			Project all = ws.getProject("build-all");
+			all.setProperty("-dependson", "p1, p2, p3");
+
+			AtomicInteger count = new AtomicInteger();
+			ProjectScheduler scheduler = new ProjectScheduler(ws, 2);
+			assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> scheduler.run(List.of(all), p -> {
+				count.incrementAndGet();
+				if (p.getName()
+					.equals("p1")) {
+					throw new IllegalStateException(p.getName());
+				}
+			}))
+				.withMessage("p1");
+			assertThat(count).hasValueLessThan(4);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.http.URLCache;
+import aQute.bnd.http.URLCache.Info;
+import aQute.bnd.http.URLCache.StatsDTO;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class URLCacheTest {
+
+	@Test
+	public void testNotLimited(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache cache = new URLCache(tmp);
+		store(cache, "http://a/x.jar", 'a', 1000);
+		assertThat(cache.stats()).isNull();
+		assertThat(new File(tmp, "journal")).doesNotExist();
+	}
+
+	@Test
+	public void testDeduplication(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache cache = new URLCache(tmp);
+		cache.setMaxSize(1_000_000L);
+		URI a = new URI("http://mirror1/x.jar");
+		URI b = new URI("http://mirror2/x.jar");
+		store(cache, a.toString(), 'x', 1000);
+		store(cache, b.toString(), 'x', 1000);
+
+		File fa = cache.getCacheFileFor(a);
+		File fb = cache.getCacheFileFor(b);
+		assertThat(IO.read(fb)).isEqualTo(IO.read(fa));
+		assertThat(Files.isSameFile(fa.toPath(), fb.toPath())).isTrue();
+
+		StatsDTO stats = cache.stats();
+		assertThat(stats.entries).isEqualTo(2);
+		assertThat(stats.misses).isEqualTo(2);
+		assertThat(stats.saved).isEqualTo(1000);
+		assertThat(stats.size).isEqualTo(1000);
+
+		// new content for one url does not change the other
+		store(cache, a.toString(), 'y', 1000);
+		assertThat(IO.read(fb)).containsOnly('x');
+		assertThat(IO.read(fa)).containsOnly('y');
+		assertThat(cache.stats().size).isEqualTo(2000);
+	}
+
+	@Test
+	public void testEviction(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache cache = new URLCache(tmp);
+		cache.setMaxSize(2500L);
+		URI a = new URI("http://host/a.jar");
+		URI b = new URI("http://host/b.jar");
+		URI c = new URI("http://host/c.jar");
+		store(cache, a.toString(), 'a', 1000);
+		store(cache, b.toString(), 'b', 1000);
+		cache.get(a)
+			.close(); // a is now used more recently than b
+		store(cache, c.toString(), 'c', 1000);
+
+		assertThat(cache.isCached(a)).isTrue();
+		assertThat(cache.isCached(b)).isFalse();
+		assertThat(cache.isCached(c)).isTrue();
+		assertThat(cache.getCacheInfoFileFor(b)).doesNotExist();
+
+		StatsDTO stats = cache.stats();
+		assertThat(stats.entries).isEqualTo(2);
+		assertThat(stats.size).isEqualTo(2000);
+		assertThat(stats.hits).isEqualTo(1);
+		assertThat(stats.misses).isEqualTo(3);
+
+		// the journal is shared with a new cache on the same directory
+		URLCache other = new URLCache(tmp);
+		other.setMaxSize(2500L);
+		stats = other.stats();
+		assertThat(stats.entries).isEqualTo(2);
+		assertThat(stats.size).isEqualTo(2000);
+		assertThat(stats.hits).isEqualTo(1);
+		assertThat(stats.misses).isEqualTo(3);
+
+		store(other, b.toString(), 'b', 1000);
+		assertThat(cache.isCached(a)).isFalse();
+		assertThat(cache.stats().misses).isEqualTo(4);
+	}
+
+	@Test
+	public void testSharedCaches(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache[] caches = new URLCache[4];
+		for (int i = 0; i < caches.length; i++) {
+			caches[i] = new URLCache(tmp);
+			caches[i].setMaxSize(10_000L);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(caches.length);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < caches.length; i++) {
+				URLCache cache = caches[i];
+				char c = (char) ('a' + i);
+				futures.add(executor.submit(() -> {
+					for (int n = 0; n < 100; n++) {
+						store(cache, "http://host/" + c + n + ".jar", c, 1000 + n);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		URLCache other = new URLCache(tmp);
+		other.setMaxSize(10_000L);
+		StatsDTO stats = other.stats();
+		File[] files = new File(tmp, "shas").listFiles((dir, name) -> name.endsWith(".content"));
+		assertThat(stats.entries).isEqualTo(files.length);
+		assertThat(stats.size).isEqualTo(Arrays.stream(files)
+			.mapToLong(File::length)
+			.sum())
+			.isLessThanOrEqualTo(10_000L);
+		assertThat(stats.misses).isEqualTo(400);
+	}
+
+	@Test
+	public void testRewrittenJournal(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache cache = new URLCache(tmp);
+		cache.setMaxSize(1_000_000L);
+		URI a = new URI("http://host/a.jar");
+		store(cache, a.toString(), 'a', 1000);
+		store(cache, "http://host/b.jar", 'b', 1000);
+		assertThat(cache.stats().entries).isEqualTo(2);
+
+		// another process rewrote the journal in place to a longer journal
+		File journal = new File(tmp, "journal");
+		String name = cache.getCacheFileFor(a)
+			.getName();
+		String digest = IO.collect(journal)
+			.lines()
+			.filter(line -> line.startsWith("+ " + name + " "))
+			.map(line -> line.split(" ")[2])
+			.findFirst()
+			.orElseThrow();
+		StringBuilder rewritten = new StringBuilder("= 5 7 0 42\n").append("e ")
+			.append(name)
+			.append(' ')
+			.append(digest)
+			.append(" 1000\n");
+		while (rewritten.length() <= journal.length()) {
+			rewritten.append("* ")
+				.append(name)
+				.append('\n');
+		}
+		long accesses = rewritten.toString()
+			.lines()
+			.filter(line -> line.startsWith("* "))
+			.count();
+		Files.writeString(journal.toPath(), rewritten);
+
+		StatsDTO stats = cache.stats();
+		assertThat(stats.entries).isEqualTo(1);
+		assertThat(stats.size).isEqualTo(1000);
+		assertThat(stats.hits).isEqualTo(5 + accesses);
+		assertThat(stats.misses).isEqualTo(7);
+	}
+
+	@Test
+	public void testExistingCache(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URLCache cache = new URLCache(tmp);
+		URI a = new URI("http://mirror1/x.jar");
+		URI b = new URI("http://mirror2/x.jar");
+		store(cache, a.toString(), 'x', 1000);
+		store(cache, b.toString(), 'x', 1000);
+		assertThat(Files.isSameFile(cache.getCacheFileFor(a)
+			.toPath(),
+			cache.getCacheFileFor(b)
+				.toPath())).isFalse();
+
+		cache.setMaxSize(1_000_000L);
+		assertThat(Files.isSameFile(cache.getCacheFileFor(a)
+			.toPath(),
+			cache.getCacheFileFor(b)
+				.toPath())).isTrue();
+		StatsDTO stats = cache.stats();
+		assertThat(stats.entries).isEqualTo(2);
+		assertThat(stats.misses).isEqualTo(0);
+		assertThat(stats.saved).isEqualTo(1000);
+	}
+
+	private static void store(URLCache cache, String uri, char c, int length) throws Exception {
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) c);
+		try (Info info = cache.get(new URI(uri))) {
+			info.update(IO.stream(content), null, 0L);
+		}
+	}
+}
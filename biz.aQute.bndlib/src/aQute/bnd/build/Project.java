@@ -77,6 +77,7 @@ import aQute.bnd.osgi.About;
 import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Builder;
 import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.IncrementalAnalysis;
 import aQute.bnd.osgi.Instruction;
 import aQute.bnd.osgi.Instructions;
 import aQute.bnd.osgi.Jar;
@@ -169,6 +170,7 @@ public class Project extends Processor {
 	File														output;
 	File														target;
 	private final AtomicInteger									revision						= new AtomicInteger();
+	private final IncrementalAnalysis							incrementalAnalysis				= new IncrementalAnalysis();
 	private File												files[];
 	boolean														delayRunDependencies			= true;
 	final ProjectMessages										msgs							= ReporterMessages
@@ -254,6 +256,7 @@ public class Project extends Processor {
 
 		builder.setBase(getBase());
 		builder.use(this);
+		builder.setIncrementalAnalysis(incrementalAnalysis);
 		return builder;
 	}
 
@@ -2451,6 +2454,7 @@ public class Project extends Processor {
 		clean(getSrcOutput(), "source output");
 		clean(getTestOutput(), "test output");
 		getGenerate().clean();
+		incrementalAnalysis.clear();
 
 		for (File src : getSourcePath()) {
 			IO.mkdirs(src);
@@ -0,0 +1,156 @@
+package aQute.bnd.build;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.ConsumerWithException;
+import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Runs a task, like a build, for a number of projects and the projects they
+ * depend on. A project is only started when the projects it depends on, see
+ * {@link Project#getDependson()}, are done. Projects that do not depend on
+ * each other run in parallel on at most the given number of threads.
+ * <p>
+ * Each project runs once, under the workspace read lock, see
+ * {@link Workspace#readLocked(java.util.concurrent.Callable)}. When several
+ * projects are ready, they are started in the order a serial run would use.
+ * Projects in a dependency cycle are run one at a time in that order.
+ * <p>
+ * Errors and warnings stay in the projects like in a serial run. If the task
+ * throws an exception for a project, no more projects are started and the
+ * first exception is thrown once the running projects are done.
+ */
+public class ProjectScheduler {
+	private final static Logger	logger	= LoggerFactory.getLogger(ProjectScheduler.class);
+
+	private final Workspace		workspace;
+	private final int			parallelism;
+	private final Executor		executor;
+
+	private record Done(Project project, Throwable failure) {}
+
+	/**
+	 * @param workspace The workspace of the projects.
+	 * @param parallelism The maximum number of projects that run at the same
+	 *            time.
+	 */
+	public ProjectScheduler(Workspace workspace, int parallelism) {
+		this(workspace, parallelism, Processor.getExecutor());
+	}
+
+	ProjectScheduler(Workspace workspace, int parallelism, Executor executor) {
+		this.workspace = workspace;
+		this.parallelism = Math.max(1, parallelism);
+		this.executor = executor;
+	}
+
+	/**
+	 * Run a task for projects and the projects they depend on.
+	 *
+	 * @param projects The projects.
+	 * @param task The task to run for each project.
+	 * @return The projects in the order they were started.
+	 * @throws Exception The first exception thrown by the task.
+	 */
+	public List<Project> run(Collection<Project> projects, ConsumerWithException<Project> task) throws Exception {
+		// The order of a serial run, each project after its dependencies
+		Map<Project, Integer> order = new LinkedHashMap<>();
+		for (Project project : projects) {
+			for (Project dependency : project.getDependson()) {
+				order.putIfAbsent(dependency, order.size());
+			}
+			order.putIfAbsent(project, order.size());
+		}
+
+		Map<Project, Set<Project>> waiting = new HashMap<>();
+		Map<Project, List<Project>> dependents = new HashMap<>();
+		PriorityQueue<Project> ready = new PriorityQueue<>(Comparator.comparing(order::get));
+		for (Project project : order.keySet()) {
+			Set<Project> dependencies = new HashSet<>(project.getDependson());
+			dependencies.remove(project);
+			dependencies.retainAll(order.keySet());
+			if (dependencies.isEmpty()) {
+				ready.add(project);
+			} else {
+				waiting.put(project, dependencies);
+				for (Project dependency : dependencies) {
+					dependents.computeIfAbsent(dependency, k -> new ArrayList<>())
+						.add(project);
+				}
+			}
+		}
+
+		List<Project> started = new ArrayList<>(order.size());
+		BlockingQueue<Done> done = new LinkedBlockingQueue<>();
+		Throwable failure = null;
+		int running = 0;
+		while (failure == null && started.size() < order.size()) {
+			if (ready.isEmpty() && running == 0) {
+				// A dependency cycle, start the first waiting project
+				Project next = order.keySet()
+					.stream()
+					.filter(waiting::containsKey)
+					.findFirst()
+					.orElseThrow();
+				logger.debug("Dependency cycle, starting {} before its dependencies {}", next, waiting.get(next));
+				waiting.remove(next);
+				ready.add(next);
+			}
+			while (!ready.isEmpty() && running < parallelism) {
+				Project project = ready.remove();
+				started.add(project);
+				running++;
+				executor.execute(() -> {
+					try {
+						workspace.readLocked(() -> {
+							task.accept(project);
+							return null;
+						});
+						done.add(new Done(project, null));
+					} catch (Throwable t) {
+						done.add(new Done(project, t));
+					}
+				});
+			}
+
+			Done d = done.take();
+			running--;
+			failure = d.failure();
+			for (Project dependent : dependents.getOrDefault(d.project(), List.of())) {
+				Set<Project> dependencies = waiting.get(dependent);
+				if (dependencies != null && dependencies.remove(d.project()) && dependencies.isEmpty()) {
+					waiting.remove(dependent);
+					ready.add(dependent);
+				}
+			}
+		}
+
+		// Let the running projects finish
+		for (; running > 0; running--) {
+			Done d = done.take();
+			if (failure == null) {
+				failure = d.failure();
+			}
+		}
+		if (failure != null) {
+			throw Exceptions.duck(failure);
+		}
+		return started;
+	}
+}
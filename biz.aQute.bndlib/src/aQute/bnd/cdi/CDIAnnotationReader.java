@@ -39,6 +39,7 @@ public class CDIAnnotationReader extends ClassDataCollector {
 	public static final Version			V1_0					= new Version(1, 0, 0);
 	public static final Version			CDI_ARCHIVE_VERSION		= new Version(1, 1, 0);
 
+	private static final String			CDI_ANNOTATIONS			= "org.osgi.service.cdi.annotations";
 	private static final Instruction	COMPONENTSCOPED_INSTR	= new Instruction(
 		"org.osgi.service.cdi.annotations.ComponentScoped");
 	private static final Instruction	DEPENDENT_INSTR			= new Instruction("javax.enterprise.context.Dependent");
@@ -52,7 +53,7 @@ public class CDIAnnotationReader extends ClassDataCollector {
 
 	final Analyzer						analyzer;
 	final Clazz							clazz;
-	final ClassSignature				classSig;
+	ClassSignature						classSig;
 	final EnumSet<Discover>				options;
 	final Map<PackageRef, PackageDef>	packageInfos			= new HashMap<>();
 	final List<BeanDef>					definitions				= new ArrayList<>();
@@ -69,8 +70,6 @@ public class CDIAnnotationReader extends ClassDataCollector {
 		this.clazz = clazz;
 		this.options = options;
 		this.definitions.add(new BeanDef());
-		String signature = clazz.getClassSignature();
-		this.classSig = analyzer.getClassSignature((signature != null) ? signature : "Ljava/lang/Object;");
 	}
 
 	public static List<BeanDef> getDefinition(Clazz c, Analyzer analyzer, EnumSet<Discover> options) throws Exception {
@@ -102,6 +101,20 @@ public class CDIAnnotationReader extends ClassDataCollector {
 			}
 		}
 
+		// with the default discovery mode only classes annotated with @Bean or
+		// in packages annotated with @Beans are considered, so there is no
+		// need to parse classes without any CDI annotations
+		if (options.equals(EnumSet.of(Discover.annotated_by_bean)) && clazz.annotations()
+			.stream()
+			.noneMatch(a -> a.getPackageRef()
+				.getFQN()
+				.equals(CDI_ANNOTATIONS))
+			&& !beansPackage()) {
+			return null;
+		}
+
+		String signature = clazz.getClassSignature();
+		classSig = analyzer.getClassSignature((signature != null) ? signature : "Ljava/lang/Object;");
 		clazz.parseClassFileWithCollector(this);
 
 		// the default discovery mode is 'annotated_by_bean' to indicate that
@@ -114,6 +127,13 @@ public class CDIAnnotationReader extends ClassDataCollector {
 		return definitions;
 	}
 
+	private boolean beansPackage() {
+		Clazz packageClazz = analyzer.getPackageInfo(clazz.getClassName()
+			.getPackageRef());
+		return packageClazz != null && packageClazz.annotations()
+			.contains(analyzer.getTypeRef("org/osgi/service/cdi/annotations/Beans"));
+	}
+
 	@Override
 	public void annotation(Annotation annotation) {
 		try {
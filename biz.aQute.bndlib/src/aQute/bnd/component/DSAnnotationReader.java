@@ -109,7 +109,7 @@ public class DSAnnotationReader extends ClassDataCollector {
 	ComponentDef											component;
 
 	final Clazz												clazz;
-	final ClassSignature									classSig;
+	ClassSignature											classSig;
 	TypeRef[]												interfaces;
 	MemberDef												member;
 	MethodSignature											methodSig;
@@ -138,8 +138,6 @@ public class DSAnnotationReader extends ClassDataCollector {
 		this.options = options;
 		this.finder = finder;
 		this.component = new ComponentDef(analyzer, finder, minVersion);
-		String signature = clazz.getClassSignature();
-		classSig = analyzer.getClassSignature((signature != null) ? signature : "Ljava/lang/Object;");
 	}
 
 	public static ComponentDef getDefinition(Clazz c, Analyzer analyzer, Set<Options> options,
@@ -169,6 +167,8 @@ public class DSAnnotationReader extends ClassDataCollector {
 			return null;
 		}
 
+		String signature = clazz.getClassSignature();
+		classSig = analyzer.getClassSignature((signature != null) ? signature : "Ljava/lang/Object;");
 		clazz.parseClassFileWithCollector(this);
 		if (component.implementation == null)
 			return null;
@@ -66,6 +66,8 @@ public class ConnectionSettings {
 		.getUserHomeBnd("connection-settings.xml")
 		.getAbsolutePath();
 	private static final String					CONNECTION_SETTINGS				= "-connection-settings";
+	private static final Pattern				SIZE_P							= Pattern
+		.compile("(?<size>\\d+)\\s*(?<unit>[kKmMgG])?");
 	private final Processor						processor;
 	private final HttpClient					client;
 	private final List<ServerDTO>				servers							= new ArrayList<>();
@@ -82,9 +84,35 @@ public class ConnectionSettings {
 				.mkdirs();
 			this.client.setLog(file);
 		}
+		if (client != null && processor.is(Constants.CONNECTION_HTTP2)) {
+			client.http2(true);
+		}
+		String cacheSize = processor.getProperty(Constants.CONNECTION_CACHE_SIZE);
+		if (client != null && Strings.nonNullOrEmpty(cacheSize)) {
+			client.cache()
+				.setMaxSize(parseSize(cacheSize));
+		}
 		mavenMasterPassphrase = new MasterPassphrase(processor);
 	}
 
+	private long parseSize(String size) {
+		Matcher m = SIZE_P.matcher(size.trim());
+		if (!m.matches()) {
+			processor.error("%s: invalid size %s", Constants.CONNECTION_CACHE_SIZE, size);
+			return 0L;
+		}
+		long n = Long.parseLong(m.group("size"));
+		String unit = m.group("unit");
+		if (unit == null) {
+			return n;
+		}
+		return switch (Character.toLowerCase(unit.charAt(0))) {
+			case 'k' -> n << 10;
+			case 'm' -> n << 20;
+			default -> n << 30;
+		};
+	}
+
 	private static final class MasterPassphrase extends ConcurrentInitialize<String> {
 		private final Processor processor;
 
@@ -613,6 +641,8 @@ public class ConnectionSettings {
 
 	public void report(Formatter f) {
 		f.format("-connection-settings          %s%n", processor.getProperty(CONNECTION_SETTINGS, "<>"));
+		f.format("-connection-http2             %s%n", processor.getProperty(Constants.CONNECTION_HTTP2, "<>"));
+		f.format("-connection-cache-size        %s%n", processor.getProperty(Constants.CONNECTION_CACHE_SIZE, "<>"));
 		f.format("Parsed files:%n");
 
 		getParsedFiles().forEach(file -> f.format("   %s%n", file));
@@ -69,6 +69,9 @@ public class ExecutableJarExporter implements Exporter {
 		if (jar == null)
 			return null;
 
+		jar.setParallelWrite(project.is(Constants.PARALLELWRITE));
+		jar.setCopyDeflated(project.is(Constants.COPYDEFLATED));
+
 		String name = jar.getName();
 		String[] baseext = Strings.extension(name);
 		if (baseext != null && ("bnd".equals(baseext[1]) || "bndrun".equals(baseext[1]))) {
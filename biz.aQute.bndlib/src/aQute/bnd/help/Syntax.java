@@ -198,6 +198,10 @@ public class Syntax implements Constants {
 		new Syntax(CLASSPATH, "The " + CLASSPATH + " instruction adds class path entries to a bnd file’s processing.",
 			BASELINE + ": jar/foo.jar, jar/bar.jar", null, null),
 
+		new Syntax(CLASSCACHE,
+			"A directory in which bnd keeps a summary of every parsed class file, keyed by the SHA-256 of the class file. Classes seen before are not parsed again.",
+			CLASSCACHE + ": ${workspace}/cnf/cache/classes", null, null),
+
 		new Syntax(COMPRESSION, "Set the compression for writing JARs. Default is deflate", COMPRESSION + "=store",
 			"deflate,store", Pattern.compile("deflate|store")),
 
@@ -385,6 +389,13 @@ public class Syntax implements Constants {
 
 		new Syntax(CONNECTION_SETTINGS, "Setting up the communications for bnd.",
 			CONNECTION_SETTINGS + "= ~/.bnd/connection-settings.xml", null, null),
+		new Syntax(CONNECTION_HTTP2,
+			"Download and upload with the java.net.http client, which uses HTTP/2 when the server supports it and keeps the connections open.",
+			CONNECTION_HTTP2 + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+
+		new Syntax(CONNECTION_CACHE_SIZE,
+			"Limit the size of the download cache, the least recently used files are removed and identical content is stored once.",
+			CONNECTION_CACHE_SIZE + "=10g", null, Pattern.compile("\\d+[kKmMgG]?")),
 
 		new Syntax(CONDUIT, "Allows a bnd file to point to files which will be returned when the bnd file is build.",
 			CONDUIT + "= jar/osgi.jar", null, null),
@@ -502,6 +513,9 @@ public class Syntax implements Constants {
 			INVALIDFILENAMES + ":" + Verifier.ReservedFileNames, null, null),
 		new Syntax(INCLUDEPACKAGE, "Include a number of packages from the class path.",
 			INCLUDEPACKAGE + ": !com.foo.bar, com.foo.* ", null, Verifier.WILDCARDNAMEPATTERN),
+		new Syntax(INCREMENTAL,
+			"Keep the analysis of the class files in the output folder between builds and only parse the class files that changed.",
+			INCREMENTAL + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(INCLUDERESOURCE,
 			"Include resources from the file system. You can specify a directory, or file. All files are copied to the root, unless a destination directory is indicated.",
 			INCLUDERESOURCE + ": lib/=jar/, {preprocess.txt}, license.txt;literal:='ASL 2.0, -doesnotexit.txt'", null,
@@ -565,6 +579,15 @@ public class Syntax implements Constants {
 			NOCLASSFORNAME + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(NOIMPORTJAVA, "Do not calculate " + IMPORT_PACKAGE + " references for java.* packages.",
 			NOIMPORTJAVA + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(PARALLELANALYSIS,
+			"Parse the class files of the bundle concurrently when analyzing. The result is the same as the serial analysis.",
+			PARALLELANALYSIS + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(COPYDEFLATED,
+			"Copy the compressed data of deflated resources that come from other JARs when writing a deflated bundle or executable JAR instead of inflating and deflating them again.",
+			COPYDEFLATED + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(PARALLELWRITE,
+			"Compress the resources of the bundle or executable JAR concurrently when writing it. The written JAR is the same as when it is written serially.",
+			PARALLELWRITE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 
 		new Syntax(NOEE, "Do not calculate the osgi.ee name space Execution Environment from the class file version.",
 			NOEE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
@@ -609,6 +632,10 @@ public class Syntax implements Constants {
 		new Syntax(RESOLVE_PREFERENCES, "Override the default order and selection of repositories.",
 			RESOLVE_PREFERENCES + "=com.example.bundle.most.priority", "${packages}", null),
 
+		new Syntax(RESOLVE_CACHE,
+			"Reuse the run bundles of the last resolution when the resolve instructions and the content of the repositories did not change.",
+			RESOLVE_CACHE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+
 		new Syntax(RUNTIMEOUT, "Specifies the test execution timeout.", RUNTIMEOUT + "=10000", null, null),
 		new Syntax(REQUIRE_BND, "Require a specific version of bnd.", REQUIRE_BND + "=\"(version>=4.1)\"",
 			"(FILTER ( ',' FILTER )* )?", null),
@@ -51,9 +51,14 @@ public interface LauncherInstructions {
 	Executable executable();
 
 	enum RunOption {
-		eager
+		eager,
+		/**
+		 * Install the run bundles and start the bundles of a start level
+		 * concurrently
+		 */
+		parallel
 	}
 
-	@SyntaxAnnotation(lead = "Options for the launch", example = "-runoptions eager")
+	@SyntaxAnnotation(lead = "Options for the launch", example = "-runoptions eager,parallel")
 	Set<RunOption> runoptions();
 }
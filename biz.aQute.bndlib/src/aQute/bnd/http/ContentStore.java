@@ -0,0 +1,434 @@
+package aQute.bnd.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.http.URLCache.InfoDTO;
+import aQute.bnd.http.URLCache.StatsDTO;
+import aQute.lib.io.IO;
+import aQute.lib.json.JSONCodec;
+
+/**
+ * Keeps the files of a {@link URLCache} within a maximum size and stores
+ * identical content only once.
+ * <p>
+ * The content of a cached URL is hard linked to a file named after its
+ * SHA-256 in the {@code blobs} directory. When another URL has the same
+ * content, its file is replaced with a link to the same blob. On file systems
+ * without hard links every URL keeps its own copy.
+ * <p>
+ * Stores, accesses, and removals are appended to a journal. The journal is
+ * replayed to know the least recently used files, the size of the distinct
+ * content, and the statistics. Processes that share the cache append to the
+ * same journal and read the lines of the other processes before they evict.
+ * When the journal gets long, it is rewritten with only the current entries.
+ * The first line of a rewritten journal has a generation that changes with
+ * every rewrite, so that the other processes read the journal again from the
+ * start.
+ * The journal is only read and changed, and files are only evicted, while
+ * holding a lock on the {@code journal.lock} file so that processes that
+ * share the cache do not evict or rewrite the journal concurrently.
+ */
+class ContentStore {
+	private final static Logger			logger		= LoggerFactory.getLogger(ContentStore.class);
+	private final static JSONCodec		codec		= new JSONCodec();
+	private final static int			MIN_COMPACT	= 1000;
+
+	private final File					shas;
+	private final File					blobs;
+	private final File					journal;
+	private final File					lockFile;
+	private final long					maxSize;
+	private final Predicate<File>		inUse;
+
+	/*
+	 * The cache files in the order they were last used
+	 */
+	private final Map<String, Entry>	entries		= new LinkedHashMap<>(16, 0.75f, true);
+	/*
+	 * The number of cache files per SHA-256
+	 */
+	private final Map<String, Integer>	references	= new HashMap<>();
+	private long						size;
+	private long						hits;
+	private long						misses;
+	private long						saved;
+	private long						position;
+	private int							lines;
+	private long						generation;
+
+	private record Entry(String digest, long length) {}
+
+	/**
+	 * @param root The directory of the cache.
+	 * @param shas The directory with the cache files.
+	 * @param maxSize The maximum size of the distinct content.
+	 * @param inUse Cache files that must not be evicted.
+	 */
+	ContentStore(File root, File shas, long maxSize, Predicate<File> inUse) throws IOException {
+		this.shas = shas;
+		this.blobs = new File(root, "blobs");
+		this.journal = new File(root, "journal");
+		this.lockFile = new File(root, "journal.lock");
+		this.maxSize = maxSize;
+		this.inUse = inUse;
+		IO.mkdirs(blobs);
+		synchronized (this) {
+			FileLock lock = lock();
+			try {
+				if (journal.isFile()) {
+					read();
+				} else {
+					bootstrap();
+				}
+				evict(null);
+			} finally {
+				unlock(lock);
+			}
+		}
+	}
+
+	/**
+	 * A cache file was written.
+	 */
+	synchronized void stored(File file, String digest) throws IOException {
+		FileLock lock = lock();
+		try {
+			store(file, digest);
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	private void store(File file, String digest) throws IOException {
+		read();
+		File blob = blob(digest);
+		try {
+			if (blob.isFile() && blob.length() == file.length()) {
+				if (!Files.isSameFile(blob.toPath(), file.toPath())) {
+					File link = new File(file.getParentFile(), file.getName() + ".link");
+					IO.delete(link);
+					Files.createLink(link.toPath(), blob.toPath());
+					link.setLastModified(file.lastModified());
+					IO.rename(link, file);
+				}
+			} else {
+				IO.mkdirs(blob.getParentFile());
+				IO.delete(blob);
+				Files.createLink(blob.toPath(), file.toPath());
+			}
+		} catch (IOException | UnsupportedOperationException e) {
+			logger.debug("URLCache cannot link {} to {}", file, blob, e);
+		}
+		append("+ " + file.getName() + " " + digest + " " + file.length());
+		evict(file.getName());
+	}
+
+	/**
+	 * A cache file was used without being written.
+	 */
+	synchronized void accessed(File file) throws IOException {
+		FileLock lock = lock();
+		try {
+			read();
+			append("* " + file.getName());
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	/**
+	 * A cache file was removed.
+	 */
+	synchronized void removed(File file) throws IOException {
+		FileLock lock = lock();
+		try {
+			read();
+			if (entries.containsKey(file.getName())) {
+				append("- " + file.getName());
+			}
+		} finally {
+			unlock(lock);
+		}
+	}
+
+	synchronized StatsDTO stats() throws IOException {
+		FileLock lock = lock();
+		try {
+			read();
+		} finally {
+			unlock(lock);
+		}
+		StatsDTO stats = new StatsDTO();
+		stats.hits = hits;
+		stats.misses = misses;
+		stats.saved = saved;
+		stats.size = size;
+		stats.maxSize = maxSize;
+		stats.entries = entries.size();
+		return stats;
+	}
+
+	/*
+	 * Remove the least recently used cache files until the content fits
+	 */
+	private void evict(String keep) throws IOException {
+		while (size > maxSize) {
+			String name = entries.keySet()
+				.stream()
+				.filter(n -> !n.equals(keep) && !inUse.test(new File(shas, n)))
+				.findFirst()
+				.orElse(null);
+			if (name == null) {
+				return;
+			}
+			File file = new File(shas, name);
+			logger.debug("URLCache evicting {}", file);
+			IO.delete(file);
+			IO.delete(new File(shas, name + ".json"));
+			String digest = entries.get(name)
+				.digest();
+			append("- " + name);
+			if (!references.containsKey(digest)) {
+				IO.delete(blob(digest));
+			}
+		}
+	}
+
+	/*
+	 * Register the cache files of a cache that was used without a journal
+	 */
+	private void bootstrap() throws IOException {
+		File[] files = shas.listFiles((dir, name) -> name.endsWith(".content"));
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File file : files) {
+			File json = new File(shas, file.getName() + ".json");
+			try {
+				InfoDTO dto = codec.dec()
+					.from(json)
+					.get(InfoDTO.class);
+				if (dto.sha_256 != null) {
+					store(file, dto.sha_256);
+				}
+			} catch (Exception e) {
+				logger.debug("URLCache cannot register {}", file, e);
+			}
+		}
+		misses = 0L;
+		compact();
+	}
+
+	/*
+	 * Lock the lock file, another ContentStore for the same cache in this
+	 * process may hold the lock for a short time
+	 */
+	private FileLock lock() throws IOException {
+		FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try {
+			for (int count = 400;; count--) {
+				try {
+					return channel.lock();
+				} catch (OverlappingFileLockException e) {
+					if (count <= 0) {
+						throw new IOException("URLCache could not obtain lock " + lockFile, e);
+					}
+					TimeUnit.MILLISECONDS.sleep(5);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			IO.close(channel);
+			throw e;
+		} catch (InterruptedException e) {
+			IO.close(channel);
+			Thread.currentThread()
+				.interrupt();
+			throw new IOException("URLCache interrupted while waiting for lock " + lockFile, e);
+		}
+	}
+
+	private void unlock(FileLock lock) {
+		IO.close(lock.channel());
+	}
+
+	private File blob(String digest) {
+		return new File(new File(blobs, digest.substring(0, 2)), digest);
+	}
+
+	/*
+	 * Append a line and read it back with the lines other processes appended
+	 * in the mean time
+	 */
+	private void append(String line) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap((line + "\n").getBytes(UTF_8));
+		try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			while (bb.hasRemaining()) {
+				channel.write(bb);
+			}
+		}
+		read();
+		if (lines > Math.max(MIN_COMPACT, 4 * entries.size())) {
+			compact();
+		}
+	}
+
+	/*
+	 * Read the lines that were appended since the last read, which includes
+	 * the lines of other processes
+	 */
+	private void read() throws IOException {
+		if (!journal.isFile()) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.READ)) {
+			long length = channel.size();
+			long current = generation(channel);
+			if (length < position || current != generation) {
+				// rewritten by another process
+				reset();
+				generation = current;
+			}
+			if (length == position) {
+				return;
+			}
+			ByteBuffer bb = ByteBuffer.allocate((int) (length - position));
+			while (bb.hasRemaining() && channel.read(bb, position + bb.position()) > 0) {}
+			int end = bb.position();
+			while (end > 0 && bb.get(end - 1) != '\n') {
+				end--; // a line that is still being written
+			}
+			for (String line : new String(bb.array(), 0, end, UTF_8).split("\n")) {
+				if (!line.isEmpty()) {
+					apply(line);
+					lines++;
+				}
+			}
+			position += end;
+		}
+	}
+
+	/*
+	 * The generation in the first line of the journal, 0 if the journal was
+	 * not rewritten yet
+	 */
+	private static long generation(FileChannel channel) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(128);
+		while (bb.hasRemaining() && channel.read(bb, bb.position()) > 0) {}
+		String first = new String(bb.array(), 0, bb.position(), UTF_8);
+		int end = first.indexOf('\n');
+		if (end < 0 || !first.startsWith("= ")) {
+			return 0L;
+		}
+		String[] parts = first.substring(0, end)
+			.split(" ");
+		try {
+			return (parts.length > 4) ? Long.parseLong(parts[4]) : 0L;
+		} catch (NumberFormatException e) {
+			return 0L;
+		}
+	}
+
+	private void apply(String line) {
+		String[] parts = line.split(" ");
+		try {
+			switch (parts[0]) {
+				case "+" -> {
+					Entry entry = new Entry(parts[2], Long.parseLong(parts[3]));
+					misses++;
+					if (!add(parts[1], entry)) {
+						saved += entry.length();
+					}
+				}
+				case "e" -> add(parts[1], new Entry(parts[2], Long.parseLong(parts[3])));
+				case "*" -> {
+					if (entries.get(parts[1]) != null) {
+						hits++;
+					}
+				}
+				case "-" -> {
+					Entry old = entries.remove(parts[1]);
+					if (old != null) {
+						release(old);
+					}
+				}
+				case "=" -> {
+					hits = Long.parseLong(parts[1]);
+					misses = Long.parseLong(parts[2]);
+					saved = Long.parseLong(parts[3]);
+				}
+				default -> logger.debug("URLCache invalid journal line {}", line);
+			}
+		} catch (RuntimeException e) {
+			logger.debug("URLCache invalid journal line {}", line, e);
+		}
+	}
+
+	/*
+	 * @return false if the content was already stored for another cache file
+	 */
+	private boolean add(String name, Entry entry) {
+		Entry old = entries.put(name, entry);
+		if (old != null) {
+			release(old);
+		}
+		if (references.merge(entry.digest(), 1, Integer::sum) == 1) {
+			size += entry.length();
+			return true;
+		}
+		return old != null && old.digest()
+			.equals(entry.digest());
+	}
+
+	private void release(Entry entry) {
+		if (references.computeIfPresent(entry.digest(), (k, v) -> (v > 1) ? v - 1 : null) == null) {
+			size -= entry.length();
+		}
+	}
+
+	private void reset() {
+		entries.clear();
+		references.clear();
+		size = hits = misses = saved = position = 0L;
+		lines = 0;
+	}
+
+	/*
+	 * Rewrite the journal with the current entries in the order they were
+	 * last used
+	 */
+	private void compact() throws IOException {
+		File tmp = new File(journal.getParentFile(), journal.getName() + ".tmp");
+		try (Writer writer = IO.writer(tmp)) {
+			writer.write("= " + hits + " " + misses + " " + saved + " " + (generation + 1) + "\n");
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				writer.write("e " + e.getKey() + " " + entry.digest() + " " + entry.length() + "\n");
+			}
+		}
+		IO.rename(tmp, journal);
+		reset();
+		read();
+	}
+}
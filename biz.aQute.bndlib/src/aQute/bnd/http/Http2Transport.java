@@ -0,0 +1,369 @@
+package aQute.bnd.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.service.url.ProxyHandler.ProxySetup;
+import aQute.lib.io.IO;
+
+/**
+ * Sends requests with the {@code java.net.http} client instead of
+ * {@link HttpURLConnection}. This client uses HTTP/2 when the server supports
+ * it, multiplexing the concurrent requests to a host over a single
+ * connection, and otherwise keeps a pool of HTTP/1.1 connections per host.
+ * <p>
+ * The request is still prepared on a {@link URLConnection}, that is never
+ * connected, so that the {@link aQute.bnd.service.url.URLConnectionHandler}
+ * plugins can decorate it. Its request properties are copied to the request.
+ * A connection that was configured in a way that cannot be copied, like with
+ * a specific SSL socket factory, or that uses a SOCKS proxy is not supported
+ * and must be sent with a {@link HttpURLConnection}.
+ */
+class Http2Transport {
+	private final static Logger										logger				= LoggerFactory
+		.getLogger(Http2Transport.class);
+	/*
+	 * Headers that are set by the client and cannot be set on a request.
+	 */
+	private static final Set<String>								RESTRICTED_HEADERS	= Set.of("connection", "content-length",
+		"expect", "host", "upgrade");
+	private static final Duration									CONNECT_TIMEOUT		= Duration.ofMinutes(2);
+
+	private final Executor											executor;
+	private final ScheduledExecutorService							scheduler;
+	/*
+	 * One client per proxy, each client keeps its own connection pool. The
+	 * empty key is for the client that uses the default proxy selector.
+	 */
+	private final Map<Optional<Proxy>, java.net.http.HttpClient>	clients				= new ConcurrentHashMap<>();
+
+	Http2Transport(Executor executor, ScheduledExecutorService scheduler) {
+		this.executor = executor;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Create a connection to prepare a request on. The connection is never
+	 * connected, it only records how it is configured.
+	 *
+	 * @return The connection or {@code null} if the url or proxy is not
+	 *         supported by this transport.
+	 */
+	HttpURLConnection prepare(URL url, ProxySetup proxy) {
+		if (proxy != null && proxy.proxy != null) {
+			switch (proxy.proxy.type()) {
+				case DIRECT :
+					break;
+				case HTTP :
+					if (proxy.proxy.address() instanceof InetSocketAddress) {
+						break;
+					}
+					return null;
+				default :
+					return null;
+			}
+		}
+		return switch (url.getProtocol()
+			.toLowerCase(Locale.ROOT)) {
+			case "http" -> new PreparedConnection(url);
+			case "https" -> new PreparedHttpsConnection(url);
+			default -> null;
+		};
+	}
+
+	/**
+	 * Create the request for a prepared connection.
+	 *
+	 * @param con A connection created by {@link #prepare(URL, ProxySetup)}.
+	 * @param timeout The timeout in milliseconds to receive the response.
+	 * @return The request builder or {@code null} if the connection was
+	 *         configured in a way that is not supported by this transport.
+	 */
+	HttpRequest.Builder request(HttpURLConnection con, long timeout) throws Exception {
+		if (con instanceof HttpsURLConnection https) {
+			if (https.getSSLSocketFactory() != HttpsURLConnection.getDefaultSSLSocketFactory()
+				|| https.getHostnameVerifier() != HttpsURLConnection.getDefaultHostnameVerifier()) {
+				return null;
+			}
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(con.getURL()
+			.toURI())
+			.timeout(Duration.ofMillis(timeout));
+		try {
+			for (Map.Entry<String, List<String>> entry : con.getRequestProperties()
+				.entrySet()) {
+				String name = entry.getKey();
+				if (name == null || RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+					continue;
+				}
+				for (String value : entry.getValue()) {
+					builder.header(name, value);
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			logger.debug("Cannot send {} with the HTTP/2 transport", con, e);
+			return null;
+		}
+		return builder;
+	}
+
+	/**
+	 * Send a request. The returned future completes when the response headers
+	 * have been received, the body is streamed from the returned input
+	 * stream.
+	 */
+	CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request, ProxySetup proxy) {
+		return client(proxy).sendAsync(request, BodyHandlers.ofInputStream());
+	}
+
+	/**
+	 * Return the body of a response. A read of the body fails with a
+	 * {@link HttpTimeoutException} when no data is received within the
+	 * timeout, the {@code java.net.http} client has no read timeout of its
+	 * own.
+	 *
+	 * @param timeout The timeout in milliseconds to receive data.
+	 */
+	InputStream body(HttpResponse<InputStream> response, long timeout) {
+		return new BodyInputStream(response.body(), timeout);
+	}
+
+	/**
+	 * Close the clients. A client is closed in the background since it waits
+	 * for the requests in progress. The clients before Java 21 cannot be
+	 * closed and release their connections when they are no longer
+	 * referenced.
+	 */
+	void close() {
+		for (Optional<Proxy> key : clients.keySet()) {
+			java.net.http.HttpClient client = clients.remove(key);
+			if (client instanceof AutoCloseable closeable) {
+				executor.execute(() -> IO.close(closeable));
+			}
+		}
+	}
+
+	private java.net.http.HttpClient client(ProxySetup setup) {
+		Optional<Proxy> proxy = Optional.ofNullable(setup)
+			.map(s -> s.proxy);
+		return clients.computeIfAbsent(proxy, key -> {
+			java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+				.version(java.net.http.HttpClient.Version.HTTP_2)
+				.followRedirects(java.net.http.HttpClient.Redirect.NEVER)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.executor(executor);
+			Proxy p = key.orElse(null);
+			if (p == null) {
+				// use the default proxy selector like URL.openConnection()
+			} else if (p.type() == Proxy.Type.HTTP) {
+				builder.proxy(ProxySelector.of((InetSocketAddress) p.address()));
+				PasswordAuthentication authentication = setup.authentication;
+				if (authentication != null) {
+					builder.authenticator(new Authenticator() {
+						@Override
+						protected PasswordAuthentication getPasswordAuthentication() {
+							return (getRequestorType() == RequestorType.PROXY) ? authentication : null;
+						}
+					});
+				}
+			} else {
+				builder.proxy(java.net.http.HttpClient.Builder.NO_PROXY);
+			}
+			logger.debug("Created HTTP/2 client for proxy {}", p);
+			return builder.build();
+		});
+	}
+
+	/*
+	 * Closes the body when a read does not complete within the timeout, which
+	 * unblocks the read. A single watchdog task per stream checks the read in
+	 * progress and reschedules itself while reads are made, so that reads do
+	 * not schedule and cancel a task each.
+	 */
+	private final class BodyInputStream extends FilterInputStream {
+		private final long			timeout;
+		private final AtomicBoolean	watching	= new AtomicBoolean();
+		private volatile long		started;
+		private volatile boolean	reading;
+		private volatile boolean	expired;
+		private volatile boolean	closed;
+
+		BodyInputStream(InputStream in, long timeout) {
+			super(in);
+			this.timeout = timeout;
+		}
+
+		@Override
+		public int read() throws IOException {
+			begin();
+			int b;
+			try {
+				b = super.read();
+			} catch (IOException e) {
+				throw expired(e);
+			} finally {
+				reading = false;
+			}
+			if (expired) {
+				throw expired(null);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			begin();
+			int n;
+			try {
+				n = super.read(b, off, len);
+			} catch (IOException e) {
+				throw expired(e);
+			} finally {
+				reading = false;
+			}
+			if (expired) {
+				throw expired(null);
+			}
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+
+		private void begin() {
+			started = System.nanoTime();
+			reading = true;
+			watch(TimeUnit.MILLISECONDS.toNanos(timeout));
+		}
+
+		private void watch(long delay) {
+			if (watching.compareAndSet(false, true)) {
+				scheduler.schedule(this::check, delay, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		/*
+		 * Expire the read in progress when it takes too long, otherwise check
+		 * again when it would take too long. The watchdog stops when no read is
+		 * in progress and the next read starts it again.
+		 */
+		private void check() {
+			watching.set(false);
+			if (closed) {
+				return;
+			}
+			long limit = TimeUnit.MILLISECONDS.toNanos(timeout);
+			if (reading) {
+				long elapsed = System.nanoTime() - started;
+				if (elapsed >= limit) {
+					expired = true;
+					IO.close(in);
+					return;
+				}
+				watch(limit - elapsed);
+			}
+		}
+
+		private IOException expired(IOException e) {
+			if (!expired) {
+				return e;
+			}
+			HttpTimeoutException timeoutException = new HttpTimeoutException("Read timed out after " + timeout + "ms");
+			if (e != null) {
+				timeoutException.addSuppressed(e);
+			}
+			return timeoutException;
+		}
+	}
+
+	/*
+	 * The HttpURLConnection of the JDK hides the authorization headers, these
+	 * connections only record the request properties.
+	 */
+	private static final class PreparedConnection extends HttpURLConnection {
+		PreparedConnection(URL url) {
+			super(url);
+		}
+
+		@Override
+		public void connect() throws IOException {
+			throw new IOException("Prepared connection " + url + " cannot be connected");
+		}
+
+		@Override
+		public void disconnect() {}
+
+		@Override
+		public boolean usingProxy() {
+			return false;
+		}
+	}
+
+	private static final class PreparedHttpsConnection extends HttpsURLConnection {
+		PreparedHttpsConnection(URL url) {
+			super(url);
+		}
+
+		@Override
+		public void connect() throws IOException {
+			throw new IOException("Prepared connection " + url + " cannot be connected");
+		}
+
+		@Override
+		public void disconnect() {}
+
+		@Override
+		public boolean usingProxy() {
+			return false;
+		}
+
+		@Override
+		public String getCipherSuite() {
+			throw new IllegalStateException("Not connected " + url);
+		}
+
+		@Override
+		public Certificate[] getLocalCertificates() {
+			throw new IllegalStateException("Not connected " + url);
+		}
+
+		@Override
+		public Certificate[] getServerCertificates() {
+			throw new IllegalStateException("Not connected " + url);
+		}
+	}
+}
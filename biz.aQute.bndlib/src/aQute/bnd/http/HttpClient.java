@@ -8,6 +8,7 @@ import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_SEE_OTHER;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 import java.io.Closeable;
@@ -27,6 +28,11 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Formatter;
@@ -35,6 +41,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -63,6 +72,7 @@ import aQute.bnd.service.url.URLConnector;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.util.home.Home;
 import aQute.lib.date.Dates;
+import aQute.lib.io.ByteBufferOutputStream;
 import aQute.lib.io.IO;
 import aQute.lib.json.JSONCodec;
 import aQute.libg.reporter.ReporterAdapter;
@@ -95,6 +105,7 @@ public class HttpClient implements Closeable, URLConnector {
 	int											retries					= 3;
 	long										retryDelay				= 0L;
 	final Map<URLConnectionHandler, Semaphore>	blocker					= new HashMap<>();
+	private volatile Http2Transport				http2;
 
 	public HttpClient() {
 		promiseFactory = Processor.getPromiseFactory();
@@ -118,6 +129,7 @@ public class HttpClient implements Closeable, URLConnector {
 	@Override
 	public void close() {
 		Authenticator.setDefault(null);
+		http2(false);
 	}
 
 	@Override
@@ -367,6 +379,37 @@ public class HttpClient implements Closeable, URLConnector {
 		return this;
 	}
 
+	/**
+	 * Send the http and https requests with the {@code java.net.http} client.
+	 * This client uses HTTP/2 when the server supports it and keeps the
+	 * connections to a host open for the following requests. Requests that
+	 * were configured by a {@link URLConnectionHandler} in a way that cannot
+	 * be used with this client, like a specific trust configuration, are
+	 * still sent with a {@link HttpURLConnection}.
+	 * <p>
+	 * The client is kept when this method is called again and is closed when
+	 * the {@code java.net.http} client is no longer used.
+	 *
+	 * @param http2 {@code true} to use the {@code java.net.http} client
+	 * @return this
+	 */
+	public synchronized HttpClient http2(boolean http2) {
+		Http2Transport transport = this.http2;
+		if (http2) {
+			if (transport == null) {
+				this.http2 = new Http2Transport(promiseFactory.executor(), promiseFactory.scheduledExecutor());
+			}
+		} else if (transport != null) {
+			this.http2 = null;
+			transport.close();
+		}
+		return this;
+	}
+
+	public boolean isHttp2() {
+		return http2 != null;
+	}
+
 	class HttpConnection<T> implements Callable<T> {
 		// These are not in HttpURLConnection
 		private static final int		HTTP_TEMPORARY_REDIRECT			= 307;	// https://developer.mozilla.org/en-US/docs/Web/HTTP/Status/307
@@ -376,6 +419,7 @@ public class HttpClient implements Closeable, URLConnector {
 		private final HttpRequest<T>	request;
 		private volatile Thread			requestThread;
 		private volatile TaggedData		connected;
+		private volatile Future<?>		exchange;
 
 		HttpConnection(HttpRequest<T> request) {
 			this.request = requireNonNull(request);
@@ -421,6 +465,10 @@ public class HttpClient implements Closeable, URLConnector {
 		}
 
 		void cancel() {
+			Future<?> future = exchange;
+			if (future != null) {
+				future.cancel(true);
+			}
 			TaggedData tag = connected;
 			if (tag != null) {
 				IO.close(tag);
@@ -546,9 +594,6 @@ public class HttpClient implements Closeable, URLConnector {
 			final URLConnectionHandler matching = findMatchingHandler(request.url);
 			Semaphore semaphore = getConnectionBlocker(matching);
 
-			final URLConnection con = getProxiedAndConfiguredConnection(request.url, proxy, matching);
-			final HttpURLConnection hcon = (con instanceof HttpURLConnection hc) ? hc : null;
-
 			if (request.ifNoneMatch != null) {
 				request.headers.put("If-None-Match", entitytag(request.ifNoneMatch));
 			}
@@ -567,13 +612,38 @@ public class HttpClient implements Closeable, URLConnector {
 					Dates.formatMillis(Dates.RFC_7231_DATE_TIME, request.ifUnmodifiedSince));
 			}
 
+			final Http2Transport transport = http2;
+			if (transport != null) {
+				HttpURLConnection prepared = transport.prepare(request.url, proxy);
+				if (prepared != null) {
+					if (matching != null) {
+						matching.handle(prepared);
+					}
+					setHeaders(request.headers, prepared);
+					configureHttpConnection(request.verb, prepared);
+					java.net.http.HttpRequest.Builder builder = transport.request(prepared, timeout());
+					if (builder != null) {
+						return connect(semaphore, () -> doSend(transport, proxy, builder));
+					}
+				}
+				logger.debug("Not using HTTP/2 transport for {}", request.url);
+			}
+
+			final URLConnection con = getProxiedAndConfiguredConnection(request.url, proxy, matching);
+			final HttpURLConnection hcon = (con instanceof HttpURLConnection hc) ? hc : null;
+
 			setHeaders(request.headers, con);
 
 			configureHttpConnection(request.verb, hcon);
 
+			return connect(semaphore,
+				() -> connectWithProxy(proxy, () -> doConnect(request.upload, request.download, con, hcon)));
+		}
+
+		private TaggedData connect(Semaphore semaphore, Callable<TaggedData> connect) throws Exception {
 			try {
 				semaphore.acquire();
-				TaggedData tag = connectWithProxy(proxy, () -> doConnect(request.upload, request.download, con, hcon));
+				TaggedData tag = connect.call();
 				logger.debug("result {}", tag);
 				return connected = tag;
 			} finally {
@@ -653,13 +723,9 @@ public class HttpClient implements Closeable, URLConnector {
 					}
 				}
 
-				if (isUpdateInfo(code, con)) {
-					File file = (File) request.upload;
-					String etag = con.getHeaderField("ETag");
-					try (Info info = cache().get(file, con.getURL()
-						.toURI())) {
-						info.update(etag);
-					}
+				if (isUpdateInfo(code, con.getHeaderField("ETag"))) {
+					updateInfo(con.getURL()
+						.toURI(), con.getHeaderField("ETag"));
 				}
 
 				if ((code / 100) != 2) {
@@ -678,7 +744,7 @@ public class HttpClient implements Closeable, URLConnector {
 				// later
 
 				InputStream xin = con.getInputStream();
-				InputStream in = handleContentEncoding(xin, hcon);
+				InputStream in = handleContentEncoding(xin, hcon.getHeaderField("Content-Encoding"));
 				in = createProgressWrappedStream(in, con.toString(), con.getContentLength(), task, request.timeout);
 				return new TaggedData(con, in, request.useCacheFile);
 			} catch (javax.net.ssl.SSLHandshakeException e) {
@@ -712,7 +778,9 @@ public class HttpClient implements Closeable, URLConnector {
 
 		private void configureHttpConnection(String verb, HttpURLConnection hcon) throws ProtocolException {
 			if (hcon != null) {
-				hcon.setRequestProperty("Accept-Encoding", "deflate, gzip");
+				if (hcon.getRequestProperty("Accept-Encoding") == null) {
+					hcon.setRequestProperty("Accept-Encoding", "deflate, gzip");
+				}
 				hcon.setInstanceFollowRedirects(false); // we handle it
 				hcon.setRequestMethod(verb);
 			}
@@ -755,6 +823,135 @@ public class HttpClient implements Closeable, URLConnector {
 				.get(ref);
 		}
 
+		/*
+		 * Send the request with the java.net.http client, the handling of the
+		 * response is the same as in doConnect.
+		 */
+		private TaggedData doSend(Http2Transport transport, ProxySetup proxy,
+			java.net.http.HttpRequest.Builder builder) throws Exception {
+			final ProgressPlugin.Task task = getTask();
+			final Object put = request.upload;
+			final BodyPublisher body;
+			if (put != null) {
+				task.worked(1);
+				body = bodyPublisher(put);
+			} else {
+				body = BodyPublishers.noBody();
+				logger.debug("{} {}", request.verb, request.url);
+			}
+
+			try {
+				CompletableFuture<HttpResponse<InputStream>> future = transport.send(builder.method(request.verb, body)
+					.build(), proxy);
+				exchange = future;
+				Promise<HttpResponse<InputStream>> promise = promiseFactory().resolvedWith(future);
+				Throwable failure = promise.getFailure(); // wait for the response
+				if (failure != null) {
+					throw Exceptions.duck(Exceptions.unrollCause(failure, CompletionException.class));
+				}
+				HttpResponse<InputStream> response = promise.getValue();
+				HttpHeaders headers = response.headers();
+				int code = response.statusCode();
+
+				if (code == HTTP_MOVED_TEMP || code == HTTP_MOVED_PERM || code == HTTP_SEE_OTHER
+					|| code == HTTP_TEMPORARY_REDIRECT || code == HTTP_PERMANENT_REDIRECT) {
+					if (request.redirects-- > 0) {
+						IO.close(response.body());
+						String location = headers.firstValue("Location")
+							.orElse(null);
+						request.url = new URL(request.url, location);
+						requestThread().setName(toString());
+						task.done("Redirected " + code + " " + location, null);
+						return connect();
+					}
+				}
+
+				String etag = headers.firstValue("ETag")
+					.orElse(null);
+				if (isUpdateInfo(code, etag)) {
+					updateInfo(response.uri(), etag);
+				}
+
+				if ((code / 100) != 2) {
+					String message = "Finished " + code + " " + response.uri();
+					task.done(message, null);
+					TaggedData tag = new TaggedData(response, null, request.useCacheFile);
+					if ((code / 100) == 5) {
+						throw new RetryException(tag, message);
+					}
+					return tag;
+				}
+
+				InputStream in = handleContentEncoding(transport.body(response, readTimeout()), headers
+					.firstValue("Content-Encoding")
+					.orElse(null));
+				int length = (int) headers.firstValueAsLong("Content-Length")
+					.orElse(-1L);
+				in = createProgressWrappedStream(in, request.url.toString(), length, task, request.timeout);
+				return new TaggedData(response, in, request.useCacheFile);
+			} catch (javax.net.ssl.SSLHandshakeException e) {
+				task.done(Exceptions.causes(e), null);
+				TaggedData tag = new TaggedData(request.url.toURI(), HTTP_INVALID_SSL_CERTIFICATE,
+					request.useCacheFile);
+				throw new RetryException(tag, e);
+			} catch (HttpTimeoutException e) {
+				task.done(e.toString(), null);
+				TaggedData tag = new TaggedData(request.url.toURI(), HTTP_GATEWAY_TIMEOUT, request.useCacheFile);
+				throw new RetryException(tag, e);
+			} catch (IOException e) {
+				task.done(e.toString(), null);
+				TaggedData tag = new TaggedData(request.url.toURI(), HTTP_UNKNOWN_ERROR, request.useCacheFile);
+				throw new RetryException(tag, e);
+			} catch (RetryException e) {
+				throw e;
+			} catch (Throwable t) {
+				task.done("Failed " + t, t);
+				throw t;
+			} finally {
+				exchange = null;
+			}
+		}
+
+		/*
+		 * The time to wait for the response headers, the same as the connect
+		 * timeout of a URLConnection.
+		 */
+		private long timeout() {
+			return (request.timeout > 0) ? request.timeout * 10 : 120000L;
+		}
+
+		/*
+		 * The time to wait for data of the response body. The progress stream
+		 * limits the total time when a timeout is set on the request.
+		 */
+		private long readTimeout() {
+			return (request.timeout > 0) ? request.timeout : 60000L;
+		}
+
+		private BodyPublisher bodyPublisher(Object put) throws Exception {
+			if (put instanceof InputStream in) {
+				logger.debug("out {} input stream {}", request.verb, request.url);
+				return BodyPublishers.ofInputStream(() -> in);
+			} else if (put instanceof String o) {
+				logger.debug("out {} string {}", request.verb, request.url);
+				return BodyPublishers.ofString(o, UTF_8);
+			} else if (put instanceof byte[] data) {
+				logger.debug("out {} byte[] {}", request.verb, request.url);
+				return BodyPublishers.ofByteArray(data);
+			} else if (put instanceof File file) {
+				logger.debug("out {} file {} {}", request.verb, put, request.url);
+				return BodyPublishers.ofFile(file.toPath());
+			} else {
+				logger.debug("out {} JSON {} {}", request.verb, put, request.url);
+				ByteBufferOutputStream out = new ByteBufferOutputStream();
+				codec.enc()
+					.to(out)
+					.put(put)
+					.flush();
+				return BodyPublishers.ofByteArray(out.toByteArray());
+			}
+		}
+
 		private void doOutput(Object put, URLConnection con) throws Exception {
 			con.setDoOutput(true);
 			try (OutputStream out = con.getOutputStream()) {
@@ -862,12 +1059,7 @@ public class HttpClient implements Closeable, URLConnector {
 			return task;
 		}
 
-		private InputStream handleContentEncoding(InputStream in, HttpURLConnection hcon) throws IOException {
-			if (hcon == null) {
-				return in;
-			}
-
-			String encoding = hcon.getHeaderField("Content-Encoding");
+		private InputStream handleContentEncoding(InputStream in, String encoding) throws IOException {
 			if (encoding != null) {
 				if (encoding.equalsIgnoreCase("deflate")) {
 					in = new InflaterInputStream(in);
@@ -880,9 +1072,15 @@ public class HttpClient implements Closeable, URLConnector {
 			return in;
 		}
 
-		private boolean isUpdateInfo(int code, URLConnection con) {
-			return request.upload instanceof File && request.updateTag && code == HTTP_CREATED
-				&& con.getHeaderField("ETag") != null;
+		private boolean isUpdateInfo(int code, String etag) {
+			return request.upload instanceof File && request.updateTag && code == HTTP_CREATED && etag != null;
+		}
+
+		private void updateInfo(URI uri, String etag) throws Exception {
+			File file = (File) request.upload;
+			try (Info info = cache().get(file, uri)) {
+				info.update(etag);
+			}
 		}
 
 	}
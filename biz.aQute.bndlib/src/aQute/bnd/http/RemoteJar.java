@@ -0,0 +1,250 @@
+package aQute.bnd.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.osgi.AbstractResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+import aQute.bnd.service.url.TaggedData;
+import aQute.lib.io.IO;
+import aQute.lib.strings.Strings;
+import aQute.lib.zip.CentralDirectory;
+import aQute.lib.zip.ZipUtil;
+
+/**
+ * A JAR on a web server that is read with HTTP range requests. Opening the
+ * JAR only fetches the end of the file and the central directory. The data of
+ * an entry is fetched when the content of its resource is first needed, so
+ * reading the manifest of a bundle takes a few small requests instead of a
+ * download of the whole bundle.
+ * <p>
+ * The server must support range requests, when it does not,
+ * {@link #open(HttpClient, URI)} returns {@code null} and the file must be
+ * downloaded.
+ */
+public class RemoteJar {
+	private final static Logger		logger			= LoggerFactory.getLogger(RemoteJar.class);
+	private final static Pattern	CONTENT_RANGE_P	= Pattern
+		.compile("bytes\\s+(?<first>\\d+)-(?<last>\\d+)/(?<length>\\d+)");
+	/*
+	 * Extra bytes fetched after the data of an entry in case the local header
+	 * has a larger extra field than the central directory header.
+	 */
+	private final static int		SLACK			= 256;
+
+	private final HttpClient		client;
+	private final URI				uri;
+	private final long				length;
+	private final long				limit;
+	private final Jar				jar;
+	private final AtomicInteger		requests		= new AtomicInteger();
+
+	private record Range(ByteBuffer data, long offset, long length) {}
+
+	private RemoteJar(HttpClient client, URI uri, Range tail) throws Exception {
+		this.client = client;
+		this.uri = uri;
+		this.length = tail.length();
+		this.requests.set(1);
+
+		CentralDirectory.Location location = CentralDirectory.locate(tail.data(), tail.offset());
+		if (location.offset() + location.size() > length || location.size() > Integer.MAX_VALUE) {
+			throw new ZipException("Invalid central directory location " + uri);
+		}
+		this.limit = location.offset();
+
+		ByteBuffer cd;
+		if (location.offset() >= tail.offset()) {
+			cd = tail.data()
+				.slice((int) (location.offset() - tail.offset()), (int) location.size());
+		} else {
+			cd = fetch(location.offset(), location.size()).data();
+		}
+
+		String[] segments = Strings.lastPathSegment(uri.getPath());
+		this.jar = new Jar(segments != null ? segments[1] : uri.toString());
+		for (CentralDirectory.Entry entry : CentralDirectory.parse(cd)) {
+			if (entry.isDirectory()) {
+				continue;
+			}
+			if (entry.isEncrypted()) {
+				throw new ZipException("Encrypted entry " + entry.name() + " in " + uri);
+			}
+			if (entry.localHeaderOffset() + entry.compressedSize() > limit) {
+				throw new ZipException("Invalid entry " + entry.name() + " in " + uri);
+			}
+			jar.putResource(entry.name(), new RemoteZipResource(entry), true);
+		}
+	}
+
+	/**
+	 * Open a remote JAR.
+	 *
+	 * @param client The client to send the requests with.
+	 * @param uri The URI of the JAR.
+	 * @return The remote JAR or {@code null} if the server does not support
+	 *         range requests for the URI.
+	 * @throws FileNotFoundException If the JAR does not exist.
+	 * @throws ZipException If the file is not a JAR.
+	 */
+	public static RemoteJar open(HttpClient client, URI uri) throws Exception {
+		Range tail = range(client, uri, "-" + CentralDirectory.TAIL_SIZE);
+		if (tail == null) {
+			logger.debug("No range requests for {}", uri);
+			return null;
+		}
+		return new RemoteJar(client, uri, tail);
+	}
+
+	/**
+	 * The JAR with the entries of the remote JAR. The content of an entry is
+	 * fetched when it is first needed.
+	 */
+	public Jar getJar() {
+		return jar;
+	}
+
+	/**
+	 * The length of the remote file.
+	 */
+	public long length() {
+		return length;
+	}
+
+	public URI getURI() {
+		return uri;
+	}
+
+	/**
+	 * The number of requests that were sent for this JAR so far.
+	 */
+	public int requests() {
+		return requests.get();
+	}
+
+	@Override
+	public String toString() {
+		return uri.toString();
+	}
+
+	private Range fetch(long offset, long size) throws Exception {
+		requests.incrementAndGet();
+		Range range = range(client, uri, offset + "-" + (offset + size - 1));
+		if (range == null) {
+			throw new IOException("Range requests no longer supported for " + uri);
+		}
+		if (range.offset() != offset || range.length() != length) {
+			throw new IOException("Unexpected range for " + uri + " or the file changed");
+		}
+		return range;
+	}
+
+	private static Range range(HttpClient client, URI uri, String bytes) throws Exception {
+		try (TaggedData tag = client.build()
+			.headers("Range", "bytes=" + bytes)
+			.headers("Accept-Encoding", "identity")
+			.asTag()
+			.go(uri)) {
+			if (tag.isNotFound()) {
+				throw new FileNotFoundException(uri.toString());
+			}
+			if (!tag.isOk()) {
+				tag.throwIt();
+			}
+			if (tag.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+				return null;
+			}
+			String contentRange = tag.getHeader("Content-Range");
+			Matcher m = (contentRange != null) ? CONTENT_RANGE_P.matcher(contentRange) : null;
+			if (m == null || !m.matches()) {
+				return null;
+			}
+			long first = Long.parseLong(m.group("first"));
+			long last = Long.parseLong(m.group("last"));
+			byte[] data = IO.read(tag.getInputStream());
+			if (data.length != last - first + 1) {
+				throw new IOException("Truncated range " + contentRange + " for " + uri);
+			}
+			return new Range(ByteBuffer.wrap(data), first, Long.parseLong(m.group("length")));
+		}
+	}
+
+	/**
+	 * An entry of the remote JAR. The local header and data of the entry are
+	 * fetched in one request.
+	 */
+	private class RemoteZipResource extends AbstractResource {
+		private final CentralDirectory.Entry entry;
+
+		RemoteZipResource(CentralDirectory.Entry entry) {
+			super(ZipUtil.getModifiedTime(entry.toZipEntry()));
+			this.entry = entry;
+			byte[] extra = entry.extra();
+			if (extra != null) {
+				setExtra(Resource.encodeExtra(extra));
+			}
+		}
+
+		@Override
+		protected byte[] getBytes() throws Exception {
+			if (entry.size() > Integer.MAX_VALUE) {
+				throw new ZipException("Entry too large " + entry.name() + " in " + uri);
+			}
+			if (entry.size() == 0L) {
+				return new byte[0];
+			}
+			long offset = entry.localHeaderOffset();
+			long size = Math.min(CentralDirectory.LOCAL_HEADER_SIZE + entry.name()
+				.getBytes(UTF_8).length + SLACK + entry.compressedSize(), limit - offset);
+			ByteBuffer bb = fetch(offset, size).data();
+			int dataOffset = CentralDirectory.dataOffset(bb);
+			ByteBuffer data;
+			if (dataOffset + entry.compressedSize() <= bb.limit()) {
+				data = bb.slice(dataOffset, (int) entry.compressedSize());
+			} else {
+				data = fetch(offset + dataOffset, entry.compressedSize()).data();
+			}
+
+			switch (entry.method()) {
+				case ZipEntry.STORED :
+					return IO.read(data);
+				case ZipEntry.DEFLATED :
+					Inflater inflater = new Inflater(true);
+					try (InputStream in = new InflaterInputStream(IO.stream(data), inflater)) {
+						byte[] content = IO.read(in);
+						if (content.length != entry.size()) {
+							throw new ZipException("Invalid entry " + entry.name() + " in " + uri);
+						}
+						return content;
+					} finally {
+						inflater.end();
+					}
+				default :
+					throw new ZipException(
+						"Unsupported compression method " + entry.method() + " for " + entry.name() + " in " + uri);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return ":" + uri + "(" + entry.name() + "):";
+		}
+	}
+}
@@ -30,6 +30,7 @@ public class URLCache {
 	private final File					root;
 
 	private ConcurrentMap<File, Info>	infos	= new ConcurrentHashMap<>();
+	private volatile ContentStore		store;
 
 	public static class InfoDTO {
 		public String	etag;
@@ -39,12 +40,35 @@ public class URLCache {
 		public String	sha_256;
 	}
 
+	public static class StatsDTO {
+		/**
+		 * The number of times a cached file was used without downloading it
+		 */
+		public long	hits;
+		/**
+		 * The number of times a file was downloaded into the cache
+		 */
+		public long	misses;
+		/**
+		 * The number of bytes that are not stored because another URL has the
+		 * same content
+		 */
+		public long	saved;
+		/**
+		 * The number of bytes of the distinct content in the cache
+		 */
+		public long	size;
+		public long	maxSize;
+		public int	entries;
+	}
+
 	public class Info implements Closeable {
 		File			file;
 		File			jsonFile;
 		InfoDTO			dto;
 		URI				url;
 		ReentrantLock	lock	= new ReentrantLock();
+		boolean			updated;
 
 		public Info(File content, URI url) throws Exception {
 			this.file = content;
@@ -67,12 +91,22 @@ public class URLCache {
 
 		@Override
 		public void close() throws IOException {
-			logger.debug("Unlocking url cache {}", url);
-			lock.unlock();
+			try {
+				ContentStore s = store(file);
+				if (s != null && !updated && isPresent()) {
+					s.accessed(file);
+				}
+			} finally {
+				updated = false;
+				logger.debug("Unlocking url cache {}", url);
+				lock.unlock();
+			}
 		}
 
 		public void update(InputStream inputStream, String etag, long modified) throws Exception {
 			IO.mkdirs(this.file.getParentFile());
+			// the file can be a link to content shared with other urls
+			IO.delete(this.file);
 			IO.copy(inputStream, this.file);
 			if (modified > 0) {
 				this.file.setLastModified(modified);
@@ -90,6 +124,11 @@ public class URLCache {
 			codec.enc()
 				.to(jsonFile)
 				.put(this.dto);
+			ContentStore s = store(file);
+			if (s != null) {
+				updated = true;
+				s.stored(file, dto.sha_256);
+			}
 		}
 
 		public boolean isPresent() {
@@ -128,6 +167,41 @@ public class URLCache {
 		}
 	}
 
+	/**
+	 * Limit the size of the cache. The least recently used files are removed
+	 * when the content in the cache gets larger than the maximum size.
+	 * Identical content that is downloaded for different URLs is stored once.
+	 *
+	 * @param maxSize The maximum size in bytes, 0 or less for no limit.
+	 */
+	public void setMaxSize(long maxSize) throws IOException {
+		store = (maxSize > 0L) ? new ContentStore(root.getParentFile(), root, maxSize, this::isLocked) : null;
+	}
+
+	/**
+	 * The statistics of the cache.
+	 *
+	 * @return The statistics or {@code null} if the size of the cache is not
+	 *         limited.
+	 */
+	public StatsDTO stats() throws IOException {
+		ContentStore s = store;
+		return (s != null) ? s.stats() : null;
+	}
+
+	/*
+	 * Only the files in the cache directory are managed by the content store
+	 */
+	private ContentStore store(File file) {
+		ContentStore s = store;
+		return (s != null && root.equals(file.getParentFile())) ? s : null;
+	}
+
+	private boolean isLocked(File file) {
+		Info info = infos.get(file);
+		return info != null && info.lock.isLocked();
+	}
+
 	public Info get(URI uri) throws Exception {
 		return get(null, uri);
 	}
@@ -184,6 +258,10 @@ public class URLCache {
 		if (exists) {
 			IO.deleteWithException(f);
 		}
+		ContentStore s = store(f);
+		if (s != null) {
+			s.removed(f);
+		}
 		f = getCacheInfoFileFor(uri);
 		if (f.isFile()) {
 			IO.deleteWithException(f);
@@ -1,4 +1,4 @@
-@Version("2.0.0")
+@Version("2.1.0")
 package aQute.bnd.http;
 
 import org.osgi.annotation.versioning.Version;
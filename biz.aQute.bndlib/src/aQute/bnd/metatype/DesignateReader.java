@@ -42,6 +42,10 @@ public class DesignateReader extends ClassDataCollector {
 	}
 
 	private DesignateDef getDef() throws Exception {
+		if (!clazz.annotations()
+			.contains(analyzer.getTypeRef("org/osgi/service/metatype/annotations/Designate"))) {
+			return null; // no need to parse the class
+		}
 		clazz.parseClassFileWithCollector(this);
 		if (pid != null && designate != null) {
 			if (pids != null && pids.length > 1) {
@@ -53,6 +53,10 @@ class OCDReader {
 	}
 
 	private OCDDef getDef() throws Exception {
+		if (!clazz.annotations()
+			.contains(analyzer.getTypeRef("org/osgi/service/metatype/annotations/ObjectClassDefinition"))) {
+			return null; // no need to parse the class
+		}
 		clazz.parseClassFileWithCollector(new OCDDataCollector(ocd));
 		if (ocd.id == null) {
 			return null;
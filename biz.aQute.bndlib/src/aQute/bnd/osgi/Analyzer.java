@@ -40,6 +40,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -50,6 +51,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.osgi.framework.namespace.ExecutionEnvironmentNamespace;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -146,6 +149,8 @@ public class Analyzer extends Processor {
 	private final Set<PackageRef>					packagesVisited			= new HashSet<>();
 	private Set<PackageRef>							nonClassReferences		= new HashSet<>();
 	private Set<Check>								checks;
+	private Optional<ClazzCache>					classCache;
+	private IncrementalAnalysis						incrementalAnalysis;
 	private final Map<TypeRef, String>				bcpTypes				= map();
 	final TypeRef									providerType			= getTypeRef(
 		"org/osgi/annotation/versioning/ProviderType");
@@ -1251,6 +1256,10 @@ public class Analyzer extends Processor {
 			// exceptions in normal situations. So if it happens we need more
 			// information. So to help diagnostics. We do a full property dump
 			throw new IllegalStateException("Calc manifest failed, state=\n" + getFlattenedProperties(), e);
+		} finally {
+			// the analyzer plugins have run, the recorded events can go
+			classspace.values()
+				.forEach(Clazz::releaseEvents);
 		}
 	}
 
@@ -2606,6 +2615,19 @@ public class Analyzer extends Processor {
 	public void forceRefresh() {
 		super.forceRefresh();
 		checks = null;
+		classCache = null;
+	}
+
+	/**
+	 * Set the analysis of previous builds that is used and updated when
+	 * {@link Constants#INCREMENTAL} is set.
+	 */
+	public void setIncrementalAnalysis(IncrementalAnalysis incrementalAnalysis) {
+		this.incrementalAnalysis = incrementalAnalysis;
+	}
+
+	public IncrementalAnalysis getIncrementalAnalysis() {
+		return incrementalAnalysis;
 	}
 
 	public Jar getTarget() {
@@ -2683,6 +2705,14 @@ public class Analyzer extends Processor {
 			.map(Domain::getImportPackage)
 			.orElseGet(() -> new Parameters());
 
+		Map<String, Clazz> parsed = null;
+		Map<String, Exception> failed = null;
+		if (is(PARALLELANALYSIS)) {
+			parsed = new ConcurrentHashMap<>();
+			failed = new ConcurrentHashMap<>();
+			parseClasses(jar, prefix, parsed, failed);
+		}
+
 		next: for (String path : jar.getResources()
 			.keySet()) {
 			if (path.startsWith(prefix)) {
@@ -2703,15 +2733,23 @@ public class Analyzer extends Processor {
 
 				// Check class resources, we need to analyze them
 				if (path.endsWith(".class")) {
-					Resource resource = jar.getResource(path);
 					Clazz clazz;
 
-					try {
-						clazz = new Clazz(this, path, resource);
-						clazz.parseClassFile();
-					} catch (Exception e) {
-						exception(e, "Invalid class file %s (%s)", relativePath, e);
-						continue next;
+					if (parsed != null) {
+						Exception e = failed.get(path);
+						if (e != null) {
+							exception(e, "Invalid class file %s (%s)", relativePath, e);
+							continue next;
+						}
+						clazz = parsed.get(path);
+					} else {
+						Resource resource = jar.getResource(path);
+						try {
+							clazz = parseClass(path, resource);
+						} catch (Exception e) {
+							exception(e, "Invalid class file %s (%s)", relativePath, e);
+							continue next;
+						}
 					}
 
 					TypeRef className = clazz.getClassName();
@@ -2759,6 +2797,84 @@ public class Analyzer extends Processor {
 		return true;
 	}
 
+	/**
+	 * Parse the class files selected by analyzeJar concurrently on the bnd
+	 * executor. The classes are split in one batch per processor. The results
+	 * are only collected here, analyzeJar merges them in resource order so the
+	 * outcome is the same as parsing them one by one.
+	 */
+	private void parseClasses(Jar jar, String prefix, Map<String, Clazz> parsed, Map<String, Exception> failed)
+		throws Exception {
+		List<String> paths = jar.getResources()
+			.keySet()
+			.stream()
+			.filter(path -> path.startsWith(prefix) && path.endsWith(".class")
+				&& !path.startsWith("META-INF/", prefix.length()))
+			.toList();
+
+		int batches = Math.min(paths.size(), Runtime.getRuntime()
+			.availableProcessors());
+		if (batches == 0) {
+			return;
+		}
+
+		PromiseFactory promiseFactory = getPromiseFactory();
+		List<Promise<Void>> promises = new ArrayList<>(batches);
+		for (int batch = 0; batch < batches; batch++) {
+			int first = batch;
+			promises.add(promiseFactory.submit(() -> {
+				for (int i = first; i < paths.size(); i += batches) {
+					String path = paths.get(i);
+					try {
+						Clazz clazz = parseClass(path, jar.getResource(path));
+						parsed.put(path, clazz);
+					} catch (Exception e) {
+						failed.put(path, e);
+					}
+				}
+				return null;
+			}));
+		}
+		promiseFactory.all(promises)
+			.getValue();
+	}
+
+	/**
+	 * Parse a class file. When {@link Constants#INCREMENTAL} is set, a class
+	 * file that did not change since the previous build is restored from the
+	 * {@link IncrementalAnalysis}.
+	 */
+	private Clazz parseClass(String path, Resource resource) throws Exception {
+		if (incrementalAnalysis != null && is(INCREMENTAL)) {
+			return incrementalAnalysis.get(this, path, resource);
+		}
+		return parseClassFile(path, resource);
+	}
+
+	/**
+	 * Parse a class file. When a {@link Constants#CLASSCACHE} is set, a class
+	 * seen before is restored from its summary instead of being parsed.
+	 */
+	Clazz parseClassFile(String path, Resource resource) throws Exception {
+		ClazzCache cache = getClassCache();
+		if (cache != null) {
+			return cache.get(this, path, resource);
+		}
+		Clazz clazz = new Clazz(this, path, resource);
+		clazz.parseClassFile();
+		return clazz;
+	}
+
+	private synchronized ClazzCache getClassCache() {
+		if (classCache == null) {
+			classCache = Optional.ofNullable(getProperty(CLASSCACHE))
+				.map(Strings::trim)
+				.filter(dir -> !dir.isEmpty())
+				.map(dir -> new ClazzCache(getFile(dir)));
+		}
+		return classCache.orElse(null);
+	}
+
 	/**
 	 * Clean up version parameters. Other builders use more fuzzy definitions of
 	 * the version syntax. This method cleans up such a version to match an OSGi
@@ -3103,8 +3219,7 @@ public class Analyzer extends Processor {
 				r = Resource.fromURL(url, getPlugin(HttpClient.class));
 		}
 		if (r != null) {
-			c = new Clazz(this, typeRef.getPath(), r);
-			c.parseClassFile();
+			c = parseClass(typeRef.getPath(), r);
 			importedClassesCache.put(typeRef, c);
 		}
 		return c;
@@ -3282,33 +3397,42 @@ public class Analyzer extends Processor {
 
 	Packages filter(Instructions instructions, Packages source, Set<Instruction> nomatch) {
 		Packages result = new Packages();
-		List<PackageRef> refs = source.keySet()
-			.stream()
-			.filter(packageRef -> !packageRef.isMetaData())
-			.sorted()
-			.collect(toCollection(LinkedList<PackageRef>::new));
 
 		if (nomatch == null)
 			nomatch = Create.set();
 
-		for (Instruction instruction : instructions.keySet()) {
-			boolean match = false;
-
-			for (Iterator<PackageRef> i = refs.iterator(); i.hasNext();) {
-				PackageRef packageRef = i.next();
-				String packageName = packageRef.getFQN();
-
-				if (instruction.matches(packageName)) {
-					match = true;
-					if (!instruction.isNegated()) {
-						result.merge(packageRef, instruction.isDuplicate(), source.get(packageRef),
-							instructions.get(instruction));
+		// A package can only match its first matching instruction
+		InstructionMatcher matcher = instructions.compile();
+		List<List<PackageRef>> matched = new ArrayList<>(Collections.nCopies(matcher.size(), null));
+		source.keySet()
+			.stream()
+			.filter(packageRef -> !packageRef.isMetaData())
+			.sorted()
+			.forEachOrdered(packageRef -> {
+				int index = matcher.indexOf(packageRef.getFQN(), 0);
+				if (index >= 0) {
+					List<PackageRef> refs = matched.get(index);
+					if (refs == null) {
+						matched.set(index, refs = new ArrayList<>());
 					}
-					i.remove(); // Can never match again for another pattern
+					refs.add(packageRef);
+				}
+			});
+
+		for (int index = 0; index < matcher.size(); index++) {
+			Instruction instruction = matcher.get(index);
+			List<PackageRef> refs = matched.get(index);
+			if (refs == null) {
+				if (!instruction.isAny())
+					nomatch.add(instruction);
+				continue;
+			}
+			if (!instruction.isNegated()) {
+				Attrs attrs = instructions.get(instruction);
+				for (PackageRef packageRef : refs) {
+					result.merge(packageRef, instruction.isDuplicate(), source.get(packageRef), attrs);
 				}
 			}
-			if (!match && !instruction.isAny())
-				nomatch.add(instruction);
 		}
 
 		/*
@@ -210,6 +210,8 @@ public class Builder extends Analyzer {
 			.ifPresent(dot::setCompression);
 
 		dot.setReproducible(getProperty(REPRODUCIBLE));
+		dot.setParallelWrite(is(PARALLELWRITE));
+		dot.setCopyDeflated(is(COPYDEFLATED));
 
 		try {
 			long modified = Long.parseLong(getProperty("base.modified"));
@@ -704,12 +706,47 @@ public class Builder extends Analyzer {
 	private Set<Instruction> doExpand(Jar jar, MultiMap<String, Jar> index, Instructions filter) throws Exception {
 		Set<Instruction> unused = Create.set();
 
-		for (Entry<Instruction, Attrs> e : filter.entrySet()) {
-			Instruction instruction = e.getKey();
-			if (instruction.isDuplicate())
+		List<Entry<Instruction, Attrs>> instructions = filter.entrySet()
+			.stream()
+			.filter(e -> !e.getKey()
+				.isDuplicate())
+			.collect(toList());
+		InstructionMatcher matcher = new InstructionMatcher(instructions.stream()
+			.map(Entry::getKey)
+			.collect(toList()));
+
+		// A package is expanded by the first instruction that matches it
+		List<List<Entry<String, List<Jar>>>> matched = new ArrayList<>(Collections.nCopies(matcher.size(), null));
+		for (Iterator<Entry<String, List<Jar>>> entry = index.entrySet()
+			.iterator(); entry.hasNext();) {
+			Entry<String, List<Jar>> p = entry.next();
+
+			PackageRef packageRef = getPackageRef(p.getKey());
+			String fqn = packageRef.getFQN();
+			int i = matcher.indexOf(fqn, 0);
+
+			// Skip * and meta data, we're talking packages!
+			while (i >= 0 && packageRef.isMetaData() && matcher.get(i)
+				.isAny()) {
+				i = matcher.indexOf(fqn, i + 1);
+			}
+			if (i < 0)
 				continue;
 
-			Attrs directives = e.getValue();
+			// Ensure it is never matched again
+			entry.remove();
+
+			List<Entry<String, List<Jar>>> packages = matched.get(i);
+			if (packages == null) {
+				matched.set(i, packages = new ArrayList<>());
+			}
+			packages.add(p);
+		}
+
+		for (int i = 0; i < matcher.size(); i++) {
+			Instruction instruction = matcher.get(i);
+			Attrs directives = instructions.get(i)
+				.getValue();
 
 			String fromDirective = directives.get(FROM_DIRECTIVE, "*");
 			Instruction from = new Instruction(fromDirective);
@@ -717,41 +754,29 @@ public class Builder extends Analyzer {
 
 			boolean used = false;
 
-			for (Iterator<Entry<String, List<Jar>>> entry = index.entrySet()
-				.iterator(); entry.hasNext();) {
-				Entry<String, List<Jar>> p = entry.next();
-
-				String directory = p.getKey();
-				PackageRef packageRef = getPackageRef(directory);
-
-				// Skip * and meta data, we're talking packages!
-				if (packageRef.isMetaData() && instruction.isAny())
-					continue;
-
-				if (!instruction.matches(packageRef.getFQN()))
-					continue;
-
-				// Ensure it is never matched again
-				entry.remove();
-
+			List<Entry<String, List<Jar>>> packages = matched.get(i);
+			if (packages != null) {
 				// ! effectively removes it from consideration by others (this
 				// includes exports)
 				if (instruction.isNegated()) {
 					used = true;
-					continue;
-				}
+				} else {
+					for (Entry<String, List<Jar>> p : packages) {
+						String directory = p.getKey();
 
-				// Do the from: directive, filters on the JAR type
-				List<Jar> providers = filterFrom(from, p.getValue(), project);
-				if (providers.isEmpty())
-					continue;
+						// Do the from: directive, filters on the JAR type
+						List<Jar> providers = filterFrom(from, p.getValue(), project);
+						if (providers.isEmpty())
+							continue;
 
-				int splitStrategy = getSplitStrategy(directives.get(SPLIT_PACKAGE_DIRECTIVE));
-				copyPackage(jar, providers, directory, splitStrategy);
-				Attrs contained = getContained().put(packageRef);
+						int splitStrategy = getSplitStrategy(directives.get(SPLIT_PACKAGE_DIRECTIVE));
+						copyPackage(jar, providers, directory, splitStrategy);
+						Attrs contained = getContained().put(getPackageRef(directory));
 
-				contained.put(INTERNAL_SOURCE_DIRECTIVE, getName(providers.get(0)));
-				used = true;
+						contained.put(INTERNAL_SOURCE_DIRECTIVE, getName(providers.get(0)));
+						used = true;
+					}
+				}
 			}
 
 			if (!used && !isTrue(directives.get("optional:")))
@@ -30,7 +30,16 @@ class ClassDataCollectors implements Closeable {
 	}
 
 	void parse(Clazz clazz) throws Exception {
-		clazz.parseClassFileWithCollector(new Collectors(clazz));
+		Collectors collectors = new Collectors(clazz);
+		if (clazz.isRestored()) {
+			// A class restored from a summary is only parsed when a
+			// collector wants to visit it
+			if (!collectors.classStart(clazz)) {
+				return;
+			}
+			collectors.started = true;
+		}
+		clazz.parseClassFileWithCollector(collectors);
 	}
 
 	void with(Clazz clazz, ClassDataCollector cd) throws Exception {
@@ -58,6 +67,7 @@ class ClassDataCollectors implements Closeable {
 	private class Collectors extends ClassDataCollector {
 		private final Clazz						clazz;
 		private final List<ClassDataCollector>	shortlist;
+		private boolean							started;
 
 		Collectors(Clazz clazz) {
 			this.clazz = clazz;
@@ -95,6 +105,10 @@ class ClassDataCollectors implements Closeable {
 
 		@Override
 		public boolean classStart(Clazz clazz) {
+			if (started) {
+				started = false;
+				return true;
+			}
 			boolean start = false;
 			for (Iterator<ClassDataCollector> iter = shortlist.iterator(); iter.hasNext();) {
 				ClassDataCollector cd = iter.next();
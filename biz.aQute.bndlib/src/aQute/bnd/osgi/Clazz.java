@@ -19,12 +19,14 @@ import static java.util.stream.Collectors.toSet;
 
 import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
@@ -462,6 +464,15 @@ public class Clazz {
 			type = analyzer.getTypeRef(classFile.this_class);
 		}
 
+		/**
+		 * A class definition restored from a summary. It has no attributes,
+		 * the class file is parsed when they are needed.
+		 */
+		ClassDef(TypeRef type, int access) {
+			super(access, new Attribute[0]);
+			this.type = type;
+		}
+
 		String getSourceFile() {
 			return attribute(SourceFileAttribute.class).map(a -> a.sourcefile)
 				.orElse(null);
@@ -746,11 +757,17 @@ public class Clazz {
 	}
 
 	public static final Comparator<Clazz>	NAME_COMPARATOR					= (Clazz a,
-		Clazz b) -> a.classFile.this_class.compareTo(b.classFile.this_class);
+		Clazz b) -> a.getClassName()
+			.getBinary()
+			.compareTo(b.getClassName()
+				.getBinary());
 
 	private boolean							hasRuntimeAnnotations;
 	private boolean							hasClassAnnotations;
 	private boolean							hasDefaultConstructor;
+	private int								major_version;
+	private int								minor_version;
+	private int								summary							= 0;
 
 	private Set<PackageRef>					imports							= Create.set();
 	private Set<TypeRef>					xref							= new HashSet<>();
@@ -760,6 +777,7 @@ public class Clazz {
 	private Set<PackageRef>					api;
 
 	private ClassFile						classFile						= null;
+	private ClassEvent[]					events							= null;
 	private ConstantPool					constantPool					= null;
 	TypeRef									superClass;
 	private TypeRef[]						interfaces;
@@ -774,6 +792,19 @@ public class Clazz {
 	public static final int					TYPEUSE_INDEX_NONE				= TypeAnnotationInfo.TYPEUSE_INDEX_NONE;
 	public static final int					TYPEUSE_TARGET_INDEX_EXTENDS	= TypeAnnotationInfo.TYPEUSE_TARGET_INDEX_EXTENDS;
 
+	/*
+	 * The attributes used by the analysis. Other attributes, like the debug
+	 * information in the Code attribute, are skipped when parsing.
+	 */
+	private static final Set<String>		ATTRIBUTES						= Set.of(
+		AnnotationDefaultAttribute.NAME, BootstrapMethodsAttribute.NAME, CodeAttribute.NAME,
+		ConstantValueAttribute.NAME, DeprecatedAttribute.NAME, EnclosingMethodAttribute.NAME,
+		ExceptionsAttribute.NAME, InnerClassesAttribute.NAME, MethodParametersAttribute.NAME,
+		RuntimeInvisibleAnnotationsAttribute.NAME, RuntimeInvisibleParameterAnnotationsAttribute.NAME,
+		RuntimeInvisibleTypeAnnotationsAttribute.NAME, RuntimeVisibleAnnotationsAttribute.NAME,
+		RuntimeVisibleParameterAnnotationsAttribute.NAME, RuntimeVisibleTypeAnnotationsAttribute.NAME,
+		SignatureAttribute.NAME, SourceFileAttribute.NAME, StackMapTableAttribute.NAME);
+
 	public Clazz(Analyzer analyzer, String path, Resource resource) {
 		this.path = path;
 		this.resource = resource;
@@ -815,8 +846,10 @@ public class Clazz {
 
 		logger.debug("parseClassFile(): path={} resource={}", path, resource);
 
-		classFile = ClassFile.parseClassFile(in);
+		classFile = ClassFile.parseClassFile(in, ATTRIBUTES::contains);
 		classDef = new ClassDef(classFile);
+		major_version = classFile.major_version;
+		minor_version = classFile.minor_version;
 		constantPool = classFile.constant_pool;
 		referred = new HashMap<>(constantPool.size());
 
@@ -905,6 +938,139 @@ public class Clazz {
 		return xref;
 	}
 
+	private static final int	SUMMARY_RESTORED			= 1 << 0;
+	private static final int	SUMMARY_RUNTIME_ANNOTATIONS	= 1 << 1;
+	private static final int	SUMMARY_CLASS_ANNOTATIONS	= 1 << 2;
+	private static final int	SUMMARY_DEFAULT_CONSTRUCTOR	= 1 << 3;
+	private static final int	SUMMARY_INNER_CLASS			= 1 << 4;
+	private static final int	SUMMARY_DEPRECATED			= 1 << 5;
+	private static final int	SUMMARY_PUBLIC_API			= 1 << 6;
+
+	/**
+	 * Write a summary of the parsed class: the class definition, the referred
+	 * types and packages, the API uses and the annotations. This is the data
+	 * the {@link Analyzer} needs to analyze a JAR, so a class restored from its
+	 * summary with {@link #readSummary(DataInput)} only needs to be parsed when
+	 * a {@link ClassDataCollector} visits it or when its members or
+	 * annotations are requested.
+	 */
+	synchronized void writeSummary(DataOutput out) throws Exception {
+		parseClassFile();
+		int flags = 0;
+		if (hasRuntimeAnnotations) {
+			flags |= SUMMARY_RUNTIME_ANNOTATIONS;
+		}
+		if (hasClassAnnotations) {
+			flags |= SUMMARY_CLASS_ANNOTATIONS;
+		}
+		if (hasDefaultConstructor) {
+			flags |= SUMMARY_DEFAULT_CONSTRUCTOR;
+		}
+		if (classDef.isInnerClass()) {
+			flags |= SUMMARY_INNER_CLASS;
+		}
+		if (classDef.isDeprecated()) {
+			flags |= SUMMARY_DEPRECATED;
+		}
+		if (api != null) {
+			flags |= SUMMARY_PUBLIC_API;
+		}
+		out.writeByte(flags);
+		out.writeUTF(classFile.this_class);
+		out.writeShort(classFile.access);
+		out.writeShort(major_version);
+		out.writeShort(minor_version);
+		out.writeUTF((superClass != null) ? superClass.getBinary() : "");
+		writeTypes(out, interfaces());
+		writeTypes(out, xref);
+		writePackages(out, imports);
+		writeTypes(out, annotations());
+		writePackages(out, getAPIUses());
+	}
+
+	/**
+	 * Restore a class from a summary written by {@link #writeSummary(DataOutput)}.
+	 */
+	synchronized void readSummary(DataInput in) throws IOException {
+		if (classFile != null || summary != 0) {
+			throw new IllegalStateException("Class is already parsed: " + this);
+		}
+		int flags = in.readUnsignedByte() | SUMMARY_RESTORED;
+		TypeRef type = analyzer.getTypeRef(in.readUTF());
+		int access = in.readUnsignedShort();
+		major_version = in.readUnsignedShort();
+		minor_version = in.readUnsignedShort();
+		String superName = in.readUTF();
+		superClass = superName.isEmpty() ? null : analyzer.getTypeRef(superName);
+		List<TypeRef> interfaces = readTypes(in);
+		this.interfaces = interfaces.isEmpty() ? null : interfaces.toArray(new TypeRef[0]);
+		xref.addAll(readTypes(in));
+		imports.addAll(readPackages(in));
+		List<TypeRef> annotations = readTypes(in);
+		this.annotations = annotations.isEmpty() ? null : new HashSet<>(annotations);
+		List<PackageRef> api = readPackages(in);
+		this.api = ((flags & SUMMARY_PUBLIC_API) != 0) ? new HashSet<>(api) : null;
+		hasRuntimeAnnotations = (flags & SUMMARY_RUNTIME_ANNOTATIONS) != 0;
+		hasClassAnnotations = (flags & SUMMARY_CLASS_ANNOTATIONS) != 0;
+		hasDefaultConstructor = (flags & SUMMARY_DEFAULT_CONSTRUCTOR) != 0;
+		classDef = new ClassDef(type, access);
+		summary = flags;
+	}
+
+	private static void writeTypes(DataOutput out, Collection<TypeRef> types) throws IOException {
+		out.writeInt(types.size());
+		for (TypeRef type : types) {
+			out.writeUTF(type.getBinary());
+		}
+	}
+
+	private static void writePackages(DataOutput out, Collection<PackageRef> packages) throws IOException {
+		out.writeInt(packages.size());
+		for (PackageRef packageRef : packages) {
+			out.writeUTF(packageRef.getBinary());
+		}
+	}
+
+	private List<TypeRef> readTypes(DataInput in) throws IOException {
+		int size = in.readInt();
+		List<TypeRef> types = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			types.add(analyzer.getTypeRef(in.readUTF()));
+		}
+		return types;
+	}
+
+	private List<PackageRef> readPackages(DataInput in) throws IOException {
+		int size = in.readInt();
+		List<PackageRef> packages = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			packages.add(analyzer.getPackageRef(in.readUTF()));
+		}
+		return packages;
+	}
+
+	/**
+	 * @return {@code true} if this class was restored from a summary and was
+	 *         not parsed since.
+	 */
+	synchronized boolean isRestored() {
+		return classFile == null && summary != 0;
+	}
+
+	/**
+	 * A class restored from a summary is parsed when data is needed that is
+	 * not in the summary.
+	 */
+	private void parsed() {
+		if (classFile == null && summary != 0) {
+			try {
+				parseClassFile();
+			} catch (Exception e) {
+				throw Exceptions.duck(e);
+			}
+		}
+	}
+
 	private void visitClassFile(ClassDataCollector cd) throws Exception {
 		if (cd == null) {
 			return;
@@ -915,45 +1081,88 @@ public class Clazz {
 			return;
 		}
 		try {
-			cd.version(classFile.minor_version, classFile.major_version);
-			if (superClass != null) {
-				cd.extendsClass(superClass);
+			for (ClassEvent event : events()) {
+				event.replay(cd);
+			}
+		} finally {
+			cd.classEnd();
+		}
+	}
+
+	/**
+	 * A call on a {@link ClassDataCollector} recorded from the class file.
+	 */
+	@FunctionalInterface
+	private interface ClassEvent {
+		void replay(ClassDataCollector cd) throws Exception;
+	}
+
+	/**
+	 * The calls on a {@link ClassDataCollector} between
+	 * {@link ClassDataCollector#classStart(Clazz)} and
+	 * {@link ClassDataCollector#classEnd()}. They are recorded when the class
+	 * is first visited and replayed to each collector, so the attributes and
+	 * the byte code are only walked once. Annotations and annotation defaults
+	 * are created for each collector since collectors can modify them.
+	 */
+	private synchronized ClassEvent[] events() {
+		ClassEvent[] events = this.events;
+		if (events == null) {
+			List<ClassEvent> log = new ArrayList<>();
+			int minor = classFile.minor_version;
+			int major = classFile.major_version;
+			log.add(cd -> cd.version(minor, major));
+			TypeRef zuper = superClass;
+			if (zuper != null) {
+				log.add(cd -> cd.extendsClass(zuper));
 			}
+			TypeRef[] interfaces = this.interfaces;
 			if (interfaces != null) {
-				cd.implementsInterfaces(interfaces);
+				log.add(cd -> cd.implementsInterfaces(interfaces));
 			}
 
-			referred.forEach((typeRef, access) -> {
+			Map<TypeRef, Integer> referred = this.referred;
+			log.add(cd -> referred.forEach((typeRef, access) -> {
 				cd.addReference(typeRef);
 				cd.referTo(typeRef, access.intValue());
-			});
+			}));
 
 			for (FieldInfo fieldInfo : classFile.fields) {
 				FieldDef fieldDef = new FieldDef(fieldInfo);
-				cd.field(fieldDef);
-				visitAttributes(cd, fieldDef);
+				log.add(cd -> cd.field(fieldDef));
+				visitAttributes(log, fieldDef);
 			}
 
 			for (MethodInfo methodInfo : classFile.methods) {
 				MethodDef methodDef = new MethodDef(methodInfo);
-				cd.method(methodDef);
-				visitAttributes(cd, methodDef);
+				log.add(cd -> cd.method(methodDef));
+				visitAttributes(log, methodDef);
 			}
 
-			cd.memberEnd();
+			log.add(ClassDataCollector::memberEnd);
 
-			visitAttributes(cd, classDef);
-		} finally {
-			cd.classEnd();
+			visitAttributes(log, classDef);
+			this.events = events = log.toArray(new ClassEvent[0]);
 		}
+		return events;
+	}
+
+	/**
+	 * Drop the recorded events once the analysis is done. A later visit
+	 * records them again.
+	 */
+	synchronized void releaseEvents() {
+		events = null;
 	}
 
 	public Stream<FieldDef> fields() {
+		parsed();
 		return Arrays.stream(classFile.fields)
 			.map(FieldDef::new);
 	}
 
 	public Stream<MethodDef> methods() {
+		parsed();
 		return Arrays.stream(classFile.methods)
 			.map(MethodDef::new);
 	}
@@ -1046,58 +1255,58 @@ public class Clazz {
 	/**
 	 * Called for the attributes in the class, field, or method.
 	 */
-	private void visitAttributes(ClassDataCollector cd, ElementDef elementDef) throws Exception {
+	private void visitAttributes(List<ClassEvent> log, ElementDef elementDef) {
 		int access_flags = elementDef.getAccess();
 		ElementType elementType = elementDef.elementType();
 		if (elementDef.isDeprecated()) {
-			cd.deprecated();
+			log.add(ClassDataCollector::deprecated);
 		}
 		for (Attribute attribute : elementDef.attributes()) {
 			switch (attribute.name()) {
 				case RuntimeVisibleAnnotationsAttribute.NAME :
-					visitAnnotations(cd, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.RUNTIME,
+					visitAnnotations(log, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.RUNTIME,
 						access_flags);
 					break;
 				case RuntimeInvisibleAnnotationsAttribute.NAME :
-					visitAnnotations(cd, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.CLASS,
+					visitAnnotations(log, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.CLASS,
 						access_flags);
 					break;
 				case RuntimeVisibleParameterAnnotationsAttribute.NAME :
-					visitParameterAnnotations(cd, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
+					visitParameterAnnotations(log, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
 						RetentionPolicy.RUNTIME, access_flags);
 					break;
 				case RuntimeInvisibleParameterAnnotationsAttribute.NAME :
-					visitParameterAnnotations(cd, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
+					visitParameterAnnotations(log, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
 						RetentionPolicy.CLASS, access_flags);
 					break;
 				case RuntimeVisibleTypeAnnotationsAttribute.NAME :
-					visitTypeAnnotations(cd, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
+					visitTypeAnnotations(log, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
 						RetentionPolicy.RUNTIME, access_flags);
 					break;
 				case RuntimeInvisibleTypeAnnotationsAttribute.NAME :
-					visitTypeAnnotations(cd, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
+					visitTypeAnnotations(log, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
 						RetentionPolicy.CLASS, access_flags);
 					break;
 				case InnerClassesAttribute.NAME :
-					visitInnerClasses(cd, (InnerClassesAttribute) attribute);
+					visitInnerClasses(log, (InnerClassesAttribute) attribute);
 					break;
 				case EnclosingMethodAttribute.NAME :
-					visitEnclosingMethod(cd, (EnclosingMethodAttribute) attribute);
+					visitEnclosingMethod(log, (EnclosingMethodAttribute) attribute);
 					break;
 				case CodeAttribute.NAME :
-					visitCode(cd, (CodeAttribute) attribute, elementType);
+					visitCode(log, (CodeAttribute) attribute, elementType);
 					break;
 				case SignatureAttribute.NAME :
-					visitSignature(cd, (SignatureAttribute) attribute);
+					visitSignature(log, (SignatureAttribute) attribute);
 					break;
 				case ConstantValueAttribute.NAME :
-					visitConstantValue(cd, (ConstantValueAttribute) attribute);
+					visitConstantValue(log, (ConstantValueAttribute) attribute);
 					break;
 				case AnnotationDefaultAttribute.NAME :
-					visitAnnotationDefault(cd, (AnnotationDefaultAttribute) attribute, elementDef);
+					visitAnnotationDefault(log, (AnnotationDefaultAttribute) attribute, elementDef);
 					break;
 				case MethodParametersAttribute.NAME :
-					visitMethodParameters(cd, (MethodParametersAttribute) attribute, elementDef);
+					visitMethodParameters(log, (MethodParametersAttribute) attribute, elementDef);
 					break;
 				default :
 					break;
@@ -1109,12 +1318,12 @@ public class Clazz {
 		classConstRef(attribute.class_name);
 	}
 
-	private void visitEnclosingMethod(ClassDataCollector cd, EnclosingMethodAttribute attribute) {
+	private void visitEnclosingMethod(List<ClassEvent> log, EnclosingMethodAttribute attribute) {
 		TypeRef cName = analyzer.getTypeRef(attribute.class_name);
-		cd.enclosingMethod(cName, attribute.method_name, attribute.method_descriptor);
+		log.add(cd -> cd.enclosingMethod(cName, attribute.method_name, attribute.method_descriptor));
 	}
 
-	private void visitInnerClasses(ClassDataCollector cd, InnerClassesAttribute attribute) throws Exception {
+	private void visitInnerClasses(List<ClassEvent> log, InnerClassesAttribute attribute) {
 		for (InnerClass innerClassInfo : attribute.classes) {
 			TypeRef innerClass = analyzer.getTypeRef(innerClassInfo.inner_class);
 			TypeRef outerClass;
@@ -1125,7 +1334,7 @@ public class Clazz {
 				outerClass = null;
 			}
 
-			cd.innerClass(innerClass, outerClass, innerClassInfo.inner_name, innerClassInfo.inner_access);
+			log.add(cd -> cd.innerClass(innerClass, outerClass, innerClassInfo.inner_name, innerClassInfo.inner_access));
 		}
 	}
 
@@ -1148,9 +1357,9 @@ public class Clazz {
 		}
 	}
 
-	private void visitSignature(ClassDataCollector cd, SignatureAttribute attribute) {
+	private void visitSignature(List<ClassEvent> log, SignatureAttribute attribute) {
 		String signature = attribute.signature;
-		cd.signature(signature);
+		log.add(cd -> cd.signature(signature));
 	}
 
 	private void processAnnotationDefault(AnnotationDefaultAttribute attribute, ElementType elementType,
@@ -1159,11 +1368,10 @@ public class Clazz {
 		processElementValue(value, elementType, RetentionPolicy.RUNTIME, access_flags);
 	}
 
-	private void visitAnnotationDefault(ClassDataCollector cd, AnnotationDefaultAttribute attribute,
+	private void visitAnnotationDefault(List<ClassEvent> log, AnnotationDefaultAttribute attribute,
 		ElementDef elementDef) {
 		MethodDef methodDef = (MethodDef) elementDef;
-		Object value = annotationDefault(attribute, methodDef.getAccess());
-		cd.annotationDefault(methodDef, value);
+		log.add(cd -> cd.annotationDefault(methodDef, annotationDefault(attribute, methodDef.getAccess())));
 	}
 
 	static ElementType elementType(FieldInfo fieldInfo) {
@@ -1192,9 +1400,9 @@ public class Clazz {
 		}
 	}
 
-	private void visitConstantValue(ClassDataCollector cd, ConstantValueAttribute attribute) {
+	private void visitConstantValue(List<ClassEvent> log, ConstantValueAttribute attribute) {
 		Object value = attribute.value;
-		cd.constant(value);
+		log.add(cd -> cd.constant(value));
 	}
 
 	private void processExceptions(ExceptionsAttribute attribute, int access_flags) {
@@ -1204,10 +1412,10 @@ public class Clazz {
 		}
 	}
 
-	private void visitMethodParameters(ClassDataCollector cd, MethodParametersAttribute attribute,
+	private void visitMethodParameters(List<ClassEvent> log, MethodParametersAttribute attribute,
 		ElementDef elementDef) {
 		MethodDef method = (MethodDef) elementDef;
-		cd.methodParameters(method, MethodParameter.parameters(attribute));
+		log.add(cd -> cd.methodParameters(method, MethodParameter.parameters(attribute)));
 	}
 
 	private void processCode(CodeAttribute attribute, ElementType elementType) {
@@ -1301,7 +1509,7 @@ public class Clazz {
 		processAttributes(attribute.attributes, elementType, 0);
 	}
 
-	private void visitCode(ClassDataCollector cd, CodeAttribute attribute, ElementType elementType) throws Exception {
+	private void visitCode(List<ClassEvent> log, CodeAttribute attribute, ElementType elementType) {
 		ByteBuffer code = attribute.code.duplicate();
 		code.rewind();
 		while (code.hasRemaining()) {
@@ -1309,23 +1517,23 @@ public class Clazz {
 			switch (instruction) {
 				case OpCodes.invokespecial : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					visitReferenceMethod(log, method_ref_index);
 					break;
 				}
 				case OpCodes.invokevirtual : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					visitReferenceMethod(log, method_ref_index);
 					break;
 				}
 				case OpCodes.invokeinterface : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					visitReferenceMethod(log, method_ref_index);
 					code.position(code.position() + 2);
 					break;
 				}
 				case OpCodes.invokestatic : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					visitReferenceMethod(log, method_ref_index);
 					break;
 				}
 				case OpCodes.wide : {
@@ -1364,20 +1572,20 @@ public class Clazz {
 		}
 
 		CodeDef codeDef = new CodeDef(attribute, elementType);
-		visitAttributes(cd, codeDef);
+		visitAttributes(log, codeDef);
 	}
 
 	/**
 	 * Called when crawling the byte code and a method reference is found
 	 */
-	private void visitReferenceMethod(ClassDataCollector cd, int method_ref_index) {
+	private void visitReferenceMethod(List<ClassEvent> log, int method_ref_index) {
 		AbstractRefInfo refInfo = constantPool.entry(method_ref_index);
 		String className = constantPool.className(refInfo.class_index);
 		NameAndTypeInfo nameAndTypeInfo = constantPool.entry(refInfo.name_and_type_index);
 		String method = constantPool.utf8(nameAndTypeInfo.name_index);
 		String descriptor = constantPool.utf8(nameAndTypeInfo.descriptor_index);
 		TypeRef type = analyzer.getTypeRef(className);
-		cd.referenceMethod(0, type, method, descriptor);
+		log.add(cd -> cd.referenceMethod(0, type, method, descriptor));
 	}
 
 	private void processParameterAnnotations(ParameterAnnotationsAttribute attribute, ElementType elementType,
@@ -1389,14 +1597,14 @@ public class Clazz {
 		}
 	}
 
-	private void visitParameterAnnotations(ClassDataCollector cd, ParameterAnnotationsAttribute attribute,
-		ElementType elementType, RetentionPolicy policy, int access_flags) throws Exception {
+	private void visitParameterAnnotations(List<ClassEvent> log, ParameterAnnotationsAttribute attribute,
+		ElementType elementType, RetentionPolicy policy, int access_flags) {
 		for (ParameterAnnotationInfo parameterAnnotationInfo : attribute.parameter_annotations) {
 			if (parameterAnnotationInfo.annotations.length > 0) {
-				cd.parameter(parameterAnnotationInfo.parameter);
+				int parameter = parameterAnnotationInfo.parameter;
+				log.add(cd -> cd.parameter(parameter));
 				for (AnnotationInfo annotationInfo : parameterAnnotationInfo.annotations) {
-					Annotation annotation = newAnnotation(annotationInfo, elementType, policy, access_flags);
-					cd.annotation(annotation);
+					log.add(cd -> cd.annotation(newAnnotation(annotationInfo, elementType, policy, access_flags)));
 				}
 			}
 		}
@@ -1409,13 +1617,14 @@ public class Clazz {
 		}
 	}
 
-	private void visitTypeAnnotations(ClassDataCollector cd, TypeAnnotationsAttribute attribute,
-		ElementType elementType, RetentionPolicy policy, int access_flags) throws Exception {
+	private void visitTypeAnnotations(List<ClassEvent> log, TypeAnnotationsAttribute attribute,
+		ElementType elementType, RetentionPolicy policy, int access_flags) {
 		for (TypeAnnotationInfo typeAnnotationInfo : attribute.type_annotations) {
-			cd.typeuse(typeAnnotationInfo.target_type, typeAnnotationInfo.target_index, typeAnnotationInfo.target_info,
-				typeAnnotationInfo.type_path);
-			Annotation annotation = newAnnotation(typeAnnotationInfo, elementType, policy, access_flags);
-			cd.annotation(annotation);
+			log.add(cd -> {
+				cd.typeuse(typeAnnotationInfo.target_type, typeAnnotationInfo.target_index,
+					typeAnnotationInfo.target_info, typeAnnotationInfo.type_path);
+				cd.annotation(newAnnotation(typeAnnotationInfo, elementType, policy, access_flags));
+			});
 		}
 	}
 
@@ -1426,11 +1635,10 @@ public class Clazz {
 		}
 	}
 
-	private void visitAnnotations(ClassDataCollector cd, AnnotationsAttribute attribute, ElementType elementType,
-		RetentionPolicy policy, int access_flags) throws Exception {
+	private void visitAnnotations(List<ClassEvent> log, AnnotationsAttribute attribute, ElementType elementType,
+		RetentionPolicy policy, int access_flags) {
 		for (AnnotationInfo annotationInfo : attribute.annotations) {
-			Annotation annotation = newAnnotation(annotationInfo, elementType, policy, access_flags);
-			cd.annotation(annotation);
+			log.add(cd -> cd.annotation(newAnnotation(annotationInfo, elementType, policy, access_flags)));
 		}
 	}
 
@@ -1794,7 +2002,7 @@ public class Clazz {
 			}
 			case VERSION -> {
 				requireNonNull(instr);
-				String v = classFile.major_version + "." + classFile.minor_version;
+				String v = major_version + "." + minor_version;
 				yield instr.matches(v) ^ instr.isNegated();
 			}
 			case IMPLEMENTS -> {
@@ -1906,7 +2114,7 @@ public class Clazz {
 	}
 
 	public JAVA getFormat() {
-		return JAVA.format(classFile.major_version);
+		return JAVA.format(major_version);
 
 	}
 
@@ -1985,10 +2193,12 @@ public class Clazz {
 	}
 
 	public Stream<Annotation> annotations(String binaryNameFilter) {
+		parsed();
 		return classDef.annotations(binaryNameFilter);
 	}
 
 	public Stream<TypeAnnotation> typeAnnotations(String binaryNameFilter) {
+		parsed();
 		return classDef.typeAnnotations(binaryNameFilter);
 	}
 
@@ -1997,6 +2207,9 @@ public class Clazz {
 	}
 
 	public boolean isInnerClass() {
+		if (classFile == null && summary != 0) {
+			return (summary & SUMMARY_INNER_CLASS) != 0;
+		}
 		return classDef.isInnerClass();
 	}
 
@@ -2025,6 +2238,9 @@ public class Clazz {
 	}
 
 	public boolean isDeprecated() {
+		if (classFile == null && summary != 0) {
+			return (summary & SUMMARY_DEPRECATED) != 0;
+		}
 		return classDef.isDeprecated();
 	}
 
@@ -2063,10 +2279,12 @@ public class Clazz {
 	}
 
 	public String getClassSignature() {
+		parsed();
 		return classDef.getSignature();
 	}
 
 	public String getSourceFile() {
+		parsed();
 		return classDef.getSourceFile();
 	}
 
@@ -0,0 +1,97 @@
+package aQute.bnd.osgi;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+
+/**
+ * A persistent, content addressed cache of class summaries. The key of a class
+ * is the SHA-256 of its bytes, so a class that is on the class path of many
+ * builds is only parsed the first time it is seen. See
+ * {@link Clazz#writeSummary(java.io.DataOutput)} for what is cached.
+ * <p>
+ * Entries are written to a temporary file and moved in place so concurrent
+ * builds sharing the directory never see a partial entry. An entry that
+ * cannot be read is ignored and the class is parsed again.
+ */
+class ClazzCache {
+	private final static Logger	logger	= LoggerFactory.getLogger(ClazzCache.class);
+	// Change when the summary format or the analysis changes
+	private static final byte	VERSION	= 1;
+
+	private final File			dir;
+
+	ClazzCache(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Answer a parsed class for a resource, restored from its summary if it
+	 * was seen before.
+	 */
+	Clazz get(Analyzer analyzer, String path, Resource resource) throws Exception {
+		String key = key(analyzer, resource);
+		File file = IO.getFile(dir, key.substring(0, 2) + "/" + key);
+		if (file.isFile()) {
+			Clazz clazz = new Clazz(analyzer, path, resource);
+			try (DataInputStream in = new DataInputStream(IO.stream(file))) {
+				clazz.readSummary(in);
+				return clazz;
+			} catch (IOException e) {
+				logger.debug("Invalid class summary {} for {}", file, path, e);
+			}
+		}
+
+		Clazz clazz = new Clazz(analyzer, path, resource);
+		clazz.parseClassFile();
+		store(file, clazz);
+		return clazz;
+	}
+
+	private String key(Analyzer analyzer, Resource resource) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		ByteBuffer bb = resource.buffer();
+		if (bb != null) {
+			digest.update(bb.duplicate());
+		} else {
+			digest.update(IO.read(resource.openInputStream()));
+		}
+		// The forName detection depends on the analyzer
+		digest.update(VERSION);
+		digest.update((byte) (analyzer.is(Constants.NOCLASSFORNAME) ? 1 : 0));
+		return Hex.toHexString(digest.digest())
+			.toLowerCase();
+	}
+
+	private void store(File file, Clazz clazz) {
+		Path target = file.toPath();
+		Path tmp = null;
+		try {
+			IO.mkdirs(target.getParent());
+			tmp = Files.createTempFile(target.getParent(), target.getFileName()
+				.toString(), ".tmp");
+			try (OutputStream out = IO.outputStream(tmp); DataOutputStream dout = new DataOutputStream(out)) {
+				clazz.writeSummary(dout);
+			}
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (Exception e) {
+			logger.debug("Failed to store class summary {}", file, e);
+			if (tmp != null) {
+				IO.delete(tmp);
+			}
+		}
+	}
+}
@@ -112,14 +112,18 @@ public interface Constants {
 	String		BUNDLEANNOTATIONS							= "-bundleannotations";
 	String		CDIANNOTATIONS								= "-cdiannotations";
 	String		CHECK										= "-check";
+	String		CLASSCACHE									= "-classcache";
 	String		CONDUIT										= "-conduit";
 	String		CONTRACT									= "-contract";
 	String		DEFINE_CONTRACT								= "-define-contract";
 	String		CONDITIONALPACKAGE							= "-conditionalpackage";
 	String		CONNECTION_SETTINGS							= "-connection-settings";
 	String		CONNECTION_LOG								= "-connection-log";
+	String		CONNECTION_HTTP2							= "-connection-http2";
+	String		CONNECTION_CACHE_SIZE						= "-connection-cache-size";
 
 	String		COMPRESSION									= "-compression";
+	String		COPYDEFLATED								= "-copydeflated";
 	String		DIFFIGNORE									= "-diffignore";
 	String		DIFFPACKAGES								= "-diffpackages";
 	String		DIFFPACKAGES_THRESHOLD						= "threshold";
@@ -158,6 +162,7 @@ public interface Constants {
 	String		INCLUDE										= "-include";
 	String		INCLUDERESOURCE								= "-includeresource";
 	String		INCLUDEPACKAGE								= "-includepackage";
+	String		INCREMENTAL									= "-incremental";
 	String		INVALIDFILENAMES							= "-invalidfilenames";
 	String		INIT										= "-init";
 	String		BUILDREPO									= "-buildrepo";
@@ -202,6 +207,8 @@ public interface Constants {
 
 	String		PEDANTIC									= "-pedantic";
 	String		PACKAGEINFOTYPE								= "-packageinfotype";
+	String		PARALLELANALYSIS							= "-parallelanalysis";
+	String		PARALLELWRITE								= "-parallelwrite";
 	String		PLUGIN										= "-plugin";
 	String		PLUGINPATH									= "-pluginpath";
 	String		PLUGINPATH_URL_ATTR							= "url";
@@ -231,11 +238,17 @@ public interface Constants {
 	String		RESOLVE_EXCLUDESYSTEM						= "-resolve.excludesystem";
 	String		RESOLVE_EFFECTIVE							= "-resolve.effective";
 	String		RESOLVE_PREFERENCES							= "-resolve.preferences";
+	/**
+	 * Reuse the run bundles of the last resolution of a bndrun file when the
+	 * inputs of the resolution did not change.
+	 */
+	String		RESOLVE_CACHE								= "-resolve.cache";
 
 	String		RUNNOREFERENCES								= "-runnoreferences";
 	String		RUNFRAMEWORKRESTART							= "-runframeworkrestart";
 	String		RUNOPTIONS									= "-runoptions";
 	String		RUNOPTIONS_EAGER							= "eager";
+	String		RUNOPTIONS_PARALLEL							= "parallel";
 
 	String		RUNPROPERTIES								= "-runproperties";
 	String		RUNSYSTEMPACKAGES							= "-runsystempackages";
@@ -322,7 +335,9 @@ public interface Constants {
 		CONNECTION_SETTINGS, RUNPROVIDEDCAPABILITIES, WORKINGSET, RUNSTORAGE, REPRODUCIBLE, INCLUDEPACKAGE,
 		CDIANNOTATIONS, REMOTEWORKSPACE, MAVEN_DEPENDENCIES, BUILDERIGNORE, STALECHECK, MAVEN_SCOPE, RUNSTARTLEVEL,
 		RUNOPTIONS, NOCLASSFORNAME, EXPORT_APIGUARDIAN, RESOLVE, DEFINE_CONTRACT, GENERATE, RUNFRAMEWORKRESTART,
-		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY);
+		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY, PARALLELANALYSIS, CLASSCACHE, PARALLELWRITE,
+		COPYDEFLATED,
+		INCREMENTAL, CONNECTION_HTTP2, CONNECTION_CACHE_SIZE, RESOLVE_CACHE);
 
 	// Ignore bundle specific headers. These headers do not make a lot of sense
 	// to inherit
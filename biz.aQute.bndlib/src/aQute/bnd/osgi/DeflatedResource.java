@@ -0,0 +1,25 @@
+package aQute.bnd.osgi;
+
+import java.nio.ByteBuffer;
+
+import aQute.lib.zip.CentralDirectory;
+
+/**
+ * A resource backed by an entry of a ZIP file. When the entry is deflated, a
+ * JAR that is written deflated can copy the compressed data of the entry
+ * instead of inflating and deflating it again.
+ */
+interface DeflatedResource extends Resource {
+	/**
+	 * @return The ZIP entry of the resource if its data is deflated and can be
+	 *         copied, otherwise {@code null}.
+	 */
+	CentralDirectory.Entry deflatedEntry();
+
+	/**
+	 * @return The deflated data of the entry returned by
+	 *         {@link #deflatedEntry()} or {@code null} if it can no longer be
+	 *         read, then the resource must be written from its content.
+	 */
+	ByteBuffer deflatedData() throws Exception;
+}
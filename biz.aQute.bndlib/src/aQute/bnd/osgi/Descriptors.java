@@ -2,11 +2,14 @@ package aQute.bnd.osgi;
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -16,13 +19,29 @@ import aQute.bnd.signatures.FieldSignature;
 import aQute.bnd.signatures.MethodSignature;
 import aQute.libg.generics.Create;
 
+/**
+ * Creates the type and package references and the descriptors and signatures
+ * of an {@link Analyzer}. References are compared by identity, so an instance
+ * always returns the same reference for the same name.
+ * <p>
+ * The references and signatures are also interned across all instances while
+ * they are in use, so the many Analyzers of a workspace build share a single
+ * copy of the references they have in common. The interned objects are only
+ * weakly referenced and are collected when no instance uses them anymore.
+ */
 public class Descriptors {
-	private final Map<String, TypeRef>			typeRefCache			= new HashMap<>();
-	private final Map<String, Descriptor>		descriptorCache			= new HashMap<>();
-	private final Map<String, PackageRef>		packageRefCache			= new HashMap<>();
-	private final Map<String, ClassSignature>	classSignatureCache		= new HashMap<>();
-	private final Map<String, MethodSignature>	methodSignatureCache	= new HashMap<>();
-	private final Map<String, FieldSignature>	fieldSignatureCache		= new HashMap<>();
+	private final static Interner<TypeRef>			typeRefs				= new Interner<>();
+	private final static Interner<PackageRef>		packageRefs				= new Interner<>();
+	private final static Interner<ClassSignature>	classSignatures			= new Interner<>();
+	private final static Interner<MethodSignature>	methodSignatures		= new Interner<>();
+	private final static Interner<FieldSignature>	fieldSignatures			= new Interner<>();
+
+	private final Map<String, TypeRef>			typeRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, Descriptor>		descriptorCache			= new ConcurrentHashMap<>();
+	private final Map<String, PackageRef>		packageRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, ClassSignature>	classSignatureCache		= new ConcurrentHashMap<>();
+	private final Map<String, MethodSignature>	methodSignatureCache	= new ConcurrentHashMap<>();
+	private final Map<String, FieldSignature>	fieldSignatureCache		= new ConcurrentHashMap<>();
 
 	// MUST BE BEFORE PRIMITIVES, THEY USE THE DEFAULT PACKAGE!!
 	final static PackageRef						DEFAULT_PACKAGE			= new PackageRef();
@@ -470,8 +489,12 @@ public class Descriptors {
 			// recursive calls starting in Java 9
 			TypeRef ref = typeRefCache.get(binaryClassName);
 			if (ref == null) {
-				ref = new ArrayRef(getTypeRef(binaryClassName.substring(1)));
-				typeRefCache.put(binaryClassName, ref);
+				TypeRef component = getTypeRef(binaryClassName.substring(1));
+				ref = typeRefs.intern(binaryClassName, k -> new ArrayRef(component));
+				TypeRef existing = typeRefCache.putIfAbsent(binaryClassName, ref);
+				if (existing != null) {
+					ref = existing;
+				}
 			}
 			return ref;
 		}
@@ -505,7 +528,7 @@ public class Descriptors {
 		}
 		int n = binaryClassName.lastIndexOf('/');
 		PackageRef pref = (n < 0) ? DEFAULT_PACKAGE : getPackageRef(binaryClassName.substring(0, n));
-		return new ConcreteRef(pref, binaryClassName);
+		return typeRefs.intern(binaryClassName, k -> new ConcreteRef(pref, k));
 	}
 
 	public TypeRef getPackageInfo(PackageRef packageRef) {
@@ -522,7 +545,7 @@ public class Descriptors {
 		// not com.example.Foo.
 		//
 
-		return packageRefCache.computeIfAbsent(binaryPackName, PackageRef::new);
+		return packageRefCache.computeIfAbsent(binaryPackName, k -> packageRefs.intern(k, PackageRef::new));
 	}
 
 	public Descriptor getDescriptor(String descriptor) {
@@ -530,15 +553,62 @@ public class Descriptors {
 	}
 
 	public ClassSignature getClassSignature(String signature) {
-		return classSignatureCache.computeIfAbsent(signature.replace('$', '.'), ClassSignature::of);
+		return classSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			k -> classSignatures.intern(k, ClassSignature::of));
 	}
 
 	public MethodSignature getMethodSignature(String signature) {
-		return methodSignatureCache.computeIfAbsent(signature.replace('$', '.'), MethodSignature::of);
+		return methodSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			k -> methodSignatures.intern(k, MethodSignature::of));
 	}
 
 	public FieldSignature getFieldSignature(String signature) {
-		return fieldSignatureCache.computeIfAbsent(signature.replace('$', '.'), FieldSignature::of);
+		return fieldSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			k -> fieldSignatures.intern(k, FieldSignature::of));
+	}
+
+	/**
+	 * Weak value interning. There is at most one live object per key, an
+	 * object is replaced when it was collected.
+	 */
+	private static final class Interner<V> {
+		private final Map<String, Entry<V>>	entries	= new ConcurrentHashMap<>();
+		private final ReferenceQueue<V>		queue	= new ReferenceQueue<>();
+
+		private static final class Entry<V> extends WeakReference<V> {
+			final String key;
+
+			Entry(String key, V value, ReferenceQueue<V> queue) {
+				super(value, queue);
+				this.key = key;
+			}
+		}
+
+		V intern(String key, Function<String, V> factory) {
+			expunge();
+			for (;;) {
+				Entry<V> entry = entries.get(key);
+				if (entry != null) {
+					V value = entry.get();
+					if (value != null) {
+						return value;
+					}
+				}
+				V value = factory.apply(key);
+				Entry<V> replacement = new Entry<>(key, value, queue);
+				if ((entry == null) ? entries.putIfAbsent(key, replacement) == null
+					: entries.replace(key, entry, replacement)) {
+					return value;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void expunge() {
+			for (Entry<V> entry; (entry = (Entry<V>) queue.poll()) != null;) {
+				entries.remove(entry.key, entry);
+			}
+		}
 	}
 
 	public static class NamedDescriptor implements Comparable<NamedDescriptor> {
@@ -0,0 +1,73 @@
+package aQute.bnd.osgi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class analysis of previous builds, kept in memory so that a following
+ * build with {@link Constants#INCREMENTAL} only parses the class files that
+ * changed. A {@link aQute.bnd.build.Project} keeps one for all its builders.
+ * <p>
+ * Only class files read from the file system, like the classes in the output
+ * folder of a project, are kept. A class file is considered unchanged when its
+ * path, last modified time and size are the same as in the previous build.
+ * The headers are still calculated from all classes, but from the summaries of
+ * the unchanged classes instead of their class files. See
+ * {@link Clazz#writeSummary(java.io.DataOutput)} for what is kept.
+ */
+public final class IncrementalAnalysis {
+	private final static Logger		logger		= LoggerFactory.getLogger(IncrementalAnalysis.class);
+
+	private final Map<String, Entry>	entries	= new ConcurrentHashMap<>();
+
+	private record Entry(long lastModified, long size, boolean noClassForName, byte[] summary) {}
+
+	/**
+	 * Answer a parsed class for a resource, restored from the previous build
+	 * if the class file did not change.
+	 */
+	Clazz get(Analyzer analyzer, String path, Resource resource) throws Exception {
+		if (!(resource instanceof FileResource fileResource) || resource.lastModified() <= 0L) {
+			return analyzer.parseClassFile(path, resource);
+		}
+
+		String key = fileResource.getFile()
+			.getAbsolutePath();
+		boolean noClassForName = analyzer.is(Constants.NOCLASSFORNAME);
+		Entry entry = entries.get(key);
+		if (entry != null && entry.lastModified() == resource.lastModified() && entry.size() == resource.size()
+			&& entry.noClassForName() == noClassForName) {
+			Clazz clazz = new Clazz(analyzer, path, resource);
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.summary()))) {
+				clazz.readSummary(in);
+				return clazz;
+			} catch (IOException e) {
+				logger.debug("Invalid class summary for {}", key, e);
+			}
+		}
+
+		Clazz clazz = new Clazz(analyzer, path, resource);
+		clazz.parseClassFile();
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bout)) {
+			clazz.writeSummary(out);
+		}
+		entries.put(key, new Entry(resource.lastModified(), resource.size(), noClassForName, bout.toByteArray()));
+		return clazz;
+	}
+
+	/**
+	 * Forget the analysis of the previous builds.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+}
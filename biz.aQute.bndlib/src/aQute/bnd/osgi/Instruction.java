@@ -64,6 +64,7 @@ public class Instruction {
 	private final boolean			literal;
 	private final boolean			any;
 	private final int				matchFlags;
+	private final String			prefix;
 	private Pattern					pattern;
 	private boolean					optional;
 
@@ -81,6 +82,7 @@ public class Instruction {
 			negated = false;
 			matchFlags = 0;
 			duplicate = false;
+			prefix = null;
 			return;
 		}
 		any = false;
@@ -120,6 +122,7 @@ public class Instruction {
 			match = s.substring(start + 1, end);
 			literal = true;
 			matchFlags = flags | Pattern.LITERAL;
+			prefix = null;
 			return;
 		}
 
@@ -127,13 +130,15 @@ public class Instruction {
 		// also include the last full package. I.e.
 		// com.foo.* includes com.foo (unlike OSGi)
 		if (s.regionMatches(end - 2, ".*", 0, 2)) {
-			s = s.substring(start, end - 2)
-				.concat("(?:.*)?");
+			String p = s.substring(start, end - 2);
+			prefix = isPackagePrefix(p, flags) ? p : null;
+			s = p.concat("(?:.*)?");
 			literal = false;
 		} else {
 			s = s.substring(start, end);
 			literal = !WILDCARD.matcher(s)
 				.find();
+			prefix = null;
 		}
 
 		if (literal) {
@@ -148,6 +153,58 @@ public class Instruction {
 		}
 	}
 
+	/**
+	 * A package wildcard like {@code com.foo.*} matches {@code com.foo} and
+	 * any value starting with {@code com.foo.}. It can be matched without its
+	 * pattern if the part before the wildcard is a plain name.
+	 */
+	private static boolean isPackagePrefix(String prefix, int flags) {
+		if ((flags & Pattern.CASE_INSENSITIVE) != 0) {
+			return false;
+		}
+		// Glob trims the pattern
+		if (!prefix.isEmpty() && prefix.charAt(0) <= ' ') {
+			return false;
+		}
+		for (int i = 0, length = prefix.length(); i < length; i++) {
+			switch (prefix.charAt(i)) {
+				case '*' :
+				case '?' :
+				case '|' :
+				case '(' :
+				case ')' :
+				case '{' :
+				case '}' :
+				case '[' :
+				case ']' :
+				case '\\' :
+					return false;
+				default :
+					break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The {@code .} of a pattern does not match line terminators.
+	 */
+	static boolean hasLineTerminator(String value, int from) {
+		for (int i = from, length = value.length(); i < length; i++) {
+			switch (value.charAt(i)) {
+				case '\n' :
+				case '\r' :
+				case '\u0085' :
+				case '\u2028' :
+				case '\u2029' :
+					return true;
+				default :
+					break;
+			}
+		}
+		return false;
+	}
+
 	public static Instruction legacy(String input) {
 		if (input.equals("*")) {
 			return new Instruction(input, null, null, false, 0, true, false, false);
@@ -238,6 +295,7 @@ public class Instruction {
 		this.any = any;
 		this.literal = literal;
 		this.duplicate = duplicate;
+		this.prefix = null;
 	}
 
 	public boolean matches(String value) {
@@ -251,6 +309,12 @@ public class Instruction {
 			return match.equals(value);
 		}
 
+		if (prefix != null) {
+			int length = prefix.length();
+			return value.startsWith(prefix) && ((value.length() == length)
+				|| ((value.charAt(length) == '.') && !hasLineTerminator(value, length + 1)));
+		}
+
 		return getMatcher(value).matches();
 	}
 
@@ -304,6 +368,20 @@ public class Instruction {
 		return match;
 	}
 
+	/**
+	 * Answer the package name of a package wildcard like {@code com.foo.*}
+	 * that can be matched without its pattern.
+	 *
+	 * @return The package name or {@code null}.
+	 */
+	String getPrefix() {
+		return prefix;
+	}
+
+	boolean isCaseInsensitive() {
+		return (matchFlags & Pattern.CASE_INSENSITIVE) != 0;
+	}
+
 	public boolean isDuplicate() {
 		return duplicate;
 	}
@@ -0,0 +1,177 @@
+package aQute.bnd.osgi;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Finds the first of a list of instructions that matches a value without
+ * trying each instruction in turn.
+ * <p>
+ * Literal instructions like {@code com.example} and package wildcard
+ * instructions like {@code com.example.*} are put in a prefix tree so that
+ * they are all checked in a single pass over the value. The other
+ * instructions are tried in turn but only if they come before the first
+ * instruction found in the tree. The result is the same as trying each
+ * instruction in turn, the first matching instruction wins.
+ */
+public final class InstructionMatcher {
+	private static final int[]		EMPTY	= new int[0];
+
+	private final Instruction[]		instructions;
+	private final Node				root	= new Node();
+	/*
+	 * The indexes of the instructions that are not in the tree, in ascending
+	 * order.
+	 */
+	private final int[]				others;
+
+	private static final class Node {
+		char[]	keys		= new char[0];
+		Node[]	children	= new Node[0];
+		/* Indexes of the literal instructions ending at this node */
+		int[]	literals	= EMPTY;
+		/* Indexes of the package wildcard instructions ending at this node */
+		int[]	prefixes	= EMPTY;
+
+		Node child(char c) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node add(char c) {
+			Node child = child(c);
+			if (child == null) {
+				child = new Node();
+				int length = keys.length;
+				keys = Arrays.copyOf(keys, length + 1);
+				children = Arrays.copyOf(children, length + 1);
+				keys[length] = c;
+				children[length] = child;
+			}
+			return child;
+		}
+
+		static int[] append(int[] indexes, int index) {
+			int[] result = Arrays.copyOf(indexes, indexes.length + 1);
+			result[indexes.length] = index;
+			return result;
+		}
+	}
+
+	/**
+	 * Create a matcher for instructions.
+	 *
+	 * @param instructions The instructions in the order they must be tried.
+	 */
+	public InstructionMatcher(Collection<Instruction> instructions) {
+		this.instructions = instructions.toArray(new Instruction[0]);
+		int[] others = new int[this.instructions.length];
+		int size = 0;
+		for (int index = 0; index < this.instructions.length; index++) {
+			Instruction instruction = this.instructions[index];
+			String prefix = instruction.getPrefix();
+			if (prefix != null) {
+				Node node = node(prefix);
+				node.prefixes = Node.append(node.prefixes, index);
+			} else if (instruction.isLiteral() && !instruction.isCaseInsensitive()) {
+				Node node = node(instruction.getLiteral());
+				node.literals = Node.append(node.literals, index);
+			} else {
+				others[size++] = index;
+			}
+		}
+		this.others = Arrays.copyOf(others, size);
+	}
+
+	private Node node(String s) {
+		Node node = root;
+		for (int i = 0, length = s.length(); i < length; i++) {
+			node = node.add(s.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Answer the first instruction that matches the value.
+	 *
+	 * @param value The value to match.
+	 * @return The first matching instruction or {@code null} if no
+	 *         instruction matches.
+	 */
+	public Instruction matcher(String value) {
+		int index = indexOf(value, 0);
+		return (index < 0) ? null : instructions[index];
+	}
+
+	/**
+	 * Answer the index of the first instruction that matches the value.
+	 *
+	 * @param value The value to match.
+	 * @param fromIndex The index of the first instruction to try.
+	 * @return The index of the first matching instruction at or after
+	 *         {@code fromIndex} or -1 if no such instruction matches.
+	 */
+	public int indexOf(String value, int fromIndex) {
+		int first = Integer.MAX_VALUE;
+		if (!Instruction.hasLineTerminator(value, 0)) {
+			Node node = root;
+			for (int i = 0, length = value.length(); node != null; i++) {
+				if (i == length) {
+					first = first(node.literals, fromIndex, first(node.prefixes, fromIndex, first));
+					break;
+				}
+				char c = value.charAt(i);
+				if (c == '.') {
+					first = first(node.prefixes, fromIndex, first);
+				}
+				node = node.child(c);
+			}
+			for (int index : others) {
+				if (index >= first) {
+					break;
+				}
+				if ((index >= fromIndex) && instructions[index].matches(value)) {
+					return index;
+				}
+			}
+		} else {
+			// The package wildcards do not match line terminators
+			for (int index = fromIndex; index < instructions.length; index++) {
+				if (instructions[index].matches(value)) {
+					return index;
+				}
+			}
+		}
+		return (first == Integer.MAX_VALUE) ? -1 : first;
+	}
+
+	private static int first(int[] indexes, int fromIndex, int first) {
+		for (int index : indexes) {
+			if (index >= first) {
+				break;
+			}
+			if (index >= fromIndex) {
+				return index;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Answer the instruction at an index.
+	 */
+	public Instruction get(int index) {
+		return instructions[index];
+	}
+
+	/**
+	 * Answer the number of instructions.
+	 */
+	public int size() {
+		return instructions.length;
+	}
+}
@@ -25,6 +25,7 @@ import aQute.lib.io.IO;
 
 public class Instructions implements Map<Instruction, Attrs> {
 	private LinkedHashMap<Instruction, Attrs>	map;
+	private InstructionMatcher					compiled;
 	public static Instructions					ALWAYS	= new Instructions();
 	static Map<Instruction, Attrs>				EMPTY	= Collections.emptyMap();
 
@@ -53,6 +54,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 
 	@Override
 	public void clear() {
+		compiled = null;
 		map.clear();
 	}
 
@@ -137,6 +139,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 		if (map == null)
 			map = new LinkedHashMap<>();
 
+		compiled = null;
 		return map.put(key, value);
 	}
 
@@ -147,6 +150,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 				return;
 			this.map = new LinkedHashMap<>();
 		}
+		compiled = null;
 		this.map.putAll(map);
 	}
 
@@ -157,12 +161,14 @@ public class Instructions implements Map<Instruction, Attrs> {
 		if (map == null)
 			return null;
 
+		compiled = null;
 		return map.remove(var0);
 	}
 
 	public Attrs remove(Instruction var0) {
 		if (map == null)
 			return null;
+		compiled = null;
 		return map.remove(var0);
 	}
 
@@ -208,26 +214,34 @@ public class Instructions implements Map<Instruction, Attrs> {
 	}
 
 	public <T> Collection<T> select(Collection<T> set, Set<Instruction> unused, boolean emptyIsAll) {
-		List<T> input = new ArrayList<>(set);
 		if (emptyIsAll && isEmpty())
-			return input;
+			return new ArrayList<>(set);
+
+		// Each object is selected by its first matching instruction, the
+		// result is ordered by instruction
+		InstructionMatcher matcher = compile();
+		List<List<T>> selected = new ArrayList<>(Collections.nCopies(matcher.size(), null));
+		for (T oo : set) {
+			int index = matcher.indexOf(oo.toString(), 0);
+			if (index >= 0) {
+				List<T> objects = selected.get(index);
+				if (objects == null) {
+					selected.set(index, objects = new ArrayList<>());
+				}
+				objects.add(oo);
+			}
+		}
 
 		List<T> result = new ArrayList<>();
-
-		for (Instruction instruction : keySet()) {
-			boolean used = false;
-			for (Iterator<T> o = input.iterator(); o.hasNext();) {
-				T oo = o.next();
-				String s = oo.toString();
-				if (instruction.matches(s)) {
-					if (!instruction.isNegated())
-						result.add(oo);
-					o.remove();
-					used = true;
-				}
+		for (int index = 0; index < matcher.size(); index++) {
+			Instruction instruction = matcher.get(index);
+			List<T> objects = selected.get(index);
+			if (objects == null) {
+				if (unused != null)
+					unused.add(instruction);
+			} else if (!instruction.isNegated()) {
+				result.addAll(objects);
 			}
-			if (!used && unused != null)
-				unused.add(instruction);
 		}
 		return result;
 	}
@@ -253,12 +267,26 @@ public class Instructions implements Map<Instruction, Attrs> {
 	}
 
 	public Instruction matcher(String value) {
-		for (Instruction i : keySet()) {
-			if (i.matches(value)) {
-				return i;
-			}
+		if (isEmpty())
+			return null;
+
+		return compile().matcher(value);
+	}
+
+	/**
+	 * Answer a matcher that finds the first of these instructions that
+	 * matches a value. The matcher does not see later changes to these
+	 * instructions.
+	 *
+	 * @return A matcher for these instructions.
+	 */
+	public InstructionMatcher compile() {
+		InstructionMatcher matcher = compiled;
+		// The keys can also be removed through the views of the map
+		if (matcher == null || matcher.size() != size()) {
+			compiled = matcher = new InstructionMatcher(keySet());
 		}
-		return null;
+		return matcher;
 	}
 
 	public Instruction finder(String value) {
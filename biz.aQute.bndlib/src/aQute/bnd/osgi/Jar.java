@@ -13,17 +13,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
@@ -55,6 +59,8 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import org.osgi.util.promise.PromiseFactory;
+
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.version.Version;
@@ -65,6 +71,7 @@ import aQute.lib.io.ByteBufferOutputStream;
 import aQute.lib.io.IO;
 import aQute.lib.io.IOConstants;
 import aQute.lib.manifest.ManifestUtil;
+import aQute.lib.zip.CentralDirectory;
 import aQute.lib.zip.ZipUtil;
 import aQute.libg.cryptography.Digester;
 import aQute.libg.cryptography.SHA256;
@@ -88,6 +95,11 @@ public class Jar implements Closeable {
 	 * timezone and locale. The date is 1980-02-01T00:00:00Z.
 	 */
 	private static final long	ZIP_ENTRY_CONSTANT_TIME	= 318211200000L;
+	/**
+	 * When set, JAR files are memory mapped instead of opened as a
+	 * {@link ZipFile}. See {@link #mapped(String, File)}.
+	 */
+	private static final boolean	MAPPED					= Boolean.getBoolean("bnd.jar.mapped");
 
 	public enum Compression {
 		DEFLATE,
@@ -119,6 +131,8 @@ public class Jar implements Closeable {
 	private int													fileLength				= -1;
 	private long												zipEntryConstantTime	= ZIP_ENTRY_CONSTANT_TIME;
 	private boolean												closeResources			= true;
+	private boolean												parallelWrite;
+	private boolean												copyDeflated;
 
 	public static final Pattern									METAINF_SIGNING_P		= Pattern
 		.compile("META-INF/([^/]+\\.(?:DSA|RSA|EC|SF)|SIG-[^/]+)", Pattern.CASE_INSENSITIVE);
@@ -134,7 +148,11 @@ public class Jar implements Closeable {
 			buildFromDirectory(dirOrFile.toPath()
 				.toAbsolutePath(), doNotCopy);
 		else if (dirOrFile.isFile()) {
-			buildFromZip(dirOrFile);
+			if (MAPPED) {
+				buildFromMappedZip(dirOrFile);
+			} else {
+				buildFromZip(dirOrFile);
+			}
 		} else {
 			throw new IllegalArgumentException("A Jar can only accept a file or directory that exists: " + dirOrFile);
 		}
@@ -154,6 +172,33 @@ public class Jar implements Closeable {
 		return new Jar(name).buildFromResource(resource);
 	}
 
+	/**
+	 * Open a JAR file by memory mapping it. The central directory is parsed
+	 * once, stored entries are served as slices of the mapping and deflated
+	 * entries are inflated on demand. Unlike a {@link ZipFile} based JAR, the
+	 * content of the entries is not kept on the heap for the lifetime of the
+	 * JAR, which matters when many JARs are open for analysis or indexing.
+	 * <p>
+	 * Files that are too large to map in one piece are opened as a
+	 * {@link ZipFile}. The mapping is released by the garbage collector, on
+	 * some platforms the file cannot be deleted or replaced until then.
+	 * Setting the system property {@code bnd.jar.mapped} to {@code true} makes
+	 * {@link #Jar(String, File, Pattern)} use this mode for files.
+	 *
+	 * @param name The name of the JAR.
+	 * @param file The JAR file.
+	 * @return A JAR for the file.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static Jar mapped(String name, File file) throws IOException {
+		if (!file.isFile()) {
+			throw new IllegalArgumentException("A mapped Jar can only accept a file that exists: " + file);
+		}
+		Jar jar = new Jar(name);
+		jar.source = file;
+		return jar.buildFromMappedZip(file);
+	}
+
 	public static Stream<Resource> getResources(Resource resource, Predicate<String> filter) throws Exception {
 		requireNonNull(resource);
 		requireNonNull(filter);
@@ -297,12 +342,16 @@ public class Jar implements Closeable {
 
 	private Jar buildFromZip(File file) throws IOException {
 		try {
+			ZipResource.Source source = ZipResource.Source.of(file.toPath());
 			zipFile = new ZipFile(file);
+			if (source != null && !source.isUnchanged()) {
+				source = null;
+			}
 			for (ZipEntry entry : Iterables.iterable(zipFile.entries())) {
 				if (entry.isDirectory()) {
 					continue;
 				}
-				putResource(entry.getName(), new ZipResource(zipFile, entry), true);
+				putResource(entry.getName(), new ZipResource(zipFile, entry, source), true);
 			}
 			return this;
 		} catch (ZipException e) {
@@ -320,6 +369,45 @@ public class Jar implements Closeable {
 		}
 	}
 
+	private Jar buildFromMappedZip(File file) throws IOException {
+		ByteBuffer mapping;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				return buildFromZip(file);
+			}
+			mapping = channel.map(MapMode.READ_ONLY, 0, size);
+		}
+		try {
+			int tailOffset = Math.max(0, mapping.limit() - CentralDirectory.TAIL_SIZE);
+			CentralDirectory.Location location = CentralDirectory.locate(mapping.slice(tailOffset,
+				mapping.limit() - tailOffset), tailOffset);
+			if (location.offset() + location.size() > mapping.limit()) {
+				throw new ZipException("Invalid central directory location");
+			}
+			String source = file.getAbsolutePath();
+			for (CentralDirectory.Entry entry : CentralDirectory
+				.parse(mapping.slice((int) location.offset(), (int) location.size()))) {
+				if (entry.isDirectory()) {
+					continue;
+				}
+				if (entry.isEncrypted()) {
+					throw new ZipException("Encrypted entry " + entry.name());
+				}
+				if (entry.localHeaderOffset() + entry.compressedSize() > mapping.limit()) {
+					throw new ZipException("Invalid entry " + entry.name());
+				}
+				putResource(entry.name(), new MappedZipResource(mapping, entry, source), true);
+			}
+			return this;
+		} catch (ZipException | IndexOutOfBoundsException e) {
+			ZipException ze = new ZipException(
+				"The JAR/ZIP file (" + file.getAbsolutePath() + ") seems corrupted, error: " + e.getMessage());
+			ze.initCause(e);
+			throw ze;
+		}
+	}
+
 	private Jar buildFromResource(Resource resource) throws Exception {
 		return buildFromInputStream(resource.openInputStream());
 	}
@@ -554,7 +642,82 @@ public class Jar implements Closeable {
 			out = digester = SHA256.getDigester(out);
 		}
 
-		ZipOutputStream jout = nomanifest || doNotTouchManifest ? new ZipOutputStream(out) : new JarOutputStream(out);
+		if (parallelWrite || (copyDeflated && hasDeflatedResources())) {
+			writeStitched(out, parallelWrite ? Processor.getPromiseFactory() : null);
+		} else {
+			ZipOutputStream jout = newZipOutputStream(out, true);
+			writeEntries((entry, resource) -> putEntry(jout, entry, resource));
+			jout.finish();
+		}
+
+		if (digester != null) {
+			this.sha256 = digester.digest();
+			this.fileLength = digester.getLength();
+		}
+	}
+
+	/**
+	 * Answer if this JAR is written deflated and has resources of which the
+	 * deflated data can be copied.
+	 */
+	private boolean hasDeflatedResources() {
+		return compression == Compression.DEFLATE && resources.values()
+			.stream()
+			.anyMatch(r -> r instanceof DeflatedResource dr && dr.deflatedEntry() != null);
+	}
+
+	/**
+	 * Write each entry with its own ZipOutputStream and stitch the results
+	 * together in the order of the serial write, so the output is the same.
+	 * With a promise factory the entries are deflated concurrently. If
+	 * {@link #setCopyDeflated(boolean)} is set, resources backed by a deflated
+	 * ZIP entry are copied without inflating and deflating them again when
+	 * their data can still be read.
+	 */
+	private void writeStitched(OutputStream out, PromiseFactory promiseFactory) throws Exception {
+		List<Map.Entry<ZipEntry, Resource>> entries = new ArrayList<>();
+		writeEntries((entry, resource) -> entries.add(new SimpleImmutableEntry<>(entry, resource)));
+
+		ZipStitcher stitcher = new ZipStitcher(out, promiseFactory, Runtime.getRuntime()
+			.availableProcessors() * 2);
+		for (int i = 0; i < entries.size(); i++) {
+			ZipEntry entry = entries.get(i)
+				.getKey();
+			Resource resource = entries.get(i)
+				.getValue();
+			boolean first = i == 0;
+			stitcher.add(() -> {
+				try {
+					if (copyDeflated && !first && compression == Compression.DEFLATE
+						&& resource instanceof DeflatedResource dr) {
+						CentralDirectory.Entry deflated = dr.deflatedEntry();
+						if (deflated != null) {
+							ZipStitcher.Chunk chunk = ZipStitcher.deflatedChunk(entry, deflated, dr.deflatedData());
+							if (chunk != null) {
+								return chunk;
+							}
+						}
+					}
+					ByteBufferOutputStream bbos = new ByteBufferOutputStream(BUFFER_SIZE);
+					try (ZipOutputStream jout = newZipOutputStream(bbos, first)) {
+						putEntry(jout, entry, resource);
+					}
+					return ZipStitcher.chunk(entry.getName(), bbos.toByteBuffer());
+				} catch (Exception e) {
+					throw new Exception("Problem writing resource " + entry.getName(), e);
+				}
+			});
+		}
+		stitcher.finish();
+	}
+
+	/**
+	 * Create the ZipOutputStream for writing this JAR. Only the first entry of
+	 * a JarOutputStream differs from a ZipOutputStream.
+	 */
+	private ZipOutputStream newZipOutputStream(OutputStream out, boolean jar) throws IOException {
+		ZipOutputStream jout = nomanifest || doNotTouchManifest || !jar ? new ZipOutputStream(out)
+			: new JarOutputStream(out);
 
 		switch (compression) {
 			case STORE :
@@ -564,7 +727,22 @@ public class Jar implements Closeable {
 			default :
 				// default is DEFLATED
 		}
+		return jout;
+	}
+
+	@FunctionalInterface
+	private interface EntryWriter {
+		/**
+		 * Write an entry.
+		 *
+		 * @param entry The entry.
+		 * @param resource The content of the entry or {@code null} for a
+		 *            directory.
+		 */
+		void write(ZipEntry entry, Resource resource) throws Exception;
+	}
 
+	private void writeEntries(EntryWriter jout) throws Exception {
 		Set<String> done = new HashSet<>();
 
 		Set<String> directories = new HashSet<>();
@@ -602,12 +780,6 @@ public class Jar implements Closeable {
 			if (!done.contains(entry.getKey()))
 				writeResource(jout, directories, entry.getKey(), entry.getValue());
 		}
-		jout.finish();
-
-		if (digester != null) {
-			this.sha256 = digester.digest();
-			this.fileLength = digester.getLength();
-		}
 	}
 
 	public void writeFolder(File dir) throws Exception {
@@ -673,6 +845,8 @@ public class Jar implements Closeable {
 			write(f);
 			try (Jar tmp = new Jar(f)) {
 				tmp.setCompression(compression);
+				tmp.setParallelWrite(parallelWrite);
+				tmp.setCopyDeflated(copyDeflated);
 				tmp.calcChecksums(algs);
 				tmp.write(out);
 			} finally {
@@ -696,7 +870,7 @@ public class Jar implements Closeable {
 		return new String(cs);
 	}
 
-	private void doManifest(ZipOutputStream jout, Set<String> directories, String manifestName) throws Exception {
+	private void doManifest(EntryWriter jout, Set<String> directories, String manifestName) throws Exception {
 		check();
 		createDirectories(directories, jout, manifestName);
 		JarEntry ze = new JarEntry(manifestName);
@@ -713,12 +887,14 @@ public class Jar implements Closeable {
 				return 0; // a manifest should not change the date
 			}
 		};
-		putEntry(jout, ze, r);
+		jout.write(ze, r);
 	}
 
 	private void putEntry(ZipOutputStream jout, ZipEntry entry, Resource r) throws Exception {
 
-		if (compression == Compression.STORE) {
+		if (r == null) {
+			jout.putNextEntry(entry);
+		} else if (compression == Compression.STORE) {
 			ByteBuffer buffer = r.buffer();
 			if (buffer == null) {
 				buffer = IO.copy(r.openInputStream(), new ByteBufferOutputStream())
@@ -829,7 +1005,7 @@ public class Jar implements Closeable {
 			return s;
 	}
 
-	private void writeResource(ZipOutputStream jout, Set<String> directories, String path, Resource resource)
+	private void writeResource(EntryWriter jout, Set<String> directories, String path, Resource resource)
 		throws Exception {
 		if (resource == null)
 			return;
@@ -852,13 +1028,13 @@ public class Jar implements Closeable {
 			if (extra != null) {
 				ze.setExtra(Resource.decodeExtra(extra));
 			}
-			putEntry(jout, ze, resource);
+			jout.write(ze, resource);
 		} catch (Exception e) {
 			throw new Exception("Problem writing resource " + path, e);
 		}
 	}
 
-	void createDirectories(Set<String> directories, ZipOutputStream zip, String name) throws IOException {
+	private void createDirectories(Set<String> directories, EntryWriter zip, String name) throws Exception {
 		int index = name.lastIndexOf('/');
 		if (index > 0) {
 			String path = name.substring(0, index);
@@ -873,8 +1049,7 @@ public class Jar implements Closeable {
 				ze.setSize(0L);
 				ze.setCompressedSize(0L);
 			}
-			zip.putNextEntry(ze);
-			zip.closeEntry();
+			zip.write(ze, null);
 			directories.add(path);
 		}
 	}
@@ -1172,6 +1347,42 @@ public class Jar implements Closeable {
 		return this.compression;
 	}
 
+	/**
+	 * Deflate the resources concurrently on the bnd executor when writing this
+	 * JAR. The written JAR is the same as when it is written serially. The
+	 * resources must support being written concurrently with each other.
+	 *
+	 * @param onOrOff {@code true} to write in parallel.
+	 * @return this
+	 */
+	public Jar setParallelWrite(boolean onOrOff) {
+		this.parallelWrite = onOrOff;
+		return this;
+	}
+
+	public boolean isParallelWrite() {
+		return parallelWrite;
+	}
+
+	/**
+	 * Copy the deflated data of resources that come from a deflated entry of
+	 * another ZIP file when writing this JAR deflated, instead of inflating
+	 * and deflating it again. The copied entries have the size and CRC in the
+	 * local file header and no extended timestamp, so the written JAR is not
+	 * the same as without this option.
+	 *
+	 * @param onOrOff {@code true} to copy deflated data.
+	 * @return this
+	 */
+	public Jar setCopyDeflated(boolean onOrOff) {
+		this.copyDeflated = onOrOff;
+		return this;
+	}
+
+	public boolean isCopyDeflated() {
+		return copyDeflated;
+	}
+
 	void check() {
 		if (closed)
 			throw new RuntimeException("Already closed " + name);
@@ -0,0 +1,151 @@
+package aQute.bnd.osgi;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import aQute.lib.io.IO;
+import aQute.lib.zip.CentralDirectory;
+import aQute.lib.zip.ZipUtil;
+
+/**
+ * A resource for an entry of a memory mapped ZIP file. Stored entries are
+ * slices of the mapping and are never copied. Deflated entries are inflated
+ * when their content is needed, the inflated content is only softly
+ * referenced so it can be collected when the heap gets tight.
+ */
+class MappedZipResource implements DeflatedResource {
+	private final ByteBuffer				mapping;
+	private final CentralDirectory.Entry	entry;
+	private final String					source;
+	private SoftReference<ByteBuffer>		inflated;
+	private int								dataOffset	= -1;
+	private long							lastModified;
+	private String							extra;
+
+	MappedZipResource(ByteBuffer mapping, CentralDirectory.Entry entry, String source) {
+		this.mapping = mapping;
+		this.entry = entry;
+		this.source = source;
+		this.lastModified = -11L;
+		byte[] extra = entry.extra();
+		if (extra != null) {
+			this.extra = Resource.encodeExtra(extra);
+		}
+	}
+
+	@Override
+	public ByteBuffer buffer() throws Exception {
+		return getBuffer().duplicate();
+	}
+
+	private synchronized ByteBuffer getBuffer() throws Exception {
+		switch (entry.method()) {
+			case ZipEntry.STORED :
+				return data().asReadOnlyBuffer();
+			case ZipEntry.DEFLATED :
+				ByteBuffer bb = (inflated != null) ? inflated.get() : null;
+				if (bb == null) {
+					bb = inflate();
+					inflated = new SoftReference<>(bb);
+				}
+				return bb;
+			default :
+				throw new ZipException(
+					"Unsupported compression method " + entry.method() + " for " + entry.name() + " in " + source);
+		}
+	}
+
+	/**
+	 * The compressed data of the entry as a slice of the mapping.
+	 */
+	private ByteBuffer data() throws ZipException {
+		if (dataOffset < 0) {
+			int header = (int) entry.localHeaderOffset();
+			dataOffset = header + CentralDirectory.dataOffset(mapping.slice(header, CentralDirectory.LOCAL_HEADER_SIZE));
+		}
+		return mapping.slice(dataOffset, (int) entry.compressedSize());
+	}
+
+	private ByteBuffer inflate() throws Exception {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data());
+			ByteBuffer bb = ByteBuffer.allocate((int) entry.size());
+			while (bb.hasRemaining() && !inflater.finished()) {
+				if (inflater.inflate(bb) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+			}
+			if (bb.hasRemaining()) {
+				throw new ZipException("Truncated entry " + entry.name() + " in " + source);
+			}
+			bb.flip();
+			return bb;
+		} catch (DataFormatException e) {
+			ZipException ze = new ZipException("Invalid entry " + entry.name() + " in " + source);
+			ze.initCause(e);
+			throw ze;
+		} finally {
+			inflater.end();
+		}
+	}
+
+	@Override
+	public CentralDirectory.Entry deflatedEntry() {
+		return (entry.method() == ZipEntry.DEFLATED && !entry.isEncrypted()) ? entry : null;
+	}
+
+	@Override
+	public synchronized ByteBuffer deflatedData() throws Exception {
+		return data().asReadOnlyBuffer();
+	}
+
+	@Override
+	public InputStream openInputStream() throws Exception {
+		return IO.stream(buffer());
+	}
+
+	@Override
+	public String toString() {
+		return ":" + source + "(" + entry.name() + "):";
+	}
+
+	@Override
+	public void write(OutputStream out) throws Exception {
+		IO.copy(buffer(), out);
+	}
+
+	@Override
+	public long lastModified() {
+		if (lastModified != -11L) {
+			return lastModified;
+		}
+		return lastModified = ZipUtil.getModifiedTime(entry.toZipEntry());
+	}
+
+	@Override
+	public String getExtra() {
+		return extra;
+	}
+
+	@Override
+	public void setExtra(String extra) {
+		this.extra = extra;
+	}
+
+	@Override
+	public long size() throws Exception {
+		return entry.size();
+	}
+
+	@Override
+	public void close() {
+		inflated = null;
+	}
+}
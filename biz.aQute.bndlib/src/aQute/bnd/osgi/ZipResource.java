@@ -5,21 +5,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import aQute.bnd.memoize.Memoize;
 import aQute.lib.io.IO;
+import aQute.lib.zip.CentralDirectory;
 import aQute.lib.zip.ZipUtil;
 
-public class ZipResource implements Resource {
-	private ByteBuffer		buffer;
-	private final ZipFile	zip;
-	private final ZipEntry	entry;
-	private final boolean	closeZipFile;
-	private long			lastModified;
-	private long			size;
-	private String			extra;
+public class ZipResource implements DeflatedResource {
+	private ByteBuffer										buffer;
+	private final ZipFile									zip;
+	private final ZipEntry									entry;
+	private final boolean									closeZipFile;
+	private final Source									source;
+	private long											lastModified;
+	private long											size;
+	private String											extra;
 
 	ZipResource(Path path, String entryName) throws IOException {
 		this(new ZipFile(path.toFile()), entryName);
@@ -34,13 +45,26 @@ public class ZipResource implements Resource {
 	}
 
 	ZipResource(ZipFile zip, ZipEntry entry) {
-		this(zip, entry, false);
+		this(zip, entry, false, null);
+	}
+
+	/**
+	 * @param source The file of the ZipFile, used to copy the deflated data of
+	 *            the entry.
+	 */
+	ZipResource(ZipFile zip, ZipEntry entry, Source source) {
+		this(zip, entry, false, source);
 	}
 
 	private ZipResource(ZipFile zip, ZipEntry entry, boolean closeZipFile) {
+		this(zip, entry, closeZipFile, null);
+	}
+
+	private ZipResource(ZipFile zip, ZipEntry entry, boolean closeZipFile, Source source) {
 		this.zip = zip;
 		this.entry = entry;
 		this.closeZipFile = closeZipFile;
+		this.source = source;
 		this.lastModified = -11L;
 		this.size = entry.getSize();
 		byte[] extra = entry.getExtra();
@@ -66,6 +90,29 @@ public class ZipResource implements Resource {
 		return buffer = bb;
 	}
 
+	@Override
+	public CentralDirectory.Entry deflatedEntry() {
+		if (source == null || entry.getMethod() != ZipEntry.DEFLATED) {
+			return null;
+		}
+		CentralDirectory.Entry e = source.directory()
+			.get(entry.getName());
+		if (e == null || e.isEncrypted() || e.method() != ZipEntry.DEFLATED || e.crc() != entry.getCrc()
+			|| e.compressedSize() != entry.getCompressedSize()) {
+			return null;
+		}
+		return e;
+	}
+
+	@Override
+	public ByteBuffer deflatedData() throws Exception {
+		CentralDirectory.Entry e = deflatedEntry();
+		if (e == null) {
+			throw new IllegalStateException("Entry is not deflated " + this);
+		}
+		return source.data(e);
+	}
+
 	@Override
 	public InputStream openInputStream() throws Exception {
 		return IO.stream(buffer());
@@ -117,4 +164,87 @@ public class ZipResource implements Resource {
 			zip.close();
 		}
 	}
+
+	/**
+	 * The file of a ZipFile. A ZipFile does not give access to the deflated
+	 * data of its entries, so the data is read from the file. This is only
+	 * done while the file has the size and modification time it had when the
+	 * ZipFile was opened and the local file header matches the entry.
+	 */
+	static final class Source {
+		private final Path											path;
+		private final long											size;
+		private final FileTime										lastModified;
+		private final Supplier<Map<String, CentralDirectory.Entry>>	directory;
+
+		private Source(Path path, BasicFileAttributes attributes) {
+			this.path = path;
+			this.size = attributes.size();
+			this.lastModified = attributes.lastModifiedTime();
+			this.directory = Memoize.supplier(this::readDirectory);
+		}
+
+		/**
+		 * Must be called before the ZipFile is opened. Use
+		 * {@link #isUnchanged()} after the ZipFile is opened to check the file
+		 * was not changed in between.
+		 *
+		 * @param path The file of the ZipFile.
+		 * @return The source or {@code null} if the file cannot be read.
+		 */
+		static Source of(Path path) {
+			try {
+				return new Source(path, Files.readAttributes(path, BasicFileAttributes.class));
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		Map<String, CentralDirectory.Entry> directory() {
+			return directory.get();
+		}
+
+		/**
+		 * @return The deflated data of the entry or {@code null} if the file
+		 *         changed.
+		 */
+		ByteBuffer data(CentralDirectory.Entry entry) {
+			try (FileChannel channel = IO.readChannel(path)) {
+				if (channel.size() != size || !isUnchanged()) {
+					return null;
+				}
+				return CentralDirectory.data(channel, entry);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		boolean isUnchanged() {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				return attributes.size() == size && attributes.lastModifiedTime()
+					.equals(lastModified);
+			} catch (IOException e) {
+				return false;
+			}
+		}
+
+		/*
+		 * A file that ZipFile can read but we cannot is not copied.
+		 */
+		private Map<String, CentralDirectory.Entry> readDirectory() {
+			try (FileChannel channel = IO.readChannel(path)) {
+				if (!isUnchanged()) {
+					return Collections.emptyMap();
+				}
+				Map<String, CentralDirectory.Entry> directory = new HashMap<>();
+				for (CentralDirectory.Entry entry : CentralDirectory.read(channel)) {
+					directory.putIfAbsent(entry.name(), entry);
+				}
+				return directory;
+			} catch (IOException e) {
+				return Collections.emptyMap();
+			}
+		}
+	}
 }
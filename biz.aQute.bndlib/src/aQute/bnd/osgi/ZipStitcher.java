@@ -0,0 +1,307 @@
+package aQute.bnd.osgi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+import aQute.lib.zip.CentralDirectory;
+
+/**
+ * Assembles a ZIP file from entries that are produced independently. Each
+ * entry is produced as a {@link Chunk}: the bytes of its local file header and
+ * data, and the bytes of its central directory header. The chunks can be
+ * produced concurrently, they are written in the order they were added.
+ * <p>
+ * A chunk is usually cut from a single entry ZIP file written by a
+ * {@link java.util.zip.ZipOutputStream}, see {@link #chunk(String, ByteBuffer)}.
+ * Since a ZipOutputStream writes an entry the same way regardless of its
+ * position in the file, except for its offset in the central directory, the
+ * stitched file is byte for byte the file that a single ZipOutputStream would
+ * have written for the same entries.
+ * <p>
+ * A chunk can also be created from the deflated data of an entry of another
+ * ZIP file, see {@link #deflatedChunk(ZipEntry, CentralDirectory.Entry, ByteBuffer)},
+ * so the data does not have to be inflated and deflated again.
+ * <p>
+ * Like a ZipOutputStream, the stitched file uses ZIP64 extensions for entries
+ * at offsets of 4GB or more and for {@value #MAX_ENTRIES} or more entries.
+ */
+class ZipStitcher {
+	private static final int				MAX_ENTRIES		= 0xFFFF;
+	private static final long				MAX_OFFSET		= 0xFFFFFFFFL;
+	private static final int				LOCSIG			= 0x04034b50;
+	private static final int				CENSIG			= 0x02014b50;
+	private static final int				ENDSIG			= 0x06054b50;
+	private static final int				ZIP64_ENDSIG	= 0x06064b50;
+	private static final int				ZIP64_LOCSIG	= 0x07064b50;
+	private static final int				ZIP64_EXTID		= 0x0001;
+	private static final int				LOCHDR			= 30;
+	private static final int				CENHDR			= 46;
+	private static final int				ENDHDR			= 22;
+	private static final int				ZIP64_ENDHDR	= 56;
+	private static final int				CEN_VERSION_MADE	= 4;
+	private static final int				CEN_VERSION_NEEDED	= 6;
+	private static final int				CEN_NAME_LENGTH	= 28;
+	private static final int				CEN_EXTRA_LENGTH	= 30;
+	private static final int				CEN_OFFSET		= 42;
+	private static final int				DEFLATED_VERSION	= 20;
+	private static final int				ZIP64_VERSION	= 45;
+	private static final int				USE_UTF8		= 0x800;
+
+	private final OutputStream				out;
+	private final PromiseFactory			promiseFactory;
+	private final int						window;
+	private final Deque<Promise<Chunk>>		pending			= new ArrayDeque<>();
+	private final Set<String>				names			= new HashSet<>();
+	private final ByteBufferOutputStream	centralDirectory	= new ByteBufferOutputStream();
+	private long							offset;
+	private int								entries;
+
+	/**
+	 * An entry of the ZIP file.
+	 *
+	 * @param name The name of the entry.
+	 * @param local The local file header and the data of the entry.
+	 * @param central The central directory header of the entry for an entry
+	 *            at offset 0.
+	 */
+	record Chunk(String name, ByteBuffer local, ByteBuffer central) {}
+
+	/**
+	 * @param out The output for the ZIP file.
+	 * @param promiseFactory The promise factory used to produce the chunks
+	 *            concurrently or {@code null} to produce them on the calling
+	 *            thread.
+	 * @param window The maximum number of chunks that are produced ahead of
+	 *            the chunk that is written.
+	 */
+	ZipStitcher(OutputStream out, PromiseFactory promiseFactory, int window) {
+		this.out = out;
+		this.promiseFactory = promiseFactory;
+		this.window = Math.max(1, window);
+	}
+
+	/**
+	 * Add an entry to the ZIP file.
+	 */
+	void add(Callable<Chunk> producer) throws Exception {
+		if (promiseFactory == null) {
+			write(producer.call());
+			return;
+		}
+		while (pending.size() >= window) {
+			write(pending.removeFirst());
+		}
+		pending.addLast(promiseFactory.submit(producer));
+	}
+
+	/**
+	 * Write the remaining entries and the central directory.
+	 */
+	void finish() throws Exception {
+		while (!pending.isEmpty()) {
+			write(pending.removeFirst());
+		}
+		ByteBuffer cen = centralDirectory.toByteBuffer();
+		long size = cen.remaining();
+		boolean zip64 = size >= MAX_OFFSET || offset >= MAX_OFFSET || entries >= MAX_ENTRIES;
+		ByteBuffer end = ByteBuffer.allocate(ENDHDR + (zip64 ? ZIP64_ENDHDR + 20 : 0))
+			.order(ByteOrder.LITTLE_ENDIAN);
+		if (zip64) {
+			end.putInt(ZIP64_ENDSIG)
+				.putLong(ZIP64_ENDHDR - 12) // size of the record
+				.putShort((short) ZIP64_VERSION) // version made by
+				.putShort((short) ZIP64_VERSION) // version needed
+				.putInt(0) // number of this disk
+				.putInt(0) // disk with the central directory
+				.putLong(entries)
+				.putLong(entries)
+				.putLong(size)
+				.putLong(offset)
+				// locator
+				.putInt(ZIP64_LOCSIG)
+				.putInt(0) // disk with the ZIP64 end record
+				.putLong(offset + size)
+				.putInt(1); // number of disks
+		}
+		end.putInt(ENDSIG)
+			.putShort((short) 0) // number of this disk
+			.putShort((short) 0) // disk with the central directory
+			.putShort((short) Math.min(entries, MAX_ENTRIES))
+			.putShort((short) Math.min(entries, MAX_ENTRIES))
+			.putInt((int) Math.min(size, MAX_OFFSET))
+			.putInt((int) Math.min(offset, MAX_OFFSET))
+			.putShort((short) 0) // comment length
+			.flip();
+		IO.copy(cen, out);
+		IO.copy(end, out);
+		out.flush();
+	}
+
+	private void write(Promise<Chunk> promise) throws Exception {
+		try {
+			write(promise.getValue());
+		} catch (InvocationTargetException e) {
+			Throwable t = Exceptions.unrollCause(e, InvocationTargetException.class);
+			if (t instanceof Exception exception) {
+				throw exception;
+			}
+			throw Exceptions.duck(t);
+		}
+	}
+
+	private void write(Chunk chunk) throws IOException {
+		if (!names.add(chunk.name())) {
+			throw new ZipException("duplicate entry: " + chunk.name());
+		}
+		entries++;
+		ByteBuffer local = chunk.local()
+			.duplicate();
+		ByteBuffer central = chunk.central()
+			.slice()
+			.order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer header;
+		if (offset < MAX_OFFSET) {
+			header = ByteBuffer.allocate(central.remaining())
+				.order(ByteOrder.LITTLE_ENDIAN);
+			header.put(central)
+				.putInt(CEN_OFFSET, (int) offset)
+				.flip();
+		} else {
+			header = zip64(central, offset);
+		}
+		centralDirectory.write(header);
+		offset += local.remaining();
+		IO.copy(local, out);
+	}
+
+	/*
+	 * Rewrite the central directory header of an entry at an offset of 4GB or
+	 * more. The offset is moved to the ZIP64 extended information extra field
+	 * which is added in front of the other extra fields or extended if it is
+	 * already there, the way a ZipOutputStream writes it.
+	 */
+	private static ByteBuffer zip64(ByteBuffer central, long offset) {
+		int extraStart = CENHDR + Short.toUnsignedInt(central.getShort(CEN_NAME_LENGTH));
+		int extraLength = Short.toUnsignedInt(central.getShort(CEN_EXTRA_LENGTH));
+		boolean hasZip64 = extraLength >= 4 && Short.toUnsignedInt(central.getShort(extraStart)) == ZIP64_EXTID;
+		int zip64Length = hasZip64 ? Short.toUnsignedInt(central.getShort(extraStart + 2)) : 0;
+		int rest = hasZip64 ? extraStart + 4 + zip64Length : extraStart;
+		int added = hasZip64 ? Long.BYTES : Long.BYTES + 4;
+
+		ByteBuffer header = ByteBuffer.allocate(central.remaining() + added)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		header.put(central.slice(0, extraStart))
+			.putShort((short) ZIP64_EXTID)
+			.putShort((short) (zip64Length + Long.BYTES))
+			.put(central.slice(extraStart + (hasZip64 ? 4 : 0), zip64Length))
+			.putLong(offset)
+			.put(central.slice(rest, central.limit() - rest))
+			.putShort(CEN_VERSION_MADE, (short) ZIP64_VERSION)
+			.putShort(CEN_VERSION_NEEDED, (short) ZIP64_VERSION)
+			.putShort(CEN_EXTRA_LENGTH, (short) (extraLength + added))
+			.putInt(CEN_OFFSET, (int) MAX_OFFSET)
+			.flip();
+		return header;
+	}
+
+	/**
+	 * Create a chunk for an entry from the deflated data of an entry of
+	 * another ZIP file. The headers are written the way a ZipOutputStream
+	 * writes an entry with a known size and CRC.
+	 *
+	 * @param entry The entry to write, only the name, time and extra field are
+	 *            used.
+	 * @param source The entry the data comes from.
+	 * @param data The deflated data or {@code null}.
+	 * @return The chunk or {@code null} if the data cannot be copied.
+	 */
+	static Chunk deflatedChunk(ZipEntry entry, CentralDirectory.Entry source, ByteBuffer data) {
+		if (data == null || source.compressedSize() >= MAX_OFFSET || source.size() >= MAX_OFFSET
+			|| data.remaining() != source.compressedSize()) {
+			return null;
+		}
+		byte[] name = entry.getName()
+			.getBytes(UTF_8);
+		byte[] extra = entry.getExtra();
+		if (extra == null) {
+			extra = new byte[0];
+		}
+		int dosTime = (int) CentralDirectory.javaToDosTime(entry.getTime());
+
+		ByteBuffer local = ByteBuffer.allocate(LOCHDR + name.length + extra.length + data.remaining())
+			.order(ByteOrder.LITTLE_ENDIAN);
+		local.putInt(LOCSIG)
+			.putShort((short) DEFLATED_VERSION)
+			.putShort((short) USE_UTF8)
+			.putShort((short) ZipEntry.DEFLATED)
+			.putInt(dosTime)
+			.putInt((int) source.crc())
+			.putInt((int) source.compressedSize())
+			.putInt((int) source.size())
+			.putShort((short) name.length)
+			.putShort((short) extra.length)
+			.put(name)
+			.put(extra)
+			.put(data.duplicate())
+			.flip();
+
+		ByteBuffer central = ByteBuffer.allocate(CENHDR + name.length + extra.length)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		central.putInt(CENSIG)
+			.putShort((short) DEFLATED_VERSION) // version made by
+			.putShort((short) DEFLATED_VERSION) // version needed
+			.putShort((short) USE_UTF8)
+			.putShort((short) ZipEntry.DEFLATED)
+			.putInt(dosTime)
+			.putInt((int) source.crc())
+			.putInt((int) source.compressedSize())
+			.putInt((int) source.size())
+			.putShort((short) name.length)
+			.putShort((short) extra.length)
+			.putShort((short) 0) // comment length
+			.putShort((short) 0) // disk number
+			.putShort((short) 0) // internal attributes
+			.putInt(0) // external attributes
+			.putInt(0) // offset, set when stitched
+			.put(name)
+			.put(extra)
+			.flip();
+		return new Chunk(entry.getName(), local, central);
+	}
+
+	/**
+	 * Cut a chunk from a ZIP file with a single entry at offset 0.
+	 */
+	static Chunk chunk(String name, ByteBuffer zip) throws ZipException {
+		int tailOffset = Math.max(0, zip.limit() - CentralDirectory.TAIL_SIZE);
+		CentralDirectory.Location location = CentralDirectory.locate(zip.slice(tailOffset, zip.limit() - tailOffset),
+			tailOffset);
+		if (location.entries() != 1 || location.offset() + location.size() > zip.limit()) {
+			throw new ZipException("Not a single entry ZIP file: " + name);
+		}
+		ByteBuffer central = zip.slice((int) location.offset(), (int) location.size());
+		if (central.order(ByteOrder.LITTLE_ENDIAN)
+			.getInt(CEN_OFFSET) != 0) {
+			throw new ZipException("Entry is not at offset 0: " + name);
+		}
+		return new Chunk(name, zip.slice(0, (int) location.offset()), central);
+	}
+}
@@ -0,0 +1,234 @@
+package aQute.bnd.osgi.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.FilterParser;
+import aQute.bnd.osgi.resource.FilterParser.And;
+import aQute.bnd.osgi.resource.FilterParser.BundleExpression;
+import aQute.bnd.osgi.resource.FilterParser.Expression;
+import aQute.bnd.osgi.resource.FilterParser.ExpressionVisitor;
+import aQute.bnd.osgi.resource.FilterParser.HostExpression;
+import aQute.bnd.osgi.resource.FilterParser.IdentityExpression;
+import aQute.bnd.osgi.resource.FilterParser.Op;
+import aQute.bnd.osgi.resource.FilterParser.PackageExpression;
+import aQute.bnd.osgi.resource.FilterParser.SimpleExpression;
+
+/**
+ * An inverted index of the capabilities in a single namespace, keyed on the
+ * primary attribute of that namespace. For most namespaces the primary
+ * attribute has the same name as the namespace (osgi.wiring.package,
+ * osgi.identity, osgi.extender, ...), for the service namespace it is
+ * objectClass.
+ * <p>
+ * A requirement whose filter pins the primary attribute to a value only has
+ * to be evaluated against the capabilities in the matching bucket and the
+ * capabilities that could not be keyed. The candidates are returned in the
+ * order the capabilities were added so the result is the same as a linear
+ * scan.
+ */
+class CapabilityIndex {
+	// identity checked marker for filters that do not pin the attribute
+	private static final String				UNPINNED	= new String("<unpinned>");
+
+	private final String					attribute;
+	private final Map<String, List<Entry>>	buckets		= new HashMap<>();
+	private final List<Entry>				unkeyed		= new ArrayList<>();
+	private final Map<String, String>		pinned		= new ConcurrentHashMap<>();
+	private int								ordinal;
+
+	private record Entry(int ordinal, Capability capability) {}
+
+	CapabilityIndex(String namespace) {
+		this.attribute = primaryAttribute(namespace);
+	}
+
+	static String primaryAttribute(String namespace) {
+		if (ServiceNamespace.SERVICE_NAMESPACE.equals(namespace)) {
+			return ServiceNamespace.CAPABILITY_OBJECTCLASS_ATTRIBUTE;
+		}
+		return namespace;
+	}
+
+	/**
+	 * Add the capabilities of a resource in the namespace of this index.
+	 */
+	void add(Resource resource, String namespace) {
+		for (Capability capability : resource.getCapabilities(namespace)) {
+			add(capability);
+		}
+	}
+
+	private void add(Capability capability) {
+		Entry entry = new Entry(ordinal++, capability);
+		Set<String> keys = keys(capability.getAttributes()
+			.get(attribute));
+		if (keys == null) {
+			unkeyed.add(entry);
+			return;
+		}
+		for (String key : keys) {
+			buckets.computeIfAbsent(key, k -> new ArrayList<>())
+				.add(entry);
+		}
+	}
+
+	/**
+	 * Answer the keys for an attribute value. Only String values and
+	 * collections of String values are keyed, anything else is compared by
+	 * the filter through type conversion and must always be evaluated.
+	 *
+	 * @return the keys or {@code null} if the value cannot be keyed
+	 */
+	private static Set<String> keys(Object value) {
+		if (value instanceof String s) {
+			return Collections.singleton(s);
+		}
+		if (value instanceof Collection<?> collection && !collection.isEmpty()) {
+			Set<String> keys = new LinkedHashSet<>();
+			for (Object element : collection) {
+				if (!(element instanceof String s)) {
+					return null;
+				}
+				keys.add(s);
+			}
+			return keys;
+		}
+		if (value instanceof String[] array && array.length > 0) {
+			Set<String> keys = new LinkedHashSet<>();
+			Collections.addAll(keys, array);
+			return keys;
+		}
+		return null;
+	}
+
+	/**
+	 * Answer the candidate capabilities for a requirement.
+	 *
+	 * @return the candidates in insertion order or {@code null} if the
+	 *         requirement's filter does not pin the primary attribute and all
+	 *         capabilities must be scanned
+	 */
+	List<Capability> candidates(Requirement requirement) {
+		String filter = requirement.getDirectives()
+			.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE);
+		if (filter == null) {
+			return null;
+		}
+		String value = pinned.computeIfAbsent(filter, this::pinnedValue);
+		if (value == UNPINNED) {
+			return null;
+		}
+		List<Entry> bucket = buckets.getOrDefault(value, Collections.emptyList());
+		return merge(bucket, unkeyed);
+	}
+
+	/**
+	 * Merge two lists of entries, each sorted on ordinal, into a list of
+	 * capabilities sorted on ordinal.
+	 */
+	private static List<Capability> merge(List<Entry> a, List<Entry> b) {
+		List<Capability> result = new ArrayList<>(a.size() + b.size());
+		int i = 0;
+		int j = 0;
+		while (i < a.size() && j < b.size()) {
+			Entry x = a.get(i);
+			Entry y = b.get(j);
+			if (x.ordinal() < y.ordinal()) {
+				result.add(x.capability());
+				i++;
+			} else {
+				result.add(y.capability());
+				j++;
+			}
+		}
+		for (; i < a.size(); i++) {
+			result.add(a.get(i)
+				.capability());
+		}
+		for (; j < b.size(); j++) {
+			result.add(b.get(j)
+				.capability());
+		}
+		return result;
+	}
+
+	private String pinnedValue(String filter) {
+		try {
+			Expression expression = new FilterParser().parse(filter);
+			String value = expression.visit(new PinnedValue(attribute));
+			return (value == null || value.indexOf('\\') >= 0) ? UNPINNED : value;
+		} catch (RuntimeException e) {
+			// let the filter predicate deal with a bad filter
+			return UNPINNED;
+		}
+	}
+
+	/**
+	 * Find the value a filter expression pins the primary attribute to. An
+	 * expression only pins the attribute when every match must have that
+	 * value, so only (nested) and-expressions are followed.
+	 */
+	private static class PinnedValue extends ExpressionVisitor<String> {
+		private final String attribute;
+
+		PinnedValue(String attribute) {
+			super(null);
+			this.attribute = attribute;
+		}
+
+		@Override
+		public String visit(SimpleExpression expr) {
+			if (expr.getOp() == Op.EQUAL && Objects.equals(expr.getKey(), attribute)) {
+				return expr.getValue();
+			}
+			return null;
+		}
+
+		@Override
+		public String visit(PackageExpression expr) {
+			return "osgi.wiring.package".equals(attribute) ? expr.getPackageName() : null;
+		}
+
+		@Override
+		public String visit(HostExpression expr) {
+			return "osgi.wiring.host".equals(attribute) ? expr.getHostName() : null;
+		}
+
+		@Override
+		public String visit(BundleExpression expr) {
+			return "osgi.wiring.bundle".equals(attribute) ? expr.printExcludingRange() : null;
+		}
+
+		@Override
+		public String visit(IdentityExpression expr) {
+			return IdentityNamespace.IDENTITY_NAMESPACE.equals(attribute) ? expr.getSymbolicName() : null;
+		}
+
+		@Override
+		public String visit(And expr) {
+			for (Expression e : expr.getExpressions()) {
+				String value = e.visit(this);
+				if (value != null) {
+					return value;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import aQute.bnd.service.resource.SupportingResource;
 public class ResourcesRepository extends BaseRepository {
 	private final Set<Resource>									resources;
 	private final Map<String, Predicate<Map<String, Object>>>	cache;
+	private final Map<String, CapabilityIndex>					indexes;
 
 	/**
 	 * Creates a new resources repository with an empty set of resources.
@@ -31,6 +32,7 @@ public class ResourcesRepository extends BaseRepository {
 	public ResourcesRepository() {
 		resources = new LinkedHashSet<>();
 		cache = new ConcurrentHashMap<>();
+		indexes = new ConcurrentHashMap<>();
 	}
 
 	/**
@@ -72,12 +74,33 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public List<Capability> findProvider(Requirement requirement) {
 		String namespace = requirement.getNamespace();
+		List<Capability> candidates = index(namespace).candidates(requirement);
+		if (candidates != null) {
+			return candidates.stream()
+				.filter(ResourceUtils.matcher(requirement, this::filterPredicate))
+				.collect(ResourceUtils.toCapabilities());
+		}
 		return resources.stream()
 			.flatMap(resource -> ResourceUtils.capabilityStream(resource, namespace))
 			.filter(ResourceUtils.matcher(requirement, this::filterPredicate))
 			.collect(ResourceUtils.toCapabilities());
 	}
 
+	/**
+	 * Gets the capability index for a namespace. The index is created on
+	 * first use and then kept up to date when resources are added.
+	 *
+	 * @param namespace The namespace.
+	 * @return The capability index for the namespace.
+	 */
+	private CapabilityIndex index(String namespace) {
+		return indexes.computeIfAbsent(namespace, n -> {
+			CapabilityIndex index = new CapabilityIndex(n);
+			resources.forEach(resource -> index.add(resource, n));
+			return index;
+		});
+	}
+
 	/**
 	 * Gets the predicate that filters capabilities based on the specified
 	 * filter string.
@@ -100,9 +123,22 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public void add(Resource resource) {
 		if (resource != null) {
-			resources.add(resource);
+			index(resource);
 			if (resource instanceof SupportingResource cr)
-				resources.addAll(cr.getSupportingResources());
+				cr.getSupportingResources()
+					.forEach(this::index);
+		}
+	}
+
+	/**
+	 * Adds a single resource to the set of resources and to the capability
+	 * indexes created so far.
+	 *
+	 * @param resource The resource to add.
+	 */
+	private void index(Resource resource) {
+		if (resources.add(resource)) {
+			indexes.forEach((namespace, index) -> index.add(resource, namespace));
 		}
 	}
 
@@ -123,6 +159,7 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	protected void set(Collection<? extends Resource> resources) {
 		this.resources.clear();
+		this.indexes.clear();
 		addAll(resources);
 	}
 
@@ -26,10 +26,14 @@ import java.security.PrivilegedAction;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -155,8 +159,16 @@ import aQute.bnd.unmodifiable.Maps;
  * will evaluate to {@code false} .
  */
 abstract class FilterImpl implements Filter {
+	/* ranks of the filters, see rank() */
+	private static final int	RANK_EQUAL		= 0;
+	private static final int	RANK_SUBSTRING	= 1;
+	private static final int	RANK_COMPARE	= 2;
+	private static final int	RANK_COMPOSITE	= 3;
+	private static final int	RANK_NOT		= 4;
+	private static final int	RANK_PRESENT	= 5;
+
 	/* normalized filter string for Filter object */
-	private transient String filterString;
+	private transient String	filterString;
 
 	/**
 	 * Creates a {@link FilterImpl} object. This filter object may be used to
@@ -177,6 +189,88 @@ abstract class FilterImpl implements Filter {
 		// empty constructor for subclasses
 	}
 
+	/**
+	 * Compile this filter for repeated matching against many maps. The
+	 * literal values are converted once to the types they are compared with,
+	 * the operands of an and and an or are ordered so that the operands that
+	 * decide the result most often are evaluated first, and the operands of an
+	 * and that test the same attribute share a single lookup of the attribute.
+	 * <p>
+	 * The compiled filter matches the same maps as this filter and has the
+	 * same filter string. This filter must not be used afterwards.
+	 *
+	 * @return The compiled filter.
+	 */
+	FilterImpl compile() {
+		String normalized = toString();
+		FilterImpl compiled = optimize();
+		compiled.filterString = normalized;
+		return compiled;
+	}
+
+	/**
+	 * Optimize this filter for repeated matching.
+	 */
+	FilterImpl optimize() {
+		return this;
+	}
+
+	/**
+	 * An estimate of how few maps this filter matches. Lower ranks are more
+	 * selective.
+	 */
+	int rank() {
+		return RANK_COMPOSITE;
+	}
+
+	/**
+	 * The matcher of this filter if it only tests the value of a single
+	 * attribute.
+	 *
+	 * @return The matcher or {@code null} if this filter does not only test
+	 *         the value of a single attribute.
+	 */
+	ValueMatcher valueMatcher() {
+		return null;
+	}
+
+	/**
+	 * Matches the value of the single attribute tested by a filter.
+	 */
+	interface ValueMatcher {
+		/**
+		 * The attribute tested by the filter.
+		 */
+		String attribute();
+
+		/**
+		 * Match the value of the attribute.
+		 *
+		 * @param value The value of the attribute or {@code null} if the
+		 *            attribute is not present.
+		 */
+		boolean matchesValue(Object value);
+	}
+
+	/**
+	 * Optimize the operands of an and or an or. Nested operands of the same
+	 * kind are flattened and the operands are sorted by their rank.
+	 */
+	private static FilterImpl[] optimize(FilterImpl[] operands, Class<? extends FilterImpl> kind,
+		Comparator<FilterImpl> order) {
+		List<FilterImpl> optimized = new ArrayList<>(operands.length);
+		for (FilterImpl operand : operands) {
+			FilterImpl o = operand.optimize();
+			if (o.getClass() == kind) {
+				Collections.addAll(optimized, (kind == And.class) ? ((And) o).operands : ((Or) o).operands);
+			} else {
+				optimized.add(o);
+			}
+		}
+		optimized.sort(order);
+		return optimized.toArray(new FilterImpl[0]);
+	}
+
 	/**
 	 * Filter using a service's properties.
 	 * <p>
@@ -319,6 +413,49 @@ abstract class FilterImpl implements Filter {
 			this.operands = operands;
 		}
 
+		@Override
+		FilterImpl optimize() {
+			FilterImpl[] optimized = FilterImpl.optimize(operands, And.class, Comparator.comparingInt(FilterImpl::rank));
+			// Group the operands that test the same attribute
+			Map<String, List<FilterImpl>> attributes = new LinkedHashMap<>();
+			List<FilterImpl> grouped = new ArrayList<>(optimized.length);
+			for (FilterImpl operand : optimized) {
+				ValueMatcher matcher = operand.valueMatcher();
+				if (matcher == null) {
+					grouped.add(operand);
+					continue;
+				}
+				List<FilterImpl> group = attributes.get(matcher.attribute());
+				if (group == null) {
+					attributes.put(matcher.attribute(), group = new ArrayList<>());
+					grouped.add(operand);
+				}
+				group.add(operand);
+			}
+			grouped.replaceAll(operand -> {
+				ValueMatcher matcher = operand.valueMatcher();
+				if (matcher == null) {
+					return operand;
+				}
+				List<FilterImpl> group = attributes.get(matcher.attribute());
+				return (group.size() == 1) ? operand
+					: new Attribute(matcher.attribute(), group.toArray(new FilterImpl[0]));
+			});
+			if (grouped.size() == 1) {
+				return grouped.get(0);
+			}
+			return new And(grouped.toArray(new FilterImpl[0]));
+		}
+
+		@Override
+		int rank() {
+			int rank = RANK_COMPOSITE;
+			for (FilterImpl operand : operands) {
+				rank = Math.min(rank, operand.rank());
+			}
+			return rank;
+		}
+
 		@Override
 		boolean matches0(Map<String, ?> map) {
 			for (FilterImpl operand : operands) {
@@ -347,6 +484,17 @@ abstract class FilterImpl implements Filter {
 			this.operands = operands;
 		}
 
+		@Override
+		FilterImpl optimize() {
+			// The least selective operands are the most likely to match
+			FilterImpl[] optimized = FilterImpl.optimize(operands, Or.class, Comparator.comparingInt(FilterImpl::rank)
+				.reversed());
+			if (optimized.length == 1) {
+				return optimized[0];
+			}
+			return new Or(optimized);
+		}
+
 		@Override
 		boolean matches0(Map<String, ?> map) {
 			for (FilterImpl operand : operands) {
@@ -375,6 +523,36 @@ abstract class FilterImpl implements Filter {
 			this.operand = operand;
 		}
 
+		@Override
+		FilterImpl optimize() {
+			FilterImpl optimized = operand.optimize();
+			return (optimized == operand) ? this : new Not(optimized);
+		}
+
+		@Override
+		int rank() {
+			return RANK_NOT;
+		}
+
+		@Override
+		ValueMatcher valueMatcher() {
+			ValueMatcher matcher = operand.valueMatcher();
+			if (matcher == null) {
+				return null;
+			}
+			return new ValueMatcher() {
+				@Override
+				public String attribute() {
+					return matcher.attribute();
+				}
+
+				@Override
+				public boolean matchesValue(Object value) {
+					return !matcher.matchesValue(value);
+				}
+			};
+		}
+
 		@Override
 		boolean matches0(Map<String, ?> map) {
 			return !operand.matches0(map);
@@ -389,13 +567,72 @@ abstract class FilterImpl implements Filter {
 		}
 	}
 
-	static abstract class Item extends FilterImpl {
+	/**
+	 * The operands of an and that test the same attribute.
+	 */
+	static final class Attribute extends FilterImpl {
+		private final String			attr;
+		private final FilterImpl[]		operands;
+		private final ValueMatcher[]	matchers;
+
+		Attribute(String attr, FilterImpl[] operands) {
+			this.attr = attr;
+			this.operands = operands;
+			this.matchers = new ValueMatcher[operands.length];
+			for (int i = 0; i < operands.length; i++) {
+				matchers[i] = requireNonNull(operands[i].valueMatcher());
+			}
+		}
+
+		@Override
+		boolean matches0(Map<String, ?> map) {
+			Object value = map.get(attr);
+			for (ValueMatcher matcher : matchers) {
+				if (!matcher.matchesValue(value)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		int rank() {
+			return operands[0].rank();
+		}
+
+		@Override
+		StringBuilder normalize(StringBuilder sb) {
+			sb.append('(')
+				.append('&');
+			for (FilterImpl operand : operands) {
+				operand.normalize(sb);
+			}
+			return sb.append(')');
+		}
+	}
+
+	static abstract class Item extends FilterImpl implements ValueMatcher {
 		final String attr;
 
 		Item(String attr) {
 			this.attr = attr;
 		}
 
+		@Override
+		ValueMatcher valueMatcher() {
+			return this;
+		}
+
+		@Override
+		public String attribute() {
+			return attr;
+		}
+
+		@Override
+		public boolean matchesValue(Object value) {
+			return compare(value);
+		}
+
 		@Override
 		boolean matches0(Map<String, ?> map) {
 			return compare(map.get(attr));
@@ -448,6 +685,14 @@ abstract class FilterImpl implements Filter {
 		}
 
 		private boolean compare_Collection(Collection<?> collection) {
+			if (collection instanceof List<?> list && collection instanceof RandomAccess) {
+				for (int i = 0, size = list.size(); i < size; i++) {
+					if (compare(list.get(i))) {
+						return true;
+					}
+				}
+				return false;
+			}
 			for (Object value1 : collection) {
 				if (compare(value1)) {
 					return true;
@@ -606,6 +851,16 @@ abstract class FilterImpl implements Filter {
 			super(attr);
 		}
 
+		@Override
+		int rank() {
+			return RANK_PRESENT;
+		}
+
+		@Override
+		public boolean matchesValue(Object value) {
+			return value != null;
+		}
+
 		@Override
 		boolean matches0(Map<String, ?> map) {
 			return map.get(attr) != null;
@@ -629,6 +884,11 @@ abstract class FilterImpl implements Filter {
 			this.substrings = substrings;
 		}
 
+		@Override
+		int rank() {
+			return RANK_SUBSTRING;
+		}
+
 		@Override
 		boolean compare_String(String string) {
 			int pos = 0;
@@ -688,15 +948,61 @@ abstract class FilterImpl implements Filter {
 	}
 
 	static class Equal extends Item {
-		final String	value;
-		private Object	cached;
+		private static final int	VERSION		= 0;
+		private static final int	LONG		= 1;
+		private static final int	DOUBLE		= 2;
+		private static final int	FLOAT		= 3;
+		private static final int	BOOLEAN		= 4;
+
+		final String				value;
+		private Object				cached;
+		/*
+		 * The value converted to each of the types above when compiled, null
+		 * if the value cannot be converted to the type.
+		 */
+		private Object[]			literals;
 
 		Equal(String attr, String value) {
 			super(attr);
 			this.value = value;
 		}
 
-		private <T> T convert(Class<T> type, Function<String, ? extends T> converter) {
+		@Override
+		FilterImpl optimize() {
+			Object[] literals = new Object[BOOLEAN + 1];
+			literals[VERSION] = literal(Version::valueOf);
+			literals[LONG] = literal(Long::valueOf);
+			literals[DOUBLE] = literal(Double::valueOf);
+			literals[FLOAT] = literal(Float::valueOf);
+			literals[BOOLEAN] = literal(Boolean::valueOf);
+			this.literals = literals;
+			return this;
+		}
+
+		private Object literal(Function<String, ?> converter) {
+			try {
+				return converter.apply(value.trim());
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		@Override
+		int rank() {
+			return RANK_EQUAL;
+		}
+
+		/**
+		 * Convert the value to a type.
+		 *
+		 * @return The converted value or {@code null} if the filter is
+		 *         compiled and the value cannot be converted.
+		 */
+		private <T> T convert(int index, Class<T> type, Function<String, ? extends T> converter) {
+			Object[] literals = this.literals;
+			if (literals != null) {
+				return type.cast(literals[index]);
+			}
 			@SuppressWarnings("unchecked")
 			T converted = (T) cached;
 			if ((converted != null) && type.isInstance(converted)) {
@@ -718,8 +1024,8 @@ abstract class FilterImpl implements Filter {
 		@Override
 		boolean compare_Version(Version value1) {
 			try {
-				Version version2 = convert(Version.class, Version::valueOf);
-				return comparison(value1.compareTo(version2));
+				Version version2 = convert(VERSION, Version.class, Version::valueOf);
+				return (version2 != null) && comparison(value1.compareTo(version2));
 			} catch (Exception e) {
 				// if the valueOf or compareTo method throws an exception
 				return false;
@@ -728,7 +1034,7 @@ abstract class FilterImpl implements Filter {
 
 		@Override
 		boolean compare_Boolean(boolean boolval) {
-			boolean boolval2 = convert(Boolean.class, Boolean::valueOf).booleanValue();
+			boolean boolval2 = convert(BOOLEAN, Boolean.class, Boolean::valueOf).booleanValue();
 			return comparison(Boolean.compare(boolval, boolval2));
 		}
 
@@ -745,34 +1051,43 @@ abstract class FilterImpl implements Filter {
 
 		@Override
 		boolean compare_Double(double doubleval) {
-			double doubleval2;
+			Double doubleval2;
 			try {
-				doubleval2 = convert(Double.class, Double::valueOf).doubleValue();
+				doubleval2 = convert(DOUBLE, Double.class, Double::valueOf);
 			} catch (IllegalArgumentException e) {
 				return false;
 			}
+			if (doubleval2 == null) {
+				return false;
+			}
 			return comparison(Double.compare(doubleval, doubleval2));
 		}
 
 		@Override
 		boolean compare_Float(float floatval) {
-			float floatval2;
+			Float floatval2;
 			try {
-				floatval2 = convert(Float.class, Float::valueOf).floatValue();
+				floatval2 = convert(FLOAT, Float.class, Float::valueOf);
 			} catch (IllegalArgumentException e) {
 				return false;
 			}
+			if (floatval2 == null) {
+				return false;
+			}
 			return comparison(Float.compare(floatval, floatval2));
 		}
 
 		@Override
 		boolean compare_Long(long longval) {
-			long longval2;
+			Long longval2;
 			try {
-				longval2 = convert(Long.class, Long::valueOf).longValue();
+				longval2 = convert(LONG, Long.class, Long::valueOf);
 			} catch (IllegalArgumentException e) {
 				return false;
 			}
+			if (longval2 == null) {
+				return false;
+			}
 			return comparison(Long.compare(longval, longval2));
 		}
 
@@ -870,6 +1185,11 @@ abstract class FilterImpl implements Filter {
 			super(attr, value);
 		}
 
+		@Override
+		int rank() {
+			return RANK_COMPARE;
+		}
+
 		@Override
 		boolean comparison(int compare) {
 			return compare <= 0;
@@ -890,6 +1210,11 @@ abstract class FilterImpl implements Filter {
 			super(attr, value);
 		}
 
+		@Override
+		int rank() {
+			return RANK_COMPARE;
+		}
+
 		@Override
 		boolean comparison(int compare) {
 			return compare >= 0;
@@ -913,6 +1238,11 @@ abstract class FilterImpl implements Filter {
 			this.approx = approxString(value);
 		}
 
+		@Override
+		int rank() {
+			return RANK_SUBSTRING;
+		}
+
 		@Override
 		boolean compare_String(String string) {
 			string = approxString(string);
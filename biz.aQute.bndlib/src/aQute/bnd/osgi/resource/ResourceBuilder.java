@@ -4,6 +4,7 @@ import static aQute.bnd.exceptions.SupplierWithException.asSupplier;
 import static aQute.bnd.osgi.Constants.DUPLICATE_MARKER;
 import static aQute.bnd.osgi.Constants.MIME_TYPE_BUNDLE;
 import static aQute.bnd.osgi.Constants.MIME_TYPE_JAR;
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.osgi.framework.namespace.ExecutionEnvironmentNamespace.CAPABILITY_VERSION_ATTRIBUTE;
 import static org.osgi.framework.namespace.ExecutionEnvironmentNamespace.EXECUTION_ENVIRONMENT_NAMESPACE;
@@ -1022,24 +1023,45 @@ public class ResourceBuilder {
 			uri = file.toURI();
 
 		try (Jar jar = new Jar(file)) {
-			ResourceBuilder rb = new ResourceBuilder();
-			boolean hasIdentity = rb.addJar(jar);
-
-			String mime = hasIdentity ? MIME_TYPE_BUNDLE : MIME_TYPE_JAR;
-
-			rb.addContentCapability(uri,
-				new DeferredComparableValue<String>(String.class,
-					SupplierWithException.asSupplier(() -> SHA256.digest(file)
-						.asHex()),
-					file.hashCode()),
-				file.length(), mime);
-
-			return rb.build();
+			return parse(jar, uri, file.length(), () -> SHA256.digest(file)
+				.asHex(), file.hashCode());
 		} catch (Exception rt) {
 			throw new IllegalArgumentException("illegal format " + file.getAbsolutePath(), rt);
 		}
 	}
 
+	/**
+	 * Parse a JAR that is not a local file, like a
+	 * {@link aQute.bnd.http.RemoteJar}. The SHA-256 of the content is only
+	 * calculated when it is first needed.
+	 *
+	 * @param jar The JAR.
+	 * @param uri The URI of the content.
+	 * @param length The length of the content.
+	 * @param sha256 Calculates the SHA-256 of the content as a hex string.
+	 * @return The resource.
+	 */
+	public static SupportingResource parse(Jar jar, URI uri, long length, SupplierWithException<String> sha256) {
+		requireNonNull(jar);
+		requireNonNull(uri);
+		requireNonNull(sha256);
+		return parse(jar, uri, length, sha256, uri.hashCode());
+	}
+
+	private static SupportingResource parse(Jar jar, URI uri, long length, SupplierWithException<String> sha256,
+		int hashCode) {
+		ResourceBuilder rb = new ResourceBuilder();
+		boolean hasIdentity = rb.addJar(jar);
+
+		String mime = hasIdentity ? MIME_TYPE_BUNDLE : MIME_TYPE_JAR;
+
+		rb.addContentCapability(uri,
+			new DeferredComparableValue<String>(String.class, asSupplier(sha256), hashCode),
+			length, mime);
+
+		return rb.build();
+	}
+
 	public boolean addJar(Jar jar) {
 		try {
 			Domain manifest = Domain.domain(jar.getManifest());
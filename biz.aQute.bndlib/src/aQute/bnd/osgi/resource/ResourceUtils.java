@@ -424,7 +424,8 @@ public abstract class ResourceUtils {
 			return m -> true;
 		}
 		try {
-			Filter filter = FilterImpl.createFilter(filterString);
+			Filter filter = FilterImpl.createFilter(filterString)
+				.compile();
 			return filter::matches;
 		} catch (InvalidSyntaxException e) {
 			return m -> false;
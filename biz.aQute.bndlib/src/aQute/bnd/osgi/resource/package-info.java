@@ -1,4 +1,4 @@
-@Version("5.1.0")
+@Version("5.2.0")
 package aQute.bnd.osgi.resource;
 
 import org.osgi.annotation.versioning.Version;
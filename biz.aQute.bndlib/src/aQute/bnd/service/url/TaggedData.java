@@ -9,11 +9,15 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLConnection;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import aQute.bnd.http.HttpRequestException;
+import aQute.lib.date.Dates;
 import aQute.lib.io.IO;
 
 /**
@@ -25,12 +29,14 @@ import aQute.lib.io.IO;
 public class TaggedData implements Closeable {
 
 	private final URLConnection	con;
+	private final HttpHeaders	headers;
 	private final int			responseCode;
 	private final String		etag;
 	private final InputStream	in;
 	private final URI			url;
 	private final File			file;
 	private final String		message;
+	private final long			modified;
 
 	public TaggedData(URLConnection con, InputStream in) throws Exception {
 		this(con, in, null);
@@ -38,6 +44,7 @@ public class TaggedData implements Closeable {
 
 	public TaggedData(URLConnection con, InputStream in, File file) throws Exception {
 		this.con = requireNonNull(con);
+		this.headers = null;
 		this.responseCode = con instanceof HttpURLConnection hcon ? hcon.getResponseCode()
 			: (in != null ? 200 : -1);
 		this.in = in == null && (responseCode / 100 == 2) ? con.getInputStream() : in;
@@ -46,6 +53,55 @@ public class TaggedData implements Closeable {
 		this.url = con.getURL()
 			.toURI();
 		this.message = getMessage(con);
+		this.modified = -1;
+	}
+
+	/**
+	 * Create a tagged data for the response of a {@code java.net.http}
+	 * request.
+	 *
+	 * @param response The response.
+	 * @param in The input stream to read the resource data from, when
+	 *            {@code null} the body of a successful response is used.
+	 * @param file The file the data is cached in, or {@code null}.
+	 */
+	public TaggedData(HttpResponse<InputStream> response, InputStream in, File file) throws Exception {
+		requireNonNull(response);
+		this.con = null;
+		this.headers = response.headers();
+		this.responseCode = response.statusCode();
+		this.in = in == null && (responseCode / 100 == 2) ? response.body() : in;
+		this.file = file;
+		this.etag = headers.firstValue("ETag")
+			.orElse(null);
+		this.url = response.uri();
+		this.modified = headers.firstValue("Last-Modified")
+			.map(TaggedData::parseDate)
+			.orElse(-1L);
+		this.message = getMessage(response);
+		if (responseCode / 100 != 2) {
+			// release the connection
+			IO.close(response.body());
+		}
+	}
+
+	private static long parseDate(String date) {
+		try {
+			return Dates.parseMillis(Dates.RFC_7231_DATE_TIME, date);
+		} catch (DateTimeParseException e) {
+			return -1L;
+		}
+	}
+
+	private String getMessage(HttpResponse<InputStream> response) {
+		if (response.statusCode() / 100 < 4)
+			return null;
+
+		try {
+			return cleanHtml(IO.collect(response.body()));
+		} catch (Exception e) {
+			return null;
+		}
 	}
 
 	private String getMessage(URLConnection con) {
@@ -131,11 +187,13 @@ public class TaggedData implements Closeable {
 	public TaggedData(URI url, int responseCode, File file) throws Exception {
 		this.file = file;
 		this.con = null;
+		this.headers = null;
 		this.in = null;
 		this.etag = "";
 		this.responseCode = responseCode;
 		this.url = url;
 		this.message = null;
+		this.modified = -1;
 	}
 
 	/**
@@ -155,6 +213,23 @@ public class TaggedData implements Closeable {
 		return in;
 	}
 
+	/**
+	 * Returns the value of a response header, or {@code null} if the header
+	 * was not provided by the server.
+	 *
+	 * @param name The name of the header.
+	 */
+	public String getHeader(String name) {
+		if (headers != null) {
+			return headers.firstValue(name)
+				.orElse(null);
+		}
+		if (con != null) {
+			return con.getHeaderField(name);
+		}
+		return null;
+	}
+
 	public int getResponseCode() {
 		return responseCode;
 	}
@@ -162,7 +237,7 @@ public class TaggedData implements Closeable {
 	public long getModified() {
 		if (con != null)
 			return con.getLastModified();
-		return -1;
+		return modified;
 	}
 
 	public boolean hasPayload() throws IOException {
@@ -40,7 +40,7 @@ import aQute.lib.collections.SortedList;
 import aQute.lib.hex.Hex;
 import aQute.lib.io.IO;
 import aQute.lib.json.JSONCodec;
-import aQute.lib.persistentmap.PersistentMap;
+import aQute.lib.persistentmap.PersistentLogMap;
 import aQute.libg.command.Command;
 import aQute.libg.cryptography.SHA1;
 import aQute.libg.cryptography.SHA256;
@@ -252,7 +252,7 @@ public class FileRepo implements Plugin, RepositoryPlugin, Refreshable, Registry
 	String									name;
 	boolean									inited;
 	boolean									trace;
-	PersistentMap<ResourceDescriptor>		index;
+	PersistentLogMap<ResourceDescriptor>	index;
 
 	private boolean							hasIndex;
 
@@ -294,7 +294,7 @@ public class FileRepo implements Plugin, RepositoryPlugin, Refreshable, Registry
 		}
 
 		if (hasIndex)
-			index = new PersistentMap<>(new File(root, ".index"), ResourceDescriptor.class);
+			index = new PersistentLogMap<>(new File(root, ".index"), ResourceDescriptor.class);
 
 		open();
 		return true;
@@ -53,8 +53,12 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -115,6 +119,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	private File							home					= new File(System.getProperty("user.home"));
 	private File							bnd						= new File(home, "bnd");
 	private List<Bundle>					wantsToBeStarted		= new ArrayList<>();
+	private final Map<String, Long>			timings					= Collections.synchronizedMap(new LinkedHashMap<>());
 	private AtomicBoolean					active					= new AtomicBoolean();
 	private AtomicReference<DatagramSocket>	commsSocket				= new AtomicReference<>();
 	private StartLevelRuntimeHandler		startLevelhandler;
@@ -625,17 +630,21 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	private List<Bundle> update(long before) throws Exception {
 
 		trace("Updating framework with %s", parms.runbundles);
+		long start = System.nanoTime();
 		List<Bundle> tobestarted = new ArrayList<>();
 		if (parms.embedded)
 			installEmbedded(tobestarted);
 		else
 			synchronizeFiles(tobestarted, before);
 
+		timing("install", start);
 		return tobestarted;
 	}
 
 	private void startBundles(List<Bundle> tobestarted) throws Exception {
+		long start = System.nanoTime();
 		refresh();
+		timing("refresh", start);
 
 		trace("bundles administered %s", installedBundles.keySet());
 
@@ -646,6 +655,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			policy.setDefaultPermissions(null);
 
 		// Get the resolved status
+		start = System.nanoTime();
 		if (frameworkWiring.resolveBundles(null) == false) {
 			List<String> failed = new ArrayList<>();
 
@@ -663,6 +673,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			}
 			// return LauncherConstants.RESOLVE_ERROR;
 		}
+		timing("resolve", start);
 
 		// Now start all the installed bundles in the same order
 		// (unless they're a fragment)
@@ -673,17 +684,91 @@ public class Launcher implements ServiceListener, FrameworkListener {
 		all.addAll(wantsToBeStarted);
 		wantsToBeStarted.clear();
 
-		for (Bundle b : all) {
-			try {
-				trace("starting %s", b.getSymbolicName());
-				start(b);
-				trace("started  %s", b.getSymbolicName());
-			} catch (BundleException e) {
-				wantsToBeStarted.add(b);
-				error("Failed to start bundle %s-%s, exception %s", b.getSymbolicName(), b.getVersion(), e);
+		start = System.nanoTime();
+		if (parms.parallel) {
+			// Bundles in the same start level are started concurrently, the
+			// start levels are started in ascending order
+			Map<Integer, List<Bundle>> levels = new TreeMap<>();
+			for (Bundle b : all) {
+				levels.computeIfAbsent(startLevelhandler.getBundleStartLevel(b), k -> new ArrayList<>())
+					.add(b);
+			}
+			for (List<Bundle> level : levels.values()) {
+				List<Callable<Bundle>> tasks = new ArrayList<>();
+				for (Bundle b : level) {
+					tasks.add(() -> startBundle(b) ? null : b);
+				}
+				for (Bundle failed : execute(tasks)) {
+					if (failed != null)
+						wantsToBeStarted.add(failed);
+				}
+			}
+		} else {
+			for (Bundle b : all) {
+				if (!startBundle(b))
+					wantsToBeStarted.add(b);
 			}
 		}
+		timing("start", start);
+	}
 
+	/*
+	 * Start a bundle and return false if it failed
+	 */
+	private boolean startBundle(Bundle b) {
+		try {
+			trace("starting %s", b.getSymbolicName());
+			start(b);
+			trace("started  %s", b.getSymbolicName());
+			return true;
+		} catch (BundleException e) {
+			error("Failed to start bundle %s-%s, exception %s", b.getSymbolicName(), b.getVersion(), e);
+			return false;
+		}
+	}
+
+	/*
+	 * Run the tasks and return their results in the order of the tasks. The
+	 * tasks run concurrently when the parallel run option is set.
+	 */
+	private <T> List<T> execute(List<Callable<T>> tasks) throws Exception {
+		List<T> results = new ArrayList<>(tasks.size());
+		if (!parms.parallel || tasks.size() < 2) {
+			for (Callable<T> task : tasks) {
+				results.add(task.call());
+			}
+			return results;
+		}
+		int threads = Math.min(tasks.size(), Runtime.getRuntime()
+			.availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "launcher::startup");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			for (Future<T> future : executor.invokeAll(tasks)) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception exception)
+						throw exception;
+					if (cause instanceof Error error)
+						throw error;
+					throw e;
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void timing(String phase, long start) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		timings.merge(phase, millis, Long::sum);
+		trace("%s took %s ms%s", phase, millis, parms.parallel ? " (parallel)" : "");
 	}
 
 	void start(Bundle b) throws BundleException {
@@ -762,48 +847,74 @@ public class Launcher implements ServiceListener, FrameworkListener {
 				error("Failed to uninstall bundle %s, exception %s", f, e);
 			}
 
+		List<Callable<Bundle>> installs = new ArrayList<>();
 		for (File f : tobeinstalled)
-			try {
-				int index = desired.get(f);
-				trace("installing %s", f);
-				if (f.exists()) {
-					Bundle b = install(f);
-					installedBundles.put(f, b);
-					tobestarted.add(b);
-				} else
+			installs.add(() -> {
+				try {
+					trace("installing %s", f);
+					if (f.exists())
+						return install(f);
 					error("should install %s but file does not exist", f);
-			} catch (Exception e) {
-				error("Failed to install bundle %s, exception %s", f, e);
-			}
+				} catch (Exception e) {
+					error("Failed to install bundle %s, exception %s", f, e);
+				}
+				return null;
+			});
 
+		List<Callable<Bundle>> updates = new ArrayList<>();
 		for (File f : tobeupdated)
-			try {
-				Integer index = desired.get(f);
-				if (f.exists()) {
-					Bundle b = installedBundles.get(f);
-
-					//
-					// Ensure we only update bundles that
-					// we're modified before the properties file was modified.
-					// Otherwise we might update bundles that are still being
-					// written by bnd
-					//
-					if (f.lastModified() <= before) {
-						if (b.getLastModified() < f.lastModified()) {
-							trace("updating %s", f);
-							if ((b.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0) {
-								tobestarted.add(b);
-								stop(b);
-							}
-							b.update();
-						} else
-							trace("bundle is still current according to timestamp %s", f);
-					}
-				} else
-					error("should update %s but file does not exist", f);
-			} catch (Exception e) {
-				error("Failed to update bundle %s, exception %s", f, e);
+			updates.add(() -> update(f, before));
+
+		try {
+			List<Bundle> installed = execute(installs);
+			for (int i = 0; i < installed.size(); i++) {
+				Bundle b = installed.get(i);
+				if (b != null) {
+					installedBundles.put(tobeinstalled.get(i), b);
+					tobestarted.add(b);
+				}
 			}
+			for (Bundle b : execute(updates)) {
+				if (b != null)
+					tobestarted.add(b);
+			}
+		} catch (Exception e) {
+			error("Failed to synchronize bundles, exception %s", e);
+		}
+	}
+
+	/*
+	 * Update an installed bundle and return it if it must be started again
+	 */
+	private Bundle update(File f, long before) {
+		Bundle restart = null;
+		try {
+			if (f.exists()) {
+				Bundle b = installedBundles.get(f);
+
+				//
+				// Ensure we only update bundles that
+				// we're modified before the properties file was modified.
+				// Otherwise we might update bundles that are still being
+				// written by bnd
+				//
+				if (f.lastModified() <= before) {
+					if (b.getLastModified() < f.lastModified()) {
+						trace("updating %s", f);
+						if ((b.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0) {
+							restart = b;
+							stop(b);
+						}
+						b.update();
+					} else
+						trace("bundle is still current according to timestamp %s", f);
+				}
+			} else
+				error("should update %s but file does not exist", f);
+		} catch (Exception e) {
+			error("Failed to update bundle %s, exception %s", f, e);
+		}
+		return restart;
 	}
 
 	/**
@@ -895,65 +1006,69 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	 */
 	private void installEmbedded(List<Bundle> tobestarted) throws Exception {
 		trace("starting in embedded mode");
-		BundleContext context = systemBundle.getBundleContext();
-		int n = 0;
+		List<Callable<Bundle>> tasks = new ArrayList<>();
 		for (Object o : parms.runbundles) {
-
 			String path = (String) o;
-			String digest = getDigest(path);
-
-			URL resource = getClass().getClassLoader()
-				.getResource(path);
-			Bundle bundle;
-			if (connect) {
-				if (parms.embedded && JRT_PROTOCOL.equals(resource.getProtocol())) {
-					path = resource.toString();
-				}
-				trace("installing %s by connect", path);
-				bundle = context.installBundle(path);
-				updateDigest(digest, bundle);
-				tobestarted.add(bundle);
-			} else if (useReferences() && resource.getProtocol()
-				.equalsIgnoreCase("file")) {
-				trace("installing %s by reference", path);
+			tasks.add(() -> installEmbedded(path));
+		}
+		tobestarted.addAll(execute(tasks));
+	}
 
-				//
-				// Install by reference
-				//
+	/*
+	 * Install/Update a bundle from the current jar when its digest changed.
+	 */
+	private Bundle installEmbedded(String path) throws Exception {
+		BundleContext context = systemBundle.getBundleContext();
+		String digest = getDigest(path);
+
+		URL resource = getClass().getClassLoader()
+			.getResource(path);
+		Bundle bundle;
+		if (connect) {
+			if (parms.embedded && JRT_PROTOCOL.equals(resource.getProtocol())) {
+				path = resource.toString();
+			}
+			trace("installing %s by connect", path);
+			bundle = context.installBundle(path);
+			updateDigest(digest, bundle);
+		} else if (useReferences() && resource.getProtocol()
+			.equalsIgnoreCase("file")) {
+			trace("installing %s by reference", path);
 
-				File file = new File(resource.toURI());
-				bundle = context.installBundle(getReferenceUrl(file));
-				updateDigest(digest, bundle);
-				tobestarted.add(bundle);
+			//
+			// Install by reference
+			//
 
-			} else {
+			File file = new File(resource.toURI());
+			bundle = context.installBundle(getReferenceUrl(file));
+			updateDigest(digest, bundle);
 
-				//
-				// Install by copying since the URL we got
-				// is not a file url.
-				//
+		} else {
 
-				try (InputStream in = resource.openStream()) {
-					bundle = getBundleByLocation(path);
-					if (bundle == null) {
-						trace("installing %s", path);
-						bundle = context.installBundle(path, in);
+			//
+			// Install by copying since the URL we got
+			// is not a file url.
+			//
+
+			try (InputStream in = resource.openStream()) {
+				bundle = getBundleByLocation(path);
+				if (bundle == null) {
+					trace("installing %s", path);
+					bundle = context.installBundle(path, in);
+					updateDigest(digest, bundle);
+				} else {
+					if (mustUpdate(digest, bundle)) {
+						trace("updating %s, digest=%s", path, digest);
+						stop(bundle);
+						bundle.update(in);
 						updateDigest(digest, bundle);
 					} else {
-						if (mustUpdate(digest, bundle)) {
-							trace("updating %s, digest=%s", path, digest);
-							stop(bundle);
-							bundle.update(in);
-							updateDigest(digest, bundle);
-						} else {
-							trace("not updating %s because identical digest=%s", path, digest);
-						}
+						trace("not updating %s because identical digest=%s", path, digest);
 					}
-					tobestarted.add(bundle);
 				}
 			}
-			n++;
 		}
+		return bundle;
 	}
 
 	/*
@@ -1242,6 +1357,12 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			@SuppressWarnings("resource")
 			MiniFramework miniFramework = new MiniFramework(p);
 			systemBundle = miniFramework.setTracing(this::trace);
+			if (parms.parallel) {
+				// the class loaders of the mini framework depend on the
+				// install order
+				trace("parallel startup is not supported by the mini framework");
+				parms.parallel = false;
+			}
 		}
 		if (systemBundle == null) {
 			error("Cannot find a framework on the classpath");
@@ -1328,6 +1449,8 @@ public class Launcher implements ServiceListener, FrameworkListener {
 				row(out, "Security", security);
 				row(out, "Has StartLevels", startLevelhandler.hasStartLevels());
 				row(out, "Startlevel", startLevelhandler.getFrameworkStartLevel(systemBundle));
+				row(out, "Parallel", parms.parallel);
+				row(out, "Startup timings (ms)", timings);
 				list(out, "Run bundles", parms.runbundles);
 				row(out, "Java Home", System.getProperty("java.home"));
 				list(out, "Classpath", split(System.getProperty("java.class.path"), File.pathSeparator));
@@ -46,13 +46,14 @@ public class LauncherConstants {
 	final static String				LAUNCH_NAME						= "launch.name";
 	final static String				LAUNCH_NOREFERENCES				= "launch.noreferences";
 	final static String				LAUNCH_NOTIFICATION_PORT		= "launch.notificationPort";
+	final static String				LAUNCH_PARALLEL					= "launch.parallel";
 	public final static String		LAUNCH_FRAMEWORK_RESTART		= "launch.framework.restart";
 
 	public final static String[]	LAUNCHER_PROPERTY_KEYS			= {
 		LAUNCH_SERVICES, LAUNCH_STORAGE_DIR, LAUNCH_KEEP, LAUNCH_NOREFERENCES, LAUNCH_RUNBUNDLES, LAUNCH_SYSTEMPACKAGES,
 		LAUNCH_SYSTEMCAPABILITIES, LAUNCH_SYSTEMPACKAGES, Constants.LAUNCH_TRACE, LAUNCH_TIMEOUT,
 		Constants.LAUNCH_ACTIVATORS, LAUNCH_FRAMEWORK_RESTART, LAUNCH_EMBEDDED, LAUNCH_NAME, LAUNCH_NOREFERENCES,
-		LAUNCH_NOTIFICATION_PORT, Constants.LAUNCH_ACTIVATION_EAGER
+		LAUNCH_NOTIFICATION_PORT, Constants.LAUNCH_ACTIVATION_EAGER, LAUNCH_PARALLEL
 	};
 	/**
 	 * The command line arguments of the launcher. Launcher are not supposed to
@@ -77,6 +78,7 @@ public class LauncherConstants {
 	public int						notificationPort				= -1;
 	public boolean					activationEager					= false;
 	public boolean					frameworkRestart				= false;
+	public boolean					parallel						= false;
 
 	/**
 	 * Translate a constants to properties.
@@ -105,6 +107,7 @@ public class LauncherConstants {
 
 		p.setProperty(LAUNCH_NOTIFICATION_PORT, String.valueOf(notificationPort));
 		p.setProperty(Constants.LAUNCH_ACTIVATION_EAGER, String.valueOf(activationEager));
+		p.setProperty(LAUNCH_PARALLEL, String.valueOf(parallel));
 
 		for (Map.Entry<String, String> entry : runProperties.entrySet()) {
 			if (entry.getValue() == null) {
@@ -148,6 +151,7 @@ public class LauncherConstants {
 		notificationPort = Integer.parseInt(p.getProperty(LAUNCH_NOTIFICATION_PORT, "-1"));
 		activationEager = Boolean.parseBoolean(p.getProperty(Constants.LAUNCH_ACTIVATION_EAGER));
 		frameworkRestart = Boolean.parseBoolean(p.getProperty(LAUNCH_FRAMEWORK_RESTART));
+		parallel = Boolean.parseBoolean(p.getProperty(LAUNCH_PARALLEL));
 		@SuppressWarnings({
 			"unchecked", "rawtypes"
 		})
@@ -73,7 +73,7 @@ public class ProjectLauncherImpl extends ProjectLauncher {
 
 	private File				preTemp;
 
-	final private File			launchPropertiesFile;
+	final File					launchPropertiesFile;
 	boolean						prepared;
 	DatagramSocket				listenerComms;
 
@@ -240,6 +240,8 @@ public class ProjectLauncherImpl extends ProjectLauncher {
 		lc.name = getProject().getName();
 		lc.activationEager = launcherInstrs.runoptions()
 			.contains(RunOption.eager);
+		lc.parallel = launcherInstrs.runoptions()
+			.contains(RunOption.parallel);
 		lc.frameworkRestart = isRunFrameworkRestart();
 
 		if (!exported && !getNotificationListeners().isEmpty()) {
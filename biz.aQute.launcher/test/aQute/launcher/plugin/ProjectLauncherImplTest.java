@@ -3,6 +3,8 @@ package aQute.launcher.plugin;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.File;
+import java.io.InputStream;
+import java.util.Properties;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,10 +13,13 @@ import org.junit.jupiter.api.Test;
 import aQute.bnd.build.Container;
 import aQute.bnd.build.Project;
 import aQute.bnd.build.Workspace;
+import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.JarResource;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.launcher.constants.LauncherConstants;
 import aQute.lib.io.IO;
+import aQute.lib.utf8properties.UTF8Properties;
 
 public class ProjectLauncherImplTest {
 
@@ -65,4 +70,21 @@ public class ProjectLauncherImplTest {
 			assertEquals(project.getBase(), launcher.getCwd());
 		}
 	}
+
+	@Test
+	public void testParallelRunOption() throws Exception {
+		project.setProperty(Constants.RUNOPTIONS, Constants.RUNOPTIONS_PARALLEL);
+		try (ProjectLauncherImpl launcher = new ProjectLauncherImpl(project, new Container(project, launcherJar))) {
+			launcher.updateFromProject();
+			launcher.prepare();
+
+			Properties properties = new UTF8Properties();
+			try (InputStream in = IO.stream(launcher.launchPropertiesFile)) {
+				properties.load(in);
+			}
+			LauncherConstants lc = new LauncherConstants(properties);
+			assertEquals(true, lc.parallel);
+			assertEquals(false, lc.activationEager);
+		}
+	}
 }
@@ -3,6 +3,7 @@ package aQute.remote.agent;
 import static java.util.Objects.requireNonNull;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -53,6 +54,7 @@ import org.osgi.resource.dto.RequirementDTO;
 import aQute.lib.converter.Converter;
 import aQute.lib.converter.TypeReference;
 import aQute.lib.io.ByteBufferInputStream;
+import aQute.lib.regex.PatternConstants;
 import aQute.lib.startlevel.StartLevelRuntimeHandler;
 import aQute.libg.shacache.ShaCache;
 import aQute.libg.shacache.ShaSource;
@@ -61,6 +63,7 @@ import aQute.remote.api.Agent;
 import aQute.remote.api.Event;
 import aQute.remote.api.Event.Type;
 import aQute.remote.api.Supervisor;
+import aQute.remote.util.BundleDelta;
 import aQute.remote.util.Link;
 
 /**
@@ -69,6 +72,7 @@ import aQute.remote.util.Link;
  */
 public class AgentServer implements Agent, Closeable, FrameworkListener {
 	private final static Pattern							BSN_P				= Pattern.compile("\\s*([^;\\s]+).*");
+	private final static Pattern							SHA_P				= Pattern.compile(PatternConstants.SHA1);
 	private final static AtomicInteger						sequence			= new AtomicInteger(1000);
 
 	//
@@ -327,7 +331,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 			String sha = e.getValue();
 
 			try {
-				InputStream in = cache.getStream(sha, source);
+				InputStream in = cache.getStream(sha, delta(installed.get(location)), source);
 				if (in == null) {
 					out.format("Cannot find file for sha %s to update %s", sha, location);
 					continue;
@@ -343,6 +347,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 					context.installBundle(location, in);
 				else
 					bundle.update(in);
+				installed.put(location, sha);
 
 			} catch (Exception e1) {
 				printStack(e1);
@@ -371,15 +376,17 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 
 	@Override
 	public String update(long id, String sha) throws Exception {
-		InputStream in = cache.getStream(sha, source);
+		Bundle bundle = context.getBundle(id);
+		String base = (bundle != null) ? installed.get(bundle.getLocation()) : null;
+		InputStream in = cache.getStream(sha, delta(base), source);
 		if (in == null)
 			return null;
 
 		StringBuilder sb = new StringBuilder();
 
 		try {
-			Bundle bundle = context.getBundle(id);
 			bundle.update(in);
+			installed.put(bundle.getLocation(), sha);
 			refresh(true);
 		} catch (Exception e) {
 			sb.append(e.getMessage())
@@ -397,6 +404,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 		try {
 			Bundle bundle = context.getBundle(id);
 			bundle.update(is);
+			installed.put(bundle.getLocation(), url);
 			refresh(true);
 		} catch (Exception e) {
 			sb.append(e.getMessage())
@@ -603,6 +611,42 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 		}
 	}
 
+	/*
+	 * A source that reconstructs a bundle from the cached file of the
+	 * installed version and the changes sent by the supervisor. Only a
+	 * supervisor that speaks the binary link protocol is known to provide
+	 * deltas, older supervisors would never answer the call. A bundle that
+	 * was installed from a URL has no cached file to start from.
+	 */
+	private ShaSource delta(String base) {
+		return new ShaSource() {
+
+			@Override
+			public boolean isFast() {
+				return false;
+			}
+
+			@Override
+			public InputStream get(String sha) throws Exception {
+				if (base == null || !SHA_P.matcher(base)
+					.matches() || link == null || !link.isBinary())
+					return null;
+
+				File file = cache.getFile(base);
+				if (file == null)
+					return null;
+
+				byte[] delta = remote.getDelta(sha, BundleDelta.digests(file));
+				if (delta == null)
+					return null;
+
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				BundleDelta.apply(file, delta, out);
+				return new ByteArrayInputStream(out.toByteArray());
+			}
+		};
+	}
+
 	public void setRemote(Supervisor supervisor) {
 		this.remote = supervisor;
 		this.source = new ShaSource() {
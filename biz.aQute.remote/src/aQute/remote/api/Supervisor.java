@@ -1,5 +1,7 @@
 package aQute.remote.api;
 
+import java.util.List;
+
 /**
  * A Supervisor handles the initiating side of a session with a remote agent.
  * The methods defined in this interface are intended to be called by the remote
@@ -41,4 +43,18 @@ public interface Supervisor {
 	 * @return the contents of that file or null if no such file exists.
 	 */
 	byte[] getFile(String sha) throws Exception;
+
+	/**
+	 * Return the changes of the file that has the given SHA-1 against an older
+	 * version of the file that the agent has. The agent uses this to update a
+	 * bundle without retrieving its complete contents.
+	 *
+	 * @param sha the SHA-1
+	 * @param digests the digests of the zip records of the older version
+	 * @return the delta to apply to the older version or null if the delta is
+	 *         not available, the agent then uses {@link #getFile(String)}
+	 */
+	default byte[] getDelta(String sha, List<String> digests) throws Exception {
+		return null;
+	}
 }
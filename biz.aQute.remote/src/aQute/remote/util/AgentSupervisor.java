@@ -75,22 +75,35 @@ public class AgentSupervisor<Supervisor, Agent> {
 	}
 
 	public byte[] getFile(String sha) throws Exception {
+		File f = file(sha);
+		if (f == null)
+			return EMPTY;
+		return IO.read(f);
+	}
+
+	public byte[] getDelta(String sha, List<String> digests) throws Exception {
+		File f = file(sha);
+		if (f == null)
+			return null;
+		return BundleDelta.delta(f, digests);
+	}
+
+	private File file(String sha) {
 		List<String> copy;
 		synchronized (shaInfo) {
 			List<String> list = shaInfo.get(sha);
 			if (list == null)
-				return EMPTY;
+				return null;
 
 			copy = new ArrayList<>(list);
 		}
 		for (String path : copy) {
 			File f = new File(path);
 			if (f.isFile()) {
-				byte[] data = IO.read(f);
-				return data;
+				return f;
 			}
 		}
-		return EMPTY;
+		return null;
 	}
 
 	public void setAgent(Link<Supervisor, Agent> link) {
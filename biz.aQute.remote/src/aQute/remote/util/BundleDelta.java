@@ -0,0 +1,170 @@
+package aQute.remote.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+
+/**
+ * Calculates and applies the difference between two versions of a JAR file.
+ * A JAR file is split in records, a record holds the header and data of a zip
+ * entry, the last record holds the central directory. The side that has the
+ * old version reports the digests of its records. The other side describes the
+ * new version as a sequence of records that are copied from the old version or
+ * sent as is. This reconstructs the new version byte for byte, so its SHA-1 can
+ * be verified.
+ */
+public class BundleDelta {
+	final static int	END			= 0;
+	final static int	COPY		= 1;
+	final static int	LITERAL		= 2;
+
+	final static int	EOCD		= 0x06054b50;
+	final static int	CENTRAL		= 0x02014b50;
+	final static int	EOCD_SIZE	= 22;
+
+	/**
+	 * Return the SHA-1 digests of the records of a JAR file.
+	 *
+	 * @param jar the old version of the JAR file
+	 * @return the digests of the records in file order
+	 */
+	public static List<String> digests(File jar) throws IOException {
+		byte[] data = IO.read(jar);
+		List<String> digests = new ArrayList<>();
+		for (int[] record : records(data)) {
+			digests.add(digest(data, record));
+		}
+		return digests;
+	}
+
+	/**
+	 * Calculate the delta of a JAR file against an old version.
+	 *
+	 * @param jar the new version of the JAR file
+	 * @param digests the digests of the records of the old version
+	 * @return the delta to apply to the old version
+	 */
+	public static byte[] delta(File jar, List<String> digests) throws IOException {
+		Map<String, Integer> old = new HashMap<>();
+		for (int i = digests.size() - 1; i >= 0; i--) {
+			old.put(digests.get(i), i);
+		}
+		byte[] data = IO.read(jar);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bout);
+		for (int[] record : records(data)) {
+			Integer index = old.get(digest(data, record));
+			if (index != null) {
+				out.writeByte(COPY);
+				out.writeInt(index);
+			} else {
+				out.writeByte(LITERAL);
+				out.writeInt(record[1] - record[0]);
+				out.write(data, record[0], record[1] - record[0]);
+			}
+		}
+		out.writeByte(END);
+		out.flush();
+		return bout.toByteArray();
+	}
+
+	/**
+	 * Reconstruct the new version of a JAR file.
+	 *
+	 * @param jar the old version of the JAR file
+	 * @param delta the delta calculated against the digests of the old version
+	 * @param out the stream to write the new version to
+	 */
+	public static void apply(File jar, byte[] delta, OutputStream out) throws IOException {
+		byte[] data = IO.read(jar);
+		List<int[]> records = records(data);
+		DataInputStream in = new DataInputStream(IO.stream(delta));
+		for (int op; (op = in.readUnsignedByte()) != END;) {
+			switch (op) {
+				case COPY : {
+					int[] record = records.get(in.readInt());
+					out.write(data, record[0], record[1] - record[0]);
+					break;
+				}
+				case LITERAL : {
+					byte[] literal = new byte[in.readInt()];
+					in.readFully(literal);
+					out.write(literal);
+					break;
+				}
+				default :
+					throw new IOException("Invalid delta operation " + op);
+			}
+		}
+	}
+
+	/*
+	 * The records of a zip file. They start at the local headers of the
+	 * entries and the central directory. A file that cannot be parsed as a zip
+	 * file is a single record.
+	 */
+	static List<int[]> records(byte[] data) {
+		TreeSet<Integer> offsets = new TreeSet<>();
+		offsets.add(0);
+		offsets.add(data.length);
+		ByteBuffer bb = ByteBuffer.wrap(data)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		int eocd = data.length - EOCD_SIZE;
+		int limit = Math.max(0, eocd - 0xFFFF);
+		while (eocd >= limit && bb.getInt(eocd) != EOCD) {
+			eocd--;
+		}
+		if (eocd >= limit) {
+			int entries = Short.toUnsignedInt(bb.getShort(eocd + 10));
+			long central = Integer.toUnsignedLong(bb.getInt(eocd + 16));
+			List<Integer> headers = new ArrayList<>(entries);
+			int position = (int) Math.min(central, eocd);
+			for (int i = 0; i < entries && position + 46 <= eocd && bb.getInt(position) == CENTRAL; i++) {
+				long header = Integer.toUnsignedLong(bb.getInt(position + 42));
+				if (header < central) {
+					headers.add((int) header);
+				}
+				position += 46 + Short.toUnsignedInt(bb.getShort(position + 28))
+					+ Short.toUnsignedInt(bb.getShort(position + 30)) + Short.toUnsignedInt(bb.getShort(position + 32));
+			}
+			if (central < eocd && headers.size() == entries) {
+				offsets.addAll(headers);
+				offsets.add((int) central);
+			}
+		}
+
+		List<int[]> records = new ArrayList<>(offsets.size());
+		Integer start = offsets.pollFirst();
+		for (Integer end : offsets) {
+			records.add(new int[] {
+				start, end
+			});
+			start = end;
+		}
+		return records;
+	}
+
+	private static String digest(byte[] data, int[] record) throws IOException {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			md.update(data, record[0], record[1] - record[0]);
+			return Hex.toHexString(md.digest());
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package aQute.remote.util;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
@@ -13,8 +16,9 @@ import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -31,6 +35,12 @@ import aQute.lib.json.JSONCodec;
  * implemented on the remote side. The methods on this subclass are then
  * available remotely. I.e. this is a two way street. Void messages are
  * asynchronous, other messages block to a reply.
+ * <p>
+ * Messages are sent as JSON until the peer announces that it can read the
+ * binary protocol. Both sides announce this when the link is opened, older
+ * peers ignore the announcement. Binary messages have typed arguments and
+ * large {@code byte[]} or {@link InputStream} arguments are streamed in chunks
+ * that are interleaved with the other messages.
  *
  * @param <R>
  */
@@ -38,6 +48,25 @@ public class Link<L, R> extends Thread implements Closeable {
 	private static final String[]			EMPTY		= new String[] {};
 	static JSONCodec						codec		= new JSONCodec();
 
+	/*
+	 * A binary frame starts with a marker that is not a valid length of a
+	 * method name, which starts a JSON frame.
+	 */
+	static final int						BINARY		= 0xFFFF;
+	static final String						HELLO		= "link.binary";
+	static final int						MESSAGE		= 0;
+	static final int						CHUNK		= 1;
+	static final int						CHUNK_SIZE	= 64 * 1024;
+
+	static final int						T_NULL		= 0;
+	static final int						T_BYTES		= 1;
+	static final int						T_STREAM	= 2;
+	static final int						T_STRING	= 3;
+	static final int						T_INT		= 4;
+	static final int						T_LONG		= 5;
+	static final int						T_BOOLEAN	= 6;
+	static final int						T_JSON		= 7;
+
 	final DataInputStream					in;
 	final DataOutputStream					out;
 	final Class<R>							remoteClass;
@@ -46,7 +75,10 @@ public class Link<L, R> extends Thread implements Closeable {
 	final AtomicBoolean						quit		= new AtomicBoolean(false);
 	final boolean							tracing;
 	volatile boolean						transfer	= false;
+	volatile boolean						binary		= false;
 	private ThreadLocal<Integer>			msgid		= new ThreadLocal<>();
+	final AtomicInteger						streamId	= new AtomicInteger();
+	final Map<Integer, Incoming>			incoming	= new HashMap<>();
 
 	R										remote;
 	L										local;
@@ -54,10 +86,37 @@ public class Link<L, R> extends Thread implements Closeable {
 
 	static class Result {
 		boolean			resolved;
-		byte[]			value;
+		Object			value;
 		public boolean	exception;
 	}
 
+	/*
+	 * A binary message that waits for its streamed arguments
+	 */
+	static class Message {
+		final String	cmd;
+		final int		id;
+		final Object[]	args;
+		int				pending;
+
+		Message(String cmd, int id, int count) {
+			this.cmd = cmd;
+			this.id = id;
+			this.args = new Object[count];
+		}
+	}
+
+	static class Incoming {
+		final Message				message;
+		final int					index;
+		final ByteArrayOutputStream	data	= new ByteArrayOutputStream();
+
+		Incoming(Message message, int index) {
+			this.message = message;
+			this.index = index;
+		}
+	}
+
 	public Link(Class<R> remoteType, L local, InputStream in, OutputStream out) {
 		this(remoteType, local, new DataInputStream(in), new DataOutputStream(out));
 	}
@@ -82,8 +141,29 @@ public class Link<L, R> extends Thread implements Closeable {
 		if (isAlive())
 			throw new IllegalStateException("Already running");
 
-		if (in != null)
+		if (in != null) {
+			try {
+				synchronized (out) {
+					out.writeUTF(HELLO);
+					out.writeInt(0);
+					out.writeShort(0);
+					out.flush();
+				}
+			} catch (Exception e) {
+				terminate(e);
+				return;
+			}
 			start();
+		}
+	}
+
+	/**
+	 * Answer if messages to the peer are sent with the binary protocol.
+	 *
+	 * @return true if the peer announced that it reads the binary protocol
+	 */
+	public boolean isBinary() {
+		return binary;
 	}
 
 	@Override
@@ -153,29 +233,12 @@ public class Link<L, R> extends Thread implements Closeable {
 	public void run() {
 		while (!isInterrupted() && !transfer && !quit.get())
 			try {
-				final String cmd = in.readUTF();
-				trace("rx " + cmd);
-				final int id = in.readInt();
-
-				int count = in.readShort();
-				final List<byte[]> args = new ArrayList<>(count);
-				for (int i = 0; i < count; i++) {
-					int length = in.readInt();
-					byte[] data = new byte[length];
-					in.readFully(data);
-					args.add(data);
+				int length = in.readUnsignedShort();
+				if (length == BINARY) {
+					receiveBinary();
+				} else {
+					receiveJSON(length);
 				}
-
-				Runnable r = () -> {
-					try {
-						msgid.set(id);
-						executeCommand(cmd, id, args);
-					} catch (Exception e) {
-						// e.printStackTrace();
-					}
-					msgid.set(-1);
-				};
-				executor.execute(r);
 			} catch (SocketTimeoutException ee) {
 				// Ignore, just to allow polling the actors again
 			} catch (Exception ee) {
@@ -185,6 +248,112 @@ public class Link<L, R> extends Thread implements Closeable {
 			}
 	}
 
+	private void receiveJSON(int length) throws IOException {
+		byte[] utf = new byte[length + 2];
+		utf[0] = (byte) (length >>> 8);
+		utf[1] = (byte) length;
+		in.readFully(utf, 2, length);
+		final String cmd = new DataInputStream(new ByteArrayInputStream(utf)).readUTF();
+		trace("rx " + cmd);
+		final int id = in.readInt();
+
+		int count = in.readShort();
+		final Object[] args = new Object[count];
+		for (int i = 0; i < count; i++) {
+			int size = in.readInt();
+			byte[] data = new byte[size];
+			in.readFully(data);
+			args[i] = data;
+		}
+		dispatch(cmd, id, args);
+	}
+
+	private void receiveBinary() throws Exception {
+		int kind = in.readUnsignedByte();
+		if (kind == CHUNK) {
+			int stream = in.readInt();
+			int length = in.readInt();
+			Incoming chunks = incoming.get(stream);
+			if (chunks == null) {
+				throw new IOException("Chunk for unknown stream " + stream);
+			}
+			if (length > 0) {
+				byte[] data = new byte[length];
+				in.readFully(data);
+				chunks.data.write(data);
+				return;
+			}
+			incoming.remove(stream);
+			Message message = chunks.message;
+			message.args[chunks.index] = chunks.data.toByteArray();
+			if (--message.pending == 0) {
+				dispatch(message.cmd, message.id, message.args);
+			}
+			return;
+		}
+
+		String cmd = in.readUTF();
+		trace("rx " + cmd);
+		int id = in.readInt();
+		int count = in.readUnsignedShort();
+		Message message = new Message(cmd, id, count);
+		for (int i = 0; i < count; i++) {
+			int type = in.readUnsignedByte();
+			switch (type) {
+				case T_NULL :
+					break;
+				case T_BYTES :
+				case T_JSON : {
+					byte[] data = new byte[in.readInt()];
+					in.readFully(data);
+					message.args[i] = data;
+					break;
+				}
+				case T_STREAM :
+					incoming.put(in.readInt(), new Incoming(message, i));
+					message.pending++;
+					break;
+				case T_STRING : {
+					byte[] data = new byte[in.readInt()];
+					in.readFully(data);
+					message.args[i] = new String(data, UTF_8);
+					break;
+				}
+				case T_INT :
+					message.args[i] = in.readInt();
+					break;
+				case T_LONG :
+					message.args[i] = in.readLong();
+					break;
+				case T_BOOLEAN :
+					message.args[i] = in.readBoolean();
+					break;
+				default :
+					throw new IOException("Unknown argument type " + type);
+			}
+		}
+		if (message.pending == 0) {
+			dispatch(cmd, id, message.args);
+		}
+	}
+
+	private void dispatch(String cmd, int id, Object[] args) {
+		if (cmd.equals(HELLO)) {
+			binary = true;
+			return;
+		}
+		Runnable r = () -> {
+			try {
+				msgid.set(id);
+				executeCommand(cmd, id, args);
+			} catch (Exception e) {
+				// e.printStackTrace();
+			}
+			msgid.set(-1);
+		};
+		executor.execute(r);
+	}
+
 	/*
 	 * Signalling function /
 	 */
@@ -214,12 +383,23 @@ public class Link<L, R> extends Thread implements Closeable {
 		if (m != null)
 			promises.put(msgId, new Result());
 		trace("send");
+		String cmd = m != null ? m.getName() : "";
+		if (args == null)
+			args = EMPTY;
+
+		if (binary) {
+			sendBinary(cmd, msgId, args);
+		} else {
+			sendJSON(cmd, msgId, args);
+		}
+		trace("sent");
+		return msgId;
+	}
+
+	private void sendJSON(String cmd, int msgId, Object[] args) throws Exception {
 		synchronized (out) {
-			out.writeUTF(m != null ? m.getName() : "");
+			out.writeUTF(cmd);
 			out.writeInt(msgId);
-			if (args == null)
-				args = EMPTY;
-
 			out.writeShort(args.length);
 			for (Object arg : args) {
 				if (arg instanceof byte[]) {
@@ -227,22 +407,127 @@ public class Link<L, R> extends Thread implements Closeable {
 					out.writeInt(data.length);
 					out.write(data);
 				} else {
-					ByteArrayOutputStream bout = new ByteArrayOutputStream();
-					codec.enc()
-						.to(bout)
-						.put(arg);
-					byte[] data = bout.toByteArray();
+					byte[] data = json(arg);
 					out.writeInt(data.length);
 					out.write(data);
 				}
 			}
 			out.flush();
-			trace("sent");
 		}
-		return msgId;
 	}
 
-	void response(int msgId, byte[] data) {
+	/*
+	 * Send a binary message. Large byte arrays and input streams are sent in
+	 * chunks after the message so other messages can be sent in between.
+	 */
+	private void sendBinary(String cmd, int msgId, Object[] args) throws Exception {
+		Map<Integer, Object> streams = new LinkedHashMap<>();
+		synchronized (out) {
+			out.writeShort(BINARY);
+			out.writeByte(MESSAGE);
+			out.writeUTF(cmd);
+			out.writeInt(msgId);
+			out.writeShort(args.length);
+			for (Object arg : args) {
+				if (arg == null) {
+					out.writeByte(T_NULL);
+				} else if (arg instanceof byte[] data && data.length <= CHUNK_SIZE) {
+					out.writeByte(T_BYTES);
+					out.writeInt(data.length);
+					out.write(data);
+				} else if (arg instanceof byte[] || arg instanceof InputStream) {
+					int stream = streamId.incrementAndGet();
+					out.writeByte(T_STREAM);
+					out.writeInt(stream);
+					streams.put(stream, arg);
+				} else if (arg instanceof String string) {
+					byte[] data = string.getBytes(UTF_8);
+					out.writeByte(T_STRING);
+					out.writeInt(data.length);
+					out.write(data);
+				} else if (arg instanceof Integer value) {
+					out.writeByte(T_INT);
+					out.writeInt(value);
+				} else if (arg instanceof Long value) {
+					out.writeByte(T_LONG);
+					out.writeLong(value);
+				} else if (arg instanceof Boolean value) {
+					out.writeByte(T_BOOLEAN);
+					out.writeBoolean(value);
+				} else {
+					byte[] data = json(arg);
+					out.writeByte(T_JSON);
+					out.writeInt(data.length);
+					out.write(data);
+				}
+			}
+			out.flush();
+		}
+
+		for (Map.Entry<Integer, Object> entry : streams.entrySet()) {
+			int stream = entry.getKey();
+			if (entry.getValue() instanceof byte[] data) {
+				for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+					chunk(stream, data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+				}
+			} else {
+				try (InputStream in = (InputStream) entry.getValue()) {
+					byte[] buffer = new byte[CHUNK_SIZE];
+					for (int size; (size = in.read(buffer)) >= 0;) {
+						if (size > 0) {
+							chunk(stream, buffer, 0, size);
+						}
+					}
+				}
+			}
+			chunk(stream, null, 0, 0);
+		}
+	}
+
+	private void chunk(int stream, byte[] data, int offset, int length) throws IOException {
+		synchronized (out) {
+			out.writeShort(BINARY);
+			out.writeByte(CHUNK);
+			out.writeInt(stream);
+			out.writeInt(length);
+			if (length > 0) {
+				out.write(data, offset, length);
+			}
+			out.flush();
+		}
+	}
+
+	private static byte[] json(Object arg) throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		codec.enc()
+			.to(bout)
+			.put(arg);
+		return bout.toByteArray();
+	}
+
+	/*
+	 * Convert a received argument to the given type. Byte arrays are the raw
+	 * data or the JSON encoded value, other values are already decoded by the
+	 * binary protocol.
+	 */
+	static Object decode(Object arg, Type type) throws Exception {
+		if (arg instanceof byte[] data) {
+			if (type == byte[].class)
+				return data;
+			if (type == InputStream.class)
+				return new ByteArrayInputStream(data);
+			return codec.dec()
+				.from(data)
+				.get(type);
+		}
+		if (arg == null || (type instanceof Class<?> c && (c.isPrimitive() || c.isInstance(arg))))
+			return arg;
+		return codec.dec()
+			.from(json(arg))
+			.get(type);
+	}
+
+	void response(int msgId, Object data) {
 		boolean exception = false;
 		if (msgId < 0) {
 			msgId = -msgId;
@@ -276,19 +561,12 @@ public class Link<L, R> extends Thread implements Closeable {
 							return null;
 
 						if (result.exception) {
-							String msg = codec.dec()
-								.from(result.value)
-								.get(String.class);
+							String msg = (String) decode(result.value, String.class);
 							trace("Exception " + msg);
 							throw new RuntimeException(msg);
 						}
 
-						if (type == byte[].class)
-							return (T) result.value;
-
-						T value = (T) codec.dec()
-							.from(result.value)
-							.get(type);
+						T value = (T) decode(result.value, type);
 						return value;
 					}
 
@@ -318,26 +596,19 @@ public class Link<L, R> extends Thread implements Closeable {
 	 * Execute a command in a background thread
 	 */
 
-	void executeCommand(final String cmd, final int id, final List<byte[]> args) throws Exception {
+	void executeCommand(final String cmd, final int id, final Object[] args) throws Exception {
 		if (cmd.isEmpty())
-			response(id, args.get(0));
+			response(id, args[0]);
 		else {
 
-			Method m = getMethod(cmd, args.size());
+			Method m = getMethod(cmd, args.length);
 			if (m == null) {
 				return;
 			}
 
-			Object parameters[] = new Object[args.size()];
-			for (int i = 0; i < args.size(); i++) {
-				Class<?> type = m.getParameterTypes()[i];
-				if (type == byte[].class)
-					parameters[i] = args.get(i);
-				else {
-					parameters[i] = codec.dec()
-						.from(args.get(i))
-						.get(m.getGenericParameterTypes()[i]);
-				}
+			Object parameters[] = new Object[args.length];
+			for (int i = 0; i < args.length; i++) {
+				parameters[i] = decode(args[i], m.getGenericParameterTypes()[i]);
 			}
 
 			try {
@@ -0,0 +1,84 @@
+package biz.aQute.remote;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+import aQute.remote.util.BundleDelta;
+
+public class BundleDeltaTest {
+
+	@InjectTemporaryDirectory
+	File tmp;
+
+	@Test
+	public void testChangedEntry() throws Exception {
+		Map<String, byte[]> entries = new TreeMap<>();
+		for (int i = 0; i < 100; i++) {
+			entries.put("a/C" + i + ".class", content(i, 10_000));
+		}
+		File base = jar("base.jar", entries);
+		entries.put("a/C50.class", content(-1, 10_000));
+		entries.remove("a/C7.class");
+		entries.put("b/New.class", content(-2, 100));
+		File target = jar("target.jar", entries);
+
+		List<String> digests = BundleDelta.digests(base);
+		assertThat(digests).hasSize(101);
+		byte[] delta = BundleDelta.delta(target, digests);
+		assertThat(delta.length).isLessThan((int) target.length() / 10);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BundleDelta.apply(base, delta, out);
+		assertThat(out.toByteArray()).isEqualTo(IO.read(target));
+	}
+
+	@Test
+	public void testNotAZip() throws Exception {
+		File base = new File(tmp, "base.bin");
+		File target = new File(tmp, "target.bin");
+		IO.copy(content(1, 1000), base);
+		IO.copy(content(2, 1000), target);
+
+		assertThat(BundleDelta.digests(base)).hasSize(1);
+		byte[] delta = BundleDelta.delta(target, BundleDelta.digests(base));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BundleDelta.apply(base, delta, out);
+		assertThat(out.toByteArray()).isEqualTo(IO.read(target));
+
+		delta = BundleDelta.delta(base, BundleDelta.digests(base));
+		assertThat(delta).hasSizeLessThan(10);
+	}
+
+	private File jar(String name, Map<String, byte[]> entries) throws IOException {
+		File file = new File(tmp, name);
+		try (JarOutputStream jout = new JarOutputStream(IO.outputStream(file))) {
+			for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+				ZipEntry entry = new ZipEntry(e.getKey());
+				entry.setTime(0L);
+				jout.putNextEntry(entry);
+				jout.write(e.getValue());
+				jout.closeEntry();
+			}
+		}
+		return file;
+	}
+
+	private static byte[] content(int seed, int length) {
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+}
@@ -1,9 +1,11 @@
 package biz.aQute.remote;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -11,6 +13,9 @@ import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
@@ -49,6 +54,12 @@ public class LinkTest {
 	interface Remote {
 		int foo();
 
+		byte[] echo(String prefix, byte[] data);
+
+		long length(InputStream in) throws IOException;
+
+		Map<String, Long> sizes(List<String> names, boolean flag, long size);
+
 		void abort() throws IOException;
 	}
 
@@ -97,6 +108,23 @@ public class LinkTest {
 			return -42;
 		}
 
+		@Override
+		public byte[] echo(String prefix, byte[] data) {
+			byte[] result = Arrays.copyOf(prefix.getBytes(), prefix.length() + data.length);
+			System.arraycopy(data, 0, result, prefix.length(), data.length);
+			return result;
+		}
+
+		@Override
+		public long length(InputStream in) throws IOException {
+			return in.readAllBytes().length;
+		}
+
+		@Override
+		public Map<String, Long> sizes(List<String> names, boolean flag, long size) {
+			return Map.of(names.get(0), flag ? size : -size);
+		}
+
 		@Override
 		public void close() throws IOException {
 			System.out.println("remote closed");
@@ -138,6 +166,28 @@ public class LinkTest {
 		newer.close();
 	}
 
+	@Test
+	public void testBinary() throws Exception {
+		localImpl.link.open();
+		remoteImpl.link.open();
+		for (int i = 0; i < 100 && !(localImpl.link.isBinary() && remoteImpl.link.isBinary()); i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(localImpl.link.isBinary());
+		assertTrue(remoteImpl.link.isBinary());
+
+		Remote remote = localImpl.link.getRemote();
+		byte[] data = new byte[1_000_000];
+		Arrays.fill(data, (byte) 'x');
+		byte[] echo = remote.echo("abc", data);
+		assertThat(echo).hasSize(data.length + 3)
+			.startsWith("abcx".getBytes());
+		assertThat(remote.echo("", new byte[0])).isEmpty();
+		assertEquals(data.length, remote.length(new ByteArrayInputStream(data)));
+		assertThat(remote.sizes(List.of("a"), false, 5L)).containsEntry("a", -5L);
+		assertEquals(-42, remote.foo());
+	}
+
 	/**
 	 * Test simple
 	 *
@@ -76,4 +76,10 @@ public interface Configuration {
 	 * Extensions for files that contain multiple JARs
 	 */
 	String multi();
+
+	/**
+	 * Index release archives that are not in the local repository with HTTP
+	 * range requests instead of downloading them
+	 */
+	boolean remoteIndex();
 }
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
@@ -34,6 +35,8 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.exceptions.SupplierWithException;
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.http.RemoteJar;
 import aQute.bnd.maven.MavenCapability;
 import aQute.bnd.memoize.Memoize;
 import aQute.bnd.osgi.Constants;
@@ -46,12 +49,14 @@ import aQute.bnd.osgi.repository.ResourcesRepository;
 import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.BundleCap;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.version.MavenVersion;
 import aQute.bnd.version.Version;
 import aQute.lib.io.IO;
 import aQute.lib.strings.Strings;
 import aQute.lib.zip.ZipUtil;
+import aQute.libg.cryptography.SHA256;
 import aQute.maven.api.Archive;
 import aQute.maven.api.IMavenRepo;
 import aQute.maven.api.Program;
@@ -80,6 +85,7 @@ class IndexFile {
 	final Map<Archive, Resource>				archives	= new ConcurrentHashMap<>();
 	final Set<String>							multi;
 	final String								source;
+	final HttpClient							client;
 
 	private volatile long						lastModified;
 	private long								last		= 0L;
@@ -93,6 +99,15 @@ class IndexFile {
 	 */
 	IndexFile(Processor domain, Reporter reporter, File file, String source, IMavenRepo repo,
 		PromiseFactory promiseFactory, Set<String> multi) throws Exception {
+		this(domain, reporter, file, source, repo, promiseFactory, multi, null);
+	}
+
+	/*
+	 * Constructor, when a client is given, release archives that are not in
+	 * the local repository are indexed with range requests
+	 */
+	IndexFile(Processor domain, Reporter reporter, File file, String source, IMavenRepo repo,
+		PromiseFactory promiseFactory, Set<String> multi, HttpClient client) throws Exception {
 		this.source = source;
 		this.domain = (domain != null) ? domain : new Processor();
 		this.replacer = this.domain.getReplacer();
@@ -101,6 +116,7 @@ class IndexFile {
 		this.repo = repo;
 		this.promiseFactory = promiseFactory;
 		this.multi = multi;
+		this.client = client;
 		this.updateSerializer = promiseFactory.resolved(Boolean.TRUE);
 		this.bridge = Memoize.supplier(BridgeRepository::new);
 	}
@@ -263,6 +279,10 @@ class IndexFile {
 							return promiseFactory.submit(() -> parseSingleOrMultiFile(archive, localFile))
 								.recover(p -> failed(archive, p.getFailure()));
 						}
+						if (client != null && !isMulti(localFile.getName())) {
+							return promiseFactory.submit(() -> parseRemote(archive))
+								.recover(p -> failed(archive, p.getFailure()));
+						}
 					}
 					try {
 						return repo.get(archive)
@@ -326,10 +346,54 @@ class IndexFile {
 		return extension.length == 2 && multi.contains(extension[1]);
 	}
 
+	/*
+	 * Index a release archive that is not in the local repository with range
+	 * requests, only the entries that are needed to index it are fetched. The
+	 * archive is downloaded when its SHA-256 is needed or when it cannot be
+	 * read with range requests.
+	 */
+	private Map<Archive, Resource> parseRemote(Archive archive) throws Exception {
+		try {
+			URI uri = repo.toRemoteURI(archive);
+			String scheme = uri.getScheme();
+			RemoteJar remote = ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))
+				? RemoteJar.open(client, uri)
+				: null;
+			if (remote != null) {
+				try (Jar jar = remote.getJar()) {
+					SupportingResource resource = ResourceBuilder.parse(jar, repo.toLocalFile(archive)
+						.toURI(), remote.length(), () -> {
+							File file = repo.get(archive)
+								.getValue();
+							if (file == null) {
+								throw new FileNotFoundException(archive.toString());
+							}
+							return SHA256.digest(file)
+								.asHex();
+						});
+					logger.debug("Indexed {} with {} range requests", uri, remote.requests());
+					ResourceBuilder rb = new ResourceBuilder();
+					rb.addResource(resource);
+					return parseSingle(archive, rb, resource.hasIdentity());
+				}
+			}
+		} catch (Exception e) {
+			logger.debug("Failed to index {} with range requests, downloading it", archive, e);
+		}
+		File file = repo.get(archive)
+			.getValue();
+		return (file == null) ? failed(archive, "Not found") : parseSingleOrMultiFile(archive, file);
+	}
+
 	private Map<Archive, Resource> parseSingle(Archive archive, File single) throws Exception {
 		ResourceBuilder rb = new ResourceBuilder();
-		MavenVersion version = archive.revision.version;
 		boolean hasIdentity = rb.addFile(single, single.toURI());
+		return parseSingle(archive, rb, hasIdentity);
+	}
+
+	private Map<Archive, Resource> parseSingle(Archive archive, ResourceBuilder rb, boolean hasIdentity)
+		throws Exception {
+		MavenVersion version = archive.revision.version;
 		if (!hasIdentity) {
 			String name = archive.getWithoutVersion();
 			BridgeRepository.addInformationCapability(rb, name, version.getOSGiVersion(), archive.toString(),
@@ -680,7 +680,8 @@ public class MavenBndRepository extends BaseRepository implements RepositoryPlug
 			}
 			Set<String> multi = Strings.splitAsStream(configuration.multi())
 				.collect(Sets.toSet());
-			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), multi);
+			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), multi,
+				configuration.remoteIndex() ? client : null);
 			this.index.open();
 
 			try (Formatter f = new Formatter()) {
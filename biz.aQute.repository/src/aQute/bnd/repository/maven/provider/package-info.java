@@ -1,4 +1,4 @@
-@Version("2.1.0")
+@Version("2.2.0")
 package aQute.bnd.repository.maven.provider;
 
 import org.osgi.annotation.versioning.Version;
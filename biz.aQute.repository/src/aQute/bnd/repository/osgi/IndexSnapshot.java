@@ -0,0 +1,250 @@
+package aQute.bnd.repository.osgi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+
+/**
+ * A binary snapshot of the resources parsed from an index. Reading a snapshot
+ * skips the XML parsing and the conversion of the attribute values. The
+ * strings are stored once in a string table and versions are stored
+ * pre-parsed.
+ * <p>
+ * A snapshot carries a key, for example the digest of the index it was made
+ * from, and is only used when the key matches. A snapshot that cannot be read
+ * is ignored.
+ */
+class IndexSnapshot {
+	private final static Logger	logger		= LoggerFactory.getLogger(IndexSnapshot.class);
+	// "BNDI"
+	private static final int	MAGIC		= 0x424E4449;
+	// Change when the format changes
+	private static final int	FORMAT		= 1;
+
+	private static final int	STRING		= 0;
+	private static final int	LONG		= 1;
+	private static final int	DOUBLE		= 2;
+	private static final int	VERSION		= 3;
+	private static final int	LIST		= 4;
+
+	private IndexSnapshot() {}
+
+	/**
+	 * Read the resources from a snapshot.
+	 *
+	 * @param file The snapshot file.
+	 * @param key The key the snapshot must have been written with.
+	 * @return The resources or {@code null} if there is no valid snapshot for
+	 *         the key.
+	 */
+	static List<Resource> read(File file, String key) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(IO.read(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT || !key.equals(readString(in))) {
+				return null;
+			}
+			String[] strings = new String[in.readInt()];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = readString(in);
+			}
+			int size = in.readInt();
+			List<Resource> resources = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				ResourceBuilder rb = new ResourceBuilder();
+				for (int c = in.readInt(); c > 0; c--) {
+					rb.addCapability(readCapReq(in, strings));
+				}
+				for (int r = in.readInt(); r > 0; r--) {
+					rb.addRequirement(readCapReq(in, strings));
+				}
+				resources.add(rb.build());
+			}
+			return resources;
+		} catch (Exception e) {
+			logger.debug("Invalid index snapshot {}", file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the resources to a snapshot. Failures are logged and ignored since
+	 * the snapshot is only an optimization.
+	 *
+	 * @param file The snapshot file.
+	 * @param key The key to check when reading the snapshot.
+	 * @param resources The resources.
+	 */
+	static void write(File file, String key, List<Resource> resources) {
+		Path target = file.toPath();
+		Path tmp = null;
+		try {
+			Map<String, Integer> strings = new HashMap<>();
+			List<String> table = new ArrayList<>();
+			ByteBufferOutputStream bbos = new ByteBufferOutputStream();
+			DataOutputStream body = new DataOutputStream(bbos);
+			body.writeInt(resources.size());
+			for (Resource resource : resources) {
+				List<Capability> capabilities = resource.getCapabilities(null);
+				body.writeInt(capabilities.size());
+				for (Capability capability : capabilities) {
+					writeCapReq(body, strings, table, capability.getNamespace(), capability.getAttributes(),
+						capability.getDirectives());
+				}
+				List<Requirement> requirements = resource.getRequirements(null);
+				body.writeInt(requirements.size());
+				for (Requirement requirement : requirements) {
+					writeCapReq(body, strings, table, requirement.getNamespace(), requirement.getAttributes(),
+						requirement.getDirectives());
+				}
+			}
+
+			IO.mkdirs(target.getParent());
+			tmp = Files.createTempFile(target.getParent(), target.getFileName()
+				.toString(), ".tmp");
+			try (OutputStream out = new BufferedOutputStream(IO.outputStream(tmp));
+				DataOutputStream dout = new DataOutputStream(out)) {
+				dout.writeInt(MAGIC);
+				dout.writeInt(FORMAT);
+				writeString(dout, key);
+				dout.writeInt(table.size());
+				for (String s : table) {
+					writeString(dout, s);
+				}
+				body.flush();
+				IO.copy(bbos.toByteBuffer(), (OutputStream) dout);
+			}
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (Exception e) {
+			logger.debug("Failed to write index snapshot {}", file, e);
+			if (tmp != null) {
+				IO.delete(tmp);
+			}
+		}
+	}
+
+	private static CapReqBuilder readCapReq(DataInputStream in, String[] strings) throws IOException {
+		CapReqBuilder builder = new CapReqBuilder(strings[in.readInt()]);
+		for (int a = in.readInt(); a > 0; a--) {
+			String name = strings[in.readInt()];
+			builder.addAttribute(name, readValue(in, strings));
+		}
+		for (int d = in.readInt(); d > 0; d--) {
+			String name = strings[in.readInt()];
+			builder.addDirective(name, strings[in.readInt()]);
+		}
+		return builder;
+	}
+
+	private static Object readValue(DataInputStream in, String[] strings) throws IOException {
+		int type = in.readUnsignedByte();
+		return switch (type) {
+			case STRING -> strings[in.readInt()];
+			case LONG -> in.readLong();
+			case DOUBLE -> in.readDouble();
+			case VERSION -> new Version(in.readInt(), in.readInt(), in.readInt(), strings[in.readInt()]);
+			case LIST -> {
+				int size = in.readInt();
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in, strings));
+				}
+				yield list;
+			}
+			default -> throw new IOException("Unknown value type " + type);
+		};
+	}
+
+	private static void writeCapReq(DataOutputStream out, Map<String, Integer> strings, List<String> table,
+		String namespace, Map<String, Object> attributes, Map<String, String> directives) throws IOException {
+		writeIndex(out, strings, table, namespace);
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			writeIndex(out, strings, table, entry.getKey());
+			writeValue(out, strings, table, entry.getValue());
+		}
+		out.writeInt(directives.size());
+		for (Map.Entry<String, String> entry : directives.entrySet()) {
+			writeIndex(out, strings, table, entry.getKey());
+			writeIndex(out, strings, table, entry.getValue());
+		}
+	}
+
+	private static void writeValue(DataOutputStream out, Map<String, Integer> strings, List<String> table,
+		Object value) throws IOException {
+		if (value instanceof String s) {
+			out.writeByte(STRING);
+			writeIndex(out, strings, table, s);
+		} else if (value instanceof Long l) {
+			out.writeByte(LONG);
+			out.writeLong(l);
+		} else if (value instanceof Double d) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(d);
+		} else if (value instanceof Version v) {
+			out.writeByte(VERSION);
+			out.writeInt(v.getMajor());
+			out.writeInt(v.getMinor());
+			out.writeInt(v.getMicro());
+			writeIndex(out, strings, table, v.getQualifier());
+		} else if (value instanceof Collection<?> c) {
+			out.writeByte(LIST);
+			out.writeInt(c.size());
+			for (Object element : c) {
+				writeValue(out, strings, table, element);
+			}
+		} else {
+			throw new IOException("Unsupported attribute value " + value);
+		}
+	}
+
+	private static void writeIndex(DataOutputStream out, Map<String, Integer> strings, List<String> table,
+		String s) throws IOException {
+		Integer index = strings.get(s);
+		if (index == null) {
+			index = table.size();
+			strings.put(s, index);
+			table.add(s);
+		}
+		out.writeInt(index);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
@@ -1,5 +1,6 @@
 package aQute.bnd.repository.osgi;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 
 import java.io.BufferedInputStream;
@@ -11,8 +12,10 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -100,34 +103,54 @@ class OSGiIndex {
 					this.status = "Not Found " + uri;
 					return Collections.emptyList();
 				}
-				// file could be xml, gzipped xml, OR zip with index.xml or
-				// index.xml.gz entry
-				try (InputStream in = new BufferedInputStream(IO.stream(file))) {
-					in.mark(2);
-					int magic = readUnsignedShort(in);
-					in.reset();
-					if (magic == 0x504b) { // "PK" means a zip file
-						try (ZipInputStream zin = new ZipInputStream(in)) {
-							for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
-								switch (entry.getName()) {
-									case "index.xml" :
-									case "index.xml.gz" :
-										try (XMLResourceParser xrp = new XMLResourceParser(zin, name, uri)) {
-											return xrp.parse();
-										}
-									default :
-										break;
+				String key = uri + "#" + SHA256.digest(file)
+					.asHex();
+				File snapshot = IO.getFile(cache, ".snapshots/" + SHA256.digest(uri.toString()
+					.getBytes(UTF_8))
+					.asHex());
+				List<Resource> resources = IndexSnapshot.read(snapshot, key);
+				if (resources != null) {
+					logger.debug("{}: Read index {} from snapshot {}", name, uri, snapshot);
+					return resources;
+				}
+				Set<URI> referrals = new HashSet<>();
+				resources = parse(file, uri, referrals);
+				// a snapshot cannot see changes in a referred index
+				if (resources != null && referrals.isEmpty()) {
+					IndexSnapshot.write(snapshot, key, resources);
+				}
+				return resources;
+			});
+	}
+
+	private List<Resource> parse(File file, URI uri, Set<URI> referrals) throws Exception {
+		// file could be xml, gzipped xml, OR zip with index.xml or
+		// index.xml.gz entry
+		try (InputStream in = new BufferedInputStream(IO.stream(file))) {
+			in.mark(2);
+			int magic = readUnsignedShort(in);
+			in.reset();
+			if (magic == 0x504b) { // "PK" means a zip file
+				try (ZipInputStream zin = new ZipInputStream(in)) {
+					for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+						switch (entry.getName()) {
+							case "index.xml" :
+							case "index.xml.gz" :
+								try (XMLResourceParser xrp = new XMLResourceParser(zin, name, 100, referrals, uri)) {
+									return xrp.parse();
 								}
-							}
-							logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
-							return Collections.emptyList();
+							default :
+								break;
 						}
 					}
-					try (XMLResourceParser xrp = new XMLResourceParser(in, name, uri)) {
-						return xrp.parse();
-					}
+					logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
+					return Collections.emptyList();
 				}
-			});
+			}
+			try (XMLResourceParser xrp = new XMLResourceParser(in, name, 100, referrals, uri)) {
+				return xrp.parse();
+			}
+		}
 	}
 
 	private static final int readUnsignedShort(InputStream in) throws IOException {
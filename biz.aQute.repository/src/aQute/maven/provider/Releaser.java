@@ -107,7 +107,10 @@ class Releaser implements Release {
 						break;
 
 					case OTHER :
-						throw new HttpRequestException((HttpURLConnection) tag.getConnection());
+						if (tag.getConnection() instanceof HttpURLConnection con) {
+							throw new HttpRequestException(con);
+						}
+						throw new HttpRequestException(tag);
 
 					case UNMODIFIED :
 					case UPDATED :
@@ -0,0 +1,84 @@
+package aQute.bnd.repository.osgi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.repository.XMLResourceParser;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class IndexSnapshotTest {
+	@InjectTemporaryDirectory
+	File tmp;
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testdata/big_index.xml"));
+		assertThat(resources).isNotEmpty();
+
+		File snapshot = IO.getFile(tmp, "snapshots/index");
+		IndexSnapshot.write(snapshot, "key", resources);
+		assertThat(snapshot).isFile();
+
+		List<Resource> restored = IndexSnapshot.read(snapshot, "key");
+		assertThat(restored).hasSameSizeAs(resources);
+		for (int i = 0; i < resources.size(); i++) {
+			List<Capability> expected = resources.get(i)
+				.getCapabilities(null);
+			List<Capability> actual = restored.get(i)
+				.getCapabilities(null);
+			assertThat(actual).hasSameSizeAs(expected);
+			for (int c = 0; c < expected.size(); c++) {
+				assertThat(actual.get(c)
+					.getNamespace()).isEqualTo(expected.get(c)
+						.getNamespace());
+				assertThat(actual.get(c)
+					.getAttributes()).isEqualTo(expected.get(c)
+						.getAttributes());
+				assertThat(actual.get(c)
+					.getDirectives()).isEqualTo(expected.get(c)
+						.getDirectives());
+			}
+			List<Requirement> expectedRequirements = resources.get(i)
+				.getRequirements(null);
+			List<Requirement> actualRequirements = restored.get(i)
+				.getRequirements(null);
+			assertThat(actualRequirements).hasSameSizeAs(expectedRequirements);
+			for (int r = 0; r < expectedRequirements.size(); r++) {
+				assertThat(actualRequirements.get(r)
+					.getNamespace()).isEqualTo(expectedRequirements.get(r)
+						.getNamespace());
+				assertThat(actualRequirements.get(r)
+					.getAttributes()).isEqualTo(expectedRequirements.get(r)
+						.getAttributes());
+				assertThat(actualRequirements.get(r)
+					.getDirectives()).isEqualTo(expectedRequirements.get(r)
+						.getDirectives());
+			}
+		}
+		assertThat(restored).isEqualTo(resources);
+	}
+
+	@Test
+	public void testInvalidSnapshot() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testdata/minir5.xml"));
+		File snapshot = IO.getFile(tmp, "index");
+		assertThat(IndexSnapshot.read(snapshot, "key")).isNull();
+
+		IndexSnapshot.write(snapshot, "key", resources);
+		assertThat(IndexSnapshot.read(snapshot, "key")).hasSameSizeAs(resources);
+		assertThat(IndexSnapshot.read(snapshot, "other")).isNull();
+
+		byte[] data = IO.read(snapshot);
+		IO.copy(Arrays.copyOf(data, data.length / 2), snapshot);
+		assertThat(IndexSnapshot.read(snapshot, "key")).isNull();
+	}
+}
@@ -1,5 +1,6 @@
 package aQute.bnd.repository.osgi;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -84,6 +85,23 @@ public class OSGiIndexTest {
 		assertEquals(1, versions.size());
 	}
 
+	@Test
+	public void testSnapshot() throws Exception {
+		HttpClient client = new HttpClient();
+		client.setCache(tmp);
+		List<URI> uris = Collections.singletonList(IO.getFile("testdata/big_index.xml")
+			.toURI());
+		OSGiIndex oi = new OSGiIndex("name", client, cache, uris, 0, false);
+		List<String> list = oi.getBridge()
+			.list(null);
+		assertThat(IO.getFile(cache, ".snapshots")
+			.list()).hasSize(1);
+
+		oi = new OSGiIndex("name", client, cache, uris, 0, false);
+		assertThat(oi.getBridge()
+			.list(null)).isEqualTo(list);
+	}
+
 	public OSGiIndex getIndex(HttpClient client) throws Exception, URISyntaxException {
 		return new OSGiIndex("name", client, cache, Collections.singletonList(
 			new URI("https://raw.githubusercontent.com/osgi/osgi.enroute/v1.0.0/cnf/distro/index.xml")), 0, false);
@@ -14,6 +14,7 @@ import static org.osgi.service.repository.ContentNamespace.CONTENT_NAMESPACE;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -21,6 +22,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -46,8 +48,11 @@ import org.osgi.service.log.LogService;
 import org.osgi.service.repository.Repository;
 import org.osgi.service.resolver.HostedCapability;
 import org.osgi.service.resolver.ResolveContext;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 
 import aQute.bnd.deployer.repository.CapabilityIndex;
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.header.Attrs;
 import aQute.bnd.header.Parameters;
 import aQute.bnd.osgi.Constants;
@@ -91,6 +96,7 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	private final List<Repository>					repositories							= new ArrayList<>();
 	private final List<Requirement>					failed									= new ArrayList<>();
 	private final Map<CacheKey, List<Capability>>	providerCache							= new HashMap<>();
+	private final Map<CacheKey, List<Collection<Capability>>>	prefetched	= new HashMap<>();
 	private final Set<Resource>						optionalRoots							= new HashSet<>();
 	private final ConcurrentMap<Resource, Integer>	resourcePriorities						= new ConcurrentHashMap<>();
 	private Map<String, Set<String>>				effectiveSet							= new HashMap<>();
@@ -104,9 +110,27 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	private int										level									= 0;
 	private Resource								framework;
 	private final AtomicBoolean						reported								= new AtomicBoolean();
+	private final boolean							batched;
 
 	public AbstractResolveContext(LogService log) {
 		this.log = log;
+		this.batched = !overridesFindProviders(getClass());
+	}
+
+	/*
+	 * A subclass that overrides findProviders(Repository, Requirement) must
+	 * see every query, so its requirements are not batched.
+	 */
+	private static boolean overridesFindProviders(Class<?> c) {
+		for (; c != AbstractResolveContext.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("findProviders", Repository.class, Requirement.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// check the superclass
+			}
+		}
+		return false;
 	}
 
 	protected synchronized void init() {
@@ -251,10 +275,14 @@ public abstract class AbstractResolveContext extends ResolveContext {
 		// Second stage results: repository contents.
 		Set<Capability> set = new LinkedHashSet<>();
 
-		// Iterate over the repos
+		// Iterate over the results of the repos in the order of the repos
+		List<Collection<Capability>> results = prefetched.remove(getCacheKey(requirement));
+		if (results == null) {
+			results = findProvidersFromRepositories(requirement);
+		}
 		int order = 0;
-		for (Repository repo : repositories) {
-			for (Capability capability : findProviders(repo, requirement)) {
+		for (Collection<Capability> providers : results) {
+			for (Capability capability : providers) {
 				if (isPermitted(capability.getResource()) && ResourceUtils.isEffective(requirement, capability)) {
 					if (set.add(capability)) {
 						setResourcePriority(order, capability.getResource());
@@ -274,9 +302,88 @@ public abstract class AbstractResolveContext extends ResolveContext {
 		return capabilities;
 	}
 
+	/*
+	 * Query the repositories for the requirement and the other requirements of
+	 * its resource that will be asked for in the same round of the resolver.
+	 * The repositories get a single call for all these requirements, and are
+	 * queried in parallel when there is more than one. The results of the
+	 * other requirements are kept until they are asked for.
+	 */
+	private List<Collection<Capability>> findProvidersFromRepositories(Requirement requirement) {
+		if (!batched) {
+			List<Collection<Capability>> results = new ArrayList<>(repositories.size());
+			for (Repository repo : repositories) {
+				results.add(findProviders(repo, requirement));
+			}
+			return results;
+		}
+		CacheKey key = getCacheKey(requirement);
+		Map<CacheKey, Requirement> batch = new LinkedHashMap<>();
+		batch.put(key, requirement);
+		Resource resource = requirement.getResource();
+		if (resource != null) {
+			for (Requirement r : resource.getRequirements(null)) {
+				if (r.equals(requirement) || !isEffective(r)) {
+					continue;
+				}
+				boolean optional = Namespace.RESOLUTION_OPTIONAL.equals(r.getDirectives()
+					.get(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE));
+				CacheKey k = getCacheKey(r);
+				if ((!optional || optionalRoots.contains(resource)) && !providerCache.containsKey(k)
+					&& !prefetched.containsKey(k)) {
+					batch.putIfAbsent(k, r);
+				}
+			}
+		}
+		Collection<Requirement> requirements = batch.values();
+
+		List<Map<Requirement, Collection<Capability>>> maps = new ArrayList<>(repositories.size());
+		if (repositories.size() > 1) {
+			PromiseFactory promiseFactory = Processor.getPromiseFactory();
+			List<Promise<Map<Requirement, Collection<Capability>>>> promises = new ArrayList<>(repositories.size());
+			for (Repository repo : repositories) {
+				promises.add(promiseFactory.submit(() -> repo.findProviders(requirements)));
+			}
+			for (Promise<Map<Requirement, Collection<Capability>>> promise : promises) {
+				try {
+					maps.add(promise.getValue());
+				} catch (InvocationTargetException e) {
+					throw Exceptions.duck(Exceptions.unrollCause(e, InvocationTargetException.class));
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+						.interrupt();
+					throw Exceptions.duck(e);
+				}
+			}
+		} else {
+			for (Repository repo : repositories) {
+				maps.add(repo.findProviders(requirements));
+			}
+		}
+
+		List<Collection<Capability>> result = null;
+		for (Entry<CacheKey, Requirement> entry : batch.entrySet()) {
+			List<Collection<Capability>> results = new ArrayList<>(maps.size());
+			for (Map<Requirement, Collection<Capability>> map : maps) {
+				results.add(filterBlacklisted(map.get(entry.getValue())));
+			}
+			if (entry.getKey()
+				.equals(key)) {
+				result = results;
+			} else {
+				prefetched.put(entry.getKey(), results);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Return any capabilities from the given repo. This method will filter the
 	 * blacklist.
+	 * <p>
+	 * When a subclass overrides this method, the resolver calls it for every
+	 * repository and requirement. The requirements of a resource are then no
+	 * longer sent to the repositories in a single call.
 	 *
 	 * @param repo The repo to fetch requirements from
 	 * @param requirement the requirement
@@ -285,7 +392,13 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	 */
 	protected Collection<Capability> findProviders(Repository repo, Requirement requirement) {
 		Map<Requirement, Collection<Capability>> map = repo.findProviders(Collections.singleton(requirement));
-		Collection<Capability> caps = map.get(requirement);
+		return filterBlacklisted(map.get(requirement));
+	}
+
+	private Collection<Capability> filterBlacklisted(Collection<Capability> caps) {
+		if (caps == null) {
+			return Collections.emptyList();
+		}
 		caps.removeIf(capability -> isBlacklisted(capability));
 		return caps;
 	}
@@ -108,7 +108,7 @@ public class Bndrun extends Run {
 		Converter<T, Collection<? extends HeaderClause>> runbundlesFormatter) throws Exception {
 
 		checkValidate();
-		RunResolution resolution = RunResolution.resolve(this, this, null);
+		RunResolution resolution = RunResolution.resolveCached(this, this);
 
 		if (!resolution.isOK()) {
 			throw resolution.exception;
@@ -80,6 +80,7 @@ public class BndrunResolveContext extends AbstractResolveContext {
 	private Project						project;
 	private boolean						initialized;
 	private volatile List<ResolverHook>	resolverHooks;
+	private List<Repository>			resolveRepositories	= Collections.emptyList();
 
 	/**
 	 * The preferred constructor
@@ -380,6 +381,7 @@ public class BndrunResolveContext extends AbstractResolveContext {
 			}
 		}
 
+		resolveRepositories = new ArrayList<>(orderedRepositories);
 		Processor repositoryAugments = findRepositoryAugments(orderedRepositories);
 
 		Parameters augments = new Parameters(repositoryAugments.mergeProperties(Constants.AUGMENT), project);
@@ -398,6 +400,14 @@ public class BndrunResolveContext extends AbstractResolveContext {
 		return repositoryAugments;
 	}
 
+	/*
+	 * The repositories selected by -runrepos before they are wrapped to apply
+	 * the augments
+	 */
+	List<Repository> getResolveRepositories() {
+		return resolveRepositories;
+	}
+
 	private List<Repository> getAllRepos() {
 		List<Repository> allRepos;
 		if (project != null && !project.isStandalone()) {
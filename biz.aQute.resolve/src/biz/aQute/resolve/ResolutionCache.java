@@ -0,0 +1,276 @@
+package biz.aQute.resolve;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.osgi.service.repository.Repository;
+
+import aQute.bnd.build.Project;
+import aQute.bnd.build.model.clauses.VersionedClause;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.IdentityCapability;
+import aQute.bnd.service.RepositoryPlugin;
+import aQute.bnd.service.repository.RepositoryDigest;
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+import aQute.lib.json.JSONCodec;
+import aQute.lib.strings.Strings;
+import aQute.libg.cryptography.Digester;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * Stores the run bundles of a resolution with a digest of its inputs. The
+ * inputs are the resolve instructions, the system resource, the input
+ * requirements, and a fingerprint of each repository used by a
+ * {@link BndrunResolveContext}. Calculating the digest does not run the
+ * resolver and does not read the resources of the repositories.
+ * <p>
+ * The fingerprint of a repository is its {@link RepositoryDigest}, the size
+ * and last modified time of the build files for the workspace, or the size
+ * and last modified time of the local files of its location, like its index
+ * file. A repository without a fingerprint, like one with a remote index,
+ * disables the cache.
+ * <p>
+ * The entries are stored next to the entries of the cache used by
+ * {@code -resolve: cache} and {@code -resolve: beforelaunch}, see
+ * {@link RunResolution#getRunBundles(Project, boolean)}, in the
+ * {@code resolutions} folder of the workspace cache. That cache is keyed on
+ * the checksum of the project properties only, this cache also on the
+ * content of the repositories. {@link RunResolution#clearCache} clears both.
+ */
+class ResolutionCache {
+	private final static JSONCodec		codec			= new JSONCodec();
+	private final static int			VERSION			= 1;
+	private final static List<String>	INSTRUCTIONS	= List.of(Constants.RUNREQUIRES, Constants.RUNEE,
+		Constants.RUNFW, Constants.RUNBLACKLIST, Constants.RUNREPOS, Constants.RUNSTARTLEVEL, Constants.AUGMENT,
+		Constants.RESOLVE_EFFECTIVE, Constants.RESOLVE_PREFERENCES, Constants.RESOLVE_REJECT,
+		Constants.RESOLVE_EXCLUDESYSTEM);
+
+	private final Project				project;
+	private final Processor				properties;
+	private final File					file;
+
+	ResolutionCache(Project project, Processor properties) {
+		this.project = project;
+		this.properties = properties;
+		String id = IO.toSafeFileName(project.getPropertiesFile()
+			.getAbsolutePath());
+		this.file = project.getWorkspace()
+			.getCache("resolutions/" + id + ".inputs.json");
+	}
+
+	/**
+	 * Calculate the digest of the inputs of the resolution.
+	 *
+	 * @return The digest or {@code null} if a repository has no fingerprint.
+	 */
+	String key() throws Exception {
+		try (ResolverLogger logger = new ResolverLogger()) {
+			BndrunResolveContext context = new BndrunResolveContext(properties, project, project, logger);
+			context.init();
+
+			Digester<SHA256> digester = SHA256.getDigester();
+			try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(digester, UTF_8))) {
+				pw.println(VERSION);
+				for (String instruction : INSTRUCTIONS) {
+					pw.print(instruction);
+					pw.print('=');
+					pw.println(new Parameters(properties.mergeProperties(instruction), project));
+				}
+
+				pw.println("system");
+				Set<String> capabilities = new TreeSet<>();
+				for (Capability capability : context.getSystemResource()
+					.getCapabilities(null)) {
+					capabilities.add(capability.getNamespace() + ";" + new TreeMap<>(capability.getAttributes()) + ";"
+						+ new TreeMap<>(capability.getDirectives()));
+				}
+				capabilities.forEach(pw::println);
+
+				pw.println("input");
+				for (Requirement requirement : context.getInputResource()
+					.getRequirements(null)) {
+					pw.println(requirement.getNamespace() + ";" + new TreeMap<>(requirement.getAttributes()) + ";"
+						+ new TreeMap<>(requirement.getDirectives()));
+				}
+
+				pw.println("blacklist");
+				Set<String> blacklist = new TreeSet<>();
+				for (Resource resource : context.getBlackList()) {
+					blacklist.add(identity(resource));
+				}
+				blacklist.forEach(pw::println);
+
+				pw.println("effective");
+				context.getEffectiveSet()
+					.forEach((k, v) -> pw.println(k + "=" + new TreeSet<>(v)));
+
+				pw.println("repositories");
+				for (Repository repository : context.getResolveRepositories()) {
+					String fingerprint = fingerprint(repository);
+					if (fingerprint == null) {
+						RunResolution.logger.debug("{} cannot cache the resolution, {} has no fingerprint", project,
+							repository);
+						return null;
+					}
+					pw.println(fingerprint);
+				}
+			}
+			return digester.digest()
+				.asHex();
+		}
+	}
+
+	/**
+	 * Return the run bundles of the last resolution if it had the same key.
+	 */
+	List<VersionedClause> get(String key) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			RunResolution.CacheDTO dto = codec.dec()
+				.from(file)
+				.get(RunResolution.CacheDTO.class);
+			if (key.equals(dto.checksum) && dto.runbundles != null) {
+				return dto.runbundles;
+			}
+		} catch (Exception e) {
+			RunResolution.logger.debug("{} cannot read resolution cache {}", project, file, e);
+			IO.delete(file);
+		}
+		return null;
+	}
+
+	void put(String key, List<VersionedClause> runbundles) throws Exception {
+		RunResolution.CacheDTO dto = new RunResolution.CacheDTO();
+		dto.checksum = key;
+		dto.runbundles = runbundles;
+		IO.mkdirs(file.getParentFile());
+		IO.store(out -> codec.enc()
+			.to(out)
+			.put(dto)
+			.close(), file);
+	}
+
+	/*
+	 * A fingerprint of the content of a repository that is cheap to calculate
+	 * or null if there is none
+	 */
+	private String fingerprint(Repository repository) throws Exception {
+		if (repository instanceof RepositoryDigest repositoryDigest) {
+			return Hex.toHexString(repositoryDigest.getDigest());
+		}
+		StringBuilder sb = new StringBuilder(repository.getClass()
+			.getName());
+		if (repository instanceof WorkspaceResourcesRepository) {
+			for (Project p : project.getWorkspace()
+				.getAllProjects()) {
+				File target = p.getTargetDir();
+				File buildfiles = new File(target, Constants.BUILDFILES);
+				stamp(sb, buildfiles);
+				if (buildfiles.isFile()) {
+					for (String line : IO.collect(buildfiles)
+						.split("\\R")) {
+						if (!line.isBlank()) {
+							stamp(sb, IO.getFile(target, line.trim()));
+						}
+					}
+				}
+			}
+			return sb.toString();
+		}
+		if (repository instanceof RepositoryPlugin plugin) {
+			String location = plugin.getLocation();
+			if (location == null) {
+				return null;
+			}
+			for (String part : Strings.split(location)) {
+				Path path = localPath(part);
+				if (path == null) {
+					return null;
+				}
+				stamp(sb, path.toFile());
+			}
+			return sb.toString();
+		}
+		return null;
+	}
+
+	/*
+	 * The local path of a location or null if it is remote
+	 */
+	private static Path localPath(String location) {
+		try {
+			URI uri = new URI(location);
+			if ("file".equalsIgnoreCase(uri.getScheme())) {
+				return Paths.get(uri);
+			}
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			// not a URI
+		}
+		try {
+			Path path = Paths.get(location);
+			return path.isAbsolute() ? path : null;
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * The size and last modified time of a file or of the files in a directory
+	 */
+	private static void stamp(StringBuilder sb, File file) throws IOException {
+		sb.append('\n')
+			.append(IO.absolutePath(file));
+		if (file.isFile()) {
+			sb.append(';')
+				.append(file.length())
+				.append(';')
+				.append(file.lastModified());
+		} else if (file.isDirectory()) {
+			try (Stream<Path> paths = Files.walk(file.toPath())) {
+				for (Path path : paths.filter(Files::isRegularFile)
+					.sorted()
+					.toList()) {
+					sb.append('\n')
+						.append(path)
+						.append(';')
+						.append(Files.size(path))
+						.append(';')
+						.append(Files.getLastModifiedTime(path)
+							.toMillis());
+				}
+			}
+		}
+	}
+
+	private static String identity(Resource resource) {
+		IdentityCapability identity = ResourceUtils.getIdentityCapability(resource);
+		if (identity == null) {
+			return resource.toString();
+		}
+		return identity.osgi_identity() + ";" + identity.version() + ";" + identity.type();
+	}
+}
@@ -64,6 +64,7 @@ public class RunResolution {
 	public final Exception					exception;
 	public final String						log;
 	public final RunStartLevel				runstartlevel;
+	private final List<VersionedClause>		cached;
 
 	/**
 	 * The main workhorse to resolve
@@ -118,6 +119,47 @@ public class RunResolution {
 		}
 	}
 
+	/**
+	 * Resolve unless the {@link Constants#RESOLVE_CACHE} instruction is set
+	 * and the inputs of the resolution did not change since the last
+	 * successful resolution. A cached resolution only provides the run
+	 * bundles, it has no wiring.
+	 *
+	 * @param project used for reporting errors
+	 * @param actualProperties the actual properties used for resolving
+	 * @return a Resolution
+	 */
+	public static RunResolution resolveCached(Project project, Processor actualProperties) {
+		if (!Processor.isTrue(actualProperties.getProperty(Constants.RESOLVE_CACHE))) {
+			return resolve(project, actualProperties, null);
+		}
+		ResolutionCache cache = new ResolutionCache(project, actualProperties);
+		String key;
+		try {
+			key = cache.key();
+		} catch (Exception e) {
+			logger.debug("{} cannot calculate the resolution cache key", project, e);
+			return resolve(project, actualProperties, null);
+		}
+		if (key == null) {
+			return resolve(project, actualProperties, null);
+		}
+		List<VersionedClause> runbundles = cache.get(key);
+		if (runbundles != null) {
+			logger.debug("{} using cached resolution {}", project, key);
+			return new RunResolution(project, actualProperties, runbundles);
+		}
+		RunResolution resolution = resolve(project, actualProperties, null);
+		if (resolution.isOK()) {
+			try {
+				cache.put(key, resolution.getRunBundles());
+			} catch (Exception e) {
+				logger.debug("{} cannot store the resolution cache", project, e);
+			}
+		}
+		return resolution;
+	}
+
 	/**
 	 * The secondary workhorse to resolve. This can be used if there is no
 	 * interactive editing. In that case the properties to resolve are in the
@@ -142,6 +184,18 @@ public class RunResolution {
 		this.log = log;
 		this.exception = null;
 		this.runstartlevel = getConfig(properties);
+		this.cached = null;
+	}
+
+	RunResolution(Project project, Processor properties, List<VersionedClause> cached) {
+		this.project = project;
+		this.properties = properties;
+		this.required = Collections.emptyMap();
+		this.optional = Collections.emptyMap();
+		this.log = "";
+		this.exception = null;
+		this.runstartlevel = getConfig(properties);
+		this.cached = cached;
 	}
 
 	RunResolution(Project project, Processor properties, Exception e, String log) {
@@ -152,6 +206,17 @@ public class RunResolution {
 		this.required = null;
 		this.optional = null;
 		this.runstartlevel = getConfig(properties);
+		this.cached = null;
+	}
+
+	/**
+	 * Check if the run bundles were taken from the resolution cache instead of
+	 * a resolve.
+	 *
+	 * @return true if this resolution has no wiring
+	 */
+	public boolean isCached() {
+		return cached != null;
 	}
 
 	/**
@@ -264,6 +329,11 @@ public class RunResolution {
 	 * @return a list of ordered bundles
 	 */
 	public List<VersionedClause> getRunBundles() {
+		if (cached != null) {
+			return cached.stream()
+				.map(VersionedClause::clone)
+				.collect(toList());
+		}
 		List<Resource> orderedResources = getOrderedResources();
 		Predicate<Resource> pred = this::isBundle;
 		orderedResources.removeIf(pred.negate());
@@ -535,6 +605,14 @@ public class RunResolution {
 		return cache;
 	}
 
+	/**
+	 * Clear the cached resolutions of the workspace. This clears the cache of
+	 * {@link #getRunBundles(Project, boolean)} and the cache of
+	 * {@link #resolveCached(Project, Processor)}, which share the
+	 * {@code resolutions} folder of the workspace cache.
+	 *
+	 * @param ws the workspace
+	 */
 	public static void clearCache(Workspace ws) {
 		File cache = ws.getCache("resolutions");
 		IO.delete(cache);
@@ -7,15 +7,22 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static test.lib.Utils.createRepo;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
@@ -270,6 +277,106 @@ public class GenericResolveContextResolveTest {
 		return null;
 	}
 
+	/**
+	 * The repositories are queried in parallel, and the other requirements of
+	 * the resource are fetched in the same call to the repository.
+	 */
+	@Test
+	public void testFindProvidersFromRepositories() throws Exception {
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicInteger calls = new AtomicInteger();
+		class SlowRepository extends ResourcesRepository {
+			SlowRepository(Resource resource) {
+				super(resource);
+			}
+
+			@Override
+			public Map<Requirement, Collection<Capability>> findProviders(
+				Collection<? extends Requirement> requirements) {
+				calls.incrementAndGet();
+				latch.countDown();
+				try {
+					// both repositories must be queried at the same time
+					assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				return super.findProviders(requirements);
+			}
+		}
+
+		ResourceBuilder b1 = new ResourceBuilder();
+		b1.addCapability(CapReqBuilder.createCapReqBuilder(IdentityNamespace.IDENTITY_NAMESPACE,
+			Attrs.create(IdentityNamespace.IDENTITY_NAMESPACE, "b1")));
+		b1.addExportPackage("p1", Attrs.create("version", "1.0.0"));
+		ResourceBuilder b2 = new ResourceBuilder();
+		b2.addCapability(CapReqBuilder.createCapReqBuilder(IdentityNamespace.IDENTITY_NAMESPACE,
+			Attrs.create(IdentityNamespace.IDENTITY_NAMESPACE, "b2")));
+		b2.addExportPackage("p1", Attrs.create("version", "2.0.0"));
+		b2.addExportPackage("p2", Attrs.create("version", "1.0.0"));
+
+		GenericResolveContext grc = new GenericResolveContext(logger);
+		grc.addRepository(new SlowRepository(b1.build()));
+		grc.addRepository(new SlowRepository(b2.build()));
+		grc.addEE(EE.JavaSE_17);
+		grc.done();
+
+		ResourceBuilder a = new ResourceBuilder();
+		a.addCapability(CapReqBuilder.createCapReqBuilder(IdentityNamespace.IDENTITY_NAMESPACE,
+			Attrs.create(IdentityNamespace.IDENTITY_NAMESPACE, "a")));
+		a.addImportPackage("p1", new Attrs());
+		a.addImportPackage("p2", new Attrs());
+		List<Requirement> requirements = a.build()
+			.getRequirements(PackageNamespace.PACKAGE_NAMESPACE);
+		Requirement p1 = requirements.get(0);
+		Requirement p2 = requirements.get(1);
+
+		assertNames(grc.findProviders(p1), "b1", "b2");
+		assertThat(calls).hasValue(2);
+		assertNames(grc.findProviders(p2), "b2");
+		assertThat(calls).hasValue(2);
+	}
+
+	/**
+	 * A subclass that overrides findProviders(Repository, Requirement) is
+	 * called for every requirement.
+	 */
+	@Test
+	public void testFindProvidersOverridden() throws Exception {
+		List<Requirement> queried = new ArrayList<>();
+		ResourceBuilder b1 = new ResourceBuilder();
+		b1.addCapability(CapReqBuilder.createCapReqBuilder(IdentityNamespace.IDENTITY_NAMESPACE,
+			Attrs.create(IdentityNamespace.IDENTITY_NAMESPACE, "b1")));
+		b1.addExportPackage("p1", Attrs.create("version", "1.0.0"));
+		b1.addExportPackage("p2", Attrs.create("version", "1.0.0"));
+
+		GenericResolveContext grc = new GenericResolveContext(logger) {
+			@Override
+			protected Collection<Capability> findProviders(Repository repo, Requirement requirement) {
+				queried.add(requirement);
+				return super.findProviders(repo, requirement);
+			}
+		};
+		grc.addRepository(new ResourcesRepository(b1.build()));
+		grc.addEE(EE.JavaSE_17);
+		grc.done();
+
+		ResourceBuilder a = new ResourceBuilder();
+		a.addCapability(CapReqBuilder.createCapReqBuilder(IdentityNamespace.IDENTITY_NAMESPACE,
+			Attrs.create(IdentityNamespace.IDENTITY_NAMESPACE, "a")));
+		a.addImportPackage("p1", new Attrs());
+		a.addImportPackage("p2", new Attrs());
+		List<Requirement> requirements = a.build()
+			.getRequirements(PackageNamespace.PACKAGE_NAMESPACE);
+		Requirement p1 = requirements.get(0);
+		Requirement p2 = requirements.get(1);
+
+		assertNames(grc.findProviders(p1), "b1");
+		assertThat(queried).containsExactly(p1);
+		assertNames(grc.findProviders(p2), "b1");
+		assertThat(queried).containsExactly(p1, p2);
+	}
+
 	void assertNames(List<Capability> providers, String... ids) {
 		Set<String> resourceNames = new HashSet<>();
 		for (Capability cap : providers) {
@@ -122,6 +122,42 @@ public class RunResolutionTest {
 		// assertThat(runbundles).hasSize(22);
 	}
 
+	@Test
+	public void testResolutionCache() throws Exception {
+		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(ws.toFile(), "test.simple/resolve.bndrun"));
+		RunResolution first = RunResolution.resolveCached(bndrun, bndrun);
+		assertThat(first.isOK()).isTrue();
+		assertThat(first.isCached()).isFalse();
+		assertThat(RunResolution.resolveCached(bndrun, bndrun)
+			.isCached()).isFalse();
+
+		bndrun.setProperty(Constants.RESOLVE_CACHE, "true");
+		RunResolution resolved = RunResolution.resolveCached(bndrun, bndrun);
+		assertThat(resolved.isCached()).isFalse();
+		RunResolution cached = RunResolution.resolveCached(bndrun, bndrun);
+		assertThat(cached.isOK()).isTrue();
+		assertThat(cached.isCached()).isTrue();
+		assertThat(cached.getRunBundles()).isEqualTo(first.getRunBundles());
+		assertThat(cached.getRunBundlesAsString()).isEqualTo(first.getRunBundlesAsString());
+
+		// the fingerprint of the repository is the index file
+		File index = IO.getFile(ws.toFile(), "cnf/repo/index.xml");
+		assertThat(index.setLastModified(index.lastModified() + 10_000L)).isTrue();
+		assertThat(RunResolution.resolveCached(bndrun, bndrun)
+			.isCached()).isFalse();
+		assertThat(RunResolution.resolveCached(bndrun, bndrun)
+			.isCached()).isTrue();
+
+		// clearing the workspace resolution cache also clears this cache
+		RunResolution.clearCache(workspace);
+		assertThat(RunResolution.resolveCached(bndrun, bndrun)
+			.isCached()).isFalse();
+
+		bndrun.setProperty(Constants.RUNREQUIRES, bndrun.getProperty(Constants.RUNREQUIRES) + ",bnd.identity;id=foo");
+		RunResolution changed = RunResolution.resolveCached(bndrun, bndrun);
+		assertThat(changed.isCached()).isFalse();
+	}
+
 	@Test
 	public void testResolveCachedWithStandalone() throws Exception {
 		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(tmp.toFile(), "resolver.bndrun"));
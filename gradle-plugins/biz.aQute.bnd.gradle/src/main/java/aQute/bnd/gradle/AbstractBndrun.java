@@ -276,6 +276,8 @@ public abstract class AbstractBndrun extends DefaultTask {
 		bndProject = objects.property(Project.class);
 
 		if (bndWorkspace.isPresent()) {
+			BndWorkspaceService.registered(project.getGradle())
+				.ifPresent(this::usesService);
 			// bundles and properties must not be used for Bnd workspace builds
 			bundles.disallowChanges();
 			properties.disallowChanges();
@@ -498,6 +498,8 @@ public class BndPlugin implements Plugin<Project> {
 			TaskProvider<AbstractArchiveTask> jar = tasks.named(JavaPlugin.JAR_TASK_NAME, AbstractArchiveTask.class,
 				t -> {
 					t.setDescription("Jar this project's bundles.");
+					BndWorkspaceService.registered(project.getGradle())
+						.ifPresent(t::usesService);
 					t.getActions()
 						.clear(); /* Replace the standard task actions */
 					t.setEnabled(!bndProject.isNoBundles());
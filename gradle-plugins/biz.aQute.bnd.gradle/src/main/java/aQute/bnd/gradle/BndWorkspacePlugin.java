@@ -12,7 +12,6 @@ import java.util.regex.Pattern;
 
 import aQute.bnd.build.Workspace;
 import aQute.bnd.exceptions.Exceptions;
-import aQute.bnd.osgi.Constants;
 import aQute.bnd.unmodifiable.Sets;
 import aQute.lib.strings.Strings;
 import groovy.lang.Closure;
@@ -38,6 +37,9 @@ import org.gradle.language.base.plugins.LifecycleBasePlugin;
  * <p>
  * This plugin can be applied to the Settings object in settings.gradle. It can
  * also be applied to the root project in build.gradle.
+ * <p>
+ * The Bnd Workspace is obtained from the {@link BndWorkspaceService} so that it
+ * is reused by later builds in the same Gradle daemon.
  */
 public class BndWorkspacePlugin implements Plugin<Object> {
 	/**
@@ -166,11 +168,12 @@ public class BndWorkspacePlugin implements Plugin<Object> {
 		});
 
 		/* Initialize the Bnd workspace */
-		Workspace.setDriver(Constants.BNDDRIVER_GRADLE);
-		Workspace.addGestalt(Constants.GESTALT_BATCH, null);
-		Workspace workspace = new Workspace(rootDir, cnf);
-		workspace.setOffline(startParameter.isOffline());
 		Gradle gradle = settings.getGradle();
+		result = dynamicObject.tryGetProperty("bnd_workspaceMaxParallelUsages");
+		Workspace workspace = BndWorkspaceService
+			.register(gradle, rootDir, cnf, result.isFound() ? result.getValue() : null)
+			.get()
+			.getWorkspace();
 		bndWorkspaceConfigure(workspace, gradle);
 
 		/*
@@ -259,14 +262,13 @@ public class BndWorkspacePlugin implements Plugin<Object> {
 		Workspace bndWorkspace = (Workspace) workspace.findProperty("bndWorkspace");
 		if (Objects.isNull(bndWorkspace)) {
 			// if not passed from settings
-			Workspace.setDriver(Constants.BNDDRIVER_GRADLE);
-			Workspace.addGestalt(Constants.GESTALT_BATCH, null);
 			Gradle gradle = workspace.getGradle();
 			File rootDir = unwrapFile(workspace.getLayout()
 				.getProjectDirectory());
-			bndWorkspace = new Workspace(rootDir, bnd_cnf);
-			bndWorkspace.setOffline(gradle.getStartParameter()
-				.isOffline());
+			bndWorkspace = BndWorkspaceService
+				.register(gradle, rootDir, bnd_cnf, workspace.findProperty("bnd_workspaceMaxParallelUsages"))
+				.get()
+				.getWorkspace();
 			ext.set("bndWorkspace", bndWorkspace);
 			bndWorkspaceConfigure(bndWorkspace, gradle);
 		}
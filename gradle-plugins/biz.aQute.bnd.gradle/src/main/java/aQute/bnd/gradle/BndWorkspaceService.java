@@ -0,0 +1,280 @@
+package aQute.bnd.gradle;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import aQute.bnd.build.Workspace;
+import aQute.bnd.osgi.Constants;
+import aQute.lib.io.IO;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.internal.plugins.DslObject;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.api.services.BuildServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BuildService holding the Bnd Workspace.
+ * <p>
+ * The Bnd Workspace is kept for the life of the Gradle daemon so that the
+ * repositories and their indexes are not initialized again for every build.
+ * The Bnd Workspace is reused as long as the files in the cnf folder are not
+ * changed. The bnd projects are refreshed every time the Bnd Workspace is
+ * reused. The Bnd Workspace is not reused when a {@code bndWorkspaceConfigure}
+ * hook is set since the hook must only run on a new Bnd Workspace. At most
+ * {@value #MAX_WORKSPACES} Bnd Workspaces are kept and the least recently used
+ * Bnd Workspace is closed when the limit is exceeded.
+ * <p>
+ * The service is registered with the name {@code bndWorkspace}. The maximum
+ * number of tasks using the service in parallel can be set with the
+ * {@code bnd_workspaceMaxParallelUsages} property. It defaults to the maximum
+ * number of Gradle workers.
+ */
+public abstract class BndWorkspaceService implements BuildService<BndWorkspaceService.Parameters>, AutoCloseable {
+	/**
+	 * Name of the service.
+	 */
+	public static final String						NAME			= "bndWorkspace";
+
+	/**
+	 * Maximum number of Bnd Workspaces kept for later builds.
+	 */
+	public static final int							MAX_WORKSPACES	= 4;
+
+	private static final Logger						logger			= LoggerFactory
+		.getLogger(BndWorkspaceService.class);
+
+	/*
+	 * The Bnd Workspaces kept for later builds in the order they were last
+	 * used.
+	 */
+	private static final Map<File, CachedWorkspace>	workspaces		= new LinkedHashMap<>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, CachedWorkspace> eldest) {
+			if (size() > MAX_WORKSPACES) {
+				IO.close(eldest.getValue()
+					.workspace());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * Parameters of the service.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+		/**
+		 * The root folder of the workspace.
+		 *
+		 * @return The root folder of the workspace.
+		 */
+		DirectoryProperty getRootDir();
+
+		/**
+		 * The name of the cnf folder.
+		 *
+		 * @return The name of the cnf folder.
+		 */
+		Property<String> getCnf();
+
+		/**
+		 * The offline mode of the build.
+		 *
+		 * @return The offline mode of the build.
+		 */
+		Property<Boolean> getOffline();
+
+		/**
+		 * Whether the Bnd Workspace can be reused by later builds.
+		 *
+		 * @return Whether the Bnd Workspace can be reused by later builds.
+		 */
+		Property<Boolean> getReuse();
+	}
+
+	private record CachedWorkspace(Workspace workspace, Map<File, Long> snapshot) {}
+
+	private Workspace workspace;
+
+	/**
+	 * Default public constructor.
+	 */
+	public BndWorkspaceService() {}
+
+	/**
+	 * Register the service if it is not already registered.
+	 *
+	 * @param gradle The Gradle object of the build.
+	 * @param rootDir The root folder of the workspace.
+	 * @param cnf The name of the cnf folder.
+	 * @param maxParallelUsages The value of the
+	 *            {@code bnd_workspaceMaxParallelUsages} property or
+	 *            {@code null}.
+	 * @return The provider of the service.
+	 */
+	public static Provider<BndWorkspaceService> register(Gradle gradle, File rootDir, String cnf,
+		Object maxParallelUsages) {
+		return gradle.getSharedServices()
+			.registerIfAbsent(NAME, BndWorkspaceService.class, spec -> {
+				spec.getParameters()
+					.getRootDir()
+					.set(rootDir);
+				spec.getParameters()
+					.getCnf()
+					.set(cnf);
+				spec.getParameters()
+					.getOffline()
+					.set(Boolean.valueOf(gradle.getStartParameter()
+						.isOffline()));
+				spec.getParameters()
+					.getReuse()
+					.set(Boolean.valueOf(!new DslObject(gradle).getExtensions()
+						.getExtraProperties()
+						.has("bndWorkspaceConfigure")));
+				spec.getMaxParallelUsages()
+					.set(Objects.nonNull(maxParallelUsages) ? Integer.valueOf(maxParallelUsages.toString())
+						: Integer.valueOf(gradle.getStartParameter()
+							.getMaxWorkerCount()));
+			});
+	}
+
+	/**
+	 * Return the registered service.
+	 *
+	 * @param gradle The Gradle object of the build.
+	 * @return The provider of the service if it is registered.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Optional<Provider<BndWorkspaceService>> registered(Gradle gradle) {
+		return Optional.ofNullable(gradle.getSharedServices()
+			.getRegistrations()
+			.findByName(NAME))
+			.map(BuildServiceRegistration::getService)
+			.map(service -> (Provider<BndWorkspaceService>) service);
+	}
+
+	/**
+	 * Return the Bnd Workspace.
+	 * <p>
+	 * The Bnd Workspace of a previous build is returned if none of the files in
+	 * the cnf folder have changed and no {@code bndWorkspaceConfigure} hook is
+	 * set. Otherwise a new Bnd Workspace is created.
+	 *
+	 * @return The Bnd Workspace.
+	 * @throws Exception An exception while creating the Bnd Workspace.
+	 */
+	public synchronized Workspace getWorkspace() throws Exception {
+		if (Objects.isNull(workspace)) {
+			File rootDir = getParameters().getRootDir()
+				.get()
+				.getAsFile();
+			String cnf = getParameters().getCnf()
+				.get();
+			workspace = workspace(rootDir, cnf, getParameters().getReuse()
+				.getOrElse(Boolean.TRUE)
+				.booleanValue());
+			workspace.setOffline(getParameters().getOffline()
+				.get()
+				.booleanValue());
+		}
+		return workspace;
+	}
+
+	/**
+	 * Close the Bnd Workspace if it is not kept for later builds.
+	 */
+	@Override
+	public synchronized void close() {
+		if (Objects.nonNull(workspace)) {
+			Workspace closing = workspace;
+			synchronized (workspaces) {
+				boolean kept = workspaces.values()
+					.stream()
+					.anyMatch(cached -> cached.workspace() == closing);
+				if (kept && !closing.isValid()) {
+					workspaces.values()
+						.removeIf(cached -> cached.workspace() == closing);
+					kept = false;
+				}
+				if (!kept) {
+					IO.close(closing);
+				}
+			}
+			workspace = null;
+		}
+	}
+
+	private static Workspace workspace(File rootDir, String cnf, boolean reuse) throws Exception {
+		File buildDir = IO.getFile(rootDir, cnf)
+			.getCanonicalFile();
+		synchronized (workspaces) {
+			CachedWorkspace cached = workspaces.remove(buildDir);
+			if (Objects.nonNull(cached)) {
+				Workspace workspace = cached.workspace();
+				if (reuse && workspace.isValid() && cached.snapshot()
+					.equals(snapshot(workspace))) {
+					logger.debug("Reusing the Bnd Workspace {}", buildDir);
+					workspace.clear();
+					workspace.refreshProjects();
+					for (aQute.bnd.build.Project project : workspace.getAllProjects()) {
+						if (project.isCnf()) {
+							continue;
+						}
+						project.refresh();
+						project.clear();
+					}
+					workspaces.put(buildDir, new CachedWorkspace(workspace, snapshot(workspace)));
+					return workspace;
+				}
+				IO.close(workspace);
+			}
+
+			Workspace.setDriver(Constants.BNDDRIVER_GRADLE);
+			Workspace.addGestalt(Constants.GESTALT_BATCH, null);
+			Workspace workspace = new Workspace(rootDir, cnf);
+			if (reuse) {
+				workspaces.put(buildDir, new CachedWorkspace(workspace, snapshot(workspace)));
+			}
+			return workspace;
+		}
+	}
+
+	/*
+	 * The last modified times of the workspace properties, the included files,
+	 * and the files in the cnf and cnf/ext folders, like the repository index
+	 * files. The folders in cnf, like the cache folder and the generated
+	 * output, are not included.
+	 */
+	private static Map<File, Long> snapshot(Workspace workspace) {
+		Map<File, Long> snapshot = new TreeMap<>();
+		File propertiesFile = workspace.getPropertiesFile();
+		if (Objects.nonNull(propertiesFile)) {
+			snapshot.put(propertiesFile, Long.valueOf(propertiesFile.lastModified()));
+		}
+		for (File file : workspace.getIncluded()) {
+			snapshot.put(file, Long.valueOf(file.lastModified()));
+		}
+		File buildDir = workspace.getBuildDir();
+		for (File dir : new File[] {
+			buildDir, new File(buildDir, "ext")
+		}) {
+			for (File file : IO.listFiles(dir)) {
+				if (file.isFile()) {
+					snapshot.put(file, Long.valueOf(file.lastModified()));
+				}
+			}
+		}
+		return snapshot;
+	}
+}
@@ -10,6 +10,7 @@ import java.util.regex.Pattern
 
 import static org.gradle.testkit.runner.TaskOutcome.FAILED
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
+import static org.gradle.testkit.runner.TaskOutcome.UP_TO_DATE
 
 class TestBndPlugin extends Specification {
 
@@ -80,6 +81,40 @@ class TestBndPlugin extends Specification {
 		result.output =~ Pattern.quote("### Project test.simple has BndPlugin applied")
 	}
 
+	def "Bnd Workspace Plugin bndWorkspaceConfigure runs on a new Bnd Workspace"() {
+		given:
+		String testProject = "workspaceplugin1"
+		File testProjectDir = new File(testResources, testProject)
+		assert testProjectDir.isDirectory()
+		File simple_bundle = new File(testProjectDir, "test.simple/generated/test.simple.jar")
+
+		when:
+		def result = TestHelper.getGradleRunner()
+				.withProjectDir(testProjectDir)
+				.withArguments("-Pbnd_plugin=${pluginClasspath}", "--stacktrace", "--rerun-tasks", ":test.simple:jar")
+				.forwardOutput()
+				.build()
+
+		then:
+		result.task(":test.simple:jar").outcome == SUCCESS
+		new JarFile(simple_bundle).withCloseable {
+			it.getManifest().getMainAttributes().getValue("BndWorkspaceConfigure") == "set"
+		}
+
+		when:
+		result = TestHelper.getGradleRunner()
+				.withProjectDir(testProjectDir)
+				.withArguments("-Pbnd_plugin=${pluginClasspath}", "--stacktrace", "--rerun-tasks", ":test.simple:jar")
+				.forwardOutput()
+				.build()
+
+		then:
+		result.task(":test.simple:jar").outcome == SUCCESS
+		new JarFile(simple_bundle).withCloseable {
+			it.getManifest().getMainAttributes().getValue("BndWorkspaceConfigure") == "set"
+		}
+	}
+
 	def "Bnd Workspace Plugin echo/bndproperties Test"() {
 		given:
 		String testProject = "workspaceplugin5"
@@ -335,6 +370,48 @@ class TestBndPlugin extends Specification {
 		new File(testReports, "testOSGi/TEST-test.simple-0.0.0.xml").isFile()
 	}
 
+	def "Bnd Workspace Plugin reuses the Bnd Workspace"() {
+		given:
+		String testProject = "workspaceplugin4"
+		File testProjectDir = new File(testResources, testProject)
+		assert testProjectDir.isDirectory()
+
+		when:
+		def result = TestHelper.getGradleRunner()
+				.withProjectDir(testProjectDir)
+				.withArguments("-Pbnd_plugin=${pluginClasspath}", "--stacktrace", ":test.simple:jar")
+				.forwardOutput()
+				.build()
+
+		then:
+		result.task(":test.simple:jar").outcome in [SUCCESS, UP_TO_DATE]
+
+		when:
+		result = TestHelper.getGradleRunner()
+				.withProjectDir(testProjectDir)
+				.withArguments("-Pbnd_plugin=${pluginClasspath}", "--stacktrace", "--debug", ":test.simple:jar")
+				.forwardOutput()
+				.build()
+
+		then:
+		result.task(":test.simple:jar").outcome in [SUCCESS, UP_TO_DATE]
+		result.output =~ Pattern.quote("Reusing the Bnd Workspace")
+
+		when:
+		File index = new File(testProjectDir, "cnf/ext/test.mvn")
+		index.text = "org.osgi:osgi.annotation:6.0.1\n"
+		result = TestHelper.getGradleRunner()
+				.withProjectDir(testProjectDir)
+				.withArguments("-Pbnd_plugin=${pluginClasspath}", "--stacktrace", "--debug", ":test.simple:jar")
+				.forwardOutput()
+				.build()
+		index.delete()
+
+		then:
+		result.task(":test.simple:jar").outcome in [SUCCESS, UP_TO_DATE]
+		!(result.output =~ Pattern.quote("Reusing the Bnd Workspace"))
+	}
+
 	def "Bnd Plugin workspace not rootProject"() {
 		given:
 		String testProject = "workspaceplugin8"
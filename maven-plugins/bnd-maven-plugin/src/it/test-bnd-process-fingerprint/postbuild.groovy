@@ -0,0 +1,21 @@
+import java.util.jar.Attributes
+import java.util.jar.JarFile;
+
+// Check the bundle exists!
+File fingerprint_bundle = new File(basedir, 'target/test-bnd-process-fingerprint-0.0.1.jar')
+assert fingerprint_bundle.isFile()
+
+// The bundle of the second build still has the generated manifest and component
+JarFile fingerprint_jar = new JarFile(fingerprint_bundle)
+Attributes fingerprint_manifest = fingerprint_jar.getManifest().getMainAttributes()
+assert fingerprint_manifest.getValue('Bundle-SymbolicName') == 'test-bnd-process-fingerprint'
+assert fingerprint_manifest.getValue('Bundle-Version') == '0.0.1.bndqual'
+assert fingerprint_manifest.getValue('Service-Component') == 'OSGI-INF/org.example.fingerprint.ExampleComponent.xml'
+assert fingerprint_jar.getEntry('OSGI-INF/org.example.fingerprint.ExampleComponent.xml') != null
+fingerprint_jar.close()
+
+// Only the second build skipped the bnd processing
+File build_log = new File(basedir, 'build.log')
+assert build_log.isFile()
+String skipped = 'skip bnd processing because the inputs did not change since the last build'
+assert build_log.text.count(skipped) == 1
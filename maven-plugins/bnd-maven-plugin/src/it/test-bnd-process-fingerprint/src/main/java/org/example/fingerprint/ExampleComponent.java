@@ -0,0 +1,6 @@
+package org.example.fingerprint;
+
+import org.osgi.service.component.annotations.Component;
+
+@Component(service = ExampleComponent.class)
+public class ExampleComponent {}
@@ -129,6 +129,16 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 	@Parameter(property = "bnd.skipIfEmpty", defaultValue = "false")
 	boolean					skipIfEmpty;
 
+	/**
+	 * Skip building the bundle if the inputs did not change since the last
+	 * successful execution. The inputs are the bnd instructions, the
+	 * {@code classesDir} directory, the source and resource directories, and
+	 * the dependencies. Their fingerprint is stored in the build directory.
+	 * This does not apply to incremental builds in the IDE.
+	 */
+	@Parameter(property = "bnd.fingerprint", defaultValue = "true")
+	boolean					fingerprint;
+
 	/**
 	 * Timestamp for reproducible output archive entries, either formatted as ISO 8601
 	 * {@code yyyy-MM-dd'T'HH:mm:ssXXX} or as an int representing seconds since the epoch.
@@ -514,6 +524,25 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 			logger.debug("builder properties: {}", builder.getProperties());
 			logger.debug("builder delta: {}", delta);
 
+			// Skip the build if the inputs did not change since the last
+			// successful build
+			String goal = mojoExecution.getMojoDescriptor()
+				.getGoal();
+			File fingerprintFile = getFingerprintFile();
+			String inputs = null;
+			if (fingerprint && !buildContext.isIncremental()) {
+				inputs = fingerprintInputs(builder, buildpath, sourcepath);
+				File target = isPackagingGoal(goal) ? getArtifactFile() : getManifestPath();
+				if (target.isFile() && Fingerprint.matches(fingerprintFile, fingerprint(inputs, classesDir))) {
+					logger.info("skip bnd processing because the inputs did not change since the last build");
+					if (isPackagingGoal(goal)) {
+						attachArtifactToProject(target);
+					}
+					return;
+				}
+				IO.delete(fingerprintFile);
+			}
+
 			if (delta || (builder.getJar() == null) || (builder.lastModified() > builder.getJar()
 				.lastModified())) {
 				// Set builder paths
@@ -526,8 +555,6 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 				// If a bnd-maven-plugin packaging goal is used it means
 				// this execution is responsible for creating and attaching the
 				// target artifact to the project
-				String goal = mojoExecution.getMojoDescriptor()
-					.getGoal();
 				if (isPackagingGoal(goal)) {
 					// However, if extensions for this plugin are not enabled
 					// the maven-(jar|war)-plugin will also execute, resulting in
@@ -561,6 +588,12 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 
 			// Finally, report
 			reportErrorsAndWarnings(builder);
+
+			// The classes directory is fingerprinted after the build since
+			// the manifest and the generated resources can be written to it
+			if (inputs != null) {
+				Fingerprint.store(fingerprintFile, fingerprint(inputs, classesDir));
+			}
 		} catch (MojoExecutionException | MojoFailureException e) {
 			throw e;
 		} catch (Exception e) {
@@ -624,7 +657,10 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 			}
 			buildContext.setValue(LAST_MODIFIED, artifactFile.lastModified());
 		}
+		attachArtifactToProject(artifactFile);
+	}
 
+	private void attachArtifactToProject(File artifactFile) {
 		// If there is a classifier artifact must be attached to the
 		// project using that classifier
 		Optional<String> classifier = getClassifier();
@@ -666,6 +702,35 @@ public abstract class AbstractBndMavenPlugin extends AbstractMojo {
 			.orElse("") + "." + getExtension(project.getPackaging()));
 	}
 
+	private File getFingerprintFile() {
+		return new File(project.getBuild()
+			.getDirectory(), "bnd/" + mojoExecution.getExecutionId() + ".fingerprint");
+	}
+
+	private String fingerprintInputs(Builder builder, List<Object> buildpath, List<File> sourcepath) throws Exception {
+		Fingerprint inputs = new Fingerprint().add(mojoExecution.getMojoDescriptor()
+			.getId())
+			.add(project.getId())
+			.add(finalName)
+			.add(getClassifier().orElse(""))
+			.add(includeClassesDir)
+			.addProperties(builder)
+			.addContent(project.getFile());
+		for (File dir : sourcepath) {
+			inputs.addStamp(dir);
+		}
+		for (Object entry : buildpath) {
+			inputs.addBuildpath(entry);
+		}
+		return inputs.digest();
+	}
+
+	private static String fingerprint(String inputs, File classesDir) throws IOException {
+		return new Fingerprint().add(inputs)
+			.addContent(classesDir)
+			.digest();
+	}
+
 	private String getExtension(String type) {
 		ArtifactHandler artifactHandler = artifactHandlerManager.getArtifactHandler(type);
 		if (artifactHandler != null) {
@@ -0,0 +1,164 @@
+package aQute.bnd.maven.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import aQute.bnd.osgi.Builder;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+import aQute.lib.hex.Hex;
+import aQute.lib.io.IO;
+
+/**
+ * A digest of the inputs of a bnd-maven-plugin execution. The inputs are the
+ * effective bnd properties, the bnd file and its included files, the content
+ * of the classes directory, the source path, and the build path. The
+ * fingerprint of the last successful execution is stored in the build
+ * directory so that the next execution can skip building the bundle if its
+ * inputs did not change.
+ */
+class Fingerprint {
+	private final static int	VERSION	= 1;
+
+	private final MessageDigest	digest;
+
+	Fingerprint() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		add(VERSION);
+	}
+
+	Fingerprint add(Object value) {
+		digest.update(String.valueOf(value)
+			.getBytes(UTF_8));
+		digest.update((byte) 0);
+		return this;
+	}
+
+	/**
+	 * Add the properties of the builder, including the inherited project
+	 * properties, sorted by key, and the content of the properties file and the
+	 * included files.
+	 */
+	Fingerprint addProperties(Builder builder) throws IOException {
+		Map<String, String> properties = new TreeMap<>();
+		for (String key : builder.getProperties()
+			.stringPropertyNames()) {
+			properties.put(key, builder.getProperties()
+				.getProperty(key));
+		}
+		add(properties);
+		File propertiesFile = builder.getPropertiesFile();
+		if (propertiesFile != null) {
+			addContent(propertiesFile);
+		}
+		List<File> included = builder.getIncluded();
+		if (included != null) {
+			for (File file : included) {
+				addContent(file);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add the content of a file or of all files in a directory.
+	 */
+	Fingerprint addContent(File file) throws IOException {
+		add(file.getAbsolutePath());
+		if (file.isFile()) {
+			digest.update(IO.read(file));
+		} else if (file.isDirectory()) {
+			for (Path path : files(file)) {
+				add(file.toPath()
+					.relativize(path));
+				addContent(path.toFile());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add the path, size, and last modified time of a file or all files in a
+	 * directory. This is used for the build path and the source path where
+	 * reading all content would be as expensive as building the bundle.
+	 */
+	Fingerprint addStamp(File file) throws IOException {
+		add(file.getAbsolutePath());
+		if (file.isFile()) {
+			add(file.length()).add(file.lastModified());
+		} else if (file.isDirectory()) {
+			for (Path path : files(file)) {
+				add(file.toPath()
+					.relativize(path)).add(Files.size(path))
+						.add(Files.getLastModifiedTime(path)
+							.toMillis());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add an entry of the build path, a file or a Jar.
+	 */
+	Fingerprint addBuildpath(Object entry) throws Exception {
+		if (entry instanceof Jar jar) {
+			add(jar.getSource());
+			for (Map.Entry<String, Resource> resource : jar.getResources()
+				.entrySet()) {
+				add(resource.getKey()).add(resource.getValue()
+					.size())
+					.add(resource.getValue()
+						.lastModified());
+			}
+			return this;
+		}
+		if (entry instanceof File file) {
+			return addStamp(file);
+		}
+		return add(entry);
+	}
+
+	String digest() {
+		return Hex.toHexString(digest.digest());
+	}
+
+	/**
+	 * Return true if the fingerprint of the last successful execution was the
+	 * same.
+	 */
+	static boolean matches(File file, String fingerprint) {
+		try {
+			return file.isFile() && fingerprint.equals(IO.collect(file)
+				.trim());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	static void store(File file, String fingerprint) throws IOException {
+		IO.mkdirs(file.getParentFile());
+		IO.store(fingerprint, file);
+	}
+
+	private static List<Path> files(File dir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir.toPath())) {
+			return paths.filter(Files::isRegularFile)
+				.sorted()
+				.toList();
+		}
+	}
+}